@@ -0,0 +1,7 @@
+# Rules added to the 'benchmark' build type only.
+# The :benchmark module calls the app's classes directly, so they keep their names,
+# while code shrinking and optimization stay on to measure release-like code.
+-dontobfuscate
+-keep public class com.example.android.materialme.** {
+   public *;
+}
@@ -15,3 +15,16 @@
 #-keepclassmembers class fqcn.of.javascript.interface.for.webview {
 #   public *;
 #}
+
+# Glide: keep the generated module and the AppGlideModule it is created from
+-keep public class * extends com.bumptech.glide.module.AppGlideModule
+-keep class com.bumptech.glide.GeneratedAppGlideModuleImpl
+-keep public enum com.bumptech.glide.load.ImageHeaderParser$** {
+  **[] $VALUES;
+  public *;
+}
+
+# android:onClick handlers referenced from the layouts
+-keepclassmembers class com.example.android.materialme.** extends android.app.Activity {
+   public void *(android.view.View);
+}
@@ -0,0 +1,97 @@
+package com.example.android.materialme;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.os.Bundle;
+import android.util.Log;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.android.materialme.image.SportImages;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Times measure and layout passes of list_item and checks that the card's size
+ * does not depend on the image being loaded.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ListItemLayoutBenchmark {
+
+    private static final String TAG = "ListItemLayoutBenchmark";
+    private static final int WARM_UP_PASSES = 20;
+    private static final int MEASURED_PASSES = 200;
+    private static final int CARD_WIDTH = 1000;
+
+    @Test
+    public void imageHeight_isKnownBeforeBitmap() {
+        final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+
+        instrumentation.runOnMainSync(() -> {
+            View card = inflateCard(instrumentation);
+            ImageView image = card.findViewById(R.id.sports_image);
+            image.setImageDrawable(null);
+
+            measureAndLayout(card);
+
+            assertEquals(SportImages.cardHeight(image.getWidth()), image.getHeight());
+        });
+    }
+
+    @Test
+    public void measureAndLayoutPerPass() {
+        final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        final long[] passNanos = new long[MEASURED_PASSES];
+
+        instrumentation.runOnMainSync(() -> {
+            View card = inflateCard(instrumentation);
+
+            for (int i = 0; i < WARM_UP_PASSES + MEASURED_PASSES; i++) {
+                //Rebinding text invalidates the layout, as it does during scroll
+                card.forceLayout();
+                card.findViewById(R.id.subTitle).forceLayout();
+
+                long start = System.nanoTime();
+                measureAndLayout(card);
+                long elapsed = System.nanoTime() - start;
+
+                if (i >= WARM_UP_PASSES) {
+                    passNanos[i - WARM_UP_PASSES] = elapsed;
+                }
+            }
+        });
+
+        Arrays.sort(passNanos);
+        long median = passNanos[MEASURED_PASSES / 2];
+        Log.i(TAG, "list_item measure + layout median: " + median / 1000 + " us");
+
+        Bundle results = new Bundle();
+        results.putLong("measure_layout_median_ns", median);
+        instrumentation.sendStatus(0, results);
+
+        assertTrue(median > 0);
+    }
+
+    private static View inflateCard(Instrumentation instrumentation) {
+        Context context = new ContextThemeWrapper(instrumentation.getTargetContext(), R.style.AppTheme);
+        FrameLayout parent = new FrameLayout(context);
+        return LayoutInflater.from(context).inflate(R.layout.list_item, parent, false);
+    }
+
+    private static void measureAndLayout(View card) {
+        card.measure(View.MeasureSpec.makeMeasureSpec(CARD_WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+        card.layout(0, 0, card.getMeasuredWidth(), card.getMeasuredHeight());
+    }
+}
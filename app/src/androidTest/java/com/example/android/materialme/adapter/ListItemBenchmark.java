@@ -0,0 +1,87 @@
+package com.example.android.materialme.adapter;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.os.Bundle;
+import android.util.Log;
+import android.view.ContextThemeWrapper;
+
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.android.materialme.R;
+import com.example.android.materialme.model.Sport;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures the time to inflate and to bind one list_item view holder on a device.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ListItemBenchmark {
+
+    private static final String TAG = "ListItemBenchmark";
+    private static final int WARM_UP_HOLDERS = 10;
+    private static final int MEASURED_HOLDERS = 100;
+
+    @Test
+    public void inflateAndBindPerHolder() {
+        final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        final Context context = new ContextThemeWrapper(instrumentation.getTargetContext(), R.style.AppTheme);
+
+        final long[] inflateNanos = new long[MEASURED_HOLDERS];
+        final long[] bindNanos = new long[MEASURED_HOLDERS];
+
+        //Glide requests must be started on the main thread
+        instrumentation.runOnMainSync(() -> {
+            RecyclerView parent = new RecyclerView(context);
+            parent.setLayoutManager(new GridLayoutManager(context, 2));
+
+            List<Sport> sports = new ArrayList<>();
+            for (int i = 0; i < WARM_UP_HOLDERS + MEASURED_HOLDERS; i++) {
+                sports.add(new Sport(i, "Sport " + i, "Here is some news about sport " + i, R.drawable.img_badminton));
+            }
+            SportsAdapter adapter = new SportsAdapter(context, new ArrayList<>());
+            adapter.submitList(sports);
+
+            for (int i = 0; i < WARM_UP_HOLDERS + MEASURED_HOLDERS; i++) {
+                long start = System.nanoTime();
+                RecyclerView.ViewHolder holder = adapter.onCreateViewHolder(parent, SportsAdapter.VIEW_TYPE_SPORT);
+                long inflated = System.nanoTime();
+                adapter.onBindViewHolder(holder, i);
+                long bound = System.nanoTime();
+
+                if (i >= WARM_UP_HOLDERS) {
+                    inflateNanos[i - WARM_UP_HOLDERS] = inflated - start;
+                    bindNanos[i - WARM_UP_HOLDERS] = bound - inflated;
+                }
+            }
+        });
+
+        long inflateMedian = median(inflateNanos);
+        long bindMedian = median(bindNanos);
+        Log.i(TAG, "list_item inflate median: " + inflateMedian / 1000 + " us, bind median: " + bindMedian / 1000 + " us");
+
+        Bundle results = new Bundle();
+        results.putLong("inflate_median_ns", inflateMedian);
+        results.putLong("bind_median_ns", bindMedian);
+        instrumentation.sendStatus(0, results);
+
+        assertTrue(inflateMedian > 0);
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
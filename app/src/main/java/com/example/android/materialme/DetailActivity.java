@@ -1,21 +1,49 @@
 package com.example.android.materialme;
 
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.view.ViewCompat;
 
+import android.graphics.drawable.Drawable;
 import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.Log;
 import android.widget.ImageView;
 import android.widget.TextView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.target.Target;
+import com.example.android.materialme.image.SportImages;
 
 public class DetailActivity extends AppCompatActivity {
 
+    private static final String TAG = "DetailActivity";
+
+    //Upper bound for holding the enter transition, so a slow decode never freezes the screen
+    private static final long MAX_POSTPONE_MILLIS = 500;
+
     private TextView sportsTitle;
     private ImageView sportsImage;
 
+    private long mCreateTime;
+    private boolean mTransitionStarted;
+
+    /**
+     * Gets the shared element name of a sport's image
+     * @param sportId The id of the sport
+     * @return The transition name used by both the card and the detail image
+     */
+    public static String imageTransitionName(long sportId) {
+        return "sport_image_" + sportId;
+    }
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        mCreateTime = SystemClock.uptimeMillis();
         setContentView(R.layout.activity_detail);
 
         sportsTitle = findViewById(R.id.title_detail);
@@ -24,6 +52,71 @@ public class DetailActivity extends AppCompatActivity {
 
         sportsTitle.setText(getIntent().getStringExtra("title"));
 
-        Glide.with(this).load(getIntent().getIntExtra("imageResource", 0)).into(sportsImage);
+        //Hold the enter transition until the image is ready to be shown
+        String transitionName = getIntent().getStringExtra("transitionName");
+        if (transitionName != null) {
+            ViewCompat.setTransitionName(sportsImage, transitionName);
+            supportPostponeEnterTransition();
+            sportsImage.postDelayed(this::startTransitionOnce, MAX_POSTPONE_MILLIS);
+        }
+
+        //Show the card image from the memory cache while the larger detail image decodes
+        int imageResource = getIntent().getIntExtra("imageResource", 0);
+        int cardImageWidth = getIntent().getIntExtra("cardImageWidth", 0);
+        SportImages.detail(Glide.with(this),
+                imageResource,
+                getResources().getDisplayMetrics().widthPixels,
+                cardImageWidth,
+                mThumbnailListener)
+                .dontAnimate()
+                .listener(mImageListener)
+                .into(sportsImage);
+    }
+
+    /**
+     * Starts the transition as soon as the cached card image is shown, a cache miss is simply ignored
+     */
+    private final RequestListener<Drawable> mThumbnailListener = new RequestListener<Drawable>() {
+        @Override
+        public boolean onLoadFailed(@Nullable GlideException e, Object model, Target<Drawable> target, boolean isFirstResource) {
+            return false;
+        }
+
+        @Override
+        public boolean onResourceReady(Drawable resource, Object model, Target<Drawable> target, DataSource dataSource, boolean isFirstResource) {
+            //Let the view receive the drawable first, then start on the next frame
+            sportsImage.post(DetailActivity.this::startTransitionOnce);
+            return false;
+        }
+    };
+
+    /**
+     * Starts the transition once the detail image is decoded, or failed to
+     */
+    private final RequestListener<Drawable> mImageListener = new RequestListener<Drawable>() {
+        @Override
+        public boolean onLoadFailed(@Nullable GlideException e, Object model, Target<Drawable> target, boolean isFirstResource) {
+            startTransitionOnce();
+            return false;
+        }
+
+        @Override
+        public boolean onResourceReady(Drawable resource, Object model, Target<Drawable> target, DataSource dataSource, boolean isFirstResource) {
+            sportsImage.post(DetailActivity.this::startTransitionOnce);
+            return false;
+        }
+    };
+
+    private void startTransitionOnce() {
+        if (mTransitionStarted || isFinishing()) return;
+        mTransitionStarted = true;
+
+        supportStartPostponedEnterTransition();
+
+        //Time to the first frame showing the image, also reported to the system as fully drawn
+        if (BuildConfig.DEBUG) {
+            Log.d(TAG, "Image shown " + (SystemClock.uptimeMillis() - mCreateTime) + " ms after onCreate");
+        }
+        reportFullyDrawn();
     }
-}
\ No newline at end of file
+}
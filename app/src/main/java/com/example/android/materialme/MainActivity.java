@@ -16,26 +16,46 @@
 
 package com.example.android.materialme;
 
-import android.content.res.TypedArray;
-import android.graphics.Canvas;
 import android.os.Bundle;
+import android.os.Looper;
+import android.util.Log;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.view.MotionEvent;
 import android.view.View;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.SearchView;
 import androidx.core.content.ContextCompat;
-import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.ItemTouchHelper;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.example.android.materialme.adapter.AdaptiveGridLayoutManager;
+import com.example.android.materialme.adapter.DragReorder;
+import com.example.android.materialme.adapter.ListItemPreInflater;
 import com.example.android.materialme.adapter.SportsAdapter;
+import com.example.android.materialme.image.SportImages;
+import com.example.android.materialme.metrics.FrameMonitor;
+import com.example.android.materialme.metrics.ListMetrics;
+import com.example.android.materialme.metrics.MetricsOverlay;
+import com.example.android.materialme.model.EditHistory;
+import com.example.android.materialme.net.CachingFetcher;
+import com.example.android.materialme.model.SavedListState;
 import com.example.android.materialme.model.Sport;
+import com.example.android.materialme.model.SportRepository;
+import com.example.android.materialme.model.SportSearch;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.snackbar.Snackbar;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.List;
 
 
 /***
@@ -43,53 +63,231 @@ import java.util.Collections;
  */
 public class MainActivity extends AppCompatActivity {
 
+    private static final String TAG = "MainActivity";
+
+    //Starts recording metrics, e.g. 'am start --ez metrics true', for builds without the debug menu
+    public static final String EXTRA_METRICS = "metrics";
+    private static final String METRICS_FILE_NAME = "list-metrics.txt";
+    private static final String HTTP_CACHE_FILE_NAME = "http-cache.txt";
+
+    //The SavedListState kept for process death
+    static final String STATE_LIST = "list";
+
+    //Number of upcoming items whose images are decoded before they scroll into view
+    private static final int PRELOAD_ITEM_COUNT = 6;
+
+    //How long a removal can be undone, Snackbar.LENGTH_LONG
+    private static final int UNDO_DURATION_MILLIS = 2750;
+
+    //The actions revealed by swiping an item
+    private static final int SWIPE_ACTION_DELETE = 0;
+    private static final int SWIPE_ACTION_DETAILS = 1;
+
     //Member variables
     private RecyclerView mRecyclerView;
-    private ArrayList<Sport> mSportList;
     private SportsAdapter mAdapter;
     private FloatingActionButton fab;
+    private ItemTouchHelper mSwipeHelper;
+    private SwipeController mSwipeController;
+    private DragReorder mDragReorder;
+    //True from the pick up of a dragged item to its drop, only its steps are merged
+    private boolean mDragging;
+    private ListItemPreInflater mPreInflater;
+
+    private SportRepository mRepository;
+    private boolean mReportedFullyDrawn;
+
+    //The list state kept across recreation, with the search, sort and undo state
+    private MainViewModel mViewModel;
+    private SportSearch mSearch;
+    private Snackbar mUndoSnackbar;
+
+    //Recorded while switched on, the overlay is created when first shown
+    private ListMetrics mMetrics;
+    private FrameMonitor mFrameMonitor;
+    private MetricsOverlay mMetricsOverlay;
+    private final SportSearch.Callback mSearchCallback = (query, results) -> {
+        mViewModel.mShowingResults = results != null;
+        List<Sport> sports = results != null ? results : mRepository.getCachedSports();
+        closeSwipedItem();
+        mAdapter.submitList(sports);
+    };
+    private final SportRepository.ProgressCallback mSportsCallback = new SportRepository.ProgressCallback() {
+        @Override
+        public void onSportsPartiallyLoaded(List<Sport> sports) {
+            //A feed is shown as it arrives, each batch adds to the end of the list. Searching,
+            //the results are shown once the whole feed can be searched
+            if (!isSearching()) {
+                mAdapter.submitList(sports);
+                onFirstCardsShown();
+            }
+        }
 
-    private TypedArray sportsImageResources;
+        @Override
+        public void onSportsLoaded(List<Sport> sports) {
+            mSearch.index(sports);
+            if (isSearching()) {
+                //Filter the new data with the current query instead of showing all of it
+                mSearch.search(mViewModel.mSearchQuery, sports, mSearchCallback);
+            } else {
+                mAdapter.submitList(sports);
+            }
+
+            //Offered again after recreation, once there is a list to put the sport back into
+            if (mUndoSnackbar == null && mViewModel.getUndoRemainingMillis() > 0) {
+                showUndoSnackbar(mViewModel.mUndoSport, mViewModel.mUndoPosition, (int) mViewModel.getUndoRemainingMillis());
+            }
+
+            onFirstCardsShown();
+        }
+    };
+
+    /**
+     * Startup ends when the first cards are shown, reported for 'am start' and startup metrics.
+     */
+    private void onFirstCardsShown() {
+        if (!mReportedFullyDrawn) {
+            mReportedFullyDrawn = true;
+            mRecyclerView.post(() -> reportFullyDrawn());
+        }
+    }
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
-        int gridColumnCount = getResources().getInteger(R.integer.grid_column_count);
-
         fab = findViewById(R.id.fab);
 
         //Initialize the RecyclerView
         mRecyclerView = findViewById(R.id.recycler_view);
 
-        //Set the Layout Manager
-        mRecyclerView.setLayoutManager(new GridLayoutManager(this, gridColumnCount));
+        //Metrics are process wide, recording survives recreation until switched off
+        mMetrics = ListMetrics.getInstance();
+        mFrameMonitor = new FrameMonitor(this, mMetrics);
+        if (savedInstanceState == null && getIntent().getBooleanExtra(EXTRA_METRICS, false)) {
+            mMetrics.setEnabled(true);
+        }
 
-        //Initialize the ArrayLIst that will contain the data
-        mSportList = new ArrayList<>();
+        //Set the Layout Manager, as many columns as fit cards of the target width. They follow
+        //the window size, resizing is handled without recreating the activity
+        int screenWidth = getResources().getDisplayMetrics().widthPixels;
+        AdaptiveGridLayoutManager layoutManager = new AdaptiveGridLayoutManager(this,
+                getResources().getDimensionPixelSize(R.dimen.grid_target_cell_width), screenWidth);
+        mRecyclerView.setLayoutManager(layoutManager);
+
+        //Recreated, the adapter takes over the shown list as it is, otherwise the state saved
+        //before process death is restored and the list is loaded below
+        mViewModel = new ViewModelProvider(this).get(MainViewModel.class);
+        SportsAdapter.State adapterState = mViewModel.mAdapterState;
+        if (adapterState == null && savedInstanceState != null) {
+            mViewModel.restore(SavedListState.decode(savedInstanceState.getByteArray(STATE_LIST)));
+        }
 
-        //Initialize the adapter and set it ot the RecyclerView
-        mAdapter = new SportsAdapter(this, mSportList);
+        if (adapterState != null) {
+            mAdapter = new SportsAdapter(this, adapterState);
+        } else {
+            //Initialize the adapter and set it ot the RecyclerView, the repository fills it
+            mAdapter = new SportsAdapter(this, new ArrayList<>());
+            mAdapter.setOrder(mViewModel.getOrder(mViewModel.mSort, this));
+        }
         mRecyclerView.setAdapter(mAdapter);
-
-        //Get the data
+        //Section headers of a sorted list take a whole row, and images are decoded at the
+        //width of their cell, also ahead of the scroll position
+        mAdapter.setGrid(layoutManager);
+        layoutManager.setOnCellWidthsChangedListener(grid -> {
+            //Resized, the shown cards reload their images at the new width, nothing is rebound
+            mAdapter.onCellWidthsChanged();
+            mRecyclerView.setItemViewCacheSize(grid.getSpanCount() * 2);
+        });
+        //Preloads only while the card images load, not during fast flings
+        mAdapter.getImageLoadScheduler().setPreloader(
+                new RecyclerViewPreloader<>(Glide.with(this), mAdapter, mAdapter, PRELOAD_ITEM_COUNT));
+
+        //Inflate the cards for the first screen and one more row in the background,
+        //and keep enough of them in the pool to rebind a whole screen without inflating
+        int columnCount = layoutManager.getSpanCount();
+        int cardMargin = getResources().getDimensionPixelSize(R.dimen.card_margin);
+        int estimatedCardHeight = SportImages.cardHeight(SportImages.cardWidth(screenWidth, columnCount, cardMargin));
+        int visibleItems = ListItemPreInflater.visibleItemCount(getResources().getDisplayMetrics().heightPixels, estimatedCardHeight, columnCount);
+        mPreInflater = new ListItemPreInflater(this);
+        mAdapter.setPreInflater(mPreInflater);
+        mPreInflater.warmUp(mRecyclerView, visibleItems);
+
+        mRecyclerView.setHasFixedSize(true);
+        mRecyclerView.getRecycledViewPool().setMaxRecycledViews(SportsAdapter.VIEW_TYPE_SPORT, visibleItems);
+        mRecyclerView.setItemViewCacheSize(columnCount * 2);
+
+        mSearch = mViewModel.mSearch;
+
+        //Get the data, loaded once per process and cached across recreation
+        mRepository = SportRepository.getInstance(this);
         initializeData();
 
-        int swipeDirections;
-        if(gridColumnCount > 1){
-
-            swipeDirections = 0;
-
-        } else {
-
-            swipeDirections = ItemTouchHelper.LEFT | ItemTouchHelper.RIGHT;
-        }
+        //Persist every edit, undo and redo included. A drag is persisted as one move when it
+        //ends, not as one write per step
+        mDragReorder = new DragReorder((from, to) -> mRepository.moveSport(from, to));
+        mAdapter.setEditListener(mEditListener);
+
+        //The swipe helper is not needed for the first frame, set it up once the main thread
+        //is idle after that frame, or on the first touch if that comes sooner
+        mRecyclerView.addOnItemTouchListener(mFirstTouchListener);
+        mRecyclerView.post(() -> Looper.myQueue().addIdleHandler(() -> {
+            attachSwipeHelper();
+            return false;
+        }));
+    }
 
-        ItemTouchHelper helper = new ItemTouchHelper(new ItemTouchHelper
+    /**
+     * Creates the swipe actions and the ItemTouchHelper for dragging, only once.
+     */
+    private void attachSwipeHelper() {
+        if (mSwipeHelper != null || isDestroyed()) return;
+
+        //Configure each action's decoration once, SwipeController only passes the per-frame
+        //state and the decorators draw the decoration rendered for the card size
+        int white = ContextCompat.getColor(this, R.color.white);
+        ViewDecorator deleteDecorator = new ViewDecorator.Builder(mRecyclerView)
+                .addBackgroundColor(ContextCompat.getColor(this, R.color.red))
+                .addActionIcon(R.drawable.ic_delete)
+                .setActionIconTint(white)
+                .addSwipeLeftLabel(getString(R.string.swipe_delete_label))
+                .setSwipeLeftLabelColor(white)
+                .addSwipeRightLabel(getString(R.string.swipe_delete_label))
+                .setSwipeRightLabelColor(white)
+                .setCachingEnabled(true)
+                .create();
+        ViewDecorator detailsDecorator = new ViewDecorator.Builder(mRecyclerView)
+                .addBackgroundColor(ContextCompat.getColor(this, R.color.colorPrimary))
+                .addActionIcon(R.drawable.ic_info)
+                .setActionIconTint(white)
+                .addSwipeLeftLabel(getString(R.string.swipe_details_label))
+                .setSwipeLeftLabelColor(white)
+                .setCachingEnabled(true)
+                .create();
+
+        //Swiping left reveals delete at the edge and details next to it, swiping right only
+        //delete. Swiping either way far or fast enough deletes
+        mSwipeController = new SwipeController.Builder(mRecyclerView, mSwipeCallback)
+                .addSwipeLeftAction(SWIPE_ACTION_DELETE, deleteDecorator)
+                .addSwipeLeftAction(SWIPE_ACTION_DETAILS, detailsDecorator)
+                .addSwipeRightAction(SWIPE_ACTION_DELETE, deleteDecorator)
+                .create();
+
+        //Only drags, swipes are handled by mSwipeController
+        mSwipeHelper = new ItemTouchHelper(new ItemTouchHelper
                 .SimpleCallback(
                         ItemTouchHelper.LEFT | ItemTouchHelper.RIGHT | ItemTouchHelper.DOWN | ItemTouchHelper.UP,
-                swipeDirections) {
+                0) {
+
+            //Search results are a filtered view, their positions are not those of the list,
+            //a sorted list has no order of the user's to drag items in, and a feed still
+            //loading has no list to record the move in
+            @Override
+            public boolean isLongPressDragEnabled() {
+                return !mViewModel.mShowingResults && mAdapter.getOrder() == null && mAdapter.isEditable()
+                        && mRepository.isLoaded();
+            }
 
             @Override
             public boolean onMove(@NonNull  RecyclerView recyclerView ,
@@ -99,75 +297,352 @@ public class MainActivity extends AppCompatActivity {
                 int from = viewHolder.getBindingAdapterPosition();
                 int to = target.getBindingAdapterPosition();
 
-                Collections.swap(mSportList, from, to);
-
-                mAdapter.notifyItemMoved(from, to);
+                mAdapter.moveItem(from, to);
 
                 return true;
             }
 
+            @Override
+            public void onSelectedChanged(RecyclerView.ViewHolder viewHolder, int actionState) {
+                super.onSelectedChanged(viewHolder, actionState);
+
+                //A dragged item moves closed
+                if (actionState == ItemTouchHelper.ACTION_STATE_DRAG) {
+                    mDragging = true;
+                    closeSwipedItem();
+                }
+            }
+
+            @Override
+            public void clearView(@NonNull RecyclerView recyclerView , @NonNull RecyclerView.ViewHolder viewHolder) {
+
+                super.clearView(recyclerView, viewHolder);
+
+                mAdapter.finishMove();
+                mDragReorder.finish();
+                mDragging = false;
+            }
+
             @Override
             public void onSwiped(@NonNull RecyclerView.ViewHolder viewHolder , int direction) {
+                //No swipe directions
+            }
+        });
+
+        mSwipeHelper.attachToRecyclerView(mRecyclerView);
+
+        //Removing a listener while RecyclerView dispatches to it is not allowed
+        mRecyclerView.post(() -> mRecyclerView.removeOnItemTouchListener(mFirstTouchListener));
+    }
+
+    private final SwipeController.Callback mSwipeCallback = new SwipeController.Callback() {
+        @Override
+        public boolean isSwipeEnabled(RecyclerView.ViewHolder viewHolder) {
+            //Section headers stay put, in a grid the actions are narrowed to fit the cell.
+            //Nothing is removed from a feed still loading, or from a read-only list
+            return !mViewModel.mShowingResults && mRepository.isLoaded() && mAdapter.isEditable()
+                    && !mAdapter.isHeader(viewHolder.getBindingAdapterPosition());
+        }
+
+        @Override
+        public void onSwipeAction(RecyclerView.ViewHolder viewHolder, int actionId) {
+            int position = viewHolder.getBindingAdapterPosition();
+            if (position == RecyclerView.NO_POSITION) return;
 
-                int position = viewHolder.getBindingAdapterPosition();
+            if (actionId == SWIPE_ACTION_DETAILS) {
+                //The same transition as tapping the card
+                viewHolder.itemView.performClick();
+                return;
+            }
+
+            Sport mSport = mAdapter.removeItem(position);
 
-                Sport mSport = mSportList.get(position);
+            showUndoSnackbar(mSport, position, UNDO_DURATION_MILLIS);
+        }
+    };
 
-                mSportList.remove(position);
+    /**
+     * Offers to undo a removal, the offer is kept across recreation until it times out
+     * @param sport The removed sport
+     * @param position The position it was removed from
+     * @param durationMillis How long to offer it
+     */
+    private void showUndoSnackbar(Sport sport, int position, int durationMillis) {
+        mViewModel.setUndo(sport, position, durationMillis);
+
+        mUndoSnackbar = Snackbar.make(mRecyclerView, R.string.item_removed_text, durationMillis)
+                .setAction(R.string.undo_text , v -> {
+
+                    //Comes back in its own place even after more items were removed
+                    mAdapter.restoreItem(sport, position);
+
+                })
+                .addCallback(new Snackbar.Callback() {
+                    @Override
+                    public void onDismissed(Snackbar snackbar, int event) {
+                        //Replaced by the offer for a newer removal, or by a search
+                        if (event == DISMISS_EVENT_CONSECUTIVE || event == DISMISS_EVENT_MANUAL) return;
+
+                        if (mViewModel.mUndoSport == sport) {
+                            mViewModel.clearUndo();
+                        }
+                    }
+                });
+        mUndoSnackbar.show();
+    }
 
-                mAdapter.notifyItemRemoved(position);
+    /**
+     * Closes the item whose swipe actions are shown, before the list under it changes.
+     */
+    private void closeSwipedItem() {
+        if (mSwipeController != null) {
+            mSwipeController.close();
+        }
+    }
 
-                Snackbar.make(mRecyclerView, R.string.item_removed_text, Snackbar.LENGTH_LONG)
-                        .setAction(R.string.undo_text , v -> {
+    private final EditHistory.Listener mEditListener = new EditHistory.Listener() {
+        @Override
+        public void onInserted(int position, Sport sport) {
+            mRepository.insertSport(position, sport);
+        }
 
-                            mAdapter.restoreItem(mSport, position);
+        @Override
+        public void onRemoved(int position, Sport sport) {
+            mRepository.removeSport(position);
+        }
 
-                        }).show();
+        @Override
+        public void onMoved(int from, int to) {
+            //Undoing or redoing a move is persisted at once, a drag once it is dropped
+            if (mDragging) {
+                mDragReorder.onMove(from, to);
+            } else {
+                mRepository.moveSport(from, to);
             }
+        }
+    };
 
-            @Override
-            public void onChildDrawOver(@NonNull Canvas c , @NonNull RecyclerView recyclerView , RecyclerView.ViewHolder viewHolder , float dX , float dY , int actionState , boolean isCurrentlyActive) {
+    private final RecyclerView.OnItemTouchListener mFirstTouchListener = new RecyclerView.SimpleOnItemTouchListener() {
+        @Override
+        public boolean onInterceptTouchEvent(@NonNull RecyclerView rv, @NonNull MotionEvent e) {
+            if (e.getActionMasked() == MotionEvent.ACTION_DOWN) {
+                attachSwipeHelper();
+            }
+            return false;
+        }
+    };
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+
+        if (mMetrics.isEnabled()) showMetrics();
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+
+        hideMetrics();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+
+        mRepository.removeCallback(mSportsCallback);
+        mPreInflater.release();
+        if (isChangingConfigurations()) {
+            //The next activity takes over the list, a search still running is run again by it
+            mSearch.cancel();
+            mViewModel.mAdapterState = mAdapter.release();
+        }
+    }
 
-                new ViewDecorator.Builder(c, recyclerView, viewHolder, dX, dY, actionState, isCurrentlyActive)
-                        .addBackgroundColor(ContextCompat.getColor(MainActivity.this, R.color.red))
-                        .addActionIcon(R.drawable.ic_delete)
-                        .create()
-                        .decorate();
+    @Override
+    protected void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+
+        //A few bytes, the list itself is restored from the store after process death
+        outState.putByteArray(STATE_LIST, mViewModel.save().encode());
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.menu_main, menu);
+
+        MenuItem searchItem = menu.findItem(R.id.action_search);
+        SearchView searchView = (SearchView) searchItem.getActionView();
+        searchView.setQueryHint(getString(R.string.search_hint));
+        //Recreated while searching, shown again before the listener would search once more
+        if (isSearching()) {
+            searchItem.expandActionView();
+            searchView.setQuery(mViewModel.mSearchQuery, false);
+            searchView.clearFocus();
+        }
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                searchView.clearFocus();
+                return true;
+            }
 
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                search(newText);
+                return true;
             }
         });
 
-        helper.attachToRecyclerView(mRecyclerView);
+        //Metrics are switched from the menu of debug builds only
+        menu.setGroupVisible(R.id.group_metrics, BuildConfig.DEBUG);
+        menu.findItem(R.id.action_metrics).setChecked(mMetrics.isEnabled());
+        menu.findItem(sortItemId(mViewModel.mSort)).setChecked(true);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(@NonNull MenuItem item) {
+        int id = item.getItemId();
+        if (id == R.id.sort_custom || id == R.id.sort_by_title || id == R.id.sort_by_category) {
+            item.setChecked(true);
+            sortBy(id == R.id.sort_by_title ? SavedListState.SORT_BY_TITLE
+                    : id == R.id.sort_by_category ? SavedListState.SORT_BY_CATEGORY
+                    : SavedListState.SORT_CUSTOM);
+            return true;
+        }
+        if (id == R.id.action_metrics) {
+            boolean enabled = !item.isChecked();
+            item.setChecked(enabled);
+            setMetricsEnabled(enabled);
+            return true;
+        }
+        if (id == R.id.action_dump_metrics) {
+            dumpMetrics();
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
     }
 
     /**
-     * Method for initializing the sports data from resources.
+     * Method for sorting the list, sorted lists are grouped under section headers.
+     * @param sort One of the SavedListState.SORT_ constants
      */
-    private void initializeData() {
-        //Get the resources from the XML file
-        String[] sportsList = getResources().getStringArray(R.array.sports_titles);
-        String[] sportsInfo = getResources().getStringArray(R.array.sports_info);
+    private void sortBy(int sort) {
+        mViewModel.mSort = sort;
+
+        //Sorted in the background, the grid keeps its order until the sorted list is ready
+        closeSwipedItem();
+        mAdapter.setOrder(mViewModel.getOrder(sort, this));
+    }
 
-        sportsImageResources = getResources().obtainTypedArray(R.array.sports_images);
+    private static int sortItemId(int sort) {
+        if (sort == SavedListState.SORT_BY_TITLE) return R.id.sort_by_title;
+        if (sort == SavedListState.SORT_BY_CATEGORY) return R.id.sort_by_category;
+        return R.id.sort_custom;
+    }
+
+    /**
+     * Method for filtering the list as the query is typed.
+     * @param query The query, empty to show the whole list
+     */
+    private void search(String query) {
+        mViewModel.mSearchQuery = query;
+
+        List<Sport> sports = mRepository.getCachedSports();
+        //Before the data arrived there is nothing to filter, mSportsCallback searches then
+        if (sports == null) return;
+
+        if (isSearching()) {
+            //The results replace the list the removal could be undone in
+            if (mUndoSnackbar != null) {
+                mUndoSnackbar.dismiss();
+                mUndoSnackbar = null;
+            }
+            mViewModel.clearUndo();
 
-        //Clear the existing data (to avoid duplication)
-        mSportList.clear();
+            //Debounced and run off the main thread, a newer query supersedes this one
+            mSearch.search(query, sports, mSearchCallback);
+        } else {
+            mSearch.cancel();
+            if (mViewModel.mShowingResults) {
+                mViewModel.mShowingResults = false;
+                closeSwipedItem();
+                mAdapter.submitList(sports);
+            }
+        }
+    }
 
-        //Create the ArrayList of Sports objects with the titles and information about each sport
-        for(int i = 0; i < sportsList.length; i++){
+    /**
+     * Method for switching the metrics recording and its overlay.
+     * @param enabled Whether to record, recording starts over from empty histograms
+     */
+    private void setMetricsEnabled(boolean enabled) {
+        if (enabled) {
+            mMetrics.reset();
+            mMetrics.setEnabled(true);
+            showMetrics();
+        } else {
+            mMetrics.setEnabled(false);
+            hideMetrics();
+        }
+    }
 
-            mSportList.add(new Sport(sportsList[i], sportsInfo[i], sportsImageResources.getResourceId(i,0)));
+    private void showMetrics() {
+        mFrameMonitor.start();
+        if (mMetricsOverlay == null) {
+            mMetricsOverlay = new MetricsOverlay(this, mMetrics);
         }
+        mMetricsOverlay.show();
+    }
+
+    private void hideMetrics() {
+        mFrameMonitor.stop();
+        if (mMetricsOverlay != null) mMetricsOverlay.hide();
+    }
+
+    /**
+     * Method for writing the metrics report to the app's external files directory,
+     * where 'adb pull' finds it next to the benchmark results.
+     */
+    private void dumpMetrics() {
+        new Thread(() -> {
+            File directory = getExternalFilesDir(null);
+            if (directory == null) directory = getFilesDir();
+            File file = new File(directory, METRICS_FILE_NAME);
+            String message;
+            try {
+                mMetrics.dump(file);
+                CachingFetcher.getInstance(this).getStats().dump(new File(directory, HTTP_CACHE_FILE_NAME));
+                message = getString(R.string.metrics_dumped, file.getPath());
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to write " + file, e);
+                message = getString(R.string.metrics_dump_failed);
+            }
+
+            String result = message;
+            mRecyclerView.post(() -> Snackbar.make(mRecyclerView, result, Snackbar.LENGTH_LONG).show());
+        }, "ListMetricsDump").start();
+    }
 
-        //Notify the adapter of the change
-        mAdapter.notifyDataSetChanged();
+    private boolean isSearching() {
+        return mViewModel.mSearchQuery.trim().length() > 0;
+    }
 
-        sportsImageResources.recycle();
+    /**
+     * Method for initializing the sports data from the cached catalog.
+     */
+    private void initializeData() {
+        //The user's stored list, or the bundled catalog or the feed on first launch, is loaded
+        //in the background on first use, later calls get the cached snapshot. A feed is shown
+        //as it arrives
+        mRepository.getSports(mSportsCallback);
     }
 
 
     public void refreshSports(View v) {
 
-        initializeData();
+        //Bring back the bundled catalog, undoing the user's deletions and moves
+        mRepository.resetSports(mSportsCallback);
     }
 }
@@ -0,0 +1,123 @@
+package com.example.android.materialme;
+
+import android.app.Application;
+import android.content.Context;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+import androidx.lifecycle.AndroidViewModel;
+
+import com.example.android.materialme.adapter.SportsAdapter;
+import com.example.android.materialme.model.SavedListState;
+import com.example.android.materialme.model.Sport;
+import com.example.android.materialme.model.SportCategories;
+import com.example.android.materialme.model.SportOrder;
+import com.example.android.materialme.model.SportSearch;
+
+/**
+ * The state of MainActivity's list that outlives the activity across recreation, e.g. on a
+ * theme change: the adapter's list with its undo history and sorted sections, the sort orders,
+ * the search index and query, and the removal the undo snackbar offers to take back.
+ *
+ * A recreated activity shows the kept list at once, nothing is loaded, parsed, sorted or
+ * indexed again. For process death the small part that cannot be reloaded is saved as a
+ * SavedListState, the list itself comes back from the SportStore.
+ */
+public class MainViewModel extends AndroidViewModel {
+
+    //The list of the destroyed activity's adapter, null until an activity was recreated
+    SportsAdapter.State mAdapterState;
+
+    //One of the SavedListState.SORT_ constants
+    int mSort = SavedListState.SORT_CUSTOM;
+    String mSearchQuery = "";
+    //True while the adapter shows search results instead of the whole list
+    boolean mShowingResults;
+
+    //The removal the undo snackbar offers to take back, null when there is none
+    Sport mUndoSport;
+    int mUndoPosition;
+    long mUndoDeadlineMillis;
+
+    //The search index is built in the background as the data arrives
+    final SportSearch mSearch;
+
+    //The orders of the sort menu, the category order is created when first picked
+    private final SportOrder mTitleOrder = SportOrder.byTitle();
+    private SportOrder mCategoryOrder;
+
+    public MainViewModel(@NonNull Application application) {
+        super(application);
+        mSearch = new SportSearch(ContextCompat.getMainExecutor(application));
+    }
+
+    /**
+     * Gets the order of a sort of the menu
+     * @param sort One of the SavedListState.SORT_ constants
+     * @param context The context the categories are read from when first needed
+     * @return The order, or null for the user's order
+     */
+    SportOrder getOrder(int sort, Context context) {
+        if (sort == SavedListState.SORT_BY_TITLE) return mTitleOrder;
+        if (sort == SavedListState.SORT_BY_CATEGORY) {
+            if (mCategoryOrder == null) {
+                mCategoryOrder = SportOrder.byCategory(SportCategories.fromResources(context));
+            }
+            return mCategoryOrder;
+        }
+        return null;
+    }
+
+    /**
+     * Records a removal the user can undo for a while
+     * @param sport The removed sport
+     * @param position The position it was removed from
+     * @param durationMillis How long the undo is offered
+     */
+    void setUndo(Sport sport, int position, long durationMillis) {
+        mUndoSport = sport;
+        mUndoPosition = position;
+        mUndoDeadlineMillis = SystemClock.uptimeMillis() + durationMillis;
+    }
+
+    void clearUndo() {
+        mUndoSport = null;
+    }
+
+    /**
+     * Gets how much longer the undo is offered
+     * @return The remaining time, 0 when there is nothing to undo
+     */
+    long getUndoRemainingMillis() {
+        return mUndoSport != null ? Math.max(0, mUndoDeadlineMillis - SystemClock.uptimeMillis()) : 0;
+    }
+
+    /**
+     * Saves what cannot be reloaded after process death
+     * @return The state for the saved instance state
+     */
+    SavedListState save() {
+        long remaining = getUndoRemainingMillis();
+        return new SavedListState(mSort, mSearchQuery, remaining > 0 ? mUndoSport : null, mUndoPosition, remaining);
+    }
+
+    /**
+     * Restores the state saved before process death, before the list is loaded
+     * @param state The saved state, or null when it was not readable
+     */
+    void restore(SavedListState state) {
+        if (state == null) return;
+
+        mSort = state.getSort();
+        mSearchQuery = state.getQuery();
+        if (state.getUndoSport() != null) {
+            setUndo(state.getUndoSport(), state.getUndoPosition(), state.getUndoRemainingMillis());
+        }
+    }
+
+    @Override
+    protected void onCleared() {
+        mSearch.shutdown();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.android.materialme;
+
+/**
+ * A damped spring of unit mass pulling a position towards a target, solved in closed form.
+ *
+ * The position at any time since start() is computed directly rather than integrated frame by
+ * frame, so a dropped frame does not change the path and the result does not depend on the
+ * frame rate. Damping ratios above 1 are treated as 1, critically damped, which is the
+ * fastest settle without oscillation. Reused across settles, nothing is allocated.
+ */
+final class Spring {
+
+    //The values of the AndroidX SpringForce constants of the same names
+    static final float STIFFNESS_MEDIUM = 1500f;
+    static final float STIFFNESS_LOW = 200f;
+    static final float DAMPING_RATIO_NO_BOUNCY = 1f;
+    static final float DAMPING_RATIO_LOW_BOUNCY = 0.75f;
+
+    //Closer than half a pixel and slower than that per frame it no longer moves visibly
+    static final float REST_DISPLACEMENT = 0.5f;
+    static final float REST_VELOCITY = 30f;
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private float mTarget;
+    //The displacement from the target and the velocity at start, in px and px/s
+    private double mStartDisplacement;
+    private double mStartVelocity;
+    private double mNaturalFrequency;
+    private double mDampingRatio;
+    //Of the oscillation, only used below critical damping
+    private double mDampedFrequency;
+
+    /**
+     * Starts a settle, replacing the one before
+     * @param position The position at start
+     * @param velocity The velocity at start, in units per second
+     * @param target The position to settle at
+     * @param stiffness The spring constant, e.g. STIFFNESS_MEDIUM
+     * @param dampingRatio 1 for no bounce, lower values bounce around the target
+     */
+    void start(float position, float velocity, float target, float stiffness, float dampingRatio) {
+        mTarget = target;
+        mStartDisplacement = position - target;
+        mStartVelocity = velocity;
+        mNaturalFrequency = Math.sqrt(stiffness);
+        mDampingRatio = Math.min(1, dampingRatio);
+        mDampedFrequency = mNaturalFrequency * Math.sqrt(1 - mDampingRatio * mDampingRatio);
+    }
+
+    /**
+     * Gets the target of the current settle
+     * @return The target position
+     */
+    float getTarget() {
+        return mTarget;
+    }
+
+    /**
+     * Gets the position at a time since start()
+     * @param elapsedNanos The time since start()
+     * @return The position
+     */
+    float getPosition(long elapsedNanos) {
+        double t = elapsedNanos / NANOS_PER_SECOND;
+        double x0 = mStartDisplacement;
+        double decay = mDampingRatio * mNaturalFrequency;
+
+        double displacement;
+        if (mDampingRatio < 1) {
+            double b = (mStartVelocity + decay * x0) / mDampedFrequency;
+            displacement = Math.exp(-decay * t) * (x0 * Math.cos(mDampedFrequency * t) + b * Math.sin(mDampedFrequency * t));
+        } else {
+            double c = mStartVelocity + mNaturalFrequency * x0;
+            displacement = Math.exp(-mNaturalFrequency * t) * (x0 + c * t);
+        }
+        return (float) (mTarget + displacement);
+    }
+
+    /**
+     * Gets the velocity at a time since start()
+     * @param elapsedNanos The time since start()
+     * @return The velocity in units per second
+     */
+    float getVelocity(long elapsedNanos) {
+        double t = elapsedNanos / NANOS_PER_SECOND;
+        double x0 = mStartDisplacement;
+        double decay = mDampingRatio * mNaturalFrequency;
+
+        double velocity;
+        if (mDampingRatio < 1) {
+            double b = (mStartVelocity + decay * x0) / mDampedFrequency;
+            double cos = Math.cos(mDampedFrequency * t);
+            double sin = Math.sin(mDampedFrequency * t);
+            velocity = Math.exp(-decay * t) * ((b * mDampedFrequency - decay * x0) * cos - (decay * b + x0 * mDampedFrequency) * sin);
+        } else {
+            double c = mStartVelocity + mNaturalFrequency * x0;
+            velocity = Math.exp(-mNaturalFrequency * t) * (c - mNaturalFrequency * (x0 + c * t));
+        }
+        return (float) velocity;
+    }
+
+    /**
+     * Checks whether the spring has settled, then its position can be taken as the target
+     * @param elapsedNanos The time since start()
+     * @return True once both the displacement and the velocity are too small to see
+     */
+    boolean isAtRest(long elapsedNanos) {
+        return Math.abs(getPosition(elapsedNanos) - mTarget) < REST_DISPLACEMENT
+                && Math.abs(getVelocity(elapsedNanos)) < REST_VELOCITY;
+    }
+}
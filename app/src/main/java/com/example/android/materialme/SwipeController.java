@@ -0,0 +1,481 @@
+package com.example.android.materialme;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.util.TypedValue;
+import android.view.Choreographer;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.ViewParent;
+
+import androidx.annotation.NonNull;
+import androidx.core.view.ViewCompat;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Swipes the items of a RecyclerView to reveal the actions of each direction, drawn by a
+ * ViewDecorator per action.
+ *
+ * SwipeGesture decides where a released item settles, open with its actions shown, closed,
+ * or out, which fires the primary action of the direction. Past the escape distance the
+ * primary action takes over the whole revealed area, so the user sees what releasing does.
+ * Tapping a revealed action fires it, touching anywhere else closes the item.
+ *
+ * The item is moved by its translationX, a property of its RenderNode, so the item's own
+ * display list is not recorded again while it moves, and a cached ViewDecorator only replays
+ * its display list. Settling steps a closed form spring once per Choreographer frame. Nothing
+ * is allocated per frame. The moved item is clipped to where it was laid out, so in a grid it
+ * does not cover its neighbours. Only one item is swiped at a time, ItemTouchHelper can still
+ * drag items, it only needs no swipe directions of its own.
+ */
+final class SwipeController extends RecyclerView.ItemDecoration implements RecyclerView.OnItemTouchListener,
+        RecyclerView.OnChildAttachStateChangeListener, Choreographer.FrameCallback {
+
+    /**
+     * Decides which items swipe and receives the actions.
+     */
+    interface Callback {
+        /**
+         * @param viewHolder The item about to be swiped
+         * @return True if it may be swiped
+         */
+        boolean isSwipeEnabled(RecyclerView.ViewHolder viewHolder);
+
+        /**
+         * Called when an action is tapped, or the item was swiped out for the primary action.
+         * If the action does not remove the item, it springs back closed
+         * @param viewHolder The swiped item
+         * @param actionId The id the action was added with
+         */
+        void onSwipeAction(RecyclerView.ViewHolder viewHolder, int actionId);
+    }
+
+    private static final float ACTION_WIDTH_DP = 112;
+    private static final float ESCAPE_VELOCITY_DP = 1200;
+
+    private final RecyclerView mRecyclerView;
+    private final Callback mCallback;
+    //Index 0 is the primary action, drawn at the outer edge
+    private final int[] mSwipeLeftIds;
+    private final ViewDecorator[] mSwipeLeftDecorators;
+    private final int[] mSwipeRightIds;
+    private final ViewDecorator[] mSwipeRightDecorators;
+
+    private final SwipeGesture mGesture;
+    private final int mTouchSlop;
+    private final float mMaxFlingVelocity;
+
+    //The item being swiped, open or settling, null while all are closed
+    private View mActiveView;
+    //An item swiped out, moved back only once it is detached, e.g. after its removal
+    private View mEscapedView;
+
+    //The item under the finger since ACTION_DOWN, and where the finger went down
+    private View mTouchedView;
+    private float mDownX;
+    private float mDownY;
+    private float mDragStartOffset;
+    private int mTappedAction = SwipeGesture.NO_ACTION;
+    private boolean mDragging;
+    private VelocityTracker mVelocityTracker;
+    private boolean mFramePosted;
+    //The part of the active item within its cell, in the item's coordinates
+    private final Rect mClipBounds = new Rect();
+
+    private SwipeController(RecyclerView recyclerView, Callback callback, int[] swipeLeftIds, ViewDecorator[] swipeLeftDecorators,
+                            int[] swipeRightIds, ViewDecorator[] swipeRightDecorators) {
+        this.mRecyclerView = recyclerView;
+        this.mCallback = callback;
+        this.mSwipeLeftIds = swipeLeftIds;
+        this.mSwipeLeftDecorators = swipeLeftDecorators;
+        this.mSwipeRightIds = swipeRightIds;
+        this.mSwipeRightDecorators = swipeRightDecorators;
+
+        ViewConfiguration configuration = ViewConfiguration.get(recyclerView.getContext());
+        mTouchSlop = configuration.getScaledTouchSlop();
+        mMaxFlingVelocity = configuration.getScaledMaximumFlingVelocity();
+        float actionWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, ACTION_WIDTH_DP, recyclerView.getResources().getDisplayMetrics());
+        float escapeVelocity = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, ESCAPE_VELOCITY_DP, recyclerView.getResources().getDisplayMetrics());
+        mGesture = new SwipeGesture(actionWidth, configuration.getScaledMinimumFlingVelocity(), escapeVelocity);
+        mGesture.setActionCounts(swipeLeftIds.length, swipeRightIds.length);
+    }
+
+    /**
+     * Starts handling swipes on the RecyclerView
+     */
+    void attach() {
+        mRecyclerView.addItemDecoration(this);
+        mRecyclerView.addOnItemTouchListener(this);
+        mRecyclerView.addOnChildAttachStateChangeListener(this);
+    }
+
+    /**
+     * Stops handling swipes and closes the swiped item at once
+     */
+    void detach() {
+        mRecyclerView.removeItemDecoration(this);
+        mRecyclerView.removeOnItemTouchListener(this);
+        mRecyclerView.removeOnChildAttachStateChangeListener(this);
+        if ( mActiveView != null ) clear(mActiveView);
+        if ( mEscapedView != null ) clear(mEscapedView);
+        endTouch();
+    }
+
+    /**
+     * Springs the open item closed, e.g. when the list is filtered or sorted
+     */
+    void close() {
+        if ( mActiveView == null || mDragging ) return;
+
+        mGesture.close(System.nanoTime());
+        postFrame();
+    }
+
+    @Override
+    public boolean onInterceptTouchEvent(@NonNull RecyclerView recyclerView, @NonNull MotionEvent event) {
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                return onDown(event);
+
+            case MotionEvent.ACTION_MOVE:
+                if ( mTouchedView == null ) return false;
+
+                mVelocityTracker.addMovement(event);
+                float dx = event.getX() - mDownX;
+                float dy = event.getY() - mDownY;
+                if ( Math.abs(dy) > mTouchSlop && Math.abs(dy) > Math.abs(dx) ) {
+                    //A scroll, not a swipe
+                    endTouch();
+                    return false;
+                }
+                if ( Math.abs(dx) > mTouchSlop ) {
+                    startDrag(event.getX());
+                    return true;
+                }
+                return false;
+
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                endTouch();
+                return false;
+
+            default:
+                return false;
+        }
+    }
+
+    private boolean onDown(MotionEvent event) {
+        endTouch();
+        float x = event.getX();
+        float y = event.getY();
+
+        if ( mActiveView != null ) {
+            View active = mActiveView;
+            //The item's slot, its actions are revealed within it. In a grid the items beside it
+            //share its rows
+            if ( x < active.getLeft() || x >= active.getRight() || y < active.getTop() || y >= active.getBottom() ) {
+                //Touching another item closes the open one, the touch itself goes on as usual
+                close();
+                return false;
+            }
+            mTouchedView = active;
+            mDownX = x;
+            mDownY = y;
+            mVelocityTracker = VelocityTracker.obtain();
+            mVelocityTracker.addMovement(event);
+
+            //A touch on the revealed actions is ours, a tap there fires the action
+            float itemX = x - active.getLeft();
+            float translatedX = itemX - active.getTranslationX();
+            if ( translatedX < 0 || translatedX >= active.getWidth() ) {
+                mTappedAction = mGesture.getActionAt(itemX);
+                return true;
+            }
+            return false;
+        }
+
+        View child = mRecyclerView.findChildViewUnder(x, y);
+        if ( child == null || !mCallback.isSwipeEnabled(mRecyclerView.getChildViewHolder(child)) ) return false;
+
+        mTouchedView = child;
+        mDownX = x;
+        mDownY = y;
+        mVelocityTracker = VelocityTracker.obtain();
+        mVelocityTracker.addMovement(event);
+        return false;
+    }
+
+    private void startDrag(float x) {
+        if ( mTouchedView != mActiveView ) {
+            if ( mActiveView != null ) clear(mActiveView);
+            mActiveView = mTouchedView;
+            mGesture.reset();
+        }
+        mGesture.setItemWidth(mActiveView.getWidth());
+        mGesture.startDrag();
+        cancelFrame();
+
+        mDragging = true;
+        mTappedAction = SwipeGesture.NO_ACTION;
+        mDownX = x;
+        mDragStartOffset = mGesture.getOffset();
+
+        ViewParent parent = mRecyclerView.getParent();
+        if ( parent != null ) parent.requestDisallowInterceptTouchEvent(true);
+    }
+
+    @Override
+    public void onTouchEvent(@NonNull RecyclerView recyclerView, @NonNull MotionEvent event) {
+        if ( mTouchedView == null ) return;
+
+        mVelocityTracker.addMovement(event);
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_MOVE:
+                if ( !mDragging ) {
+                    if ( Math.abs(event.getX() - mDownX) <= mTouchSlop ) return;
+                    startDrag(event.getX());
+                }
+                apply(mGesture.drag(mDragStartOffset + event.getX() - mDownX));
+                break;
+
+            case MotionEvent.ACTION_UP:
+                if ( mDragging ) {
+                    mVelocityTracker.computeCurrentVelocity(1000, mMaxFlingVelocity);
+                    mGesture.release(mVelocityTracker.getXVelocity(), System.nanoTime());
+                    postFrame();
+                } else if ( mTappedAction != SwipeGesture.NO_ACTION
+                        && mTappedAction == mGesture.getActionAt(event.getX() - mActiveView.getLeft()) ) {
+                    fire(mTappedAction);
+                }
+                endTouch();
+                break;
+
+            case MotionEvent.ACTION_CANCEL:
+                if ( mDragging ) {
+                    mGesture.release(0, System.nanoTime());
+                    postFrame();
+                }
+                endTouch();
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void onRequestDisallowInterceptTouchEvent(boolean disallowIntercept) {
+        if ( disallowIntercept && !mDragging ) endTouch();
+    }
+
+    private void endTouch() {
+        mTouchedView = null;
+        mDragging = false;
+        mTappedAction = SwipeGesture.NO_ACTION;
+        if ( mVelocityTracker != null ) {
+            mVelocityTracker.recycle();
+            mVelocityTracker = null;
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mFramePosted = false;
+        if ( mActiveView == null ) return;
+
+        apply(mGesture.step(frameTimeNanos));
+        switch (mGesture.getState()) {
+            case SwipeGesture.STATE_SETTLING:
+                postFrame();
+                break;
+
+            case SwipeGesture.STATE_IDLE:
+                clear(mActiveView);
+                break;
+
+            case SwipeGesture.STATE_ESCAPED:
+                fire(0);
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    private void fire(int action) {
+        View view = mActiveView;
+        int actionId = mGesture.getOffset() < 0 ? mSwipeLeftIds[action] : mSwipeRightIds[action];
+        RecyclerView.ViewHolder holder = mRecyclerView.getChildViewHolder(view);
+
+        mCallback.onSwipeAction(holder, actionId);
+
+        if ( holder.getBindingAdapterPosition() == RecyclerView.NO_POSITION ) {
+            //Removed, the view stays where it is while it animates away
+            if ( mEscapedView != null ) clear(mEscapedView);
+            mActiveView = null;
+            mEscapedView = view;
+            mGesture.reset();
+            cancelFrame();
+            mRecyclerView.invalidate();
+            return;
+        }
+
+        //Kept, spring back closed, from the edge if it was swiped out
+        mGesture.close(System.nanoTime());
+        postFrame();
+    }
+
+    private void apply(float offset) {
+        mActiveView.setTranslationX(offset);
+        //A property of the RenderNode like the translation, the item is not recorded again
+        int shift = Math.round(offset);
+        mClipBounds.set(-shift, 0, mActiveView.getWidth() - shift, mActiveView.getHeight());
+        ViewCompat.setClipBounds(mActiveView, mClipBounds);
+        //Redraws the decoration in onDrawOver()
+        mRecyclerView.invalidate();
+    }
+
+    private void clear(View view) {
+        view.setTranslationX(0);
+        ViewCompat.setClipBounds(view, null);
+        if ( view == mActiveView ) {
+            mActiveView = null;
+            mGesture.reset();
+            cancelFrame();
+        }
+        if ( view == mEscapedView ) mEscapedView = null;
+        mRecyclerView.invalidate();
+    }
+
+    private void postFrame() {
+        if ( mFramePosted ) return;
+
+        mFramePosted = true;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    private void cancelFrame() {
+        if ( !mFramePosted ) return;
+
+        mFramePosted = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    @Override
+    public void onDrawOver(@NonNull Canvas canvas, @NonNull RecyclerView parent, @NonNull RecyclerView.State state) {
+        View view = mActiveView;
+        if ( view == null ) return;
+
+        float offset = view.getTranslationX();
+        if ( offset == 0 ) return;
+
+        ViewDecorator[] decorators = offset < 0 ? mSwipeLeftDecorators : mSwipeRightDecorators;
+        //Past the escape distance the primary action shows what releasing does
+        int count = mGesture.isPastEscapeDistance() ? 1 : decorators.length;
+        float width = Math.abs(offset) / count;
+
+        int left = view.getLeft();
+        int top = view.getTop();
+        int right = view.getRight();
+        int bottom = view.getBottom();
+        int itemWidth = right - left;
+        for (int i = 0; i < count; i++) {
+            //Each action is decorated as an item whose swiped edge is the action's outer edge,
+            //so a cached decorator draws the same item sized rendering for every action
+            int save = canvas.save();
+            if ( offset < 0 ) {
+                int outer = right - (int) (i * width);
+                decorators[i].decorate(canvas, outer - itemWidth, top, outer, bottom, -width);
+            } else {
+                int outer = left + (int) (i * width);
+                decorators[i].decorate(canvas, outer, top, outer + itemWidth, bottom, width);
+            }
+            canvas.restoreToCount(save);
+        }
+    }
+
+    @Override
+    public void onChildViewAttachedToWindow(@NonNull View view) {
+    }
+
+    @Override
+    public void onChildViewDetachedFromWindow(@NonNull View view) {
+        //A recycled view must not come back swiped
+        if ( view == mActiveView || view == mEscapedView ) clear(view);
+        if ( view == mTouchedView ) endTouch();
+    }
+
+    /**
+     * A Builder for the SwipeController class
+     */
+    static class Builder {
+
+        private final RecyclerView mRecyclerView;
+        private final Callback mCallback;
+        private int[] mSwipeLeftIds = new int[0];
+        private ViewDecorator[] mSwipeLeftDecorators = new ViewDecorator[0];
+        private int[] mSwipeRightIds = new int[0];
+        private ViewDecorator[] mSwipeRightDecorators = new ViewDecorator[0];
+
+        /**
+         * Create a builder for a SwipeController
+         * @param recyclerView The RecyclerView whose items are swiped
+         * @param callback The callback deciding which items swipe and receiving the actions
+         */
+        Builder(RecyclerView recyclerView, Callback callback) {
+            this.mRecyclerView = recyclerView;
+            this.mCallback = callback;
+        }
+
+        /**
+         * Add an action revealed by swiping left, the first one added is the primary action
+         * @param actionId The id passed to the callback
+         * @param decorator The reusable decorator drawing the action
+         * @return This instance of @SwipeController.Builder
+         */
+        Builder addSwipeLeftAction(int actionId, ViewDecorator decorator) {
+            mSwipeLeftIds = append(mSwipeLeftIds, actionId);
+            mSwipeLeftDecorators = append(mSwipeLeftDecorators, decorator);
+            return this;
+        }
+
+        /**
+         * Add an action revealed by swiping right, the first one added is the primary action
+         * @param actionId The id passed to the callback
+         * @param decorator The reusable decorator drawing the action
+         * @return This instance of @SwipeController.Builder
+         */
+        Builder addSwipeRightAction(int actionId, ViewDecorator decorator) {
+            mSwipeRightIds = append(mSwipeRightIds, actionId);
+            mSwipeRightDecorators = append(mSwipeRightDecorators, decorator);
+            return this;
+        }
+
+        /**
+         * Create the SwipeController and attach it to the RecyclerView
+         * @return The created @SwipeController
+         */
+        SwipeController create() {
+            SwipeController controller = new SwipeController(mRecyclerView, mCallback, mSwipeLeftIds, mSwipeLeftDecorators,
+                    mSwipeRightIds, mSwipeRightDecorators);
+            controller.attach();
+            return controller;
+        }
+
+        private static int[] append(int[] array, int value) {
+            int[] result = new int[array.length + 1];
+            System.arraycopy(array, 0, result, 0, array.length);
+            result[array.length] = value;
+            return result;
+        }
+
+        private static ViewDecorator[] append(ViewDecorator[] array, ViewDecorator value) {
+            ViewDecorator[] result = new ViewDecorator[array.length + 1];
+            System.arraycopy(array, 0, result, 0, array.length);
+            result[array.length] = value;
+            return result;
+        }
+    }
+}
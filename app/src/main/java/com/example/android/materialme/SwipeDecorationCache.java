@@ -0,0 +1,147 @@
+package com.example.android.materialme;
+
+import android.annotation.TargetApi;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.RecordingCanvas;
+import android.graphics.RenderNode;
+import android.os.Build;
+
+/**
+ * The swipe decoration of each direction, rendered once per item size and then drawn as a
+ * whole on every frame, the clip set by the caller reveals as much of it as was swiped.
+ *
+ * On a hardware canvas of API 29+ the decoration is recorded into a RenderNode, a display
+ * list that costs no pixel memory and is replayed by the render thread. Other canvases get a
+ * bitmap of the item size, RGB_565 when the background is opaque, which halves its memory.
+ * An entry is rendered again when the item size changes, evict() drops all of them.
+ */
+final class SwipeDecorationCache {
+
+    /**
+     * Draws the full decoration of a direction at the top left of a canvas.
+     */
+    interface Renderer {
+        void render(Canvas canvas, boolean swipeRight, int width, int height);
+    }
+
+    /**
+     * The decoration of one direction at one item size.
+     */
+    private static final class Entry {
+
+        int mWidth;
+        int mHeight;
+        Bitmap mBitmap;
+        //A RenderNode, typed as Object so this class loads below API 29
+        Object mRenderNode;
+
+        boolean fits(int width, int height) {
+            return mWidth == width && mHeight == height;
+        }
+    }
+
+    private final Renderer mRenderer;
+    private final Entry mSwipeLeft = new Entry();
+    private final Entry mSwipeRight = new Entry();
+
+    private boolean mOpaque;
+    private int mRenderCount;
+
+    SwipeDecorationCache(Renderer renderer) {
+        this.mRenderer = renderer;
+    }
+
+    /**
+     * Sets whether the decoration covers every pixel of the item, then a bitmap needs no alpha
+     * @param opaque True for an opaque background
+     */
+    void setOpaque(boolean opaque) {
+        if (opaque == mOpaque) return;
+
+        mOpaque = opaque;
+        evict();
+    }
+
+    /**
+     * Draws the decoration of a direction, rendering it first if the item size changed
+     * @param canvas The canvas, already clipped to the swiped area
+     * @param swipeRight The direction
+     * @param left The left of the item
+     * @param top The top of the item
+     * @param width The width of the item
+     * @param height The height of the item
+     */
+    void draw(Canvas canvas, boolean swipeRight, int left, int top, int width, int height) {
+        if (width <= 0 || height <= 0) return;
+
+        Entry entry = swipeRight ? mSwipeRight : mSwipeLeft;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && canvas.isHardwareAccelerated()) {
+            drawRenderNode(canvas, entry, swipeRight, left, top, width, height);
+        } else {
+            drawBitmap(canvas, entry, swipeRight, left, top, width, height);
+        }
+    }
+
+    private void drawBitmap(Canvas canvas, Entry entry, boolean swipeRight, int left, int top, int width, int height) {
+        if (entry.mBitmap == null || !entry.fits(width, height)) {
+            release(entry);
+            entry.mBitmap = Bitmap.createBitmap(width, height, mOpaque ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888);
+            entry.mWidth = width;
+            entry.mHeight = height;
+            mRenderer.render(new Canvas(entry.mBitmap), swipeRight, width, height);
+            mRenderCount++;
+        }
+        canvas.drawBitmap(entry.mBitmap, left, top, null);
+    }
+
+    @TargetApi(Build.VERSION_CODES.Q)
+    private void drawRenderNode(Canvas canvas, Entry entry, boolean swipeRight, int left, int top, int width, int height) {
+        RenderNode node = (RenderNode) entry.mRenderNode;
+        if (node == null || !entry.fits(width, height)) {
+            release(entry);
+            node = new RenderNode("SwipeDecoration");
+            node.setPosition(0, 0, width, height);
+            RecordingCanvas recording = node.beginRecording(width, height);
+            try {
+                mRenderer.render(recording, swipeRight, width, height);
+            } finally {
+                node.endRecording();
+            }
+            entry.mRenderNode = node;
+            entry.mWidth = width;
+            entry.mHeight = height;
+            mRenderCount++;
+        }
+
+        int count = canvas.save();
+        canvas.translate(left, top);
+        canvas.drawRenderNode(node);
+        canvas.restoreToCount(count);
+    }
+
+    /**
+     * Drops every rendered decoration, e.g. when the density, the theme or the configured
+     * colors, icons and text changed
+     */
+    void evict() {
+        release(mSwipeLeft);
+        release(mSwipeRight);
+    }
+
+    /**
+     * Gets how often a decoration was rendered, for tests
+     * @return The render count
+     */
+    int getRenderCount() {
+        return mRenderCount;
+    }
+
+    private static void release(Entry entry) {
+        //Neither recycled nor discarded, the last frame may still draw them
+        entry.mBitmap = null;
+        entry.mRenderNode = null;
+        entry.mWidth = 0;
+        entry.mHeight = 0;
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.android.materialme;
+
+/**
+ * The state of one swiped item and the thresholds that decide where it settles.
+ *
+ * Swiping reveals the actions of a direction side by side, each action a fixed width, narrowed
+ * when they would cover more than MAX_OPEN_FRACTION of a narrow item, e.g. a cell of a grid. On
+ * release the item springs open to show all of them, closes, or escapes off the item's edge,
+ * which fires the primary action of that direction:
+ * <ul>
+ * <li>it escapes when dragged past the escape distance, or flung outwards faster than the
+ * escape velocity,</li>
+ * <li>it closes when flung back faster than the minimum fling velocity,</li>
+ * <li>otherwise it opens when flung outwards or dragged past half the open width, and closes
+ * if not.</li>
+ * </ul>
+ * The escape distance is a fraction of the item width, but at least the open width plus half
+ * an action, so that opening and escaping never overlap. Positions are offsets from the
+ * closed item in pixels, negative when swiped left, and velocities are in pixels per second.
+ * The fling velocity is carried into the settle spring. Pure Java, nothing allocated per step.
+ */
+final class SwipeGesture {
+
+    //Closed, nothing revealed
+    static final int STATE_IDLE = 0;
+    static final int STATE_DRAGGING = 1;
+    //Springing towards closed, open or out
+    static final int STATE_SETTLING = 2;
+    //The actions are revealed and wait for a tap
+    static final int STATE_OPEN = 3;
+    //Swiped out, the primary action is due
+    static final int STATE_ESCAPED = 4;
+
+    static final int NO_ACTION = -1;
+
+    private static final float DEFAULT_ESCAPE_FRACTION = 0.5f;
+    //The part of the item the actions may cover, the rest shows which item is open
+    static final float MAX_OPEN_FRACTION = 0.75f;
+
+    private final Spring mSpring = new Spring();
+
+    private int mItemWidth;
+    private final float mActionWidth;
+    private int mSwipeLeftActionCount;
+    private int mSwipeRightActionCount;
+    private float mEscapeFraction = DEFAULT_ESCAPE_FRACTION;
+    private final float mMinFlingVelocity;
+    private final float mEscapeVelocity;
+
+    private int mState = STATE_IDLE;
+    private float mOffset;
+    //Where the running settle ends up
+    private int mTargetState = STATE_IDLE;
+    private long mSettleStartNanos;
+    //The side of the closed position the settle started on
+    private float mSettleDirection;
+
+    /**
+     * Create a gesture
+     * @param actionWidth The width of one action
+     * @param minFlingVelocity The slowest release that counts as a fling
+     * @param escapeVelocity The slowest outward fling that swipes the item out
+     */
+    SwipeGesture(float actionWidth, float minFlingVelocity, float escapeVelocity) {
+        this.mActionWidth = actionWidth;
+        this.mMinFlingVelocity = minFlingVelocity;
+        this.mEscapeVelocity = escapeVelocity;
+    }
+
+    /**
+     * Sets how many actions each direction reveals, a direction without any does not swipe
+     * @param swipeLeft The number of actions revealed by swiping left
+     * @param swipeRight The number of actions revealed by swiping right
+     */
+    void setActionCounts(int swipeLeft, int swipeRight) {
+        mSwipeLeftActionCount = swipeLeft;
+        mSwipeRightActionCount = swipeRight;
+    }
+
+    /**
+     * Sets the fraction of the item width past which a release swipes the item out
+     * @param fraction The fraction, 0.5 by default
+     */
+    void setEscapeFraction(float fraction) {
+        mEscapeFraction = fraction;
+    }
+
+    /**
+     * Sets the width of the item swiped next, before it is dragged
+     * @param width The item width
+     */
+    void setItemWidth(int width) {
+        mItemWidth = width;
+    }
+
+    int getState() {
+        return mState;
+    }
+
+    float getOffset() {
+        return mOffset;
+    }
+
+    /**
+     * Gets the number of actions of the direction the item is swiped in
+     * @return The count, 0 while closed
+     */
+    int getActionCount() {
+        return getActionCount(mOffset);
+    }
+
+    /**
+     * Gets the width revealed when the item is open in a direction
+     * @param direction Negative for swiping left, positive for right
+     * @return The open width, at most MAX_OPEN_FRACTION of the item width
+     */
+    float getOpenWidth(float direction) {
+        int count = getActionCount(direction);
+        return count * getActionWidth(count);
+    }
+
+    private int getActionCount(float direction) {
+        return direction < 0 ? mSwipeLeftActionCount : direction > 0 ? mSwipeRightActionCount : 0;
+    }
+
+    private float getActionWidth(int count) {
+        return count == 0 ? mActionWidth : Math.min(mActionWidth, mItemWidth * MAX_OPEN_FRACTION / count);
+    }
+
+    /**
+     * Gets the distance past which a release swipes the item out in a direction
+     * @param direction Negative for swiping left, positive for right
+     * @return The escape distance, at most the item width
+     */
+    float getEscapeDistance(float direction) {
+        float actionWidth = getActionWidth(getActionCount(direction));
+        return Math.min(mItemWidth, Math.max(mItemWidth * mEscapeFraction, getOpenWidth(direction) + actionWidth / 2));
+    }
+
+    /**
+     * Checks whether releasing now would swipe the item out even without a fling, e.g. to
+     * let the primary action take over the revealed area
+     * @return True past the escape distance
+     */
+    boolean isPastEscapeDistance() {
+        return mOffset != 0 && Math.abs(mOffset) >= getEscapeDistance(mOffset);
+    }
+
+    /**
+     * Starts dragging from wherever the item is, closed, open or settling
+     */
+    void startDrag() {
+        mState = STATE_DRAGGING;
+    }
+
+    /**
+     * Moves the dragged item, a direction without actions does not move
+     * @param offset The offset the finger asks for
+     * @return The offset the item is at
+     */
+    float drag(float offset) {
+        if ( mState != STATE_DRAGGING ) return mOffset;
+
+        if ( offset < 0 && mSwipeLeftActionCount == 0 || offset > 0 && mSwipeRightActionCount == 0 ) {
+            offset = 0;
+        }
+        mOffset = Math.max(-mItemWidth, Math.min(mItemWidth, offset));
+        return mOffset;
+    }
+
+    /**
+     * Ends the drag and starts settling where the thresholds say
+     * @param velocity The velocity of the finger at release
+     * @param nowNanos The current time
+     * @return The state the settle ends in, STATE_IDLE, STATE_OPEN or STATE_ESCAPED
+     */
+    int release(float velocity, long nowNanos) {
+        float direction = mOffset != 0 ? Math.signum(mOffset) : Math.signum(velocity);
+        int count = getActionCount(direction);
+        //Positive when flung away from the closed position
+        float outwards = velocity * direction;
+
+        int target;
+        if ( count == 0 ) {
+            target = STATE_IDLE;
+        } else if ( Math.abs(mOffset) >= getEscapeDistance(direction) && outwards > -mMinFlingVelocity ) {
+            target = STATE_ESCAPED;
+        } else if ( outwards >= mEscapeVelocity ) {
+            target = STATE_ESCAPED;
+        } else if ( outwards <= -mMinFlingVelocity ) {
+            target = STATE_IDLE;
+        } else if ( outwards >= mMinFlingVelocity || Math.abs(mOffset) >= getOpenWidth(direction) / 2 ) {
+            target = STATE_OPEN;
+        } else {
+            target = STATE_IDLE;
+        }
+
+        settle(target, direction, velocity, nowNanos);
+        return target;
+    }
+
+    /**
+     * Springs an open or dragged item closed
+     * @param nowNanos The current time
+     */
+    void close(long nowNanos) {
+        if ( mState == STATE_IDLE ) return;
+
+        settle(STATE_IDLE, 0, 0, nowNanos);
+    }
+
+    private void settle(int target, float direction, float velocity, long nowNanos) {
+        mTargetState = target;
+        mSettleStartNanos = nowNanos;
+        mSettleDirection = Math.signum(mOffset);
+        if ( target == STATE_OPEN ) {
+            //A little bounce shows there is nothing more behind the actions
+            mSpring.start(mOffset, velocity, direction * getOpenWidth(direction), Spring.STIFFNESS_MEDIUM, Spring.DAMPING_RATIO_LOW_BOUNCY);
+        } else if ( target == STATE_ESCAPED ) {
+            mSpring.start(mOffset, velocity, direction * mItemWidth, Spring.STIFFNESS_MEDIUM, Spring.DAMPING_RATIO_NO_BOUNCY);
+        } else {
+            //No bounce, it would reveal the other direction
+            mSpring.start(mOffset, velocity, 0, Spring.STIFFNESS_MEDIUM, Spring.DAMPING_RATIO_NO_BOUNCY);
+        }
+        mState = STATE_SETTLING;
+    }
+
+    /**
+     * Advances the settle to a frame
+     * @param frameTimeNanos The time of the frame
+     * @return The offset the item is at
+     */
+    float step(long frameTimeNanos) {
+        if ( mState != STATE_SETTLING ) return mOffset;
+
+        long elapsed = Math.max(0, frameTimeNanos - mSettleStartNanos);
+        mOffset = mSpring.getPosition(elapsed);
+
+        //A fast fling carries even a spring without bounce past its target once. Out is out, and
+        //closing stops at zero rather than reveal the other direction
+        boolean escaped = mTargetState == STATE_ESCAPED && Math.abs(mOffset) >= mItemWidth;
+        boolean closed = mTargetState == STATE_IDLE && mOffset * mSettleDirection <= 0;
+        if ( escaped || closed || mSpring.isAtRest(elapsed) ) {
+            mOffset = mSpring.getTarget();
+            mState = mTargetState;
+        }
+        return mOffset;
+    }
+
+    /**
+     * Gets the action under a point of an open or dragged item
+     * @param x The x of the point, relative to the left of the closed item
+     * @return The index of the action, 0 being the primary one at the outer edge, or NO_ACTION
+     */
+    int getActionAt(float x) {
+        int count = getActionCount();
+        if ( count == 0 ) return NO_ACTION;
+
+        float revealed = Math.abs(mOffset);
+        float width = revealed / count;
+        //From the outer edge inwards
+        float distance = mOffset < 0 ? mItemWidth - x : x;
+        if ( distance < 0 || distance >= revealed ) return NO_ACTION;
+        return Math.min(count - 1, (int) (distance / width));
+    }
+
+    /**
+     * Drops the item back to closed at once, e.g. when its view is recycled
+     */
+    void reset() {
+        mState = STATE_IDLE;
+        mTargetState = STATE_IDLE;
+        mOffset = 0;
+    }
+}
@@ -1,21 +1,27 @@
 package com.example.android.materialme;
 
+import android.content.res.Configuration;
 import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.Paint;
 import android.graphics.PorterDuff;
 import android.graphics.Typeface;
-import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
 import android.text.TextPaint;
 import android.util.Log;
 import android.util.TypedValue;
+import android.view.View;
 
 import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.ItemTouchHelper;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.android.materialme.metrics.ListMetrics;
+
 public class ViewDecorator {
 
+    private static final String TAG = "ViewDecorator";
+
     private Canvas canvas;
     private RecyclerView recyclerView;
     private RecyclerView.ViewHolder viewHolder;
@@ -46,6 +52,38 @@ public class ViewDecorator {
     private int mSwipeRightTextColor = Color.DKGRAY;
     private Typeface mSwipeRightTypeface = Typeface.SANS_SERIF;
 
+    //Resources resolved once by resolve() and reused by every decorate() call
+    private boolean mResolved;
+    private final Paint mSwipeLeftBackgroundPaint = new Paint();
+    private final Paint mSwipeRightBackgroundPaint = new Paint();
+    private Drawable mSwipeLeftIcon;
+    private Drawable mSwipeRightIcon;
+    private TextPaint mSwipeLeftTextPaint;
+    private TextPaint mSwipeRightTextPaint;
+    private float mSwipeLeftTextWidth;
+    //From the vertical center of the item to the baseline of the label
+    private float mSwipeLeftTextOffset;
+    private float mSwipeRightTextOffset;
+
+    //Times every decoration while recording is on, and counts the failed ones
+    private final ListMetrics mMetrics = ListMetrics.getInstance();
+
+    //Rendered decorations while caching is on, otherwise null
+    private SwipeDecorationCache mCache;
+
+    //The whole decoration of a direction, as if the item was swiped all the way
+    private final SwipeDecorationCache.Renderer mCacheRenderer = (canvas, swipeRight, width, height) -> {
+        if ( swipeRight ) {
+            drawSwipeRight(canvas, 0, 0, height, width);
+        } else {
+            drawSwipeLeft(canvas, width, 0, height, -width);
+        }
+    };
+
+    //The configuration the resources were resolved for
+    private int mDensityDpi;
+    private int mUiMode;
+
 
     private ViewDecorator() {
         swipeLeftBackgroundColor = 0;
@@ -56,6 +94,18 @@ public class ViewDecorator {
         swipeRightActionIconTint = null;
     }
 
+    /**
+     * Create a reusable @ViewDecorator bound to a single RecyclerView.
+     * Configure it once, then call {@link #decorate(Canvas, RecyclerView.ViewHolder, float, float, int, boolean)}
+     * from onChildDrawOver() on every frame; no objects are allocated per frame.
+     * @param recyclerView The RecyclerView to which ItemTouchHelper is attached to
+     */
+    public ViewDecorator(RecyclerView recyclerView) {
+        this();
+        this.recyclerView = recyclerView;
+        this.iconHorizontalMargin = (int)TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 16, recyclerView.getContext().getResources().getDisplayMetrics());
+    }
+
 
     /**
      * Create a @ViewDecorator
@@ -85,6 +135,7 @@ public class ViewDecorator {
      * @param backgroundColor The resource id of the background color to be set
      */
     public void setBackgroundColor(int backgroundColor) {
+        mResolved = false;
         this.swipeLeftBackgroundColor = backgroundColor;
         this.swipeRightBackgroundColor = backgroundColor;
     }
@@ -94,6 +145,7 @@ public class ViewDecorator {
      * @param actionIconId The resource id of the icon to be set
      */
     public void setActionIconId(int actionIconId) {
+        mResolved = false;
         this.swipeLeftActionIconId = actionIconId;
         this.swipeRightActionIconId = actionIconId;
     }
@@ -103,6 +155,7 @@ public class ViewDecorator {
      * @param swipeLeftBackgroundColor The resource id of the background color to be set
      */
     public void setSwipeLeftBackgroundColor(int swipeLeftBackgroundColor) {
+        mResolved = false;
         this.swipeLeftBackgroundColor = swipeLeftBackgroundColor;
     }
 
@@ -111,6 +164,7 @@ public class ViewDecorator {
      * @param swipeLeftActionIconId The resource id of the icon to be set
      */
     public void setSwipeLeftActionIconId(int swipeLeftActionIconId) {
+        mResolved = false;
         this.swipeLeftActionIconId = swipeLeftActionIconId;
     }
 
@@ -120,6 +174,7 @@ public class ViewDecorator {
      * @param swipeRightBackgroundColor The resource id of the background color to be set
      */
     public void setSwipeRightBackgroundColor(int swipeRightBackgroundColor) {
+        mResolved = false;
         this.swipeRightBackgroundColor = swipeRightBackgroundColor;
     }
 
@@ -128,90 +183,340 @@ public class ViewDecorator {
      * @param swipeRightActionIconId The resource id of the icon to be set
      */
     public void setSwipeRightActionIconId(int swipeRightActionIconId) {
+        mResolved = false;
         this.swipeRightActionIconId = swipeRightActionIconId;
     }
 
 
+    /**
+     * Set the tint color for either (left/right) swipe action icons
+     * @param color A single color value in the form 0xAARRGGBB
+     */
+    public void setActionIconTint(int color) {
+        mResolved = false;
+        this.swipeLeftActionIconTint = color;
+        this.swipeRightActionIconTint = color;
+    }
+
+    /**
+     * Set the tint color for the left swipe action icon
+     * @param color A single color value in the form 0xAARRGGBB
+     */
+    public void setSwipeLeftActionIconTint(int color) {
+        mResolved = false;
+        this.swipeLeftActionIconTint = color;
+    }
+
+    /**
+     * Set the tint color for the right swipe action icon
+     * @param color A single color value in the form 0xAARRGGBB
+     */
+    public void setSwipeRightActionIconTint(int color) {
+        mResolved = false;
+        this.swipeRightActionIconTint = color;
+    }
+
+
+    /**
+     * Set the label shown next to the left swipe action icon
+     * @param label The label, null or empty for none
+     */
+    public void setSwipeLeftLabel(String label) {
+        mResolved = false;
+        this.mSwipeLeftText = label;
+    }
+
+    /**
+     * Set the size of the left swipe label
+     * @param unit The unit of the size, e.g. TypedValue.COMPLEX_UNIT_SP
+     * @param size The size in the given unit
+     */
+    public void setSwipeLeftLabelTextSize(int unit, float size) {
+        mResolved = false;
+        this.mSwipeLeftTextUnit = unit;
+        this.mSwipeLeftTextSize = size;
+    }
+
+    /**
+     * Set the color of the left swipe label
+     * @param color A single color value in the form 0xAARRGGBB
+     */
+    public void setSwipeLeftLabelColor(int color) {
+        mResolved = false;
+        this.mSwipeLeftTextColor = color;
+    }
+
+    /**
+     * Set the typeface of the left swipe label
+     * @param typeface The typeface
+     */
+    public void setSwipeLeftLabelTypeface(Typeface typeface) {
+        mResolved = false;
+        this.mSwipeLeftTypeface = typeface;
+    }
+
+
+    /**
+     * Set the label shown next to the right swipe action icon
+     * @param label The label, null or empty for none
+     */
+    public void setSwipeRightLabel(String label) {
+        mResolved = false;
+        this.mSwipeRightText = label;
+    }
+
+    /**
+     * Set the size of the right swipe label
+     * @param unit The unit of the size, e.g. TypedValue.COMPLEX_UNIT_SP
+     * @param size The size in the given unit
+     */
+    public void setSwipeRightLabelTextSize(int unit, float size) {
+        mResolved = false;
+        this.mSwipeRightTextUnit = unit;
+        this.mSwipeRightTextSize = size;
+    }
+
+    /**
+     * Set the color of the right swipe label
+     * @param color A single color value in the form 0xAARRGGBB
+     */
+    public void setSwipeRightLabelColor(int color) {
+        mResolved = false;
+        this.mSwipeRightTextColor = color;
+    }
+
+    /**
+     * Set the typeface of the right swipe label
+     * @param typeface The typeface
+     */
+    public void setSwipeRightLabelTypeface(Typeface typeface) {
+        mResolved = false;
+        this.mSwipeRightTypeface = typeface;
+    }
+
+
+    /**
+     * Render the decoration of each direction once per item size and draw the result on every
+     * frame, instead of drawing the background, icon and text again. Costs a display list on
+     * API 29+ and a bitmap of the item size on older devices or software canvases
+     * @param enabled Whether to cache the decoration
+     */
+    public void setCachingEnabled(boolean enabled) {
+        if ( enabled == (mCache != null) ) return;
+
+        mCache = enabled ? new SwipeDecorationCache(mCacheRenderer) : null;
+        mResolved = false;
+    }
+
+    /**
+     * Drop the resolved resources and the cached decorations, e.g. after the theme changed.
+     * Density and night mode changes are noticed by decorate() itself
+     */
+    public void invalidate() {
+        mResolved = false;
+    }
+
+    /**
+     * Gets how often the cached decorations were rendered, for tests
+     * @return The render count, 0 while caching is off
+     */
+    int getCacheRenderCount() {
+        return mCache != null ? mCache.getRenderCount() : 0;
+    }
+
+    /**
+     * Gets the resolved action icon of a direction, for tests
+     * @param swipeRight The direction
+     * @return The icon, null if there is none or nothing was resolved yet
+     */
+    Drawable getActionIcon(boolean swipeRight) {
+        return swipeRight ? mSwipeRightIcon : mSwipeLeftIcon;
+    }
+
+    private boolean configurationChanged() {
+        Configuration configuration = recyclerView.getResources().getConfiguration();
+        return configuration.densityDpi != mDensityDpi || configuration.uiMode != mUiMode;
+    }
+
+    /**
+     * Resolve the configured colors, icons and text into paints and drawables.
+     * Called once after configuration; decorate() only reuses the results.
+     */
+    void resolve() {
+        Configuration configuration = recyclerView.getResources().getConfiguration();
+        mDensityDpi = configuration.densityDpi;
+        mUiMode = configuration.uiMode;
+
+        mSwipeLeftBackgroundPaint.setColor(swipeLeftBackgroundColor);
+        mSwipeRightBackgroundPaint.setColor(swipeRightBackgroundColor);
+
+        mSwipeLeftIcon = loadIcon(swipeLeftActionIconId, swipeLeftActionIconTint);
+        mSwipeRightIcon = swipeRightActionIconId == swipeLeftActionIconId && equalTints(swipeRightActionIconTint, swipeLeftActionIconTint)
+                ? mSwipeLeftIcon
+                : loadIcon(swipeRightActionIconId, swipeRightActionIconTint);
+
+        mSwipeLeftTextPaint = createTextPaint(mSwipeLeftText, mSwipeLeftTextUnit, mSwipeLeftTextSize, mSwipeLeftTextColor, mSwipeLeftTypeface);
+        mSwipeLeftTextWidth = mSwipeLeftTextPaint != null ? mSwipeLeftTextPaint.measureText(mSwipeLeftText) : 0;
+        mSwipeLeftTextOffset = mSwipeLeftTextPaint != null ? mSwipeLeftTextPaint.getTextSize() / 2 : 0;
+        mSwipeRightTextPaint = createTextPaint(mSwipeRightText, mSwipeRightTextUnit, mSwipeRightTextSize, mSwipeRightTextColor, mSwipeRightTypeface);
+        mSwipeRightTextOffset = mSwipeRightTextPaint != null ? mSwipeRightTextPaint.getTextSize() / 2 : 0;
+
+        //The icon margin is in dp as well
+        this.iconHorizontalMargin = (int)TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 16, recyclerView.getContext().getResources().getDisplayMetrics());
+
+        if ( mCache != null ) {
+            //Without alpha the cache can use half the memory per pixel
+            mCache.setOpaque(Color.alpha(swipeLeftBackgroundColor) == 255 && Color.alpha(swipeRightBackgroundColor) == 255);
+            mCache.evict();
+        }
+
+        mResolved = true;
+    }
+
+    private Drawable loadIcon(int iconId, Integer tint) {
+        if ( iconId == 0 ) return null;
+
+        Drawable icon = ContextCompat.getDrawable(recyclerView.getContext(), iconId);
+        if ( icon == null ) return null;
+
+        //Mutate so the tint does not leak into other users of the same drawable
+        icon = icon.mutate();
+        if ( tint != null )
+            icon.setColorFilter(tint, PorterDuff.Mode.SRC_IN);
+        return icon;
+    }
+
+    private TextPaint createTextPaint(String text, int unit, float size, int color, Typeface typeface) {
+        if ( text == null || text.length() == 0 ) return null;
+
+        TextPaint textPaint = new TextPaint();
+        textPaint.setAntiAlias(true);
+        textPaint.setTextSize(TypedValue.applyDimension(unit, size, recyclerView.getContext().getResources().getDisplayMetrics()));
+        textPaint.setColor(color);
+        textPaint.setTypeface(typeface);
+        return textPaint;
+    }
+
+    private static boolean equalTints(Integer a, Integer b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * Decorate a RecyclerView item using this reusable decorator. Only the per-frame state is updated.
+     * @param canvas The canvas which RecyclerView is drawing its children
+     * @param viewHolder The ViewHolder which is being interacted by the User or it was interacted and simply animating to its original position
+     * @param dX The amount of horizontal displacement caused by user's action
+     * @param dY The amount of vertical displacement caused by user's action
+     * @param actionState The type of interaction on the View. Is either ACTION_STATE_DRAG or ACTION_STATE_SWIPE.
+     * @param isCurrentlyActive True if this view is currently being controlled by the user or false it is simply animating back to its original state
+     */
+    public void decorate(Canvas canvas, RecyclerView.ViewHolder viewHolder, float dX, float dY, int actionState, boolean isCurrentlyActive) {
+        this.canvas = canvas;
+        this.viewHolder = viewHolder;
+        this.dX = dX;
+        this.dY = dY;
+        this.actionState = actionState;
+        this.isCurrentlyActive = isCurrentlyActive;
+        decorate();
+        //Do not keep the frame's canvas or the recycled holder alive between frames
+        this.canvas = null;
+        this.viewHolder = null;
+    }
+
     /**
      * Decorate the RecyclerView item with the chosen backgrounds and icons
      */
     public void decorate() {
+        if ( actionState != ItemTouchHelper.ACTION_STATE_SWIPE ) return;
+
+        View itemView = viewHolder.itemView;
+        decorate(canvas, itemView.getLeft(), itemView.getTop(), itemView.getRight(), itemView.getBottom(), dX);
+    }
+
+    /**
+     * Decorate the given bounds as if an item there was swiped, e.g. one of several actions
+     * revealed side by side. Only the swiped part of the bounds is drawn, the canvas is
+     * clipped to it and should be saved and restored by the caller
+     * @param canvas The canvas to draw in
+     * @param itemLeft The left of the bounds
+     * @param itemTop The top of the bounds
+     * @param itemRight The right of the bounds
+     * @param itemBottom The bottom of the bounds
+     * @param dX The amount of horizontal displacement, negative when swiping left
+     */
+    public void decorate(Canvas canvas, int itemLeft, int itemTop, int itemRight, int itemBottom, float dX) {
+        long start = mMetrics.start();
         try {
-            if ( actionState != ItemTouchHelper.ACTION_STATE_SWIPE ) return;
+            if ( !mResolved || configurationChanged() ) resolve();
 
             if ( dX > 0 ) {
                 // Swiping Right
-                canvas.clipRect(viewHolder.itemView.getLeft(), viewHolder.itemView.getTop(), viewHolder.itemView.getLeft() + (int) dX, viewHolder.itemView.getBottom());
-                if ( swipeRightBackgroundColor != 0 ) {
-                    final ColorDrawable background = new ColorDrawable(swipeRightBackgroundColor);
-                    background.setBounds(viewHolder.itemView.getLeft(), viewHolder.itemView.getTop(), viewHolder.itemView.getLeft() + (int) dX, viewHolder.itemView.getBottom());
-                    background.draw(canvas);
+                canvas.clipRect(itemLeft, itemTop, itemLeft + (int) dX, itemBottom);
+                if ( mCache != null ) {
+                    mCache.draw(canvas, true, itemLeft, itemTop, itemRight - itemLeft, itemBottom - itemTop);
+                } else {
+                    drawSwipeRight(canvas, itemLeft, itemTop, itemBottom, dX);
                 }
 
-                int iconSize = 0;
-                if ( swipeRightActionIconId != 0 && dX > iconHorizontalMargin ) {
-                    Drawable icon = ContextCompat.getDrawable(recyclerView.getContext(), swipeRightActionIconId);
-                    if ( icon != null ) {
-                        iconSize = icon.getIntrinsicHeight();
-                        int halfIcon = iconSize / 2;
-                        int top = viewHolder.itemView.getTop() + ((viewHolder.itemView.getBottom() - viewHolder.itemView.getTop()) / 2 - halfIcon);
-                        icon.setBounds(viewHolder.itemView.getLeft() + iconHorizontalMargin, top, viewHolder.itemView.getLeft() + iconHorizontalMargin + icon.getIntrinsicWidth(), top + icon.getIntrinsicHeight());
-                        if (swipeRightActionIconTint != null)
-                            icon.setColorFilter(swipeRightActionIconTint, PorterDuff.Mode.SRC_IN);
-                        icon.draw(canvas);
-                    }
+            } else if ( dX < 0 ) {
+                // Swiping Left
+                canvas.clipRect(itemRight + (int) dX, itemTop, itemRight, itemBottom);
+                if ( mCache != null ) {
+                    mCache.draw(canvas, false, itemLeft, itemTop, itemRight - itemLeft, itemBottom - itemTop);
+                } else {
+                    drawSwipeLeft(canvas, itemRight, itemTop, itemBottom, dX);
                 }
+            }
+        } catch(Exception e) {
+            //A frame without decoration beats a crash mid-swipe, but the failure is counted
+            //and logged with its stack trace
+            mMetrics.recordFailure(ListMetrics.DECORATE);
+            Log.e(TAG, "Failed to decorate the swiped item", e);
+        }
+        mMetrics.end(ListMetrics.DECORATE, start);
+    }
 
-                if ( mSwipeRightText != null && mSwipeRightText.length() > 0 && dX > iconHorizontalMargin + iconSize) {
-                    TextPaint textPaint = new TextPaint();
-                    textPaint.setAntiAlias(true);
-                    textPaint.setTextSize(TypedValue.applyDimension(mSwipeRightTextUnit, mSwipeRightTextSize, recyclerView.getContext().getResources().getDisplayMetrics()));
-                    textPaint.setColor(mSwipeRightTextColor);
-                    textPaint.setTypeface(mSwipeRightTypeface);
+    private void drawSwipeRight(Canvas canvas, int itemLeft, int itemTop, int itemBottom, float dX) {
+        if ( swipeRightBackgroundColor != 0 ) {
+            canvas.drawRect(itemLeft, itemTop, itemLeft + (int) dX, itemBottom, mSwipeRightBackgroundPaint);
+        }
 
-                    int textTop = (int) (viewHolder.itemView.getTop() + ((viewHolder.itemView.getBottom() - viewHolder.itemView.getTop()) / 2.0) + textPaint.getTextSize()/2);
-                    canvas.drawText(mSwipeRightText, viewHolder.itemView.getLeft() + iconHorizontalMargin + iconSize + (iconSize > 0 ? iconHorizontalMargin/2 : 0), textTop,textPaint);
-                }
+        int iconSize = 0;
+        if ( mSwipeRightIcon != null && dX > iconHorizontalMargin ) {
+            Drawable icon = mSwipeRightIcon;
+            iconSize = icon.getIntrinsicHeight();
+            int halfIcon = iconSize / 2;
+            int top = itemTop + ((itemBottom - itemTop) / 2 - halfIcon);
+            icon.setBounds(itemLeft + iconHorizontalMargin, top, itemLeft + iconHorizontalMargin + icon.getIntrinsicWidth(), top + icon.getIntrinsicHeight());
+            icon.draw(canvas);
+        }
 
-            } else if ( dX < 0 ) {
-                // Swiping Left
-                canvas.clipRect(viewHolder.itemView.getRight() + (int) dX, viewHolder.itemView.getTop(), viewHolder.itemView.getRight(), viewHolder.itemView.getBottom());
-                if ( swipeLeftBackgroundColor != 0 ) {
-                    final ColorDrawable background = new ColorDrawable(swipeLeftBackgroundColor);
-                    background.setBounds(viewHolder.itemView.getRight() + (int) dX, viewHolder.itemView.getTop(), viewHolder.itemView.getRight(), viewHolder.itemView.getBottom());
-                    background.draw(canvas);
-                }
+        if ( mSwipeRightTextPaint != null && dX > iconHorizontalMargin + iconSize) {
+            int textTop = (int) (itemTop + ((itemBottom - itemTop) / 2.0) + mSwipeRightTextOffset);
+            canvas.drawText(mSwipeRightText, itemLeft + iconHorizontalMargin + iconSize + (iconSize > 0 ? iconHorizontalMargin/2 : 0), textTop, mSwipeRightTextPaint);
+        }
+    }
 
-                int iconSize = 0;
-                int imgLeft = viewHolder.itemView.getRight();
-                if ( swipeLeftActionIconId != 0 && dX < - iconHorizontalMargin ) {
-                    Drawable icon = ContextCompat.getDrawable(recyclerView.getContext(), swipeLeftActionIconId);
-                    if ( icon != null ) {
-                        iconSize = icon.getIntrinsicHeight();
-                        int halfIcon = iconSize / 2;
-                        int top = viewHolder.itemView.getTop() + ((viewHolder.itemView.getBottom() - viewHolder.itemView.getTop()) / 2 - halfIcon);
-                        imgLeft = viewHolder.itemView.getRight() - iconHorizontalMargin - halfIcon * 2;
-                        icon.setBounds(imgLeft, top, viewHolder.itemView.getRight() - iconHorizontalMargin, top + icon.getIntrinsicHeight());
-                        if (swipeLeftActionIconTint != null)
-                            icon.setColorFilter(swipeLeftActionIconTint, PorterDuff.Mode.SRC_IN);
-                        icon.draw(canvas);
-                    }
-                }
+    private void drawSwipeLeft(Canvas canvas, int itemRight, int itemTop, int itemBottom, float dX) {
+        if ( swipeLeftBackgroundColor != 0 ) {
+            canvas.drawRect(itemRight + (int) dX, itemTop, itemRight, itemBottom, mSwipeLeftBackgroundPaint);
+        }
 
-                if ( mSwipeLeftText != null && mSwipeLeftText.length() > 0 && dX < - iconHorizontalMargin - iconSize ) {
-                    TextPaint textPaint = new TextPaint();
-                    textPaint.setAntiAlias(true);
-                    textPaint.setTextSize(TypedValue.applyDimension(mSwipeLeftTextUnit, mSwipeLeftTextSize, recyclerView.getContext().getResources().getDisplayMetrics()));
-                    textPaint.setColor(mSwipeLeftTextColor);
-                    textPaint.setTypeface(mSwipeLeftTypeface);
+        int iconSize = 0;
+        int imgLeft = itemRight;
+        if ( mSwipeLeftIcon != null && dX < - iconHorizontalMargin ) {
+            Drawable icon = mSwipeLeftIcon;
+            iconSize = icon.getIntrinsicHeight();
+            int halfIcon = iconSize / 2;
+            int top = itemTop + ((itemBottom - itemTop) / 2 - halfIcon);
+            imgLeft = itemRight - iconHorizontalMargin - halfIcon * 2;
+            icon.setBounds(imgLeft, top, itemRight - iconHorizontalMargin, top + icon.getIntrinsicHeight());
+            icon.draw(canvas);
+        }
 
-                    float width = textPaint.measureText(mSwipeLeftText);
-                    int textTop = (int) (viewHolder.itemView.getTop() + ((viewHolder.itemView.getBottom() - viewHolder.itemView.getTop()) / 2.0) + textPaint.getTextSize() / 2);
-                    canvas.drawText(mSwipeLeftText, imgLeft - width - ( imgLeft == viewHolder.itemView.getRight() ? iconHorizontalMargin : iconHorizontalMargin/2 ), textTop, textPaint);
-                }
-            }
-        } catch(Exception e) {
-            Log.e(this.getClass().getName(), e.getMessage());
+        if ( mSwipeLeftTextPaint != null && dX < - iconHorizontalMargin - iconSize ) {
+            int textTop = (int) (itemTop + ((itemBottom - itemTop) / 2.0) + mSwipeLeftTextOffset);
+            canvas.drawText(mSwipeLeftText, imgLeft - mSwipeLeftTextWidth - ( imgLeft == itemRight ? iconHorizontalMargin : iconHorizontalMargin/2 ), textTop, mSwipeLeftTextPaint);
         }
     }
 
@@ -247,6 +552,14 @@ public class ViewDecorator {
             );
         }
 
+        /**
+         * Create a builder for a reusable ViewDecorator that is configured once per RecyclerView
+         * @param recyclerView The RecyclerView to which ItemTouchHelper is attached to
+         */
+        public Builder(RecyclerView recyclerView) {
+            mDecorator = new ViewDecorator(recyclerView);
+        }
+
 
         /**
          * Add a background color to both swiping directions
@@ -311,12 +624,138 @@ public class ViewDecorator {
         }
 
 
+        /**
+         * Set the tint color of the action icon of both swiping directions
+         * @param color A single color value in the form 0xAARRGGBB
+         * @return This instance of @ViewDecorator.Builder
+         */
+        public Builder setActionIconTint(int color) {
+            mDecorator.setActionIconTint(color);
+            return this;
+        }
+
+        /**
+         * Set the tint color of the action icon while swiping right
+         * @param color A single color value in the form 0xAARRGGBB
+         * @return This instance of @ViewDecorator.Builder
+         */
+        public Builder setSwipeRightActionIconTint(int color) {
+            mDecorator.setSwipeRightActionIconTint(color);
+            return this;
+        }
+
+        /**
+         * Set the tint color of the action icon while swiping left
+         * @param color A single color value in the form 0xAARRGGBB
+         * @return This instance of @ViewDecorator.Builder
+         */
+        public Builder setSwipeLeftActionIconTint(int color) {
+            mDecorator.setSwipeLeftActionIconTint(color);
+            return this;
+        }
+
+
+        /**
+         * Add a label next to the action icon while swiping right
+         * @param label The label
+         * @return This instance of @ViewDecorator.Builder
+         */
+        public Builder addSwipeRightLabel(String label) {
+            mDecorator.setSwipeRightLabel(label);
+            return this;
+        }
+
+        /**
+         * Set the size of the label while swiping right
+         * @param unit The unit of the size, e.g. TypedValue.COMPLEX_UNIT_SP
+         * @param size The size in the given unit
+         * @return This instance of @ViewDecorator.Builder
+         */
+        public Builder setSwipeRightLabelTextSize(int unit, float size) {
+            mDecorator.setSwipeRightLabelTextSize(unit, size);
+            return this;
+        }
+
+        /**
+         * Set the color of the label while swiping right
+         * @param color A single color value in the form 0xAARRGGBB
+         * @return This instance of @ViewDecorator.Builder
+         */
+        public Builder setSwipeRightLabelColor(int color) {
+            mDecorator.setSwipeRightLabelColor(color);
+            return this;
+        }
+
+        /**
+         * Set the typeface of the label while swiping right
+         * @param typeface The typeface
+         * @return This instance of @ViewDecorator.Builder
+         */
+        public Builder setSwipeRightLabelTypeface(Typeface typeface) {
+            mDecorator.setSwipeRightLabelTypeface(typeface);
+            return this;
+        }
+
+
+        /**
+         * Add a label next to the action icon while swiping left
+         * @param label The label
+         * @return This instance of @ViewDecorator.Builder
+         */
+        public Builder addSwipeLeftLabel(String label) {
+            mDecorator.setSwipeLeftLabel(label);
+            return this;
+        }
+
+        /**
+         * Set the size of the label while swiping left
+         * @param unit The unit of the size, e.g. TypedValue.COMPLEX_UNIT_SP
+         * @param size The size in the given unit
+         * @return This instance of @ViewDecorator.Builder
+         */
+        public Builder setSwipeLeftLabelTextSize(int unit, float size) {
+            mDecorator.setSwipeLeftLabelTextSize(unit, size);
+            return this;
+        }
+
+        /**
+         * Set the color of the label while swiping left
+         * @param color A single color value in the form 0xAARRGGBB
+         * @return This instance of @ViewDecorator.Builder
+         */
+        public Builder setSwipeLeftLabelColor(int color) {
+            mDecorator.setSwipeLeftLabelColor(color);
+            return this;
+        }
+
+        /**
+         * Set the typeface of the label while swiping left
+         * @param typeface The typeface
+         * @return This instance of @ViewDecorator.Builder
+         */
+        public Builder setSwipeLeftLabelTypeface(Typeface typeface) {
+            mDecorator.setSwipeLeftLabelTypeface(typeface);
+            return this;
+        }
+
+
+
+        /**
+         * Render the decoration once per item size and reuse it on every frame
+         * @param enabled Whether to cache the decoration
+         * @return This instance of @ViewDecorator.Builder
+         */
+        public Builder setCachingEnabled(boolean enabled) {
+            mDecorator.setCachingEnabled(enabled);
+            return this;
+        }
 
         /**
          * Create a ViewDecorator
          * @return The created @ViewDecorator
          */
         public ViewDecorator create() {
+            mDecorator.resolve();
             return mDecorator;
         }
     }
@@ -0,0 +1,139 @@
+package com.example.android.materialme.adapter;
+
+import android.content.Context;
+
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * A vertical grid with as many columns as fit at least a target cell width.
+ *
+ * The column count and the cell widths follow the width of the RecyclerView within the layout
+ * pass that first sees a new width, e.g. when the window is resized, so a resize costs one
+ * layout and no recreation. The cell widths are those GridLayoutManager lays out, to the pixel,
+ * so images can be decoded at exactly the size of their cell.
+ */
+public class AdaptiveGridLayoutManager extends GridLayoutManager {
+
+    /**
+     * Told when the cells changed width, during the layout pass that lays them out.
+     */
+    public interface OnCellWidthsChangedListener {
+        /**
+         * Called after the children were laid out at the new widths. Views of the children are
+         * not rebound, anything sized by the cell must be updated here, the adapter must not
+         * be notified of changes during layout
+         * @param layoutManager The grid
+         */
+        void onCellWidthsChanged(AdaptiveGridLayoutManager layoutManager);
+    }
+
+    private final int mTargetCellWidth;
+    private OnCellWidthsChangedListener mListener;
+
+    //The width the cells were computed for, and the borders of the cells within it
+    private int mTotalSpace;
+    private int[] mCellBorders;
+
+    //Layout passes, pre-layouts excluded
+    private int mLayoutCount;
+
+    /**
+     * Create a grid
+     * @param context Context of the application
+     * @param targetCellWidth The narrowest cell width in pixels, unless the grid is narrower
+     * @param expectedWidth The width the grid probably gets, e.g. the screen width, to size
+     *                      items bound before the first layout
+     */
+    public AdaptiveGridLayoutManager(Context context, int targetCellWidth, int expectedWidth) {
+        super(context, columnCount(expectedWidth, targetCellWidth));
+        this.mTargetCellWidth = targetCellWidth;
+        this.mTotalSpace = expectedWidth;
+        this.mCellBorders = cellBorders(expectedWidth, getSpanCount());
+    }
+
+    /**
+     * Computes how many columns of at least the target width fit
+     * @param availableWidth The width of the grid in pixels
+     * @param targetCellWidth The narrowest cell width in pixels
+     * @return The column count, at least 1
+     */
+    public static int columnCount(int availableWidth, int targetCellWidth) {
+        return Math.max(1, availableWidth / Math.max(1, targetCellWidth));
+    }
+
+    /**
+     * Computes the borders of the cells the way GridLayoutManager does, the pixels the width
+     * cannot be divided into are spread over the cells one by one
+     * @param totalSpace The width of the grid in pixels
+     * @param spanCount The column count
+     * @return spanCount + 1 borders, from 0 to totalSpace
+     */
+    public static int[] cellBorders(int totalSpace, int spanCount) {
+        int[] borders = new int[spanCount + 1];
+        int sizePerSpan = totalSpace / spanCount;
+        int sizePerSpanRemainder = totalSpace % spanCount;
+        int consumedPixels = 0;
+        int additionalSize = 0;
+        for (int i = 1; i <= spanCount; i++) {
+            int itemSize = sizePerSpan;
+            additionalSize += sizePerSpanRemainder;
+            if (additionalSize > 0 && (spanCount - additionalSize) < sizePerSpanRemainder) {
+                itemSize += 1;
+                additionalSize -= spanCount;
+            }
+            consumedPixels += itemSize;
+            borders[i] = consumedPixels;
+        }
+        return borders;
+    }
+
+    /**
+     * Set the listener told when the cells changed width
+     * @param listener The listener, or null
+     */
+    public void setOnCellWidthsChangedListener(OnCellWidthsChangedListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Gets the width of a cell
+     * @param spanIndex The column the cell starts in
+     * @param spanSize The number of columns the cell spans
+     * @return The width in pixels, as laid out by the latest layout pass
+     */
+    public int getCellWidth(int spanIndex, int spanSize) {
+        return mCellBorders[spanIndex + spanSize] - mCellBorders[spanIndex];
+    }
+
+    /**
+     * Gets the number of layout passes so far, for tests counting the passes of a resize
+     * @return The number of layouts, pre-layouts excluded
+     */
+    int getLayoutCount() {
+        return mLayoutCount;
+    }
+
+    @Override
+    public void onLayoutChildren(RecyclerView.Recycler recycler, RecyclerView.State state) {
+        boolean resized = false;
+        if (!state.isPreLayout()) {
+            mLayoutCount++;
+
+            int totalSpace = getWidth() - getPaddingLeft() - getPaddingRight();
+            if (totalSpace > 0 && (totalSpace != mTotalSpace || mCellBorders.length != getSpanCount() + 1)) {
+                //Within this pass, the layout it requests is dropped as this pass does it
+                setSpanCount(columnCount(totalSpace, mTargetCellWidth));
+                mTotalSpace = totalSpace;
+                mCellBorders = cellBorders(totalSpace, getSpanCount());
+                resized = true;
+            }
+        }
+
+        super.onLayoutChildren(recycler, state);
+
+        if (resized && mListener != null) {
+            mListener.onCellWidthsChanged(this);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.android.materialme.adapter;
+
+/**
+ * Merges the steps of one drag into a single move.
+ *
+ * ItemTouchHelper reports a drag as a chain of one-step moves of the dragged item, each
+ * starting where the previous one ended. Whatever path the drag takes, the list ends up as if
+ * the item had been moved once from where the drag started to where it was dropped, so only
+ * that move has to be persisted. A drag that comes back to its start moves nothing.
+ */
+public class DragReorder {
+
+    /**
+     * Receives the merged move when a drag ends.
+     */
+    public interface Listener {
+        /**
+         * Called once per drag that changed the order
+         * @param from The position the item was dragged from
+         * @param to The position the item was dropped at
+         */
+        void onReorder(int from, int to);
+    }
+
+    private static final int NO_POSITION = -1;
+
+    private final Listener mListener;
+
+    private int mFrom = NO_POSITION;
+    private int mTo = NO_POSITION;
+
+    /**
+     * Create a tracker reporting merged moves to a listener
+     * @param listener The listener receiving one move per finished drag
+     */
+    public DragReorder(Listener listener) {
+        this.mListener = listener;
+    }
+
+    /**
+     * Records one step of the drag, called alongside the adapter move
+     * @param from The position the dragged item is moved from
+     * @param to The position the dragged item is moved to
+     */
+    public void onMove(int from, int to) {
+        if (mFrom != NO_POSITION && from != mTo) {
+            //Not a continuation of the current drag, keep both moves rather than merge them wrongly
+            finish();
+        }
+
+        if (mFrom == NO_POSITION) {
+            mFrom = from;
+        }
+        mTo = to;
+    }
+
+    /**
+     * Ends the drag and reports the merged move, if the order changed
+     */
+    public void finish() {
+        int from = mFrom;
+        int to = mTo;
+        mFrom = NO_POSITION;
+        mTo = NO_POSITION;
+
+        if (from != to) {
+            mListener.onReorder(from, to);
+        }
+    }
+
+    /**
+     * Checks whether a drag has moved an item since the last finish()
+     * @return True while a drag is being tracked
+     */
+    public boolean isDragging() {
+        return mFrom != NO_POSITION;
+    }
+}
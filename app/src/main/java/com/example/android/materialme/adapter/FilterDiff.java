@@ -0,0 +1,128 @@
+package com.example.android.materialme.adapter;
+
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+import java.util.List;
+
+/**
+ * The update operations between a list and a filtered version of it, in one linear pass.
+ *
+ * Narrowing or widening a search only removes or inserts items, it never reorders them. DiffUtil
+ * would still search for moves, at O((N + M) * D) cost, which for a query cutting 50k items down
+ * to a few is far too slow. When one list is a subsequence of the other, this finds the same
+ * minimal set of range removals or insertions, plus changes of items whose content differs.
+ * The items are sports, or the rows of SportSections, whose headers come and go the same way.
+ */
+final class FilterDiff {
+
+    private static final int REMOVE = 0;
+    private static final int INSERT = 1;
+    private static final int CHANGE = 2;
+
+    //Operations as (type, position, count) triples, in dispatch order
+    private final int[] mOperations;
+    private final int mSize;
+
+    private FilterDiff(int[] operations, int size) {
+        this.mOperations = operations;
+        this.mSize = size;
+    }
+
+    /**
+     * Compares the lists, when one is a subsequence of the other by item id
+     * @param oldList The list shown now
+     * @param newList The list to show
+     * @return The diff, or null when the lists differ in other ways, e.g. by a move
+     */
+    static FilterDiff calculate(List<?> oldList, List<?> newList) {
+        if (newList.size() <= oldList.size()) {
+            return walk(oldList, newList, REMOVE);
+        } else {
+            return walk(newList, oldList, INSERT);
+        }
+    }
+
+    //Walks the longer list, items missing from the shorter one are removed or inserted
+    private static FilterDiff walk(List<?> longer, List<?> shorter, int missingType) {
+        Builder builder = new Builder();
+        int shorterSize = shorter.size();
+        int matched = 0;
+
+        for (int i = 0; i < longer.size(); i++) {
+            Object item = longer.get(i);
+            Object other = matched < shorterSize ? shorter.get(matched) : null;
+            //The position in the list as it is after the operations so far
+            int position = missingType == REMOVE ? matched : i;
+
+            if (other != null && SportSections.idOf(other) == SportSections.idOf(item)) {
+                if (!other.equals(item)) {
+                    builder.add(CHANGE, position);
+                }
+                matched++;
+            } else {
+                builder.add(missingType, position);
+            }
+        }
+
+        return matched == shorterSize ? builder.build() : null;
+    }
+
+    /**
+     * Dispatches the operations, e.g. to an adapter
+     * @param callback The callback receiving the range operations
+     */
+    void dispatchUpdatesTo(ListUpdateCallback callback) {
+        for (int i = 0; i < mSize; i += 3) {
+            int position = mOperations[i + 1];
+            int count = mOperations[i + 2];
+            switch (mOperations[i]) {
+                case REMOVE:
+                    callback.onRemoved(position, count);
+                    break;
+                case INSERT:
+                    callback.onInserted(position, count);
+                    break;
+                default:
+                    callback.onChanged(position, count, null);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Collects single-item operations into ranges.
+     */
+    private static final class Builder {
+
+        private int[] mOperations = new int[3 * 8];
+        private int mSize;
+
+        void add(int type, int position) {
+            if (mSize > 0) {
+                int last = mSize - 3;
+                int lastPosition = mOperations[last + 1];
+                int lastCount = mOperations[last + 2];
+                //Removals all happen at the same position, inserts and changes run on
+                boolean extendsLast = mOperations[last] == type
+                        && (type == REMOVE ? lastPosition == position : lastPosition + lastCount == position);
+                if (extendsLast) {
+                    mOperations[last + 2]++;
+                    return;
+                }
+            }
+
+            if (mSize == mOperations.length) {
+                int[] grown = new int[mSize * 2];
+                System.arraycopy(mOperations, 0, grown, 0, mSize);
+                mOperations = grown;
+            }
+            mOperations[mSize++] = type;
+            mOperations[mSize++] = position;
+            mOperations[mSize++] = 1;
+        }
+
+        FilterDiff build() {
+            return new FilterDiff(mOperations, mSize);
+        }
+    }
+}
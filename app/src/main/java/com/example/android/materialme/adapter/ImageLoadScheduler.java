@@ -0,0 +1,283 @@
+package com.example.android.materialme.adapter;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.android.materialme.metrics.ListMetrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Schedules the image loads of the cards by how the list scrolls.
+ *
+ * While a fling moves the list faster than a card can be decoded, the loads of newly bound
+ * cards are held back, most of those cards are recycled a few frames later. A held back load
+ * whose card is recycled is dropped, a load still decoding when its card is recycled is
+ * cancelled, and a card bound again to the image it already shows keeps it. Once the fling
+ * slows down or stops, the held back loads start, the visible cards first. The preloader only
+ * runs while loads are not held back, it would decode the images the fling passes by.
+ *
+ * Called on the main thread only.
+ */
+public class ImageLoadScheduler extends RecyclerView.OnScrollListener {
+
+    /**
+     * A view whose image the scheduler loads, e.g. a card.
+     */
+    interface ImageTarget {
+        /**
+         * Starts loading the image last submitted for the target, finished with onLoadFinished()
+         */
+        void startLoad();
+
+        /**
+         * Stops loading and clears the image
+         */
+        void cancelLoad();
+
+        /**
+         * Gets the layout position of the target
+         * @return The position, orders the held back loads
+         */
+        int getLayoutPosition();
+
+        /**
+         * Checks whether the target is on screen
+         * @return True when some of it is visible
+         */
+        boolean isVisible();
+    }
+
+    //A fling moving this far in a frame passes a card in a few frames, too soon for its decode
+    private static final int FAST_SCROLL_DP = 48;
+
+    //The states of a load
+    private static final int PENDING = 0;
+    private static final int RUNNING = 1;
+    private static final int DONE = 2;
+
+    /**
+     * The image of a target and how far its load got.
+     */
+    private static final class Load {
+        long mKey;
+        int mState;
+    }
+
+    private final int mFastScrollPixels;
+    private final ListMetrics mMetrics;
+
+    private final Map<ImageTarget, Load> mLoads = new HashMap<>();
+    //The number of loads in flight by image, a load of an image in flight joins that decode
+    private final Map<Long, Integer> mRunning = new HashMap<>();
+
+    private RecyclerView.OnScrollListener mPreloader;
+    private boolean mSettling;
+    private boolean mPaused;
+
+    /**
+     * Create a scheduler that holds loads back during flings faster than 48dp a frame
+     * @param context Context of the application, for the display density
+     */
+    public ImageLoadScheduler(Context context) {
+        this(Math.round(FAST_SCROLL_DP * context.getResources().getDisplayMetrics().density),
+                ListMetrics.getInstance());
+    }
+
+    ImageLoadScheduler(int fastScrollPixels, ListMetrics metrics) {
+        this.mFastScrollPixels = fastScrollPixels;
+        this.mMetrics = metrics;
+    }
+
+    /**
+     * Set the preloader of the list, it is told about scrolling only while loads run
+     * @param preloader The preloader, e.g. a RecyclerViewPreloader, or null
+     */
+    public void setPreloader(RecyclerView.OnScrollListener preloader) {
+        mPreloader = preloader;
+    }
+
+    /**
+     * Checks whether loads are held back
+     * @return True while a fast fling runs
+     */
+    public boolean isPaused() {
+        return mPaused;
+    }
+
+    @Override
+    public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+        scrollStateChanged(newState);
+        if (mPreloader != null) mPreloader.onScrollStateChanged(recyclerView, newState);
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        scrolled(Math.max(Math.abs(dx), Math.abs(dy)));
+        if (!mPaused && mPreloader != null) mPreloader.onScrolled(recyclerView, dx, dy);
+    }
+
+    /**
+     * Submits the image of a target, loaded now or once the fling slows down
+     * @param target The target, e.g. a card being bound
+     * @param key The image, e.g. its resource and decode width, equal keys load equal images
+     */
+    void submit(ImageTarget target, long key) {
+        Load load = mLoads.get(target);
+        if (load != null && load.mKey == key) {
+            //Bound again to its image, e.g. after its title changed
+            mMetrics.countLoad(ListMetrics.LOAD_DEDUPLICATED);
+            return;
+        }
+
+        if (load == null) {
+            load = new Load();
+            mLoads.put(target, load);
+        } else if (load.mState == PENDING) {
+            mMetrics.countLoad(ListMetrics.LOAD_SKIPPED);
+        } else if (load.mState == RUNNING) {
+            //Replaced by the new load, or cleared while it waits
+            finishRunning(load.mKey);
+            mMetrics.countLoad(ListMetrics.LOAD_CANCELLED);
+            if (mPaused) target.cancelLoad();
+        } else if (mPaused) {
+            //The old image is not shown while the new one waits
+            target.cancelLoad();
+        }
+
+        load.mKey = key;
+        if (mPaused) {
+            load.mState = PENDING;
+            mMetrics.countLoad(ListMetrics.LOAD_DEFERRED);
+        } else {
+            start(target, load);
+        }
+    }
+
+    /**
+     * Tells that the load of a target finished
+     * @param target The target
+     * @param success False when it failed, it is loaded again when submitted again
+     */
+    void onLoadFinished(ImageTarget target, boolean success) {
+        Load load = mLoads.get(target);
+        if (load == null || load.mState != RUNNING) return;
+
+        finishRunning(load.mKey);
+        if (success) {
+            load.mState = DONE;
+        } else {
+            mLoads.remove(target);
+        }
+    }
+
+    /**
+     * Stops the load of a target and clears its image, e.g. when its card is recycled
+     * @param target The target
+     */
+    void cancel(ImageTarget target) {
+        Load load = mLoads.remove(target);
+        if (load == null) return;
+
+        if (load.mState == PENDING) {
+            //The decode the fling would have wasted
+            mMetrics.countLoad(ListMetrics.LOAD_SKIPPED);
+        } else if (load.mState == RUNNING) {
+            finishRunning(load.mKey);
+            mMetrics.countLoad(ListMetrics.LOAD_CANCELLED);
+        }
+        target.cancelLoad();
+    }
+
+    /**
+     * Forgets all targets, e.g. when the adapter leaves its RecyclerView
+     */
+    void clear() {
+        mLoads.clear();
+        mRunning.clear();
+        mSettling = false;
+        mPaused = false;
+    }
+
+    void scrollStateChanged(int state) {
+        mSettling = state == RecyclerView.SCROLL_STATE_SETTLING;
+        //Dragging follows the finger, slow enough to load
+        if (!mSettling) resume();
+    }
+
+    void scrolled(int distance) {
+        if (mSettling && distance >= mFastScrollPixels) {
+            mPaused = true;
+        } else {
+            resume();
+        }
+    }
+
+    //Starts the held back loads, the visible targets first, then the nearest to them
+    private void resume() {
+        if (!mPaused) return;
+        mPaused = false;
+
+        List<ImageTarget> visible = new ArrayList<>();
+        List<ImageTarget> hidden = new ArrayList<>();
+        for (Map.Entry<ImageTarget, Load> entry : mLoads.entrySet()) {
+            if (entry.getValue().mState != PENDING) continue;
+            ImageTarget target = entry.getKey();
+            (target.isVisible() ? visible : hidden).add(target);
+        }
+
+        int first = Integer.MAX_VALUE;
+        int last = Integer.MIN_VALUE;
+        for (ImageTarget target : visible) {
+            first = Math.min(first, target.getLayoutPosition());
+            last = Math.max(last, target.getLayoutPosition());
+        }
+        int firstVisible = first;
+        int lastVisible = last;
+        Collections.sort(visible, (a, b) -> Integer.compare(a.getLayoutPosition(), b.getLayoutPosition()));
+        Collections.sort(hidden, (a, b) -> Integer.compare(
+                distance(a.getLayoutPosition(), firstVisible, lastVisible),
+                distance(b.getLayoutPosition(), firstVisible, lastVisible)));
+
+        visible.addAll(hidden);
+        for (ImageTarget target : visible) {
+            start(target, mLoads.get(target));
+        }
+    }
+
+    private void start(ImageTarget target, Load load) {
+        load.mState = RUNNING;
+        Integer running = mRunning.get(load.mKey);
+        if (running != null) {
+            //The same image decoding for another card, the image loader joins the two
+            mMetrics.countLoad(ListMetrics.LOAD_DEDUPLICATED);
+        }
+        mRunning.put(load.mKey, running != null ? running + 1 : 1);
+        mMetrics.countLoad(ListMetrics.LOAD_STARTED);
+        target.startLoad();
+    }
+
+    private void finishRunning(long key) {
+        Integer running = mRunning.get(key);
+        if (running == null) return;
+
+        if (running > 1) {
+            mRunning.put(key, running - 1);
+        } else {
+            mRunning.remove(key);
+        }
+    }
+
+    //How far a position is from the visible range, the range is empty when nothing is visible
+    private static int distance(int position, int first, int last) {
+        if (first > last) return position;
+        if (position < first) return first - position;
+        return Math.max(0, position - last);
+    }
+}
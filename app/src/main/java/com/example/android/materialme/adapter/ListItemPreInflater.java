@@ -0,0 +1,94 @@
+package com.example.android.materialme.adapter;
+
+import android.content.Context;
+import android.os.Looper;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.asynclayoutinflater.view.AsyncLayoutInflater;
+
+import com.example.android.materialme.R;
+
+import java.util.ArrayDeque;
+
+/***
+ * Inflates list_item views on a background thread while the main thread is idle,
+ * so the first scroll and the first layout after rotation do not inflate during a frame.
+ * Must be used from the main thread.
+ */
+public class ListItemPreInflater {
+
+    private final AsyncLayoutInflater mInflater;
+    private final ArrayDeque<View> mViews = new ArrayDeque<>();
+
+    private ViewGroup mParent;
+    private int mRemaining;
+    private boolean mInflating;
+
+    /**
+     * Create a pre-inflater
+     * @param context The themed context of the activity hosting the RecyclerView
+     */
+    public ListItemPreInflater(Context context) {
+        this.mInflater = new AsyncLayoutInflater(context);
+    }
+
+    /**
+     * Estimates how many items are needed to fill the screen plus one row to scroll into
+     * @param viewportHeight The height of the RecyclerView in pixels
+     * @param itemHeight The estimated height of one card in pixels
+     * @param columnCount The number of grid columns
+     * @return The number of items to pre-inflate
+     */
+    public static int visibleItemCount(int viewportHeight, int itemHeight, int columnCount) {
+        int rows = (viewportHeight + Math.max(1, itemHeight) - 1) / Math.max(1, itemHeight);
+        return (rows + 1) * columnCount;
+    }
+
+    /**
+     * Inflates views in the background once the main thread becomes idle
+     * @param parent The RecyclerView the views will be added to, used for their layout params
+     * @param count The number of views to have ready
+     */
+    public void warmUp(ViewGroup parent, int count) {
+        mParent = parent;
+        mRemaining = Math.max(0, count - mViews.size());
+
+        Looper.myQueue().addIdleHandler(() -> {
+            inflateNext();
+            return false;
+        });
+    }
+
+    /**
+     * Takes a pre-inflated view
+     * @return The view, or null when none is ready
+     */
+    View obtain() {
+        return mViews.poll();
+    }
+
+    /**
+     * Stops pending inflation and drops the views that were not used
+     */
+    public void release() {
+        mRemaining = 0;
+        mViews.clear();
+        mParent = null;
+    }
+
+    //One request at a time, the inflater's queue blocks the caller once it is full
+    private void inflateNext() {
+        if (mInflating || mRemaining <= 0 || mParent == null) return;
+
+        mInflating = true;
+        mInflater.inflate(R.layout.list_item, mParent, (view, resid, parent) -> {
+            mInflating = false;
+            if (mParent == null) return;
+
+            mViews.add(view);
+            mRemaining--;
+            inflateNext();
+        });
+    }
+}
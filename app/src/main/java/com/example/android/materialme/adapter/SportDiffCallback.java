@@ -0,0 +1,41 @@
+package com.example.android.materialme.adapter;
+
+import androidx.recyclerview.widget.DiffUtil;
+
+import java.util.List;
+
+/***
+ * Compares two snapshots of the sports data, matching items by their stable id
+ * and redrawing them only when their content changed. The items are sports, or the
+ * rows of SportSections.
+ */
+class SportDiffCallback extends DiffUtil.Callback {
+
+    private final List<?> mOldList;
+    private final List<?> mNewList;
+
+    SportDiffCallback(List<?> oldList, List<?> newList) {
+        this.mOldList = oldList;
+        this.mNewList = newList;
+    }
+
+    @Override
+    public int getOldListSize() {
+        return mOldList.size();
+    }
+
+    @Override
+    public int getNewListSize() {
+        return mNewList.size();
+    }
+
+    @Override
+    public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+        return SportSections.idOf(mOldList.get(oldItemPosition)) == SportSections.idOf(mNewList.get(newItemPosition));
+    }
+
+    @Override
+    public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+        return mOldList.get(oldItemPosition).equals(mNewList.get(newItemPosition));
+    }
+}
@@ -0,0 +1,401 @@
+package com.example.android.materialme.adapter;
+
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+import com.example.android.materialme.model.Sport;
+import com.example.android.materialme.model.SportOrder;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The sports sorted by a SportOrder, as rows of section headers each followed by their sports.
+ *
+ * The full sort is meant for a background thread. After that a single removal or insertion
+ * is applied in place: a binary search over the sort keys finds the sport's place, and only
+ * that row, and the header if its section appears or disappears, is reported as changed.
+ */
+final class SportSections {
+
+    /**
+     * The header row of a section.
+     */
+    static final class Header {
+
+        final String mTitle;
+
+        Header(String title) {
+            this.mTitle = title;
+        }
+
+        /**
+         * Gets the stable id of the header, derived from its title
+         * @return An id in a range sport ids practically never use
+         */
+        long getId() {
+            return Long.MIN_VALUE | (mTitle.hashCode() & 0xffffffffL);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Header && mTitle.equals(((Header) o).mTitle);
+        }
+
+        @Override
+        public int hashCode() {
+            return mTitle.hashCode();
+        }
+    }
+
+    /**
+     * A section, the position of its sports in the sorted list.
+     */
+    private static final class Section {
+
+        final Header mHeader;
+        int mStart;
+        int mCount;
+
+        Section(Header header, int start) {
+            this.mHeader = header;
+            this.mStart = start;
+        }
+    }
+
+    /**
+     * A sport and its sort key, for the full sort.
+     */
+    private static final class Entry {
+
+        final String mKey;
+        final Sport mSport;
+
+        Entry(String key, Sport sport) {
+            this.mKey = key;
+            this.mSport = sport;
+        }
+    }
+
+    private static final Comparator<Entry> BY_KEY = (a, b) -> a.mKey.compareTo(b.mKey);
+
+    private final SportOrder mOrder;
+
+    //The sorted sports and their sort keys, in parallel
+    private final ArrayList<Sport> mSports;
+    private final ArrayList<String> mKeys;
+
+    //The header of section i is shown at row mStart + i
+    private final ArrayList<Section> mSections = new ArrayList<>();
+
+    private final List<Object> mRows = new AbstractList<Object>() {
+        @Override
+        public Object get(int row) {
+            return getRow(row);
+        }
+
+        @Override
+        public int size() {
+            return SportSections.this.size();
+        }
+    };
+
+    private SportSections(SportOrder order, int capacity) {
+        this.mOrder = order;
+        this.mSports = new ArrayList<>(capacity);
+        this.mKeys = new ArrayList<>(capacity);
+    }
+
+    /**
+     * Sorts the sports, sports with equal keys keep their order. Runs in O(n log n),
+     * call it off the main thread for big lists
+     * @param sports The sports in the user's order
+     * @param order The order to sort them in
+     * @return The sections
+     */
+    static SportSections sort(List<Sport> sports, SportOrder order) {
+        Entry[] entries = new Entry[sports.size()];
+        for (int i = 0; i < entries.length; i++) {
+            Sport sport = sports.get(i);
+            entries[i] = new Entry(order.sortKeyOf(sport), sport);
+        }
+        //A merge sort, stable
+        Arrays.sort(entries, BY_KEY);
+
+        SportSections sections = new SportSections(order, entries.length);
+        Section section = null;
+        for (Entry entry : entries) {
+            String title = order.sectionOf(entry.mSport);
+            if (section == null || !section.mHeader.mTitle.equals(title)) {
+                section = new Section(new Header(title), sections.mSports.size());
+                sections.mSections.add(section);
+            }
+            section.mCount++;
+            sections.mSports.add(entry.mSport);
+            sections.mKeys.add(entry.mKey);
+        }
+        return sections;
+    }
+
+    /**
+     * Gets the order the sports are sorted in
+     * @return The order
+     */
+    SportOrder getOrder() {
+        return mOrder;
+    }
+
+    /**
+     * Gets the number of rows, headers included
+     * @return The row count
+     */
+    int size() {
+        return mSports.size() + mSections.size();
+    }
+
+    /**
+     * Gets the rows as a read-only list of Header and Sport objects, that follows the changes
+     * @return The rows
+     */
+    List<Object> rows() {
+        return mRows;
+    }
+
+    /**
+     * Checks whether a row is a section header
+     * @param row The row
+     * @return True for a header
+     */
+    boolean isHeader(int row) {
+        int section = sectionAtRow(row);
+        return headerRow(section) == row;
+    }
+
+    /**
+     * Gets the sport of a row
+     * @param row The row
+     * @return The sport, or null for a header
+     */
+    Sport getSport(int row) {
+        int section = sectionAtRow(row);
+        return row == headerRow(section) ? null : mSports.get(row - section - 1);
+    }
+
+    /**
+     * Gets the header of a row
+     * @param row The row
+     * @return The header, or null for a sport
+     */
+    Header getHeader(int row) {
+        int section = sectionAtRow(row);
+        return row == headerRow(section) ? mSections.get(section).mHeader : null;
+    }
+
+    private Object getRow(int row) {
+        int section = sectionAtRow(row);
+        return row == headerRow(section) ? mSections.get(section).mHeader : mSports.get(row - section - 1);
+    }
+
+    /**
+     * Gets the row a sport is shown in
+     * @param sport The sport
+     * @return The row, or -1 if it is not in the sections
+     */
+    int rowOf(Sport sport) {
+        int index = find(sport, mOrder.sortKeyOf(sport));
+        return index < 0 ? -1 : index + sectionOf(index) + 1;
+    }
+
+    /**
+     * Removes a sport in place
+     * @param sport The removed sport
+     * @param callback Told about the removed rows
+     */
+    void remove(Sport sport, ListUpdateCallback callback) {
+        int index = find(sport, mOrder.sortKeyOf(sport));
+        if (index < 0) return;
+
+        int sectionIndex = sectionOf(index);
+        int row = index + sectionIndex + 1;
+        mSports.remove(index);
+        mKeys.remove(index);
+
+        Section section = mSections.get(sectionIndex);
+        section.mCount--;
+        shiftSectionsAfter(sectionIndex, -1);
+
+        if (section.mCount == 0) {
+            //The last sport of its section takes the header along
+            mSections.remove(sectionIndex);
+            callback.onRemoved(row - 1, 2);
+        } else {
+            callback.onRemoved(row, 1);
+        }
+    }
+
+    /**
+     * Inserts a sport in place, where a full sort of the list would put it
+     * @param sport The inserted sport
+     * @param source The user's list, the sport already in it, to order sports with equal keys.
+     *               That costs one pass over the list, only when there are equal keys
+     * @param callback Told about the inserted rows
+     */
+    void insert(Sport sport, List<Sport> source, ListUpdateCallback callback) {
+        String key = mOrder.sortKeyOf(sport);
+        int start = lowerBound(key);
+        int end = upperBound(key, start);
+
+        int index = start < end ? start + countEqualBefore(sport, start, end, source) : end;
+
+        String title = mOrder.sectionOf(sport);
+        int before = index > 0 ? sectionOf(index - 1) : -1;
+        int sectionIndex;
+        boolean newSection = false;
+        if (before >= 0 && mSections.get(before).mHeader.mTitle.equals(title)) {
+            sectionIndex = before;
+        } else if (before + 1 < mSections.size() && mSections.get(before + 1).mHeader.mTitle.equals(title)) {
+            sectionIndex = before + 1;
+        } else {
+            sectionIndex = before + 1;
+            newSection = true;
+            mSections.add(sectionIndex, new Section(new Header(title), index));
+        }
+
+        mSports.add(index, sport);
+        mKeys.add(index, key);
+        mSections.get(sectionIndex).mCount++;
+        shiftSectionsAfter(sectionIndex, 1);
+
+        int row = index + sectionIndex + 1;
+        if (newSection) {
+            callback.onInserted(row - 1, 2);
+        } else {
+            callback.onInserted(row, 1);
+        }
+    }
+
+    /**
+     * Updates the place of a sport that moved in the user's list. That only matters among
+     * sports with an equal key, otherwise the sort puts it in the same place
+     * @param sport The moved sport
+     * @param source The user's list after the move
+     * @param callback Told about the moved rows
+     */
+    void move(Sport sport, List<Sport> source, ListUpdateCallback callback) {
+        String key = mOrder.sortKeyOf(sport);
+        int start = lowerBound(key);
+        if (upperBound(key, start) - start <= 1) return;
+
+        remove(sport, callback);
+        insert(sport, source, callback);
+    }
+
+    /**
+     * Gets the stable id of a row, a sport or a header
+     * @param row The row object
+     * @return The id
+     */
+    static long idOf(Object row) {
+        return row instanceof Sport ? ((Sport) row).getId() : ((Header) row).getId();
+    }
+
+    //Sports with equal keys are in the user's order, the sport goes after those before it there
+    private int countEqualBefore(Sport sport, int start, int end, List<Sport> source) {
+        Set<Long> equal = new HashSet<>(2 * (end - start));
+        for (int i = start; i < end; i++) {
+            equal.add(mSports.get(i).getId());
+        }
+
+        //One pass over the list, toArray() does not look up every index of an EditHistory list
+        int count = 0;
+        for (Object item : source.toArray()) {
+            long id = ((Sport) item).getId();
+            if (id == sport.getId()) break;
+            if (equal.contains(id)) count++;
+        }
+        return count;
+    }
+
+    private int headerRow(int section) {
+        return mSections.get(section).mStart + section;
+    }
+
+    //Binary search for the last section whose header is at or before the row
+    private int sectionAtRow(int row) {
+        if (row < 0 || row >= size()) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + size());
+        }
+
+        int low = 0;
+        int high = mSections.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (headerRow(middle) <= row) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    //Binary search for the section containing a sorted index
+    private int sectionOf(int index) {
+        int low = 0;
+        int high = mSections.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (mSections.get(middle).mStart <= index) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    private void shiftSectionsAfter(int section, int delta) {
+        for (int i = section + 1; i < mSections.size(); i++) {
+            mSections.get(i).mStart += delta;
+        }
+    }
+
+    private int find(Sport sport, String key) {
+        for (int i = lowerBound(key); i < mKeys.size() && mKeys.get(i).equals(key); i++) {
+            if (mSports.get(i).getId() == sport.getId()) return i;
+        }
+        return -1;
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = mKeys.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (mKeys.get(middle).compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int upperBound(String key, int from) {
+        int low = from;
+        int high = mKeys.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (mKeys.get(middle).compareTo(key) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -16,40 +16,518 @@
 
 package com.example.android.materialme.adapter;
 
+import android.app.Activity;
 import android.content.Context;
 import android.content.Intent;
+import android.graphics.drawable.Drawable;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.TextView;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.app.ActivityOptionsCompat;
+import androidx.core.content.ContextCompat;
+import androidx.core.view.ViewCompat;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.ListUpdateCallback;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.target.Target;
 import com.example.android.materialme.DetailActivity;
 import com.example.android.materialme.R;
+import com.example.android.materialme.image.SportImages;
+import com.example.android.materialme.metrics.ListMetrics;
+import com.example.android.materialme.model.EditHistory;
 import com.example.android.materialme.model.Sport;
+import com.example.android.materialme.model.SportColumns;
+import com.example.android.materialme.model.SportOrder;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 /***
  * The adapter class for the RecyclerView, contains the sports data
  */
-public class SportsAdapter extends RecyclerView.Adapter<SportsAdapter.ViewHolder>{
+public class SportsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
+        implements ListPreloader.PreloadModelProvider<Sport>, ListPreloader.PreloadSizeProvider<Sport> {
 
-    //Member variables
-    public ArrayList<Sport> mSportList;
+    //Diffs are computed one at a time, in submission order, off the main thread
+    private static final Executor sDiffExecutor = Executors.newSingleThreadExecutor();
+
+    //View types, section headers only show up while the list is sorted
+    public static final int VIEW_TYPE_SPORT = 0;
+    public static final int VIEW_TYPE_HEADER = 1;
+
+    /**
+     * The list data of an adapter that outlives the adapter, e.g. across activity recreation.
+     * It keeps the edit history with its undo levels, the order and its sorted sections, and a
+     * snapshot still waiting to be shown. An adapter created from it shows the same list at
+     * once, without reloading, sorting or diffing it.
+     */
+    public static final class State {
+
+        private final EditHistory mHistory = new EditHistory();
+        private SportOrder mOrder;
+        private SportSections mSections;
+        private List<Sport> mPendingList;
+        private boolean mPendingResort;
+    }
+
+    //Member variables, mSportList is the read-only view of the edited list
+    private final State mState;
+    private final EditHistory mHistory;
+    public final List<Sport> mSportList;
+    private boolean mReleased;
     private Context mContext;
 
+    //Told about every edit after the RecyclerView was notified, may be null
+    private EditHistory.Listener mEditListener;
+
+    private final Executor mBackgroundExecutor;
+    private final Executor mMainExecutor;
+
+    //The latest submitted snapshot that has not been applied yet, and its generation
+    private List<Sport> mPendingList;
+    private int mMaxScheduledGeneration;
+    //True when the pending list is only the current list sorted again
+    private boolean mPendingResort;
+
+    //When set, the items are shown sorted and grouped under section headers
+    private SportOrder mOrder;
+    private SportSections mSections;
+    private final ListUpdateCallback mUpdateCallback = new AdapterListUpdateCallback(this);
+
+    //When set, items are read from these columns, a Sport is only created to bind it
+    private SportColumns mColumns;
+
+    //Images are decoded at the card size, the height follows from the fixed aspect ratio.
+    //In an adaptive grid each card's width is that of its cell, otherwise mCardImageWidth
+    private final int mCardImageWidth;
+    private final int[] mPreloadSize = new int[2];
+    private AdaptiveGridLayoutManager mGrid;
+    private GridLayoutManager.SpanSizeLookup mSpanSizeLookup;
+    private final int mCardMargin;
+    private RecyclerView mRecyclerView;
+
+    //Source of list_item views inflated ahead of time, may be null
+    private ListItemPreInflater mPreInflater;
+
+    //Times inflating and binding items and loading their images while recording is on
+    private final ListMetrics mMetrics = ListMetrics.getInstance();
+
+    //Holds the image loads back during fast flings, listens to the scrolling while attached
+    private final ImageLoadScheduler mImageScheduler;
+
     /**
      * Constructor that passes in the sports data and the context
      * @param sportList ArrayList containing the sports data
      * @param context Context of the application
      */
     public SportsAdapter(Context context , ArrayList <Sport> sportList) {
-        this.mSportList = sportList;
+        this(context, sportList, sDiffExecutor, ContextCompat.getMainExecutor(context));
+    }
+
+    /**
+     * Constructor that takes over the list of a released adapter, e.g. after recreation
+     * @param context Context of the application
+     * @param state The state passed to the released adapter's release()
+     */
+    public SportsAdapter(Context context , State state) {
+        this(context, state, sDiffExecutor, ContextCompat.getMainExecutor(context));
+    }
+
+    SportsAdapter(Context context , ArrayList <Sport> sportList, Executor backgroundExecutor, Executor mainExecutor) {
+        this(context, new State(), backgroundExecutor, mainExecutor);
+        this.mHistory.replaceAll(sportList);
+    }
+
+    SportsAdapter(Context context , State state, Executor backgroundExecutor, Executor mainExecutor) {
+        this.mState = state;
+        this.mHistory = state.mHistory;
+        this.mSportList = mHistory.getList();
+        this.mHistory.setListener(mHistoryListener);
+        this.mOrder = state.mOrder;
+        this.mSections = state.mSections;
         this.mContext = context;
+        this.mBackgroundExecutor = backgroundExecutor;
+        this.mMainExecutor = mainExecutor;
+        this.mCardImageWidth = context.getResources().getDisplayMetrics().widthPixels;
+        this.mPreloadSize[0] = mCardImageWidth;
+        this.mPreloadSize[1] = SportImages.cardHeight(mCardImageWidth);
+        this.mCardMargin = context.getResources().getDimensionPixelSize(R.dimen.card_margin);
+        this.mImageScheduler = new ImageLoadScheduler(context);
+
+        setHasStableIds(true);
+        //The layout manager restores the scroll position once there are items, also when the
+        //list of a new adapter only arrives after the first layout
+        setStateRestorationPolicy(StateRestorationPolicy.PREVENT_WHEN_EMPTY);
+
+        //A snapshot that was on its way when the state was released
+        if (state.mPendingList != null) {
+            mPendingList = state.mPendingList;
+            mPendingResort = state.mPendingResort;
+            resubmitPendingList();
+        }
+    }
+
+    /**
+     * Hands the list over to the state for an adapter created after this one, e.g. when the
+     * activity is recreated. Diffs still running are dropped, the next adapter runs them again.
+     * Only the list of submitList() is kept, not columns. This adapter must not
+     * be used afterwards.
+     * @return The state to pass to the next adapter
+     */
+    public State release() {
+        mReleased = true;
+        ++mMaxScheduledGeneration;
+        mHistory.setListener(null);
+        mState.mOrder = mOrder;
+        mState.mSections = mSections;
+        mState.mPendingList = mPendingList;
+        mState.mPendingResort = mPendingResort;
+        return mState;
+    }
+
+    /**
+     * Shows the items in an adaptive grid, section headers take a whole row and each card
+     * image is decoded at the width of its cell
+     * @param grid The layout manager of the RecyclerView the adapter is shown in
+     */
+    public void setGrid(AdaptiveGridLayoutManager grid) {
+        mGrid = grid;
+        mSpanSizeLookup = createSpanSizeLookup(grid);
+        grid.setSpanSizeLookup(mSpanSizeLookup);
+    }
+
+    /**
+     * Updates the images of the shown cards after the cells of the grid changed width, only the
+     * images whose size changed are loaded again, nothing is rebound. Called during layout, see
+     * AdaptiveGridLayoutManager.OnCellWidthsChangedListener
+     */
+    public void onCellWidthsChanged() {
+        if (mRecyclerView == null) return;
+
+        for (int i = 0; i < mRecyclerView.getChildCount(); i++) {
+            RecyclerView.ViewHolder holder = mRecyclerView.getChildViewHolder(mRecyclerView.getChildAt(i));
+            if (holder instanceof ViewHolder) {
+                ((ViewHolder) holder).resizeImage(cardImageWidth(holder.getLayoutPosition()));
+            }
+        }
+    }
+
+    /**
+     * Gets the width the image of a card is decoded at
+     * @param position The adapter position of the card
+     * @return The width of the card in pixels
+     */
+    int cardImageWidth(int position) {
+        if (mGrid == null || position == RecyclerView.NO_POSITION) return mCardImageWidth;
+
+        int spanIndex = mSpanSizeLookup.getSpanIndex(position, mGrid.getSpanCount());
+        return SportImages.cardWidth(mGrid.getCellWidth(spanIndex, 1), 1, mCardMargin);
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        mRecyclerView = recyclerView;
+        recyclerView.addOnScrollListener(mImageScheduler);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        recyclerView.removeOnScrollListener(mImageScheduler);
+        mImageScheduler.clear();
+        mRecyclerView = null;
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull RecyclerView.ViewHolder holder) {
+        //Frees the bitmap, and stops a decode nobody will see
+        if (holder instanceof ViewHolder) {
+            mImageScheduler.cancel((ViewHolder) holder);
+        }
+    }
+
+    /**
+     * Gets the scheduler of the card image loads, e.g. to hand it the preloader
+     * @return The scheduler
+     */
+    public ImageLoadScheduler getImageLoadScheduler() {
+        return mImageScheduler;
+    }
+
+    @Override
+    public void onViewAttachedToWindow(@NonNull RecyclerView.ViewHolder holder) {
+        //Views kept in the view cache come back without a bind, maybe from before a resize
+        if (mGrid != null && holder instanceof ViewHolder) {
+            ((ViewHolder) holder).resizeImage(cardImageWidth(holder.getLayoutPosition()));
+        }
+    }
+
+    /**
+     * Set the source of list_item views inflated ahead of time
+     * @param preInflater The pre-inflater, or null to always inflate on demand
+     */
+    public void setPreInflater(ListItemPreInflater preInflater) {
+        mPreInflater = preInflater;
+    }
+
+    //Equal for the requests imageRequest() builds equally
+    private static long imageKey(int imageResource, int width) {
+        return ((long) imageResource << 32) | (width & 0xffffffffL);
+    }
+
+    private RequestBuilder<Drawable> imageRequest(Sport sport, int width) {
+        return SportImages.card(Glide.with(mContext), sport.getImageResource(), width);
+    }
+
+    /**
+     * Gets the items the preloader should decode for an upcoming position
+     * @param position The adapter position about to scroll into view
+     * @return The item at that position
+     */
+    @NonNull
+    @Override
+    public List<Sport> getPreloadItems(int position) {
+        if (position >= getItemCount()) return Collections.emptyList();
+
+        return Collections.singletonList(getItem(position));
+    }
+
+    @Nullable
+    @Override
+    public RequestBuilder<?> getPreloadRequestBuilder(@NonNull Sport sport) {
+        //Must match the request made in bindTo() to land in the same cache entry. The preloader
+        //asks for the size of the same item right before, see getPreloadSize()
+        return imageRequest(sport, mPreloadSize[0]);
+    }
+
+    @Nullable
+    @Override
+    public int[] getPreloadSize(@NonNull Sport sport, int adapterPosition, int perItemPosition) {
+        int width = cardImageWidth(adapterPosition);
+        mPreloadSize[0] = width;
+        mPreloadSize[1] = SportImages.cardHeight(width);
+        return mPreloadSize;
+    }
+
+    /**
+     * Replaces the sports data with a new snapshot. The minimal set of changes is
+     * computed on a background thread and dispatched as targeted notify events.
+     * @param newList The new sports data, it must not be modified after being submitted
+     */
+    public void submitList(List<Sport> newList) {
+        //A snapshot equal to the shown list changes nothing, e.g. the cached list delivered again
+        //after recreation, and the undo history stays
+        if (mPendingList == null && mColumns == null
+                && newList.size() == mSportList.size() && newList.equals(mSportList)) {
+            return;
+        }
+        scheduleList(newList, false);
+    }
+
+    /**
+     * Shows the items sorted and grouped into sections, or in the user's order. The list
+     * is sorted on a background thread, in the meantime edits apply to the current order
+     * @param order The order, or null for the user's order without sections
+     */
+    public void setOrder(SportOrder order) {
+        checkEditable();
+        if (order == mOrder) return;
+
+        mOrder = order;
+        if (mPendingList != null && !mPendingResort) {
+            //The new snapshot on its way is sorted instead
+            scheduleList(mPendingList, false);
+        } else {
+            scheduleList(new ArrayList<>(mSportList), true);
+        }
+    }
+
+    /**
+     * Gets the order the items are shown in
+     * @return The order, or null for the user's order
+     */
+    public SportOrder getOrder() {
+        return mOrder;
+    }
+
+    private void scheduleList(List<Sport> newList, final boolean resort) {
+        //The list belongs to the next adapter now
+        if (mReleased) return;
+
+        if (mColumns != null) {
+            //Leave columnar mode, the list data starts out empty again
+            mColumns = null;
+            notifyDataSetChanged();
+        }
+
+        final int runGeneration = ++mMaxScheduledGeneration;
+        mPendingList = newList;
+        mPendingResort = resort;
+
+        final SportOrder order = mOrder;
+        //A new order moves nearly every row, diffing the rows would cost more than rebinding
+        final boolean sameOrder = order == (mSections != null ? mSections.getOrder() : null);
+
+        if (order == null && (mSportList.isEmpty() || newList.isEmpty())) {
+            //Nothing to compare, a single insert or remove range covers the change
+            applyList(newList, null, null, null, resort);
+            return;
+        }
+
+        final List<?> oldRows = mSections != null ? new ArrayList<>(mSections.rows()) : new ArrayList<>(mSportList);
+        mBackgroundExecutor.execute(() -> {
+            //Sorting is as slow as diffing for big lists, both stay off the main thread
+            final SportSections sections = order != null ? SportSections.sort(newList, order) : null;
+            final List<?> newRows = sections != null ? sections.rows() : newList;
+
+            FilterDiff filter = null;
+            DiffUtil.DiffResult diff = null;
+            if (sameOrder && !oldRows.isEmpty() && !newRows.isEmpty()) {
+                //Search results only drop or add items, that diff is linear
+                filter = FilterDiff.calculate(oldRows, newRows);
+                diff = filter == null ? DiffUtil.calculateDiff(new SportDiffCallback(oldRows, newRows)) : null;
+            }
+            final FilterDiff filterDiff = filter;
+            final DiffUtil.DiffResult result = diff;
+
+            mMainExecutor.execute(() -> {
+                //A newer snapshot or a local edit superseded this diff
+                if (runGeneration == mMaxScheduledGeneration) {
+                    applyList(newList, sections, result, filterDiff, resort);
+                }
+            });
+        });
+    }
+
+    private void applyList(List<Sport> newList, SportSections sections, DiffUtil.DiffResult result,
+                           FilterDiff filterDiff, boolean resort) {
+        int oldSize = getItemCount();
+        boolean reordered = (mSections != null ? mSections.getOrder() : null) != (sections != null ? sections.getOrder() : null);
+
+        mPendingList = null;
+        mPendingResort = false;
+        mSections = sections;
+        if (!resort) {
+            //A new snapshot starts a new history, the old commands refer to items that may be gone
+            mHistory.replaceAll(newList);
+        }
+
+        if (result != null) {
+            result.dispatchUpdatesTo(this);
+        } else if (filterDiff != null) {
+            filterDiff.dispatchUpdatesTo(mUpdateCallback);
+        } else if (reordered && oldSize > 0 && getItemCount() > 0) {
+            notifyDataSetChanged();
+        } else if (oldSize > 0) {
+            notifyItemRangeRemoved(0, oldSize);
+            if (getItemCount() > 0) notifyItemRangeInserted(0, getItemCount());
+        } else {
+            notifyItemRangeInserted(0, getItemCount());
+        }
+    }
+
+    /**
+     * Switches the adapter to columnar mode, for feeds too big to keep as Sport objects.
+     * Items are read from the columns as they are bound. The columns are read-only, so items
+     * cannot be removed, restored, moved or sorted in this mode.
+     * @param columns The sports
+     */
+    public void submitColumns(SportColumns columns) {
+        ++mMaxScheduledGeneration;
+        mPendingList = null;
+        mPendingResort = false;
+        mOrder = null;
+        mSections = null;
+        mHistory.replaceAll(Collections.<Sport>emptyList());
+
+        mColumns = columns;
+
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Gets the item at a position in any mode
+     * @param position The adapter position
+     * @return The item, in columnar mode a new view of the item
+     */
+    public Sport getItem(int position) {
+        if (mColumns != null) return mColumns.get(position);
+        return mSections != null ? mSections.getSport(position) : mSportList.get(position);
+    }
+
+    /**
+     * Checks whether a position shows a section header, which cannot be swiped or dragged
+     * @param position The adapter position
+     * @return True for a header
+     */
+    public boolean isHeader(int position) {
+        return mSections != null && mSections.isHeader(position);
+    }
+
+    /**
+     * Checks whether items can be removed, restored and moved, which columnar mode does not allow
+     * @return False in columnar mode
+     */
+    public boolean isEditable() {
+        return mColumns == null;
+    }
+
+    /**
+     * Creates the span size lookup that makes section headers fill a whole row of the grid
+     * @param layoutManager The grid the adapter is shown in
+     * @return The lookup, with its span index caches enabled
+     */
+    public GridLayoutManager.SpanSizeLookup createSpanSizeLookup(final GridLayoutManager layoutManager) {
+        GridLayoutManager.SpanSizeLookup lookup = new GridLayoutManager.SpanSizeLookup() {
+            @Override
+            public int getSpanSize(int position) {
+                return isHeader(position) ? layoutManager.getSpanCount() : 1;
+            }
+        };
+        //Without the caches the span index of a row is computed from row 0 on every layout
+        lookup.setSpanIndexCacheEnabled(true);
+        lookup.setSpanGroupIndexCacheEnabled(true);
+        return lookup;
+    }
+
+    private void checkEditable() {
+        if (mColumns != null) {
+            throw new IllegalStateException("Items of a columnar list cannot be edited");
+        }
+    }
+
+    //Converts an adapter position to the position in the user's list, the edited list finds a
+    //sport in O(log n) through its node
+    private int listPosition(int position) {
+        return mSections != null ? mSportList.indexOf(mSections.getSport(position)) : position;
+    }
+
+    /**
+     * A local edit invalidates the snapshot an in-flight diff was computed against,
+     * so the pending list is diffed again against the edited data.
+     */
+    private void resubmitPendingList() {
+        if (mPendingResort) {
+            scheduleList(new ArrayList<>(mSportList), true);
+        } else if (mPendingList != null) {
+            submitList(mPendingList);
+        }
     }
 
 
@@ -60,9 +538,21 @@ public class SportsAdapter extends RecyclerView.Adapter<SportsAdapter.ViewHolder
      * @return The newly create ViewHolder.
      */
     @Override
-    public SportsAdapter.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+    public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+
+        if (viewType == VIEW_TYPE_HEADER) {
+            return new HeaderViewHolder(LayoutInflater.from(mContext).inflate(R.layout.section_header, parent, false));
+        }
 
-        return new ViewHolder(LayoutInflater.from(mContext).inflate(R.layout.list_item, parent, false));
+        //A pre-inflated view is timed as well, it is what the user waits for
+        long start = mMetrics.start();
+        View itemView = mPreInflater != null ? mPreInflater.obtain() : null;
+        if (itemView == null) {
+            itemView = LayoutInflater.from(mContext).inflate(R.layout.list_item, parent, false);
+        }
+        ViewHolder holder = new ViewHolder(itemView);
+        mMetrics.end(ListMetrics.INFLATE, start);
+        return holder;
     }
 
     /**
@@ -71,13 +561,30 @@ public class SportsAdapter extends RecyclerView.Adapter<SportsAdapter.ViewHolder
      * @param position The adapter position.
      */
     @Override
-    public void onBindViewHolder(SportsAdapter.ViewHolder holder, int position) {
+    public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        if (holder instanceof HeaderViewHolder) {
+            ((HeaderViewHolder) holder).bindTo(mSections.getHeader(position));
+            return;
+        }
+
+        long start = mMetrics.start();
         //Get current sport
-        Sport currentSport = mSportList.get(position);
+        Sport currentSport = getItem(position);
         //Populate the textviews with data
-        holder.bindTo(currentSport);
+        ((ViewHolder) holder).bindTo(currentSport, cardImageWidth(position));
+        mMetrics.end(ListMetrics.BIND, start);
     }
 
+    @Override
+    public int getItemViewType(int position) {
+        return isHeader(position) ? VIEW_TYPE_HEADER : VIEW_TYPE_SPORT;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        if (mColumns != null) return mColumns.getId(position);
+        return mSections != null ? SportSections.idOf(mSections.rows().get(position)) : mSportList.get(position).getId();
+    }
 
     /**
      * Required method for determining the size of the data set.
@@ -85,19 +592,62 @@ public class SportsAdapter extends RecyclerView.Adapter<SportsAdapter.ViewHolder
      */
     @Override
     public int getItemCount() {
-        return mSportList.size();
+        if (mColumns != null) return mColumns.size();
+        return mSections != null ? mSections.size() : mSportList.size();
+    }
+
+    /**
+     * ViewHolder class of the section headers of a sorted list
+     */
+    static class HeaderViewHolder extends RecyclerView.ViewHolder {
+
+        private final TextView mTitleText;
+
+        HeaderViewHolder(View itemView) {
+            super(itemView);
+            mTitleText = (TextView) itemView;
+        }
+
+        void bindTo(SportSections.Header header) {
+            mTitleText.setText(header.mTitle);
+        }
     }
 
     /**
      * ViewHolder class that represents each row of data in the RecyclerView
      */
-    class ViewHolder extends RecyclerView.ViewHolder implements View.OnClickListener {
+    class ViewHolder extends RecyclerView.ViewHolder implements View.OnClickListener, ImageLoadScheduler.ImageTarget {
 
         //Member Variables for the TextViews
         private TextView mTitleText;
         private TextView mInfoText;
         private ImageView mSportsImage;
 
+        //The bound sport and the width its image was loaded at
+        private Sport mSport;
+        private int mImageWidth;
+
+        //Start of the image load in flight while recording, a new bind clears the old load
+        private long mImageLoadStart;
+        private final RequestListener<Drawable> mImageListener = new RequestListener<Drawable>() {
+            @Override
+            public boolean onLoadFailed(@Nullable GlideException e, Object model, Target<Drawable> target, boolean isFirstResource) {
+                mMetrics.recordFailure(ListMetrics.IMAGE_LOAD);
+                mImageLoadStart = 0;
+                mImageScheduler.onLoadFinished(ViewHolder.this, false);
+                return false;
+            }
+
+            @Override
+            public boolean onResourceReady(Drawable resource, Object model, Target<Drawable> target, DataSource dataSource, boolean isFirstResource) {
+                //Memory cache hits arrive within into() and count with their few microseconds
+                mMetrics.end(ListMetrics.IMAGE_LOAD, mImageLoadStart);
+                mImageLoadStart = 0;
+                mImageScheduler.onLoadFinished(ViewHolder.this, true);
+                return false;
+            }
+        };
+
         /**
          * Constructor for the ViewHolder, used in onCreateViewHolder().
          * @param itemView The rootview of the list_item.xml layout file
@@ -113,35 +663,203 @@ public class SportsAdapter extends RecyclerView.Adapter<SportsAdapter.ViewHolder
             itemView.setOnClickListener((View.OnClickListener) this);
         }
 
-        void bindTo(Sport currentSport){
+        void bindTo(Sport currentSport, int imageWidth){
             //Populate the textviews with data
             mTitleText.setText(currentSport.getTitle());
             mInfoText.setText(currentSport.getInfo());
 
-            Glide.with(mContext).load(currentSport.getImageResource()).into(mSportsImage);
+            //Only the clicked card carries a transition name, see onClick()
+            ViewCompat.setTransitionName(mSportsImage, null);
 
+            mSport = currentSport;
+            loadImage(imageWidth);
+        }
 
+        /**
+         * Loads the image again if the card changed width since it was bound
+         * @param imageWidth The width of the card in pixels
+         */
+        void resizeImage(int imageWidth){
+            if (mSport != null && imageWidth != mImageWidth) {
+                loadImage(imageWidth);
+            }
+        }
+
+        private void loadImage(int imageWidth){
+            mImageWidth = imageWidth;
+            //Started by the scheduler, right away unless the list flings by
+            mImageScheduler.submit(this, imageKey(mSport.getImageResource(), imageWidth));
+        }
+
+        @Override
+        public void startLoad() {
+            mImageLoadStart = mMetrics.start();
+            //Listeners are not part of the cache key, the preloaded image is still found
+            imageRequest(mSport, mImageWidth).listener(mImageListener).into(mSportsImage);
+        }
+
+        @Override
+        public void cancelLoad() {
+            mImageLoadStart = 0;
+            Glide.with(mContext).clear(mSportsImage);
+        }
+
+        @Override
+        public boolean isVisible() {
+            View parent = (View) itemView.getParent();
+            return parent != null && itemView.getBottom() > 0 && itemView.getTop() < parent.getHeight()
+                    && itemView.getRight() > 0 && itemView.getLeft() < parent.getWidth();
         }
 
         @Override
         public void onClick(View v) {
 
-            Sport currentSport = mSportList.get(getBindingAdapterPosition());
+            int position = getBindingAdapterPosition();
+            if (position == RecyclerView.NO_POSITION) return;
 
+            Sport currentSport = getItem(position);
 
             Intent detailIntent = new Intent(mContext, DetailActivity.class);
             detailIntent.putExtra("title", currentSport.getTitle());
             detailIntent.putExtra("imageResource", currentSport.getImageResource());
+            detailIntent.putExtra("cardImageWidth", mImageWidth);
+
+            if (!(mContext instanceof Activity)) {
+                mContext.startActivity(detailIntent);
+                return;
+            }
+
+            //Morph the already decoded card image into the detail image
+            String transitionName = DetailActivity.imageTransitionName(currentSport.getId());
+            ViewCompat.setTransitionName(mSportsImage, transitionName);
+            detailIntent.putExtra("transitionName", transitionName);
+
+            ActivityOptionsCompat options = ActivityOptionsCompat.makeSceneTransitionAnimation(
+                    (Activity) mContext, mSportsImage, transitionName);
+            ContextCompat.startActivity(mContext, detailIntent, options.toBundle());
+        }
+    }
+
+    /**
+     * Set the listener told about every edit, including undo and redo, e.g. to persist them
+     * @param listener The listener, or null
+     */
+    public void setEditListener(EditHistory.Listener listener) {
+        mEditListener = listener;
+    }
+
+    //This is methode for removing a swiped item
+    public Sport removeItem(int position){
+
+        checkEditable();
+
+        //In a sorted list the history still edits the user's order
+        Sport removed = mHistory.remove(listPosition(position));
+
+        resubmitPendingList();
+
+        return removed;
+    }
+
+    //This is methode for restoring the deleted items, returns the position it was restored at
+    public int restoreItem(Sport mSport, int position){
+
+        checkEditable();
+
+        //Back between its old neighbours, whatever was removed or moved since
+        int restoredAt = mHistory.undoRemoval(mSport);
+
+        if (restoredAt < 0) {
+            //The removal is no longer in the history, earlier removals may have shrunk the list.
+            //A sorted list puts it in its place anyway, in the user's order it goes last
+            restoredAt = mSections != null ? mSportList.size() : Math.min(position, mSportList.size());
+            mHistory.insert(restoredAt, mSport);
+        }
 
-            mContext.startActivity(detailIntent);
+        if (mSections != null) {
+            restoredAt = mSections.rowOf(mSport);
         }
+
+        resubmitPendingList();
+
+        return restoredAt;
     }
 
-    //This is methode for restoring the deleted items
-    public void restoreItem(Sport mSport, int position){
+    //This is methode for moving an item one step of a drag, the items in between shift by one
+    public void moveItem(int from, int to){
+
+        checkEditable();
+        if (mSections != null) {
+            throw new IllegalStateException("Items of a sorted list cannot be moved");
+        }
+
+        //The steps of one drag are a single undo step until finishMove()
+        mHistory.move(from, to);
+
+        resubmitPendingList();
+    }
 
-        mSportList.add(position, mSport);
+    //This is methode for ending a drag
+    public void finishMove(){
 
-        notifyItemInserted(position);
+        mHistory.finishMove();
     }
+
+    //This is methode for undoing the latest edit, returns false when there was none
+    public boolean undo(){
+
+        checkEditable();
+
+        boolean undone = mHistory.undo();
+
+        resubmitPendingList();
+
+        return undone;
+    }
+
+    //This is methode for redoing the latest undone edit, returns false when there was none
+    public boolean redo(){
+
+        checkEditable();
+
+        boolean redone = mHistory.redo();
+
+        resubmitPendingList();
+
+        return redone;
+    }
+
+    //Turns the edits of the history into targeted notify events
+    private final EditHistory.Listener mHistoryListener = new EditHistory.Listener() {
+        @Override
+        public void onInserted(int position, Sport sport) {
+            if (mSections != null) {
+                mSections.insert(sport, mSportList, mUpdateCallback);
+            } else {
+                notifyItemInserted(position);
+            }
+            if (mEditListener != null) mEditListener.onInserted(position, sport);
+        }
+
+        @Override
+        public void onRemoved(int position, Sport sport) {
+            if (mSections != null) {
+                mSections.remove(sport, mUpdateCallback);
+            } else {
+                notifyItemRemoved(position);
+            }
+            if (mEditListener != null) mEditListener.onRemoved(position, sport);
+        }
+
+        @Override
+        public void onMoved(int from, int to) {
+            if (mSections != null) {
+                //Undoing a drag made before sorting, it only matters among equal sort keys
+                mSections.move(mSportList.get(to), mSportList, mUpdateCallback);
+            } else {
+                notifyItemMoved(from, to);
+            }
+            if (mEditListener != null) mEditListener.onMoved(from, to);
+        }
+    };
 }
@@ -0,0 +1,81 @@
+package com.example.android.materialme.image;
+
+import android.graphics.drawable.Drawable;
+
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.target.Target;
+
+/**
+ * Builds the Glide requests for the sports images. The list, its preloader and the
+ * detail screen must build identical requests to share entries in the memory cache.
+ */
+public final class SportImages {
+
+    /**
+     * Width to height ratio of the card images, see card_image_ratio used by list_item.xml
+     */
+    public static final float CARD_ASPECT_RATIO = 3f / 2f;
+
+    private SportImages() {
+    }
+
+    /**
+     * Computes the width of a card in the grid
+     * @param availableWidth The width of the RecyclerView in pixels
+     * @param columnCount The number of grid columns
+     * @param cardMargin The margin around each card in pixels
+     * @return The width of the image inside a card in pixels
+     */
+    public static int cardWidth(int availableWidth, int columnCount, int cardMargin) {
+        return Math.max(1, availableWidth / Math.max(1, columnCount) - 2 * cardMargin);
+    }
+
+    /**
+     * Computes the height of a card image, fixed by its aspect ratio
+     * @param cardWidth The width of the card in pixels
+     * @return The height of the image in pixels
+     */
+    public static int cardHeight(int cardWidth) {
+        return Math.max(1, Math.round(cardWidth / CARD_ASPECT_RATIO));
+    }
+
+    /**
+     * Creates the request for a card image, decoded down to the card size
+     * @param glide The request manager of the screen
+     * @param imageResource The drawable resource of the image
+     * @param width The width of the card in pixels
+     * @return The request, ready to be loaded into a view or preloaded
+     */
+    public static RequestBuilder<Drawable> card(RequestManager glide, int imageResource, int width) {
+        //The card size is known before the bitmap arrives, so decode exactly to it.
+        //Setting the transformation explicitly also keeps into(ImageView) from adding a different one.
+        return glide.load(imageResource)
+                .override(width, cardHeight(width))
+                .centerCrop();
+    }
+
+    /**
+     * Creates the request for the detail image, showing the cached card image until it is decoded
+     * @param glide The request manager of the screen
+     * @param imageResource The drawable resource of the image
+     * @param width The width of the detail image in pixels
+     * @param cardWidth The width the card image was decoded at, or 0 when unknown
+     * @param thumbnailListener Notified when the cached card image is shown, may be null
+     * @return The request, ready to be loaded into a view
+     */
+    public static RequestBuilder<Drawable> detail(RequestManager glide, int imageResource, int width, int cardWidth,
+                                                  RequestListener<Drawable> thumbnailListener) {
+        RequestBuilder<Drawable> request = glide.load(imageResource)
+                .override(width, Target.SIZE_ORIGINAL)
+                .fitCenter();
+
+        if (cardWidth > 0) {
+            request = request.thumbnail(card(glide, imageResource, cardWidth)
+                    .onlyRetrieveFromCache(true)
+                    .listener(thumbnailListener));
+        }
+        return request;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.android.materialme.metrics;
+
+import android.annotation.TargetApi;
+import android.app.Activity;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+/**
+ * Records the frames of an activity's window into ListMetrics.
+ *
+ * From API 24 the durations come from FrameMetrics, delivered on a background thread and
+ * covering the whole frame up to the GPU swap. Older devices get the time between the
+ * Choreographer callbacks instead, a frame that overran shows up as a longer interval.
+ */
+public final class FrameMonitor {
+
+    private final Activity mActivity;
+    private final ListMetrics mMetrics;
+
+    private boolean mStarted;
+    private HandlerThread mThread;
+    private Object mListener;
+
+    //The fallback, only used below API 24
+    private long mLastFrameNanos;
+    private final Choreographer.FrameCallback mFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (mLastFrameNanos != 0) {
+                mMetrics.recordFrame(frameTimeNanos - mLastFrameNanos);
+            }
+            mLastFrameNanos = frameTimeNanos;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    };
+
+    /**
+     * Create a monitor for an activity
+     * @param activity The activity whose window is monitored
+     * @param metrics The metrics to record the frames in
+     */
+    public FrameMonitor(Activity activity, ListMetrics metrics) {
+        this.mActivity = activity;
+        this.mMetrics = metrics;
+    }
+
+    /**
+     * Starts recording frames, must be called on the main thread
+     */
+    public void start() {
+        if (mStarted) return;
+        mStarted = true;
+
+        @SuppressWarnings("deprecation")
+        Display display = mActivity.getWindowManager().getDefaultDisplay();
+        float refreshRate = display != null ? display.getRefreshRate() : 0;
+        if (refreshRate >= 1) {
+            mMetrics.setFrameDeadlineNanos((long) (1_000_000_000L / refreshRate));
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            startFrameMetrics();
+        } else {
+            mLastFrameNanos = 0;
+            Choreographer.getInstance().postFrameCallback(mFrameCallback);
+        }
+    }
+
+    /**
+     * Stops recording frames, must be called on the main thread
+     */
+    public void stop() {
+        if (!mStarted) return;
+        mStarted = false;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            stopFrameMetrics();
+        } else {
+            Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.N)
+    private void startFrameMetrics() {
+        mThread = new HandlerThread("FrameMonitor");
+        mThread.start();
+
+        Window.OnFrameMetricsAvailableListener listener = (window, frameMetrics, dropCount) ->
+                mMetrics.recordFrame(frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION));
+        mActivity.getWindow().addOnFrameMetricsAvailableListener(listener, new Handler(mThread.getLooper()));
+        mListener = listener;
+    }
+
+    @TargetApi(Build.VERSION_CODES.N)
+    private void stopFrameMetrics() {
+        mActivity.getWindow().removeOnFrameMetricsAvailableListener((Window.OnFrameMetricsAvailableListener) mListener);
+        mListener = null;
+        mThread.quitSafely();
+        mThread = null;
+    }
+}
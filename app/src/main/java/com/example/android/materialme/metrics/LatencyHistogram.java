@@ -0,0 +1,157 @@
+package com.example.android.materialme.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations that any thread can record into without locking.
+ *
+ * Durations are counted in microsecond buckets on a log-linear scale: below 8 us every
+ * microsecond has its own bucket, above that every power of two is split into 8 buckets,
+ * so a percentile is off by at most 12.5%. Recording is one atomic increment of a bucket
+ * and one of the sum, the maximum is only written when it grows.
+ */
+public final class LatencyHistogram {
+
+    //8 sub-buckets per power of two
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    //Durations from 2^26 us, about 67 s, on all land in the last bucket
+    private static final int MAX_EXPONENT = 26;
+    static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray mCounts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong mSumNanos = new AtomicLong();
+    private final AtomicLong mMaxNanos = new AtomicLong();
+
+    /**
+     * Records a duration
+     * @param nanos The duration in nanoseconds, negative durations count as 0
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+
+        mCounts.incrementAndGet(bucketOf(nanos / 1000));
+        mSumNanos.addAndGet(nanos);
+
+        long max = mMaxNanos.get();
+        while (nanos > max && !mMaxNanos.compareAndSet(max, nanos)) {
+            max = mMaxNanos.get();
+        }
+    }
+
+    /**
+     * Copies the counts, for reading percentiles of a consistent set of durations while
+     * other threads keep recording
+     * @return The snapshot
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = mCounts.get(i);
+            count += counts[i];
+        }
+        return new Snapshot(counts, count, mSumNanos.get(), mMaxNanos.get());
+    }
+
+    /**
+     * Clears the recorded durations. Durations recorded at the same time may be partly kept
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mCounts.set(i, 0);
+        }
+        mSumNanos.set(0);
+        mMaxNanos.set(0);
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) return (int) micros;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent >= MAX_EXPONENT) return BUCKET_COUNT - 1;
+
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((micros >> shift) & (SUB_BUCKETS - 1));
+    }
+
+    //The smallest duration in microseconds that lands in a bucket
+    static long lowerBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    }
+
+    //The first duration in microseconds past a bucket
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket + 1;
+
+        int shift = bucket / SUB_BUCKETS - 1;
+        return lowerBoundOf(bucket) + (1L << shift);
+    }
+
+    /**
+     * The durations recorded up to a point in time.
+     */
+    public static final class Snapshot {
+
+        private final long[] mCounts;
+        private final long mCount;
+        private final long mSumNanos;
+        private final long mMaxNanos;
+
+        Snapshot(long[] counts, long count, long sumNanos, long maxNanos) {
+            this.mCounts = counts;
+            this.mCount = count;
+            this.mSumNanos = sumNanos;
+            this.mMaxNanos = maxNanos;
+        }
+
+        /**
+         * Gets the number of recorded durations
+         * @return The count
+         */
+        public long getCount() {
+            return mCount;
+        }
+
+        /**
+         * Gets the mean duration
+         * @return The mean in nanoseconds, 0 when nothing was recorded
+         */
+        public long getMeanNanos() {
+            return mCount > 0 ? mSumNanos / mCount : 0;
+        }
+
+        /**
+         * Gets the longest duration, exactly
+         * @return The maximum in nanoseconds
+         */
+        public long getMaxNanos() {
+            return mMaxNanos;
+        }
+
+        /**
+         * Gets a duration at least the given share of the durations do not exceed
+         * @param percentile The percentile, from 0 to 100
+         * @return The upper bound of the bucket holding the percentile in nanoseconds, but
+         *         never more than the maximum. 0 when nothing was recorded
+         */
+        public long getPercentileNanos(double percentile) {
+            if (mCount == 0) return 0;
+
+            long rank = Math.max(1, (long) Math.ceil(mCount * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < mCounts.length; i++) {
+                seen += mCounts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBoundOf(i) * 1000, mMaxNanos);
+                }
+            }
+            return mMaxNanos;
+        }
+    }
+}
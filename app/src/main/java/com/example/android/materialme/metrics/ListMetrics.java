@@ -0,0 +1,288 @@
+package com.example.android.materialme.metrics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Timings of the list screen: frame durations, binding and inflating items, drawing the swipe
+ * decoration and loading card images, each aggregated in a LatencyHistogram.
+ *
+ * Recording is off by default and switched at runtime. While it is off start() returns 0 and
+ * end() returns right away, so the instrumented code pays a volatile read and nothing else.
+ * Failures are counted either way, they are rare and should never go unnoticed, and so are
+ * the card image loads the ImageLoadScheduler started, deferred or saved.
+ */
+public final class ListMetrics {
+
+    //The metrics, indexes into the histograms
+    public static final int FRAME = 0;
+    public static final int BIND = 1;
+    public static final int INFLATE = 2;
+    public static final int DECORATE = 3;
+    public static final int IMAGE_LOAD = 4;
+    static final int METRIC_COUNT = 5;
+
+    private static final String[] NAMES = {"frame", "bind", "inflate", "decorate", "image load"};
+
+    //The card image loads, indexes into the load counts
+    //Started decoding
+    public static final int LOAD_STARTED = 0;
+    //Held back while the list flung by
+    public static final int LOAD_DEFERRED = 1;
+    //Deferred, then recycled before it started: a decode that never ran
+    public static final int LOAD_SKIPPED = 2;
+    //Still decoding when its card was recycled, stopped early
+    public static final int LOAD_CANCELLED = 3;
+    //Asked for again while already loading or loaded, or joining the load of the same image
+    public static final int LOAD_DEDUPLICATED = 4;
+    static final int LOAD_COUNT = 5;
+
+    private static final String[] LOAD_NAMES = {"started", "deferred", "skipped", "cancelled", "deduplicated"};
+
+    //A 60 Hz frame until the display tells otherwise
+    private static final long DEFAULT_FRAME_DEADLINE_NANOS = 1_000_000_000L / 60;
+
+    private static final ListMetrics sInstance = new ListMetrics();
+
+    private volatile boolean mEnabled;
+    private final LatencyHistogram[] mHistograms = new LatencyHistogram[METRIC_COUNT];
+    private final AtomicLongArray mFailures = new AtomicLongArray(METRIC_COUNT);
+    private final AtomicLongArray mLoads = new AtomicLongArray(LOAD_COUNT);
+    private final AtomicLong mJankyFrames = new AtomicLong();
+    private volatile long mFrameDeadlineNanos = DEFAULT_FRAME_DEADLINE_NANOS;
+
+    /**
+     * Gets the metrics of the process
+     * @return The metrics
+     */
+    public static ListMetrics getInstance() {
+        return sInstance;
+    }
+
+    ListMetrics() {
+        for (int i = 0; i < METRIC_COUNT; i++) {
+            mHistograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Checks whether timings are recorded
+     * @return True while recording
+     */
+    public boolean isEnabled() {
+        return mEnabled;
+    }
+
+    /**
+     * Switches recording on or off, the recorded timings are kept
+     * @param enabled Whether to record timings
+     */
+    public void setEnabled(boolean enabled) {
+        mEnabled = enabled;
+    }
+
+    /**
+     * Starts timing an operation
+     * @return The start time to pass to end(), 0 while recording is off
+     */
+    public long start() {
+        return mEnabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Ends timing an operation
+     * @param metric The metric, e.g. BIND
+     * @param startNanos The time returned by start()
+     */
+    public void end(int metric, long startNanos) {
+        if (startNanos == 0) return;
+
+        record(metric, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Records a duration measured elsewhere
+     * @param metric The metric, e.g. FRAME
+     * @param nanos The duration in nanoseconds
+     */
+    public void record(int metric, long nanos) {
+        if (!mEnabled) return;
+
+        mHistograms[metric].record(nanos);
+    }
+
+    /**
+     * Records the duration of a frame and whether it missed its deadline
+     * @param nanos The duration of the frame in nanoseconds
+     */
+    public void recordFrame(long nanos) {
+        if (!mEnabled) return;
+
+        mHistograms[FRAME].record(nanos);
+        if (nanos > mFrameDeadlineNanos) {
+            mJankyFrames.incrementAndGet();
+        }
+    }
+
+    /**
+     * Counts a failed operation, also while recording is off
+     * @param metric The metric, e.g. DECORATE
+     */
+    public void recordFailure(int metric) {
+        mFailures.incrementAndGet(metric);
+    }
+
+    /**
+     * Counts a card image load, also while recording is off
+     * @param load The kind of load, e.g. LOAD_SKIPPED
+     */
+    public void countLoad(int load) {
+        mLoads.incrementAndGet(load);
+    }
+
+    /**
+     * Sets the time a frame may take without being janky, one refresh of the display
+     * @param nanos The deadline in nanoseconds
+     */
+    public void setFrameDeadlineNanos(long nanos) {
+        mFrameDeadlineNanos = nanos;
+    }
+
+    /**
+     * Gets the recorded durations of a metric
+     * @param metric The metric, e.g. BIND
+     * @return A snapshot of the histogram
+     */
+    public LatencyHistogram.Snapshot snapshot(int metric) {
+        return mHistograms[metric].snapshot();
+    }
+
+    /**
+     * Gets the number of failures of a metric
+     * @param metric The metric, e.g. DECORATE
+     * @return The failure count
+     */
+    public long getFailureCount(int metric) {
+        return mFailures.get(metric);
+    }
+
+    /**
+     * Gets the number of card image loads of a kind
+     * @param load The kind of load, e.g. LOAD_STARTED
+     * @return The count
+     */
+    public long getLoadCount(int load) {
+        return mLoads.get(load);
+    }
+
+    /**
+     * Gets the number of decodes the scheduler saved: loads skipped, cancelled early or
+     * deduplicated
+     * @return The count
+     */
+    public long getWastedDecodesAvoided() {
+        return getLoadCount(LOAD_SKIPPED) + getLoadCount(LOAD_CANCELLED) + getLoadCount(LOAD_DEDUPLICATED);
+    }
+
+    /**
+     * Gets the number of frames that took longer than the frame deadline
+     * @return The janky frame count
+     */
+    public long getJankyFrameCount() {
+        return mJankyFrames.get();
+    }
+
+    /**
+     * Clears all timings and counts
+     */
+    public void reset() {
+        for (int i = 0; i < METRIC_COUNT; i++) {
+            mHistograms[i].reset();
+            mFailures.set(i, 0);
+        }
+        for (int i = 0; i < LOAD_COUNT; i++) {
+            mLoads.set(i, 0);
+        }
+        mJankyFrames.set(0);
+    }
+
+    /**
+     * Formats a short summary, for the debug overlay
+     * @return A few lines of text
+     */
+    public String summary() {
+        LatencyHistogram.Snapshot frames = snapshot(FRAME);
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format(Locale.US, "frames %d  janky %.1f%%  p90 %s",
+                frames.getCount(), jankyPercent(frames), millis(frames.getPercentileNanos(90))));
+        for (int metric = BIND; metric < METRIC_COUNT; metric++) {
+            LatencyHistogram.Snapshot snapshot = snapshot(metric);
+            summary.append('\n').append(String.format(Locale.US, "%s p90 %s  max %s",
+                    NAMES[metric], millis(snapshot.getPercentileNanos(90)), millis(snapshot.getMaxNanos())));
+            long failures = getFailureCount(metric);
+            if (failures > 0) {
+                summary.append("  failed ").append(failures);
+            }
+        }
+        summary.append('\n').append(String.format(Locale.US, "image loads %d  deferred %d  avoided %d",
+                getLoadCount(LOAD_STARTED), getLoadCount(LOAD_DEFERRED), getWastedDecodesAvoided()));
+        return summary.toString();
+    }
+
+    /**
+     * Formats all metrics as a table
+     * @return The report
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        report.append("List metrics, recording ").append(mEnabled ? "on" : "off").append('\n');
+        report.append(String.format(Locale.US, "%-10s %8s %9s %9s %9s %9s %9s %8s%n",
+                "metric", "count", "mean", "p50", "p90", "p99", "max", "failed"));
+        for (int metric = 0; metric < METRIC_COUNT; metric++) {
+            LatencyHistogram.Snapshot snapshot = snapshot(metric);
+            report.append(String.format(Locale.US, "%-10s %8d %9s %9s %9s %9s %9s %8d%n",
+                    NAMES[metric], snapshot.getCount(), millis(snapshot.getMeanNanos()),
+                    millis(snapshot.getPercentileNanos(50)), millis(snapshot.getPercentileNanos(90)),
+                    millis(snapshot.getPercentileNanos(99)), millis(snapshot.getMaxNanos()),
+                    getFailureCount(metric)));
+        }
+
+        LatencyHistogram.Snapshot frames = snapshot(FRAME);
+        report.append(String.format(Locale.US, "janky frames %d of %d (%.1f%%), deadline %s%n",
+                getJankyFrameCount(), frames.getCount(), jankyPercent(frames), millis(mFrameDeadlineNanos)));
+
+        report.append("image loads");
+        for (int load = 0; load < LOAD_COUNT; load++) {
+            report.append(load == 0 ? " " : ", ").append(LOAD_NAMES[load]).append(' ').append(getLoadCount(load));
+        }
+        report.append(String.format(Locale.US, ", wasted decodes avoided %d%n", getWastedDecodesAvoided()));
+        return report.toString();
+    }
+
+    /**
+     * Writes the report to a file, call it off the main thread
+     * @param file The file, replaced if it exists
+     * @throws IOException If the file cannot be written
+     */
+    public void dump(File file) throws IOException {
+        String report = report();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(report);
+        }
+    }
+
+    private double jankyPercent(LatencyHistogram.Snapshot frames) {
+        return frames.getCount() > 0 ? 100.0 * getJankyFrameCount() / frames.getCount() : 0;
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.US, "%.2fms", nanos / 1_000_000.0);
+    }
+}
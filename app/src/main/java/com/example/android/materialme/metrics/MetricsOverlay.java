@@ -0,0 +1,72 @@
+package com.example.android.materialme.metrics;
+
+import android.app.Activity;
+import android.graphics.Color;
+import android.graphics.Typeface;
+import android.util.TypedValue;
+import android.view.Gravity;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+/**
+ * A debug overlay in the corner of an activity that shows the ListMetrics summary.
+ *
+ * The text is updated twice a second, those updates are frames of their own and show up
+ * in the frame count. It does not take touches, the list underneath stays usable.
+ */
+public final class MetricsOverlay {
+
+    private static final long UPDATE_INTERVAL_MS = 500;
+
+    private final ViewGroup mContent;
+    private final ListMetrics mMetrics;
+    private final TextView mText;
+
+    private final Runnable mUpdate = new Runnable() {
+        @Override
+        public void run() {
+            mText.setText(mMetrics.summary());
+            mText.postDelayed(this, UPDATE_INTERVAL_MS);
+        }
+    };
+
+    /**
+     * Create an overlay for an activity, it is shown by show()
+     * @param activity The activity to show the overlay in
+     * @param metrics The metrics to show
+     */
+    public MetricsOverlay(Activity activity, ListMetrics metrics) {
+        this.mContent = activity.findViewById(android.R.id.content);
+        this.mMetrics = metrics;
+
+        int padding = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 4, activity.getResources().getDisplayMetrics());
+        mText = new TextView(activity);
+        mText.setTypeface(Typeface.MONOSPACE);
+        mText.setTextSize(TypedValue.COMPLEX_UNIT_SP, 10);
+        mText.setTextColor(Color.WHITE);
+        mText.setBackgroundColor(0xb0000000);
+        mText.setPadding(padding, padding, padding, padding);
+        mText.setClickable(false);
+        mText.setFocusable(false);
+    }
+
+    /**
+     * Shows the overlay and keeps it updated, must be called on the main thread
+     */
+    public void show() {
+        if (mText.getParent() != null) return;
+
+        mContent.addView(mText, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT,
+                ViewGroup.LayoutParams.WRAP_CONTENT, Gravity.BOTTOM | Gravity.START));
+        mUpdate.run();
+    }
+
+    /**
+     * Hides the overlay and stops updating it, must be called on the main thread
+     */
+    public void hide() {
+        mText.removeCallbacks(mUpdate);
+        mContent.removeView(mText);
+    }
+}
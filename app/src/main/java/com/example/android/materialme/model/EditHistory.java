@@ -0,0 +1,401 @@
+package com.example.android.materialme.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The user's edits of the sports list, with multi-level undo and redo.
+ *
+ * The list lives in a SportSequence. A removal only hides the item's node, and a move hides
+ * the node at the origin and inserts a new one at the destination. Commands keep their nodes,
+ * so undoing one shows and hides nodes instead of replaying positions: the item comes back
+ * between the same neighbours, even when other items were removed or moved in the meantime.
+ *
+ * Commands recorded between beginBatch() and endBatch() are undone and redone as one step.
+ * The steps of one drag are merged into a single move until finishMove() is called.
+ * Every change is reported to the listener with its position at the time it happens.
+ */
+public class EditHistory {
+
+    /**
+     * Receives every change of the list, including those made by undo and redo.
+     */
+    public interface Listener {
+        /**
+         * @param position The position of the new item
+         * @param sport The new item
+         */
+        void onInserted(int position, Sport sport);
+
+        /**
+         * @param position The position the item had
+         * @param sport The removed item
+         */
+        void onRemoved(int position, Sport sport);
+
+        /**
+         * @param from The position the item is taken from
+         * @param to The position the item ends up at
+         */
+        void onMoved(int from, int to);
+    }
+
+    public static final int DEFAULT_MAX_LEVELS = 100;
+
+    private static final int REMOVE = 1;
+    private static final int INSERT = 2;
+    private static final int MOVE = 3;
+
+    /**
+     * One recorded edit. For a move, mNode is the node at the origin and mTarget the one at the
+     * destination; exactly one of the two is visible.
+     */
+    private static final class Command {
+
+        final int mType;
+        final SportSequence.Node mNode;
+        SportSequence.Node mTarget;
+
+        Command(int type, SportSequence.Node node, SportSequence.Node target) {
+            this.mType = type;
+            this.mNode = node;
+            this.mTarget = target;
+        }
+    }
+
+    private final SportSequence mSequence = new SportSequence();
+    private final int mMaxLevels;
+
+    //Each entry is one undo step, newest last
+    private final ArrayDeque<List<Command>> mUndoSteps = new ArrayDeque<>();
+    private final ArrayDeque<List<Command>> mRedoSteps = new ArrayDeque<>();
+
+    private List<Command> mBatch;
+
+    //The move of the drag in progress and the step holding it
+    private Command mOpenMove;
+    private List<Command> mOpenMoveStep;
+
+    private Listener mListener;
+
+    /**
+     * Create an empty history keeping the default number of undo steps
+     */
+    public EditHistory() {
+        this(DEFAULT_MAX_LEVELS);
+    }
+
+    /**
+     * Create an empty history
+     * @param maxLevels The number of undo steps kept, older steps are forgotten
+     */
+    public EditHistory(int maxLevels) {
+        if (maxLevels < 1) throw new IllegalArgumentException("maxLevels must be at least 1");
+        this.mMaxLevels = maxLevels;
+    }
+
+    /**
+     * Set the listener receiving every change of the list
+     * @param listener The listener, or null
+     */
+    public void setListener(Listener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Gets the current list, a read-only view that follows the edits
+     * @return The sports in order
+     */
+    public List<Sport> getList() {
+        return mSequence;
+    }
+
+    /**
+     * Replaces the list without reporting changes, the history starts over
+     * @param sports The new list
+     */
+    public void replaceAll(List<Sport> sports) {
+        mUndoSteps.clear();
+        mRedoSteps.clear();
+        mBatch = null;
+        finishMove();
+        mSequence.replaceAll(sports);
+    }
+
+    /**
+     * Removes an item
+     * @param position The position of the item
+     * @return The removed item
+     */
+    public Sport remove(int position) {
+        finishMove();
+
+        SportSequence.Node node = mSequence.nodeAt(position);
+        mSequence.setVisible(node, false);
+        record(new Command(REMOVE, node, null));
+
+        if (mListener != null) mListener.onRemoved(position, node.mSport);
+        mSequence.compactIfNeeded();
+        return node.mSport;
+    }
+
+    /**
+     * Inserts an item
+     * @param position The position of the new item
+     * @param sport The new item
+     */
+    public void insert(int position, Sport sport) {
+        finishMove();
+
+        SportSequence.Node node = mSequence.insert(position, sport);
+        record(new Command(INSERT, node, null));
+
+        if (mListener != null) mListener.onInserted(position, sport);
+    }
+
+    /**
+     * Moves an item, the items in between shift by one. Consecutive moves of the same item
+     * are merged into one undo step until finishMove() is called.
+     * @param from The position the item is taken from
+     * @param to The position the item ends up at
+     */
+    public void move(int from, int to) {
+        if (from == to) return;
+
+        Command open = mOpenMove;
+        if (open != null && open.mTarget.isVisible() && mSequence.indexOf(open.mTarget) == from) {
+            continueMove(open, from, to);
+        } else {
+            finishMove();
+
+            SportSequence.Node node = mSequence.nodeAt(from);
+            mSequence.setVisible(node, false);
+            SportSequence.Node target = mSequence.insert(to, node.mSport);
+            Command command = new Command(MOVE, node, target);
+            record(command);
+
+            mOpenMove = command;
+            mOpenMoveStep = mBatch != null ? mBatch : mUndoSteps.peekLast();
+        }
+
+        if (mListener != null) mListener.onMoved(from, to);
+        mSequence.compactIfNeeded();
+    }
+
+    /**
+     * Ends the drag in progress, the next move starts a new undo step
+     */
+    public void finishMove() {
+        mOpenMove = null;
+        mOpenMoveStep = null;
+    }
+
+    /**
+     * Starts a batch, the commands recorded until endBatch() are undone as one step
+     */
+    public void beginBatch() {
+        finishMove();
+        if (mBatch == null) {
+            mBatch = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Ends the batch started by beginBatch()
+     */
+    public void endBatch() {
+        finishMove();
+        List<Command> batch = mBatch;
+        mBatch = null;
+        if (batch != null && !batch.isEmpty()) {
+            pushUndoStep(batch);
+        }
+    }
+
+    /**
+     * Checks whether there is a step to undo
+     * @return True when undo() would change the list
+     */
+    public boolean canUndo() {
+        return !mUndoSteps.isEmpty() || (mBatch != null && !mBatch.isEmpty());
+    }
+
+    /**
+     * Checks whether there is an undone step to redo
+     * @return True when redo() would change the list
+     */
+    public boolean canRedo() {
+        return !mRedoSteps.isEmpty();
+    }
+
+    /**
+     * Undoes the latest step, all of its commands in reverse order
+     * @return False when there was nothing to undo
+     */
+    public boolean undo() {
+        endBatch();
+
+        List<Command> step = mUndoSteps.pollLast();
+        if (step == null) return false;
+
+        for (int i = step.size() - 1; i >= 0; i--) {
+            revert(step.get(i));
+        }
+        mRedoSteps.addLast(step);
+        mSequence.compactIfNeeded();
+        return true;
+    }
+
+    /**
+     * Redoes the latest undone step
+     * @return False when there was nothing to redo
+     */
+    public boolean redo() {
+        endBatch();
+
+        List<Command> step = mRedoSteps.pollLast();
+        if (step == null) return false;
+
+        for (Command command : step) {
+            apply(command);
+        }
+        mUndoSteps.addLast(step);
+        mSequence.compactIfNeeded();
+        return true;
+    }
+
+    /**
+     * Undoes the latest removal of an item, even when later edits are still in the history.
+     * The item comes back between the neighbours it was removed from.
+     * @param sport The removed item
+     * @return The position the item was restored at, or -1 when its removal is not in the history
+     */
+    public int undoRemoval(Sport sport) {
+        finishMove();
+
+        List<Command> step = mBatch;
+        Command command = step != null ? lastRemovalOf(step, sport) : null;
+        Iterator<List<Command>> steps = mUndoSteps.descendingIterator();
+        while (command == null && steps.hasNext()) {
+            step = steps.next();
+            command = lastRemovalOf(step, sport);
+        }
+        if (command == null) return -1;
+
+        revert(command);
+        step.remove(command);
+        release(command);
+        if (step.isEmpty() && step != mBatch) {
+            mUndoSteps.remove(step);
+        }
+        return mSequence.indexOf(command.mNode);
+    }
+
+    private static Command lastRemovalOf(List<Command> step, Sport sport) {
+        for (int i = step.size() - 1; i >= 0; i--) {
+            Command command = step.get(i);
+            if (command.mType == REMOVE && command.mNode.mSport.equals(sport)) {
+                return command;
+            }
+        }
+        return null;
+    }
+
+    private void record(Command command) {
+        pin(command);
+        clearRedo();
+
+        if (mBatch != null) {
+            mBatch.add(command);
+        } else {
+            pushUndoStep(new ArrayList<>(Collections.singletonList(command)));
+        }
+    }
+
+    private void pushUndoStep(List<Command> step) {
+        mUndoSteps.addLast(step);
+        while (mUndoSteps.size() > mMaxLevels) {
+            for (Command command : mUndoSteps.pollFirst()) {
+                release(command);
+            }
+        }
+    }
+
+    private void clearRedo() {
+        for (List<Command> step : mRedoSteps) {
+            for (Command command : step) {
+                release(command);
+            }
+        }
+        mRedoSteps.clear();
+    }
+
+    //Moves the destination of the open drag instead of recording another command
+    private void continueMove(Command open, int from, int to) {
+        mSequence.unpin(open.mTarget);
+        mSequence.delete(open.mTarget);
+
+        if (mSequence.indexOf(open.mNode) == to) {
+            //Back where the drag started, the drag changed nothing
+            mSequence.setVisible(open.mNode, true);
+            mOpenMoveStep.remove(open);
+            mSequence.unpin(open.mNode);
+            if (mOpenMoveStep.isEmpty() && mOpenMoveStep != mBatch) {
+                mUndoSteps.remove(mOpenMoveStep);
+            }
+            finishMove();
+            return;
+        }
+
+        open.mTarget = mSequence.insert(to, open.mNode.mSport);
+        mSequence.pin(open.mTarget);
+    }
+
+    private void apply(Command command) {
+        if (command.mType == REMOVE) {
+            int position = mSequence.indexOf(command.mNode);
+            mSequence.setVisible(command.mNode, false);
+            if (mListener != null) mListener.onRemoved(position, command.mNode.mSport);
+        } else if (command.mType == INSERT) {
+            mSequence.setVisible(command.mNode, true);
+            if (mListener != null) mListener.onInserted(mSequence.indexOf(command.mNode), command.mNode.mSport);
+        } else {
+            swap(command.mNode, command.mTarget);
+        }
+    }
+
+    private void revert(Command command) {
+        if (command.mType == REMOVE) {
+            mSequence.setVisible(command.mNode, true);
+            if (mListener != null) mListener.onInserted(mSequence.indexOf(command.mNode), command.mNode.mSport);
+        } else if (command.mType == INSERT) {
+            int position = mSequence.indexOf(command.mNode);
+            mSequence.setVisible(command.mNode, false);
+            if (mListener != null) mListener.onRemoved(position, command.mNode.mSport);
+        } else {
+            swap(command.mTarget, command.mNode);
+        }
+    }
+
+    //Hides the visible end of a move and shows the other one, reported as one move
+    private void swap(SportSequence.Node shown, SportSequence.Node hidden) {
+        int from = mSequence.indexOf(shown);
+        mSequence.setVisible(shown, false);
+        mSequence.setVisible(hidden, true);
+        int to = mSequence.indexOf(hidden);
+        if (mListener != null && from != to) mListener.onMoved(from, to);
+    }
+
+    private void pin(Command command) {
+        mSequence.pin(command.mNode);
+        if (command.mTarget != null) mSequence.pin(command.mTarget);
+    }
+
+    private void release(Command command) {
+        mSequence.unpin(command.mNode);
+        if (command.mTarget != null) mSequence.unpin(command.mTarget);
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.android.materialme.model;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.util.Log;
+
+import com.example.android.materialme.R;
+import com.example.android.materialme.net.CachingFetcher;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads the sports catalog from a news feed at a URL. The feed is parsed as it downloads, so
+ * the first sports are handed out while the rest is still on its way. It can be served by a
+ * web server, a local file (file: URLs), or a stand-in server in the test process.
+ *
+ * The feed names its images, they are the bundled drawables of those names. When the feed
+ * cannot be read at all the fallback loader is used, e.g. the bundled catalog, when it breaks
+ * off midway the sports read until then are kept, and isLastLoadComplete() tells so. Feeds at http URLs are read through the
+ * CachingFetcher, an unchanged feed is parsed from disk after a 304.
+ */
+public class FeedSportLoader implements SportRepository.StreamingLoader {
+
+    private static final String TAG = "FeedSportLoader";
+    private static final int CONNECT_TIMEOUT_MILLIS = 10_000;
+    private static final int READ_TIMEOUT_MILLIS = 15_000;
+
+    private final URL mUrl;
+    private final SportFeedParser mParser;
+    private final SportRepository.Loader mFallback;
+    private final CachingFetcher mFetcher;
+    private boolean mLastLoadComplete = true;
+
+    /**
+     * Create a loader for a feed
+     * @param context Context of the application, for the bundled images
+     * @param url The feed
+     * @param fallback Loads the catalog when the feed cannot be read
+     */
+    public FeedSportLoader(Context context, URL url, SportRepository.Loader fallback) {
+        this(url, new SportFeedParser(new BundledImages(context)), fallback, CachingFetcher.getInstance(context));
+    }
+
+    FeedSportLoader(URL url, SportFeedParser parser, SportRepository.Loader fallback) {
+        this(url, parser, fallback, null);
+    }
+
+    FeedSportLoader(URL url, SportFeedParser parser, SportRepository.Loader fallback, CachingFetcher fetcher) {
+        this.mUrl = url;
+        this.mParser = parser;
+        this.mFallback = fallback;
+        this.mFetcher = fetcher;
+    }
+
+    @Override
+    public List<Sport> load() {
+        return load(null);
+    }
+
+    @Override
+    public List<Sport> load(SportRepository.BatchListener listener) {
+        List<Sport> sports = new ArrayList<>();
+        mLastLoadComplete = true;
+        try {
+            read(sports, listener);
+        } catch (IOException e) {
+            if (sports.isEmpty()) {
+                Log.w(TAG, "Could not read the feed " + mUrl + ", loading the fallback", e);
+                return mFallback.load();
+            }
+            Log.w(TAG, "The feed " + mUrl + " broke off after " + sports.size() + " sports", e);
+            mLastLoadComplete = false;
+        }
+        return sports;
+    }
+
+    @Override
+    public boolean isLastLoadComplete() {
+        return mLastLoadComplete;
+    }
+
+    private void read(List<Sport> sports, SportRepository.BatchListener listener) throws IOException {
+        if (mFetcher != null) {
+            try (Reader reader = new InputStreamReader(mFetcher.open(mUrl), StandardCharsets.UTF_8)) {
+                mParser.parse(reader, sports, listener);
+            }
+            return;
+        }
+
+        URLConnection connection = mUrl.openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+        try {
+            if (connection instanceof HttpURLConnection) {
+                int code = ((HttpURLConnection) connection).getResponseCode();
+                if (code != HttpURLConnection.HTTP_OK) throw new IOException("HTTP " + code);
+            }
+
+            //Decoded and parsed in small chunks as the bytes arrive, the feed is never held whole
+            try (Reader reader = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)) {
+                mParser.parse(reader, sports, listener);
+            }
+        } finally {
+            if (connection instanceof HttpURLConnection) {
+                ((HttpURLConnection) connection).disconnect();
+            }
+        }
+    }
+
+    /**
+     * The images of the bundled catalog by their resource names, looked up when first needed.
+     */
+    private static class BundledImages implements SportFeedParser.ImageResolver {
+
+        private final Context mContext;
+        private Map<String, Integer> mImages;
+
+        BundledImages(Context context) {
+            this.mContext = context;
+        }
+
+        @Override
+        public int resolve(String name) {
+            if (mImages == null) {
+                Resources resources = mContext.getResources();
+                TypedArray images = resources.obtainTypedArray(R.array.sports_images);
+                mImages = new HashMap<>();
+                for (int i = 0; i < images.length(); i++) {
+                    int id = images.getResourceId(i, 0);
+                    if (id != 0) mImages.put(resources.getResourceEntryName(id), id);
+                }
+                images.recycle();
+            }
+
+            Integer id = mImages.get(name);
+            return id != null ? id : 0;
+        }
+    }
+}
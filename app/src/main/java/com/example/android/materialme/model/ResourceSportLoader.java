@@ -0,0 +1,44 @@
+package com.example.android.materialme.model;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+
+import com.example.android.materialme.R;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads the sports catalog from the string and drawable arrays in the resources.
+ */
+public class ResourceSportLoader implements SportRepository.Loader {
+
+    private final Context mContext;
+
+    public ResourceSportLoader(Context context) {
+        this.mContext = context;
+    }
+
+    @Override
+    public List<Sport> load() {
+        //Get the resources from the XML file
+        Resources resources = mContext.getResources();
+        String[] sportsList = resources.getStringArray(R.array.sports_titles);
+        String[] sportsInfo = resources.getStringArray(R.array.sports_info);
+
+        TypedArray sportsImageResources = resources.obtainTypedArray(R.array.sports_images);
+
+        //Create the list of Sports objects with the titles and information about each sport
+        List<Sport> sports = new ArrayList<>(sportsList.length);
+        StableIds ids = new StableIds();
+        for(int i = 0; i < sportsList.length; i++){
+            int imageResource = sportsImageResources.getResourceId(i,0);
+            sports.add(new Sport(ids.next(sportsList[i], imageResource), sportsList[i], sportsInfo[i], imageResource));
+        }
+
+        sportsImageResources.recycle();
+
+        return sports;
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.android.materialme.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+
+/**
+ * The part of the list screen's state that must survive process death, in a compact encoding
+ * for the saved instance state.
+ *
+ * The list itself is not part of it, the user's list is restored from the SportStore. What is
+ * kept is the sort order, the search query and the removal the undo snackbar offers to take
+ * back, with the sport it removed since the store no longer has it. The encoding is at most
+ * MAX_SIZE bytes: the query is cut to MAX_QUERY_LENGTH characters, and an undo record that
+ * does not fit is dropped, the removal then simply stays.
+ */
+public final class SavedListState {
+
+    //The sort orders of the menu
+    public static final int SORT_CUSTOM = 0;
+    public static final int SORT_BY_TITLE = 1;
+    public static final int SORT_BY_CATEGORY = 2;
+
+    public static final int MAX_SIZE = 2048;
+    public static final int MAX_QUERY_LENGTH = 100;
+
+    private static final int VERSION = 1;
+    private static final byte NO_UNDO = 0;
+    private static final byte UNDO = 1;
+
+    private final int mSort;
+    private final String mQuery;
+    //The removed sport and where it was, null when there is nothing to undo
+    private final Sport mUndoSport;
+    private final int mUndoPosition;
+    private final long mUndoRemainingMillis;
+
+    /**
+     * Create a state
+     * @param sort One of the SORT_ constants
+     * @param query The search query, empty when not searching
+     * @param undoSport The sport whose removal can be undone, or null
+     * @param undoPosition The position the sport was removed from
+     * @param undoRemainingMillis How much longer the undo is offered
+     */
+    public SavedListState(int sort, String query, Sport undoSport, int undoPosition, long undoRemainingMillis) {
+        this.mSort = sort;
+        this.mQuery = query.length() > MAX_QUERY_LENGTH ? query.substring(0, MAX_QUERY_LENGTH) : query;
+        this.mUndoSport = undoSport;
+        this.mUndoPosition = undoPosition;
+        this.mUndoRemainingMillis = undoRemainingMillis;
+    }
+
+    public int getSort() {
+        return mSort;
+    }
+
+    public String getQuery() {
+        return mQuery;
+    }
+
+    /**
+     * Gets the sport whose removal can be undone
+     * @return The sport, or null when there is nothing to undo
+     */
+    public Sport getUndoSport() {
+        return mUndoSport;
+    }
+
+    public int getUndoPosition() {
+        return mUndoPosition;
+    }
+
+    public long getUndoRemainingMillis() {
+        return mUndoRemainingMillis;
+    }
+
+    /**
+     * Encodes the state, the undo record is left out when it would not fit in MAX_SIZE
+     * @return The encoding, at most MAX_SIZE bytes
+     */
+    public byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(VERSION);
+            out.writeByte(mSort);
+            out.writeUTF(mQuery);
+            out.flush();
+            int withoutUndo = out.size();
+
+            if (mUndoSport != null && writeUndo(out) && out.size() <= MAX_SIZE) {
+                return bytes.toByteArray();
+            }
+
+            //Nothing to undo, or too long an info text and the removal stays
+            byte[] encoded = new byte[withoutUndo + 1];
+            System.arraycopy(bytes.toByteArray(), 0, encoded, 0, withoutUndo);
+            encoded[withoutUndo] = NO_UNDO;
+            return encoded;
+        } catch (IOException e) {
+            //Not thrown by a ByteArrayOutputStream, and the query is too short to be too long
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //Returns false when a string is too long for writeUTF()
+    private boolean writeUndo(DataOutputStream out) throws IOException {
+        try {
+            out.writeByte(UNDO);
+            out.writeInt(mUndoPosition);
+            out.writeLong(mUndoRemainingMillis);
+            out.writeLong(mUndoSport.getId());
+            out.writeInt(mUndoSport.getImageResource());
+            writeNullableUTF(out, mUndoSport.getTitle());
+            writeNullableUTF(out, mUndoSport.getInfo());
+            out.flush();
+            return true;
+        } catch (UTFDataFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Decodes a state written by encode()
+     * @param data The encoding, may be null
+     * @return The state, or null when there is none or it is not readable, e.g. of another version
+     */
+    public static SavedListState decode(byte[] data) {
+        if (data == null || data.length > MAX_SIZE) return null;
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        try {
+            if (in.readByte() != VERSION) return null;
+
+            int sort = in.readByte();
+            if (sort < SORT_CUSTOM || sort > SORT_BY_CATEGORY) return null;
+            String query = in.readUTF();
+
+            byte undo = in.readByte();
+            if (undo == NO_UNDO) return new SavedListState(sort, query, null, 0, 0);
+            if (undo != UNDO) return null;
+
+            int position = in.readInt();
+            long remainingMillis = in.readLong();
+            long id = in.readLong();
+            int imageResource = in.readInt();
+            String title = readNullableUTF(in);
+            String info = readNullableUTF(in);
+            return new SavedListState(sort, query, new Sport(id, title, info, imageResource), position, remainingMillis);
+        } catch (IOException e) {
+            //Truncated
+            return null;
+        }
+    }
+
+    private static void writeNullableUTF(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readNullableUTF(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -22,6 +22,7 @@ package com.example.android.materialme.model;
 public class Sport {
 
     //Member variables representing the title and information about the sport
+    private long id;
     private String title;
     private String info;
     private int imageResource;
@@ -32,11 +33,38 @@ public class Sport {
      * @param info Information about the sport.
      */
     public Sport(String title , String info , int imageResource) {
+        this(stableIdOf(title, imageResource), title, info, imageResource);
+    }
+
+    /**
+     * Constructor for the Sport data model with an explicit identity
+     * @param id The stable identity of the sport, kept across reloads of the same data.
+     * @param title The name if the sport.
+     * @param info Information about the sport.
+     */
+    public Sport(long id , String title , String info , int imageResource) {
+        this.id = id;
         this.title = title;
         this.info = info;
         this.imageResource = imageResource;
     }
 
+    /**
+     * Derives an identity from the title and image, which do not change between reloads.
+     * Equal titles and images get equal ids, loaders tell them apart with StableIds
+     */
+    static long stableIdOf(String title, int imageResource) {
+        return ((long) (title != null ? title.hashCode() : 0) << 32) | (imageResource & 0xffffffffL);
+    }
+
+    /**
+     * Gets the stable identity of the sport
+     * @return The id of the sport.
+     */
+    public long getId() {
+        return id;
+    }
+
     /**
      * Gets the title of the sport
      * @return The title of the sport.
@@ -55,4 +83,28 @@ public class Sport {
     public int getImageResource() {
         return imageResource;
     }
+
+    /**
+     * Content equality, used to decide whether a bound row has to be redrawn
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Sport)) return false;
+
+        Sport sport = (Sport) o;
+        return id == sport.id
+                && imageResource == sport.imageResource
+                && (title != null ? title.equals(sport.title) : sport.title == null)
+                && (info != null ? info.equals(sport.info) : sport.info == null);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (id ^ (id >>> 32));
+        result = 31 * result + (title != null ? title.hashCode() : 0);
+        result = 31 * result + (info != null ? info.hashCode() : 0);
+        result = 31 * result + imageResource;
+        return result;
+    }
 }
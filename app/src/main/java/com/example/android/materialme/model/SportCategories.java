@@ -0,0 +1,59 @@
+package com.example.android.materialme.model;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+
+import com.example.android.materialme.R;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The category of each sport, e.g. racket sports. Every card of one sport shows that sport's
+ * image, so the category is looked up by the image resource.
+ */
+public class SportCategories {
+
+    private final Map<Integer, String> mCategories;
+    private final String mOther;
+
+    /**
+     * Constructor for the categories
+     * @param categories The category of each image resource
+     * @param other The category of sports with an image that has none
+     */
+    public SportCategories(Map<Integer, String> categories, String other) {
+        this.mCategories = categories;
+        this.mOther = other;
+    }
+
+    /**
+     * Loads the categories from the sports_categories array, which runs parallel to sports_images
+     * @param context Context of the application
+     * @return The categories
+     */
+    public static SportCategories fromResources(Context context) {
+        Resources resources = context.getResources();
+        String[] names = resources.getStringArray(R.array.sports_categories);
+        TypedArray images = resources.obtainTypedArray(R.array.sports_images);
+
+        Map<Integer, String> categories = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            categories.put(images.getResourceId(i, 0), names[i]);
+        }
+        images.recycle();
+
+        return new SportCategories(categories, resources.getString(R.string.category_other));
+    }
+
+    /**
+     * Gets the category of a sport
+     * @param sport The sport
+     * @return The category name
+     */
+    public String categoryOf(Sport sport) {
+        String category = mCategories.get(sport.getImageResource());
+        return category != null ? category : mOther;
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.android.materialme.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact, read-only store of many sports, kept in columns of primitives instead of objects.
+ *
+ * An ArrayList of Sport objects costs an object per sport and two per string, for a big feed
+ * most of that heap is object headers and copies of the same titles. Here the ids and image
+ * resources are primitive arrays, and every distinct string is stored once, UTF-8 encoded, in
+ * a single byte array that int code columns refer to. get() creates a short-lived Sport view
+ * of a position when it is bound, nothing is retained per sport.
+ */
+public class SportColumns {
+
+    //Code of a null string
+    private static final int NULL_CODE = -1;
+
+    private final int mSize;
+    private final long[] mIds;
+    private final int[] mImages;
+    private final int[] mTitles;
+    private final int[] mInfos;
+
+    //The distinct strings, string i is the bytes from mOffsets[i] to mOffsets[i + 1]
+    private final byte[] mText;
+    private final int[] mOffsets;
+
+    private SportColumns(Builder builder) {
+        this.mSize = builder.mSize;
+        this.mIds = trim(builder.mIds, builder.mSize);
+        this.mImages = trim(builder.mImages, builder.mSize);
+        this.mTitles = trim(builder.mTitles, builder.mSize);
+        this.mInfos = trim(builder.mInfos, builder.mSize);
+
+        byte[] text = new byte[builder.mTextSize];
+        System.arraycopy(builder.mText, 0, text, 0, text.length);
+        this.mText = text;
+        this.mOffsets = trim(builder.mOffsets, builder.mCodes.size() + 1);
+    }
+
+    /**
+     * Stores a list of sports
+     * @param sports The sports
+     * @return The columns
+     */
+    public static SportColumns of(List<Sport> sports) {
+        Builder builder = new Builder(sports.size());
+        for (Sport sport : sports) {
+            builder.add(sport);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Gets the number of sports
+     * @return The size
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Gets the number of distinct strings stored
+     * @return The string count
+     */
+    public int getStringCount() {
+        return mOffsets.length - 1;
+    }
+
+    /**
+     * Gets the id of a sport without creating its view
+     * @param position The position of the sport
+     * @return The stable id
+     */
+    public long getId(int position) {
+        checkPosition(position);
+        return mIds[position];
+    }
+
+    /**
+     * Gets the image of a sport without creating its view
+     * @param position The position of the sport
+     * @return The image resource
+     */
+    public int getImageResource(int position) {
+        checkPosition(position);
+        return mImages[position];
+    }
+
+    /**
+     * Decodes the title of a sport
+     * @param position The position of the sport
+     * @return A new string
+     */
+    public String getTitle(int position) {
+        checkPosition(position);
+        return decode(mTitles[position]);
+    }
+
+    /**
+     * Decodes the info of a sport
+     * @param position The position of the sport
+     * @return A new string
+     */
+    public String getInfo(int position) {
+        checkPosition(position);
+        return decode(mInfos[position]);
+    }
+
+    /**
+     * Creates a view of a sport, meant to be used while binding and then dropped
+     * @param position The position of the sport
+     * @return A new Sport equal to the one stored
+     */
+    public Sport get(int position) {
+        checkPosition(position);
+        return new Sport(mIds[position], decode(mTitles[position]), decode(mInfos[position]), mImages[position]);
+    }
+
+    private String decode(int code) {
+        if (code == NULL_CODE) return null;
+
+        int start = mOffsets[code];
+        return new String(mText, start, mOffsets[code + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    private void checkPosition(int position) {
+        if (position < 0 || position >= mSize) {
+            throw new IndexOutOfBoundsException("position " + position + " of " + mSize);
+        }
+    }
+
+    private static long[] trim(long[] array, int size) {
+        long[] trimmed = new long[size];
+        System.arraycopy(array, 0, trimmed, 0, size);
+        return trimmed;
+    }
+
+    private static int[] trim(int[] array, int size) {
+        int[] trimmed = new int[size];
+        System.arraycopy(array, 0, trimmed, 0, size);
+        return trimmed;
+    }
+
+    /**
+     * Collects sports into columns, e.g. while a feed is parsed, so no Sport objects need to
+     * be kept. The string dictionary is only needed while building and dropped with the builder.
+     */
+    public static class Builder {
+
+        private int mSize;
+        private long[] mIds;
+        private int[] mImages;
+        private int[] mTitles;
+        private int[] mInfos;
+
+        private final Map<String, Integer> mCodes = new HashMap<>();
+        private byte[] mText = new byte[1024];
+        private int mTextSize;
+        private int[] mOffsets = new int[64];
+
+        /**
+         * Create a builder
+         * @param expectedSize The expected number of sports, the columns grow past it
+         */
+        public Builder(int expectedSize) {
+            int capacity = Math.max(16, expectedSize);
+            this.mIds = new long[capacity];
+            this.mImages = new int[capacity];
+            this.mTitles = new int[capacity];
+            this.mInfos = new int[capacity];
+        }
+
+        /**
+         * Adds a sport
+         * @param sport The sport
+         * @return This builder
+         */
+        public Builder add(Sport sport) {
+            return add(sport.getId(), sport.getTitle(), sport.getInfo(), sport.getImageResource());
+        }
+
+        /**
+         * Adds a sport from its fields
+         * @param id The stable id of the sport
+         * @param title The title, may be null
+         * @param info The info, may be null
+         * @param imageResource The image resource
+         * @return This builder
+         */
+        public Builder add(long id, String title, String info, int imageResource) {
+            if (mSize == mIds.length) {
+                int capacity = mSize * 2;
+                mIds = grow(mIds, capacity);
+                mImages = grow(mImages, capacity);
+                mTitles = grow(mTitles, capacity);
+                mInfos = grow(mInfos, capacity);
+            }
+
+            mIds[mSize] = id;
+            mImages[mSize] = imageResource;
+            mTitles[mSize] = codeOf(title);
+            mInfos[mSize] = codeOf(info);
+            mSize++;
+            return this;
+        }
+
+        /**
+         * Creates the columns, trimmed to their size
+         * @return The columns
+         */
+        public SportColumns build() {
+            return new SportColumns(this);
+        }
+
+        //Stores each distinct string once
+        private int codeOf(String string) {
+            if (string == null) return NULL_CODE;
+
+            Integer code = mCodes.get(string);
+            if (code != null) return code;
+
+            int newCode = mCodes.size();
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            if (mTextSize + bytes.length > mText.length) {
+                byte[] grown = new byte[Math.max(mText.length * 2, mTextSize + bytes.length)];
+                System.arraycopy(mText, 0, grown, 0, mTextSize);
+                mText = grown;
+            }
+            System.arraycopy(bytes, 0, mText, mTextSize, bytes.length);
+
+            if (newCode + 2 > mOffsets.length) {
+                mOffsets = grow(mOffsets, mOffsets.length * 2);
+            }
+            mOffsets[newCode] = mTextSize;
+            mTextSize += bytes.length;
+            mOffsets[newCode + 1] = mTextSize;
+
+            mCodes.put(string, newCode);
+            return newCode;
+        }
+
+        private static long[] grow(long[] array, int capacity) {
+            long[] grown = new long[capacity];
+            System.arraycopy(array, 0, grown, 0, array.length);
+            return grown;
+        }
+
+        private static int[] grow(int[] array, int capacity) {
+            int[] grown = new int[capacity];
+            System.arraycopy(array, 0, grown, 0, array.length);
+            return grown;
+        }
+    }
+}
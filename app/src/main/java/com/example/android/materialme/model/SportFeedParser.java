@@ -0,0 +1,181 @@
+package com.example.android.materialme.model;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads a sports news feed as a stream, entry by entry, without building a tree of the whole
+ * document, and hands out the sports in batches while the rest of the feed is still arriving.
+ *
+ * The feed is a JSON object with a "sports" array, or the array alone:
+ * {"sports": [{"id": 1, "title": "Baseball", "info": "...", "image": "img_baseball"}, ...]}
+ * Unknown fields are skipped and entries without a title are dropped. An entry without a
+ * numeric id gets the stable id of its title and image, as the bundled catalog does, see
+ * StableIds.
+ *
+ * The first batch is small so the first screen is shown soon, each further batch is twice as
+ * large, so a receiver doing work proportional to everything received so far, e.g. a list
+ * diffing each batch, does linear work in total. A slow feed hands out what it has after a
+ * while even if the batch is not full.
+ */
+public class SportFeedParser {
+
+    /**
+     * Finds the drawable of an image named by the feed.
+     */
+    public interface ImageResolver {
+        /**
+         * @param name The name of the image, e.g. "img_baseball"
+         * @return The drawable resource, or 0 when there is none of that name
+         */
+        int resolve(String name);
+    }
+
+    //Fills the first screen of a phone in portrait, a few rows of a tablet grid
+    static final int FIRST_BATCH_SIZE = 12;
+    static final int MAX_BATCH_SIZE = 4096;
+    //A batch is handed out early when the feed is this slow
+    static final long MAX_BATCH_DELAY_NANOS = 100_000_000L;
+
+    private static final String FIELD_SPORTS = "sports";
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_TITLE = "title";
+    private static final String FIELD_INFO = "info";
+    private static final String FIELD_IMAGE = "image";
+
+    private final ImageResolver mImages;
+
+    public SportFeedParser(ImageResolver images) {
+        this.mImages = images;
+    }
+
+    /**
+     * Reads the feed to its end. The sports are added to the list as they are read, so when
+     * the feed breaks off the list holds those before the break
+     * @param in The feed, not closed
+     * @param out Receives every sport read
+     * @param listener Receives the sports read since its last batch, copies of ranges of out,
+     *                 on the calling thread. The sports after the last batch are only in out.
+     *                 May be null
+     * @throws IOException When the feed could not be read or is not a feed
+     */
+    public void parse(Reader in, List<Sport> out, SportRepository.BatchListener listener) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        Batcher batcher = new Batcher(out, listener);
+        StableIds ids = new StableIds();
+        try {
+            if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (FIELD_SPORTS.equals(reader.nextName())) {
+                        readSports(reader, batcher, ids);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else {
+                readSports(reader, batcher, ids);
+            }
+        } catch (IllegalStateException e) {
+            //A value of an unexpected type
+            throw new IOException("Not a sports feed", e);
+        }
+    }
+
+    private void readSports(JsonReader reader, Batcher batcher, StableIds ids) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            Sport sport = readSport(reader, ids);
+            if (sport != null) batcher.add(sport);
+        }
+        reader.endArray();
+    }
+
+    private Sport readSport(JsonReader reader, StableIds ids) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        Long id = null;
+        String title = null;
+        String info = null;
+        String image = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            JsonToken token = reader.peek();
+            if (token != JsonToken.STRING && token != JsonToken.NUMBER) {
+                //Nested values, nulls and booleans of fields known or not
+                reader.skipValue();
+            } else if (FIELD_ID.equals(name)) {
+                id = parseId(reader.nextString());
+            } else if (FIELD_TITLE.equals(name)) {
+                title = reader.nextString();
+            } else if (FIELD_INFO.equals(name)) {
+                info = reader.nextString();
+            } else if (FIELD_IMAGE.equals(name)) {
+                image = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (title == null) return null;
+        int imageResource = image != null ? mImages.resolve(image) : 0;
+        if (id != null) {
+            ids.reserve(id);
+            return new Sport(id, title, info, imageResource);
+        }
+        return new Sport(ids.next(title, imageResource), title, info, imageResource);
+    }
+
+    //Ids are numbers, anything else falls back to the stable id
+    private static Long parseId(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Collects the sports of a batch and hands the batch out once it is full or old.
+     */
+    private static class Batcher {
+
+        private final List<Sport> mOut;
+        private final SportRepository.BatchListener mListener;
+
+        private int mBatchStart;
+        private int mBatchSize = FIRST_BATCH_SIZE;
+        private long mBatchStartNanos = System.nanoTime();
+
+        Batcher(List<Sport> out, SportRepository.BatchListener listener) {
+            this.mOut = out;
+            this.mListener = listener;
+            this.mBatchStart = out.size();
+        }
+
+        void add(Sport sport) {
+            mOut.add(sport);
+            if (mListener == null) return;
+
+            int count = mOut.size() - mBatchStart;
+            if (count < mBatchSize && System.nanoTime() - mBatchStartNanos < MAX_BATCH_DELAY_NANOS) return;
+
+            mListener.onBatch(Collections.unmodifiableList(new ArrayList<>(mOut.subList(mBatchStart, mOut.size()))));
+            mBatchStart = mOut.size();
+            mBatchSize = Math.min(MAX_BATCH_SIZE, mBatchSize * 2);
+            mBatchStartNanos = System.nanoTime();
+        }
+    }
+}
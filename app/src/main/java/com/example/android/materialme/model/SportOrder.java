@@ -0,0 +1,82 @@
+package com.example.android.materialme.model;
+
+import java.util.Locale;
+
+/**
+ * An order of the sports that groups them into sections, e.g. alphabetical or by category.
+ *
+ * Sports are compared by a sort key computed once per sport, so sorting a big list costs one
+ * key per sport and plain string comparisons, not a lookup per comparison. Sports with equal
+ * keys keep their order in the user's list. The keys of one section must sort next to each
+ * other, a new section starts wherever the section title changes.
+ */
+public abstract class SportOrder {
+
+    //Section of titles that do not start with a letter, sorted before the letters
+    static final String OTHER_SECTION = "#";
+
+    /**
+     * Gets the key the sport is sorted by
+     * @param sport The sport
+     * @return The key, compared with String.compareTo()
+     */
+    public abstract String sortKeyOf(Sport sport);
+
+    /**
+     * Gets the title of the section the sport is shown in
+     * @param sport The sport
+     * @return The section title
+     */
+    public abstract String sectionOf(Sport sport);
+
+    /**
+     * Sorts by title, ignoring case, in one section per initial letter
+     * @return The order
+     */
+    public static SportOrder byTitle() {
+        return new SportOrder() {
+            @Override
+            public String sortKeyOf(Sport sport) {
+                String title = lowerTitleOf(sport);
+                //Titles starting with a digit or sign are grouped in front of the letters
+                return (startsWithLetter(title) ? "1" : "0") + title;
+            }
+
+            @Override
+            public String sectionOf(Sport sport) {
+                String title = lowerTitleOf(sport);
+                return startsWithLetter(title)
+                        ? String.valueOf(Character.toUpperCase(title.charAt(0))) : OTHER_SECTION;
+            }
+        };
+    }
+
+    /**
+     * Sorts by category name, then by title, in one section per category
+     * @param categories The categories of the sports
+     * @return The order
+     */
+    public static SportOrder byCategory(final SportCategories categories) {
+        return new SportOrder() {
+            @Override
+            public String sortKeyOf(Sport sport) {
+                //The separator sorts before any character, so a category never runs into the next
+                return categories.categoryOf(sport) + '\u0000' + lowerTitleOf(sport);
+            }
+
+            @Override
+            public String sectionOf(Sport sport) {
+                return categories.categoryOf(sport);
+            }
+        };
+    }
+
+    private static String lowerTitleOf(Sport sport) {
+        String title = sport.getTitle();
+        return title != null ? title.toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static boolean startsWithLetter(String title) {
+        return !title.isEmpty() && Character.isLetter(title.charAt(0));
+    }
+}
@@ -0,0 +1,450 @@
+package com.example.android.materialme.model;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import com.example.android.materialme.BuildConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Single source of the sports catalog. The catalog is loaded once on a background
+ * thread and kept in memory, so refreshes and recreated activities reuse it.
+ * Callers receive immutable snapshots on the main thread.
+ *
+ * When a {@link SportStore} is given, the user's list, with their deletions and ordering,
+ * is restored from it instead of the bundled catalog, and every edit is journaled to it
+ * on the background executor.
+ *
+ * A {@link StreamingLoader}, e.g. a feed, is shown while it loads: callbacks that are
+ * {@link ProgressCallback}s receive the part read so far as it grows. A catalog that broke off
+ * midway is shown but not stored, so the next launch reads it again.
+ */
+public class SportRepository {
+
+    /**
+     * Receives a loaded snapshot of the catalog.
+     */
+    public interface Callback {
+        void onSportsLoaded(List<Sport> sports);
+    }
+
+    /**
+     * Produces the full catalog, called on the background executor.
+     */
+    public interface Loader {
+        List<Sport> load();
+    }
+
+    /**
+     * A Loader reading the catalog as a stream, which hands out what it has read so far.
+     */
+    public interface StreamingLoader extends Loader {
+        /**
+         * Produces the full catalog, called on the background executor
+         * @param listener Receives the sports read since the last batch, may be null
+         * @return The full catalog
+         */
+        List<Sport> load(BatchListener listener);
+
+        /**
+         * Checks whether the last load() read the whole catalog, called right after it on the
+         * same thread
+         * @return False when the catalog broke off midway and load() returned the part read
+         */
+        boolean isLastLoadComplete();
+    }
+
+    /**
+     * Receives a batch of sports of a StreamingLoader, called on the background executor.
+     */
+    public interface BatchListener {
+        void onBatch(List<Sport> batch);
+    }
+
+    /**
+     * A Callback that is also shown the catalog while a StreamingLoader is still reading it.
+     */
+    public interface ProgressCallback extends Callback {
+        /**
+         * Receives an immutable snapshot of the sports read so far, on the main thread. It
+         * grows with each call, onSportsLoaded() delivers the whole catalog last. The partial
+         * list must not be edited, there is no list to record the edits in before that
+         * @param sports The sports read so far
+         */
+        void onSportsPartiallyLoaded(List<Sport> sports);
+    }
+
+    /**
+     * An edit applied to the store on the background executor.
+     */
+    private interface StoreEdit {
+        void apply(SportStore store) throws IOException;
+    }
+
+    private static final String TAG = "SportRepository";
+    private static final String STORE_DIRECTORY = "sports";
+
+    private static SportRepository sInstance;
+
+    private final Loader mLoader;
+    private final SportStore mStore;
+    private final Executor mBackgroundExecutor;
+    private final Executor mMainExecutor;
+
+    //Only touched on the background executor
+    private List<Sport> mDefaultCatalog;
+
+    //Only touched on the main thread. mSports is the live list, mCatalog its immutable snapshot
+    private ArrayList<Sport> mSports;
+    private List<Sport> mCatalog;
+    private boolean mLoading;
+    private boolean mResetting;
+    //False while mSports is a partial catalog that is not stored, its edits are not journaled
+    private boolean mStored = true;
+    private int mLoadCount;
+    private final List<Callback> mPendingCallbacks = new ArrayList<>();
+    //The sports a StreamingLoader read so far and their snapshot, while it loads
+    private final ArrayList<Sport> mStreamed = new ArrayList<>();
+    private List<Sport> mStreamedSnapshot;
+
+    //Edits waiting to be written, shared between the main thread and the background executor
+    private final List<StoreEdit> mWriteQueue = new ArrayList<>();
+    private boolean mFlushScheduled;
+    private volatile int mFlushCount;
+
+    /**
+     * Gets the process wide repository, which outlives activity recreation
+     * @param context Any context, only its application context is kept
+     * @return The shared repository
+     */
+    public static synchronized SportRepository getInstance(Context context) {
+        if (sInstance == null) {
+            Context appContext = context.getApplicationContext();
+            sInstance = new SportRepository(
+                    createLoader(appContext),
+                    new SportStore(new File(appContext.getFilesDir(), STORE_DIRECTORY)),
+                    Executors.newSingleThreadExecutor(),
+                    ContextCompat.getMainExecutor(appContext));
+        }
+        return sInstance;
+    }
+
+    //The feed configured for the build, the bundled catalog when there is none or it fails
+    private static Loader createLoader(Context context) {
+        Loader catalog = new ResourceSportLoader(context);
+        if (BuildConfig.SPORTS_FEED_URL.isEmpty()) return catalog;
+
+        try {
+            return new FeedSportLoader(context, new URL(BuildConfig.SPORTS_FEED_URL), catalog);
+        } catch (MalformedURLException e) {
+            Log.e(TAG, "Not a feed URL: " + BuildConfig.SPORTS_FEED_URL, e);
+            return catalog;
+        }
+    }
+
+    SportRepository(Loader loader, Executor backgroundExecutor, Executor mainExecutor) {
+        this(loader, null, backgroundExecutor, mainExecutor);
+    }
+
+    SportRepository(Loader loader, SportStore store, Executor backgroundExecutor, Executor mainExecutor) {
+        this.mLoader = loader;
+        this.mStore = store;
+        this.mBackgroundExecutor = backgroundExecutor;
+        this.mMainExecutor = mainExecutor;
+    }
+
+    /**
+     * Delivers the catalog to the callback, right away when it is cached,
+     * otherwise once the background load finishes. Must be called on the main thread.
+     * @param callback The callback receiving the immutable snapshot, a ProgressCallback is
+     *                 also shown the part a StreamingLoader has read, joining a load halfway
+     *                 it is shown that part at once
+     */
+    public void getSports(Callback callback) {
+        if (mSports != null) {
+            callback.onSportsLoaded(snapshot());
+            return;
+        }
+
+        if (!mPendingCallbacks.contains(callback)) mPendingCallbacks.add(callback);
+        if (mLoading) {
+            if (mStreamedSnapshot != null && callback instanceof ProgressCallback) {
+                ((ProgressCallback) callback).onSportsPartiallyLoaded(mStreamedSnapshot);
+            }
+            return;
+        }
+
+        mLoading = true;
+        mLoadCount++;
+        mBackgroundExecutor.execute(() -> {
+            List<Sport> stored = readStore();
+            if (stored != null) {
+                mMainExecutor.execute(() -> publish(stored, true));
+                return;
+            }
+
+            List<Sport> catalog;
+            try {
+                catalog = defaultCatalog(batch -> mMainExecutor.execute(() -> publishBatch(batch)));
+            } catch (RuntimeException e) {
+                //An empty list ends the load, it is not stored so the next launch tries again
+                Log.e(TAG, "Could not load the catalog", e);
+                mMainExecutor.execute(() -> publish(Collections.<Sport>emptyList(), false));
+                return;
+            }
+            boolean complete = isDefaultCatalogComplete();
+            if (complete) {
+                writeStore(store -> store.replaceAll(catalog));
+            } else {
+                Log.w(TAG, "The catalog broke off after " + catalog.size() + " sports, it is not stored");
+            }
+            mMainExecutor.execute(() -> publish(catalog, complete));
+        });
+    }
+
+    /**
+     * Replaces the user's list with the bundled catalog, undoing all deletions and moves.
+     * A feed is read again, the current list stays until the whole feed is read but is not
+     * editable meanwhile, see isLoaded(). Must be called on the main thread.
+     * @param callback The callback receiving the immutable snapshot, removed with removeCallback()
+     */
+    public void resetSports(Callback callback) {
+        if (mSports == null) {
+            //Nothing to reset yet, the load delivers the list
+            getSports(callback);
+            return;
+        }
+
+        if (!mPendingCallbacks.contains(callback)) mPendingCallbacks.add(callback);
+        if (mResetting) return;
+
+        mResetting = true;
+        mBackgroundExecutor.execute(() -> {
+            List<Sport> catalog;
+            try {
+                catalog = defaultCatalog(null);
+            } catch (RuntimeException e) {
+                //The list stays as it was
+                Log.e(TAG, "Could not load the catalog", e);
+                mMainExecutor.execute(() -> {
+                    mResetting = false;
+                    publish(mSports, mStored);
+                });
+                return;
+            }
+            boolean complete = isDefaultCatalogComplete();
+            //A partial catalog replaces no stored list, the next launch reads the whole catalog
+            writeStore(store -> {
+                if (complete) {
+                    store.replaceAll(catalog);
+                } else {
+                    store.clear();
+                }
+            });
+
+            mMainExecutor.execute(() -> {
+                mResetting = false;
+                publish(catalog, complete);
+            });
+        });
+    }
+
+    /**
+     * Records that the user removed an item. Must be called on the main thread.
+     * @param position The position of the removed item
+     */
+    public void removeSport(final int position) {
+        if (mResetting) return;
+        mSports.remove(position);
+        mCatalog = null;
+        persist(store -> store.recordRemove(position));
+    }
+
+    /**
+     * Records that an item was put back, e.g. by undo. Must be called on the main thread.
+     * @param position The position of the inserted item
+     * @param sport The inserted item
+     */
+    public void insertSport(final int position, final Sport sport) {
+        if (mResetting) return;
+        mSports.add(position, sport);
+        mCatalog = null;
+        persist(store -> store.recordInsert(position, sport));
+    }
+
+    /**
+     * Records that the user moved an item. Must be called on the main thread.
+     * @param from The position the item is taken from
+     * @param to The position the item ends up at
+     */
+    public void moveSport(final int from, final int to) {
+        if (mResetting) return;
+        mSports.add(to, mSports.remove(from));
+        mCatalog = null;
+        persist(store -> store.recordMove(from, to));
+    }
+
+    /**
+     * Stops a callback from receiving a load that is still running, e.g. from a destroyed activity
+     * @param callback The callback passed to getSports()
+     */
+    public void removeCallback(Callback callback) {
+        mPendingCallbacks.remove(callback);
+    }
+
+    /**
+     * Gets the cached catalog without loading it
+     * @return The immutable snapshot, or null when it has not been loaded yet
+     */
+    public List<Sport> getCachedSports() {
+        return mSports != null ? snapshot() : null;
+    }
+
+    /**
+     * Checks whether the list can be edited. Before it was loaded there is no list to record
+     * edits in, during a reset the list is about to be replaced and edits are dropped
+     * @return True once onSportsLoaded() was called, false while the list is read or reset
+     */
+    public boolean isLoaded() {
+        return mSports != null && !mResetting;
+    }
+
+    /**
+     * Gets how many times the list was loaded from the store or the bundled catalog, for tests
+     * checking that recreated activities reuse the cached list
+     * @return The number of background loads started
+     */
+    public int getLoadCount() {
+        return mLoadCount;
+    }
+
+    private List<Sport> snapshot() {
+        if (mCatalog == null) {
+            mCatalog = Collections.unmodifiableList(new ArrayList<>(mSports));
+        }
+        return mCatalog;
+    }
+
+    private void publishBatch(List<Sport> batch) {
+        //Published in order before the whole catalog, a late batch belongs to a finished load
+        if (!mLoading) return;
+
+        mStreamed.addAll(batch);
+        mStreamedSnapshot = Collections.unmodifiableList(new ArrayList<>(mStreamed));
+        for (Callback callback : new ArrayList<>(mPendingCallbacks)) {
+            if (callback instanceof ProgressCallback) {
+                ((ProgressCallback) callback).onSportsPartiallyLoaded(mStreamedSnapshot);
+            }
+        }
+    }
+
+    private void publish(List<Sport> sports, boolean stored) {
+        mSports = new ArrayList<>(sports);
+        mStored = stored;
+        mCatalog = null;
+        mLoading = false;
+        mStreamed.clear();
+        mStreamedSnapshot = null;
+
+        List<Sport> snapshot = snapshot();
+        List<Callback> callbacks = new ArrayList<>(mPendingCallbacks);
+        mPendingCallbacks.clear();
+        for (Callback callback : callbacks) {
+            callback.onSportsLoaded(snapshot);
+        }
+    }
+
+    //Called on the background executor, the bundled catalog is parsed at most once, a feed
+    //changes and is read each time
+    private List<Sport> defaultCatalog(BatchListener listener) {
+        if (mLoader instanceof StreamingLoader) {
+            return Collections.unmodifiableList(new ArrayList<>(((StreamingLoader) mLoader).load(listener)));
+        }
+        if (mDefaultCatalog == null) {
+            mDefaultCatalog = Collections.unmodifiableList(new ArrayList<>(mLoader.load()));
+        }
+        return mDefaultCatalog;
+    }
+
+    //Called on the background executor right after defaultCatalog()
+    private boolean isDefaultCatalogComplete() {
+        return !(mLoader instanceof StreamingLoader) || ((StreamingLoader) mLoader).isLastLoadComplete();
+    }
+
+    //Called on the background executor
+    private List<Sport> readStore() {
+        if (mStore == null) return null;
+
+        try {
+            return mStore.load();
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Could not read the stored sports", e);
+            return null;
+        }
+    }
+
+    //Called on the background executor
+    private void writeStore(StoreEdit edit) {
+        if (mStore == null) return;
+
+        try {
+            edit.apply(mStore);
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Could not write the stored sports", e);
+        }
+    }
+
+    //Edits are written behind, in order, on the background executor. Edits made while a flush
+    //is waiting join it, so a burst of edits costs one journal write
+    private void persist(final StoreEdit edit) {
+        if (mStore == null || !mStored) return;
+
+        synchronized (mWriteQueue) {
+            mWriteQueue.add(edit);
+            if (mFlushScheduled) return;
+            mFlushScheduled = true;
+        }
+        mBackgroundExecutor.execute(this::flushWrites);
+    }
+
+    //Called on the background executor
+    private void flushWrites() {
+        List<StoreEdit> edits;
+        synchronized (mWriteQueue) {
+            edits = new ArrayList<>(mWriteQueue);
+            mWriteQueue.clear();
+            mFlushScheduled = false;
+        }
+
+        writeStore(store -> {
+            store.beginBatch();
+            try {
+                for (StoreEdit edit : edits) {
+                    edit.apply(store);
+                }
+            } finally {
+                store.endBatch();
+            }
+        });
+        mFlushCount++;
+    }
+
+    /**
+     * Gets the number of journal writes made so far, for tests
+     * @return The flush count
+     */
+    int getFlushCount() {
+        return mFlushCount;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.android.materialme.model;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs searches over the sports off the main thread.
+ *
+ * The index is built and queried on one search thread. Sports are indexed in chunks, so a
+ * query typed while a big catalog is still being indexed runs between two chunks instead of
+ * after all of them. A query only starts once typing paused for the debounce delay, and a newer
+ * query or cancel() supersedes it: it is dropped if it has not started, stops early if it has,
+ * and its results are never delivered.
+ */
+public class SportSearch {
+
+    /**
+     * Receives search results on the main thread.
+     */
+    public interface Callback {
+        /**
+         * @param query The query the results are for
+         * @param results The matching sports in list order, or null when the query has no words
+         */
+        void onSearchResults(String query, List<Sport> results);
+    }
+
+    public static final long DEBOUNCE_MILLIS = 150;
+
+    //Sports indexed per task, small enough for a query to wait at most a few milliseconds
+    static final int INDEX_CHUNK_SIZE = 500;
+
+    private final ScheduledExecutorService mSearchExecutor;
+    private final Executor mMainExecutor;
+    private final long mDebounceMillis;
+
+    //Only touched on the search thread
+    private final SportSearchIndex mIndex = new SportSearchIndex();
+
+    //Bumped by every search and cancel, a search only delivers while it is the latest
+    private final AtomicInteger mGeneration = new AtomicInteger();
+    private ScheduledFuture<?> mPendingSearch;
+
+    /**
+     * Create a search with its own search thread
+     * @param mainExecutor The executor results are delivered on
+     */
+    public SportSearch(Executor mainExecutor) {
+        this(Executors.newSingleThreadScheduledExecutor(), mainExecutor, DEBOUNCE_MILLIS);
+    }
+
+    SportSearch(ScheduledExecutorService searchExecutor, Executor mainExecutor, long debounceMillis) {
+        this.mSearchExecutor = searchExecutor;
+        this.mMainExecutor = mainExecutor;
+        this.mDebounceMillis = debounceMillis;
+    }
+
+    /**
+     * Adds sports to the index in the background, sports already indexed are skipped
+     * @param sports An immutable snapshot of the sports
+     */
+    public void index(final List<Sport> sports) {
+        mSearchExecutor.execute(() -> indexFrom(sports, 0));
+    }
+
+    //Indexes one chunk, then queues the next behind any search that came in meanwhile
+    private void indexFrom(final List<Sport> sports, final int start) {
+        int end = Math.min(start + INDEX_CHUNK_SIZE, sports.size());
+        mIndex.addAll(sports.subList(start, end));
+
+        if (end < sports.size()) {
+            mSearchExecutor.execute(() -> indexFrom(sports, end));
+        }
+    }
+
+    /**
+     * Searches once typing paused, superseding the previous search. Must be called on the main thread.
+     * @param query The query as typed
+     * @param source An immutable snapshot of the list to filter, results keep its order
+     * @param callback The callback receiving the results on the main thread
+     */
+    public void search(final String query, final List<Sport> source, final Callback callback) {
+        final int generation = supersede();
+        mPendingSearch = mSearchExecutor.schedule(
+                () -> runSearch(generation, query, source, callback), mDebounceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Drops the pending search and any results not delivered yet. Must be called on the main thread.
+     */
+    public void cancel() {
+        supersede();
+    }
+
+    /**
+     * Stops the search thread, the search cannot be used afterwards
+     */
+    public void shutdown() {
+        cancel();
+        mSearchExecutor.shutdownNow();
+    }
+
+    private int supersede() {
+        if (mPendingSearch != null) {
+            mPendingSearch.cancel(false);
+            mPendingSearch = null;
+        }
+        return mGeneration.incrementAndGet();
+    }
+
+    //Called on the search thread
+    private void runSearch(int generation, String query, List<Sport> source, Callback callback) {
+        if (generation != mGeneration.get()) return;
+
+        //Cheap for indexed sports, and a list that was never passed to index() still matches
+        mIndex.addAll(source);
+        if (generation != mGeneration.get()) return;
+
+        BitSet matches = mIndex.match(query);
+        final List<Sport> results = matches != null ? mIndex.filter(source, matches) : null;
+
+        mMainExecutor.execute(() -> {
+            if (generation == mGeneration.get()) {
+                callback.onSearchResults(query, results);
+            }
+        });
+    }
+}
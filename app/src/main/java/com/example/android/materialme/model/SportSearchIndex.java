@@ -0,0 +1,243 @@
+package com.example.android.materialme.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * In-memory inverted index over the titles and news of the sports.
+ *
+ * Every word points to the sorted list of the documents containing it. A query word matches
+ * the words it is a prefix of, so results show up while typing, and words of four letters or
+ * more also match the words one typo away from them (one letter inserted, deleted or replaced).
+ * The typo lookup uses the words with one letter deleted as keys, so it costs a few hash
+ * lookups instead of a scan of the vocabulary. All words of a query must match.
+ *
+ * Sports can be added in several calls while the catalog loads. Not thread safe, adds and
+ * queries must come from one thread at a time.
+ */
+public class SportSearchIndex {
+
+    //Shorter words only match by prefix, one typo in them matches too much
+    static final int MIN_TYPO_LENGTH = 4;
+
+    private final List<Sport> mDocuments = new ArrayList<>();
+    private final Map<Long, Integer> mDocumentNumbers = new HashMap<>();
+
+    //Word to the ascending document numbers containing it, sorted for prefix ranges
+    private final TreeMap<String, Postings> mPostings = new TreeMap<>();
+
+    //Word with one letter deleted, to the words it was made from
+    private final Map<String, List<String>> mDeletions = new HashMap<>();
+
+    /**
+     * Growable int array of document numbers.
+     */
+    private static final class Postings {
+
+        int[] mDocuments = new int[4];
+        int mSize;
+
+        void add(int document) {
+            //Documents are added in order, a word repeated in one document is stored once
+            if (mSize > 0 && mDocuments[mSize - 1] == document) return;
+
+            if (mSize == mDocuments.length) {
+                int[] grown = new int[mSize * 2];
+                System.arraycopy(mDocuments, 0, grown, 0, mSize);
+                mDocuments = grown;
+            }
+            mDocuments[mSize++] = document;
+        }
+
+        void addTo(BitSet documents) {
+            for (int i = 0; i < mSize; i++) {
+                documents.set(mDocuments[i]);
+            }
+        }
+    }
+
+    /**
+     * Adds sports to the index, sports already indexed are skipped
+     * @param sports The sports to add
+     */
+    public void addAll(List<Sport> sports) {
+        for (Sport sport : sports) {
+            add(sport);
+        }
+    }
+
+    /**
+     * Adds a sport to the index, unless a sport with its id is already indexed
+     * @param sport The sport to add
+     */
+    public void add(Sport sport) {
+        if (mDocumentNumbers.containsKey(sport.getId())) return;
+
+        int document = mDocuments.size();
+        mDocuments.add(sport);
+        mDocumentNumbers.put(sport.getId(), document);
+
+        for (String word : tokenize(sport.getTitle())) {
+            addWord(word, document);
+        }
+        for (String word : tokenize(sport.getInfo())) {
+            addWord(word, document);
+        }
+    }
+
+    /**
+     * Gets the number of indexed sports
+     * @return The document count
+     */
+    public int size() {
+        return mDocuments.size();
+    }
+
+    /**
+     * Finds the sports matching every word of a query
+     * @param query The query as typed
+     * @return The matching document numbers, or null for a query without words
+     */
+    public BitSet match(String query) {
+        BitSet result = null;
+        for (String word : tokenize(query)) {
+            BitSet matches = matchWord(word);
+            if (result == null) {
+                result = matches;
+            } else {
+                result.and(matches);
+            }
+            if (result.isEmpty()) break;
+        }
+        return result;
+    }
+
+    /**
+     * Keeps the sports of a list that are among the matches, in list order
+     * @param source The list to filter, sports missing from the index never match
+     * @param matches The result of match()
+     * @return The matching sports
+     */
+    public List<Sport> filter(List<Sport> source, BitSet matches) {
+        if (matches.isEmpty()) return new ArrayList<>();
+
+        List<Sport> filtered = new ArrayList<>(Math.min(source.size(), matches.cardinality()));
+        for (Sport sport : source) {
+            Integer document = mDocumentNumbers.get(sport.getId());
+            if (document != null && matches.get(document)) {
+                filtered.add(sport);
+            }
+        }
+        return filtered;
+    }
+
+    private void addWord(String word, int document) {
+        Postings postings = mPostings.get(word);
+        if (postings == null) {
+            postings = new Postings();
+            mPostings.put(word, postings);
+
+            if (word.length() >= MIN_TYPO_LENGTH) {
+                for (int i = 0; i < word.length(); i++) {
+                    String deletion = deleteAt(word, i);
+                    List<String> words = mDeletions.get(deletion);
+                    if (words == null) {
+                        words = new ArrayList<>(1);
+                        mDeletions.put(deletion, words);
+                    }
+                    words.add(word);
+                }
+            }
+        }
+        postings.add(document);
+    }
+
+    private BitSet matchWord(String word) {
+        BitSet documents = new BitSet(mDocuments.size());
+
+        //Every word starting with the query word
+        SortedMap<String, Postings> prefixed = mPostings.subMap(word, word + Character.MAX_VALUE);
+        for (Postings postings : prefixed.values()) {
+            postings.addTo(documents);
+        }
+
+        if (word.length() < MIN_TYPO_LENGTH) return documents;
+
+        //A letter too many in the query: the word is a deletion of it
+        for (int i = 0; i < word.length(); i++) {
+            String deletion = deleteAt(word, i);
+            Postings postings = mPostings.get(deletion);
+            if (postings != null) {
+                postings.addTo(documents);
+            }
+
+            //A letter replaced: both lose the letter at the same place
+            addTypos(deletion, word, documents);
+        }
+
+        //A letter missing in the query: it is a deletion of the word
+        addTypos(word, word, documents);
+        return documents;
+    }
+
+    private void addTypos(String deletion, String word, BitSet documents) {
+        List<String> candidates = mDeletions.get(deletion);
+        if (candidates == null) return;
+
+        for (String candidate : candidates) {
+            if (isOneEditAway(word, candidate)) {
+                mPostings.get(candidate).addTo(documents);
+            }
+        }
+    }
+
+    //Filters out words sharing a deletion at different places, like "abcd" and "bacd"
+    static boolean isOneEditAway(String a, String b) {
+        int lengthA = a.length();
+        int lengthB = b.length();
+        if (Math.abs(lengthA - lengthB) > 1) return false;
+
+        int start = 0;
+        while (start < lengthA && start < lengthB && a.charAt(start) == b.charAt(start)) start++;
+        int endA = lengthA;
+        int endB = lengthB;
+        while (endA > start && endB > start && a.charAt(endA - 1) == b.charAt(endB - 1)) {
+            endA--;
+            endB--;
+        }
+        return endA - start <= 1 && endB - start <= 1;
+    }
+
+    /**
+     * Splits a text into lower case words of letters and digits
+     * @param text The text, may be null
+     * @return The words in order
+     */
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) return words;
+
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean inWord = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (inWord && start < 0) {
+                start = i;
+            } else if (!inWord && start >= 0) {
+                words.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private static String deleteAt(String word, int index) {
+        return word.substring(0, index) + word.substring(index + 1);
+    }
+}
@@ -0,0 +1,398 @@
+package com.example.android.materialme.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The sports in list order, kept in an implicit treap instead of an array.
+ *
+ * Removed items can stay in the tree as hidden nodes, so an undo shows the node again in its
+ * place, however the list changed around it. Every node counts the nodes and the visible nodes
+ * of its subtree, which makes get(), inserts, deletes and position lookups O(log n) instead of
+ * the O(n) element shifting of an ArrayList. Hidden nodes nobody refers to any more are dropped
+ * in an occasional O(n) compaction. The visible node of each sport is found through a hash map,
+ * so indexOf() is O(log n) as well.
+ *
+ * As a List it shows the visible sports and is read only, it is edited through EditHistory.
+ */
+class SportSequence extends AbstractList<Sport> {
+
+    //Hidden nodes are tolerated up to the visible count, but never compacted below this
+    private static final int MIN_HIDDEN_LIMIT = 64;
+
+    /**
+     * One sport in the sequence, a stable handle for as long as it is in the tree.
+     */
+    static final class Node {
+
+        final Sport mSport;
+        private final int mPriority;
+
+        private Node mLeft;
+        private Node mRight;
+        private Node mParent;
+
+        //Nodes and visible nodes in this subtree
+        private int mSize = 1;
+        private int mLive = 1;
+        private boolean mVisible = true;
+
+        //History commands referring to this node, a pinned node survives compaction
+        private int mPins;
+
+        Node(Sport sport, int priority) {
+            this.mSport = sport;
+            this.mPriority = priority;
+        }
+
+        boolean isVisible() {
+            return mVisible;
+        }
+    }
+
+    private final Random mRandom = new Random();
+
+    private Node mRoot;
+    private int mHiddenCount;
+
+    //A visible node of each sport, and the number of visible nodes missing here because an
+    //equal sport is visible as well. While there are any, indexOf() walks the list instead.
+    private final HashMap<Sport, Node> mShown = new HashMap<>();
+    private int mUnshownCount;
+    private int mHiddenLimit = MIN_HIDDEN_LIMIT;
+
+    @Override
+    public Sport get(int index) {
+        return nodeAt(index).mSport;
+    }
+
+    @Override
+    public int size() {
+        return live(mRoot);
+    }
+
+    @Override
+    public Object[] toArray() {
+        //In-order walk, ArrayList copies of the sequence do not pay O(log n) per element
+        Object[] sports = new Object[size()];
+        int i = 0;
+        for (Node node : nodes()) {
+            if (node.mVisible) {
+                sports[i++] = node.mSport;
+            }
+        }
+        return sports;
+    }
+
+    @Override
+    public int indexOf(Object sport) {
+        if (mUnshownCount == 0) {
+            Node node = mShown.get(sport);
+            return node != null ? indexOf(node) : -1;
+        }
+
+        //In-order walk as well, AbstractList would call get() for every index
+        int index = 0;
+        for (Node node : nodes()) {
+            if (!node.mVisible) continue;
+            if (node.mSport.equals(sport)) return index;
+            index++;
+        }
+        return -1;
+    }
+
+    /**
+     * Replaces the whole sequence, dropping all nodes and handles
+     * @param sports The new sports in order
+     */
+    void replaceAll(List<Sport> sports) {
+        List<Node> nodes = new ArrayList<>(sports.size());
+        mShown.clear();
+        mUnshownCount = 0;
+        for (Sport sport : sports) {
+            Node node = new Node(sport, mRandom.nextInt());
+            nodes.add(node);
+            show(node);
+        }
+        mHiddenCount = 0;
+        mHiddenLimit = Math.max(MIN_HIDDEN_LIMIT, nodes.size());
+        mRoot = build(nodes);
+    }
+
+    /**
+     * Gets the node of a visible item
+     * @param index The position among the visible items
+     * @return The node
+     */
+    Node nodeAt(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+
+        Node node = mRoot;
+        while (true) {
+            int left = live(node.mLeft);
+            if (index < left) {
+                node = node.mLeft;
+            } else if (node.mVisible && index == left) {
+                return node;
+            } else {
+                index -= left + (node.mVisible ? 1 : 0);
+                node = node.mRight;
+            }
+        }
+    }
+
+    /**
+     * Gets the position of a node among the visible items. For a hidden node this is the
+     * position it would have if shown.
+     * @param node The node
+     * @return The number of visible items before the node
+     */
+    int indexOf(Node node) {
+        int index = live(node.mLeft);
+        for (Node child = node; child.mParent != null; child = child.mParent) {
+            Node parent = child.mParent;
+            if (child == parent.mRight) {
+                index += live(parent.mLeft) + (parent.mVisible ? 1 : 0);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Inserts a new visible node
+     * @param index The position among the visible items
+     * @param sport The sport of the node
+     * @return The new node
+     */
+    Node insert(int index, Sport sport) {
+        int size = size();
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        //Right before the visible node now at the index, or after everything at the end
+        int rank = index < size ? rankOf(nodeAt(index)) : sizeOf(mRoot);
+        Node node = new Node(sport, mRandom.nextInt());
+        Node[] parts = split(mRoot, rank);
+        setRoot(merge(merge(parts[0], node), parts[1]));
+        show(node);
+        return node;
+    }
+
+    /**
+     * Takes a node out of the tree for good, its handle becomes invalid
+     * @param node The node to delete
+     */
+    void delete(Node node) {
+        if (node.mVisible) {
+            unshow(node);
+        } else {
+            mHiddenCount--;
+        }
+
+        Node[] parts = split(mRoot, rankOf(node));
+        Node[] rest = split(parts[1], 1);
+        setRoot(merge(parts[0], rest[1]));
+        node.mLeft = node.mRight = node.mParent = null;
+    }
+
+    /**
+     * Shows or hides a node, a hidden node keeps its place in the order
+     * @param node The node
+     * @param visible Whether the node is part of the visible list
+     */
+    void setVisible(Node node, boolean visible) {
+        if (node.mVisible == visible) return;
+
+        node.mVisible = visible;
+        int delta = visible ? 1 : -1;
+        for (Node parent = node; parent != null; parent = parent.mParent) {
+            parent.mLive += delta;
+        }
+
+        mHiddenCount -= delta;
+        if (visible) {
+            show(node);
+        } else {
+            unshow(node);
+        }
+    }
+
+    void pin(Node node) {
+        node.mPins++;
+    }
+
+    void unpin(Node node) {
+        node.mPins--;
+    }
+
+    /**
+     * Gets the number of hidden nodes still in the tree, for tests
+     * @return The hidden node count
+     */
+    int getHiddenCount() {
+        return mHiddenCount;
+    }
+
+    /**
+     * Drops the hidden nodes that are not pinned once there are too many of them. Nodes are
+     * only pinned after they were hidden, so this runs after an edit rather than within it.
+     */
+    void compactIfNeeded() {
+        if (mHiddenCount <= mHiddenLimit) return;
+
+        //Rebuilding keeps the node objects, so handles held by the history stay valid
+        List<Node> kept = new ArrayList<>(size());
+        for (Node node : nodes()) {
+            if (node.mVisible || node.mPins > 0) {
+                kept.add(node);
+            }
+        }
+        mHiddenCount = kept.size() - size();
+        mHiddenLimit = Math.max(MIN_HIDDEN_LIMIT, Math.max(size(), mHiddenCount * 2));
+        mRoot = build(kept);
+    }
+
+    private void show(Node node) {
+        if (mShown.containsKey(node.mSport)) {
+            mUnshownCount++;
+        } else {
+            mShown.put(node.mSport, node);
+        }
+    }
+
+    private void unshow(Node node) {
+        if (mShown.get(node.mSport) == node) {
+            mShown.remove(node.mSport);
+        } else {
+            mUnshownCount--;
+        }
+    }
+
+    //All nodes in order
+    private List<Node> nodes() {
+        List<Node> nodes = new ArrayList<>(sizeOf(mRoot));
+        List<Node> stack = new ArrayList<>();
+        Node node = mRoot;
+        while (node != null || !stack.isEmpty()) {
+            while (node != null) {
+                stack.add(node);
+                node = node.mLeft;
+            }
+            node = stack.remove(stack.size() - 1);
+            nodes.add(node);
+            node = node.mRight;
+        }
+        return nodes;
+    }
+
+    //Links nodes in order into a treap in O(n), as the Cartesian tree of their priorities
+    private Node build(List<Node> nodes) {
+        List<Node> spine = new ArrayList<>();
+        for (Node node : nodes) {
+            node.mLeft = node.mRight = node.mParent = null;
+
+            Node last = null;
+            while (!spine.isEmpty() && spine.get(spine.size() - 1).mPriority < node.mPriority) {
+                last = spine.remove(spine.size() - 1);
+            }
+            node.mLeft = last;
+            if (!spine.isEmpty()) {
+                spine.get(spine.size() - 1).mRight = node;
+            }
+            spine.add(node);
+        }
+
+        //Children come after their parents in breadth-first order, so counts are summed in reverse
+        Node root = spine.isEmpty() ? null : spine.get(0);
+        List<Node> order = new ArrayList<>(nodes.size());
+        if (root != null) order.add(root);
+        for (int i = 0; i < order.size(); i++) {
+            Node node = order.get(i);
+            if (node.mLeft != null) order.add(node.mLeft);
+            if (node.mRight != null) order.add(node.mRight);
+        }
+        for (int i = order.size() - 1; i >= 0; i--) {
+            update(order.get(i));
+        }
+
+        setRoot(root);
+        return root;
+    }
+
+    private int rankOf(Node node) {
+        int rank = sizeOf(node.mLeft);
+        for (Node child = node; child.mParent != null; child = child.mParent) {
+            Node parent = child.mParent;
+            if (child == parent.mRight) {
+                rank += sizeOf(parent.mLeft) + 1;
+            }
+        }
+        return rank;
+    }
+
+    //Splits off the first count nodes, visible or not
+    private Node[] split(Node node, int count) {
+        if (node == null) return new Node[2];
+
+        if (sizeOf(node.mLeft) >= count) {
+            Node[] parts = split(node.mLeft, count);
+            node.mLeft = parts[1];
+            update(node);
+            detach(parts[0]);
+            parts[1] = node;
+            return parts;
+        } else {
+            Node[] parts = split(node.mRight, count - sizeOf(node.mLeft) - 1);
+            node.mRight = parts[0];
+            update(node);
+            detach(parts[1]);
+            parts[0] = node;
+            return parts;
+        }
+    }
+
+    private Node merge(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+
+        if (left.mPriority > right.mPriority) {
+            left.mRight = merge(left.mRight, right);
+            update(left);
+            return left;
+        } else {
+            right.mLeft = merge(left, right.mLeft);
+            update(right);
+            return right;
+        }
+    }
+
+    private void update(Node node) {
+        node.mSize = 1 + sizeOf(node.mLeft) + sizeOf(node.mRight);
+        node.mLive = (node.mVisible ? 1 : 0) + live(node.mLeft) + live(node.mRight);
+        if (node.mLeft != null) node.mLeft.mParent = node;
+        if (node.mRight != null) node.mRight.mParent = node;
+    }
+
+    private void setRoot(Node root) {
+        mRoot = root;
+        detach(root);
+    }
+
+    private static void detach(Node node) {
+        if (node != null) node.mParent = null;
+    }
+
+    private static int sizeOf(Node node) {
+        return node != null ? node.mSize : 0;
+    }
+
+    private static int live(Node node) {
+        return node != null ? node.mLive : 0;
+    }
+}
@@ -0,0 +1,508 @@
+package com.example.android.materialme.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk store of the user's sports list, including their deletions and ordering.
+ *
+ * The list is kept as a snapshot file plus an append-only journal of the edits made since.
+ * The snapshot is columnar (ids, image resources, string offsets, then one UTF-8 string heap)
+ * and is read through a memory mapping. A null string is an empty one whose start offset is
+ * stored complemented, in the journal it has the length -1. Journal records are length prefixed and checksummed,
+ * so a record torn by a crash is detected and dropped on the next load. Once the journal
+ * grows past a threshold it is compacted into a new snapshot.
+ *
+ * Snapshot and journal carry a generation number. A journal only applies to the snapshot of
+ * its own generation, so a crash between writing a new snapshot and resetting the journal
+ * never replays edits twice.
+ *
+ * Edits are written without fsync, they survive process death; snapshots are synced.
+ * Edits recorded between beginBatch() and endBatch() are written to the journal at once.
+ * Not thread safe, all calls must come from one thread at a time.
+ */
+public class SportStore {
+
+    public static final int DEFAULT_COMPACT_THRESHOLD = 256;
+
+    static final String SNAPSHOT_FILE = "sports.snapshot";
+    static final String JOURNAL_FILE = "sports.journal";
+
+    private static final int SNAPSHOT_MAGIC = 0x53505254; // "SPRT"
+    private static final int JOURNAL_MAGIC = 0x53504a4c; // "SPJL"
+    private static final int VERSION = 1;
+    private static final int SNAPSHOT_HEADER_SIZE = 4 + 4 + 8 + 4 + 4;
+    private static final int JOURNAL_HEADER_SIZE = 4 + 4 + 8;
+
+    private static final byte OP_REMOVE = 1;
+    private static final byte OP_INSERT = 2;
+    private static final byte OP_MOVE = 3;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final File mSnapshotFile;
+    private final File mJournalFile;
+    private final int mCompactThreshold;
+
+    //The stored list with every journaled edit applied, null until loaded
+    private ArrayList<Sport> mSports;
+    private long mGeneration;
+    private int mJournalEntries;
+    private RandomAccessFile mJournal;
+
+    //Records waiting for endBatch(), null outside of a batch
+    private ByteArrayOutputStream mBatch;
+
+    private final CRC32 mCrc = new CRC32();
+
+    /**
+     * Create a store in a directory, no file is touched until load() or replaceAll()
+     * @param directory The directory holding the snapshot and the journal
+     */
+    public SportStore(File directory) {
+        this(directory, DEFAULT_COMPACT_THRESHOLD);
+    }
+
+    /**
+     * Create a store in a directory
+     * @param directory The directory holding the snapshot and the journal
+     * @param compactThreshold The number of journaled edits that triggers a compaction
+     */
+    public SportStore(File directory, int compactThreshold) {
+        this.mSnapshotFile = new File(directory, SNAPSHOT_FILE);
+        this.mJournalFile = new File(directory, JOURNAL_FILE);
+        this.mCompactThreshold = compactThreshold;
+    }
+
+    /**
+     * Reads the snapshot and replays the journal on top of it
+     * @return The stored list, or null when nothing was stored yet or the snapshot is unreadable
+     * @throws IOException When the files cannot be read
+     */
+    public List<Sport> load() throws IOException {
+        closeJournal();
+        mBatch = null;
+        mSports = null;
+        mJournalEntries = 0;
+
+        if (!mSnapshotFile.exists()) return null;
+
+        if (!readSnapshot()) {
+            //A damaged snapshot cannot be repaired, start over from the bundled data
+            deleteFiles();
+            return null;
+        }
+
+        replayJournal();
+        if (mJournalEntries >= mCompactThreshold) {
+            compact();
+        }
+        return new ArrayList<>(mSports);
+    }
+
+    /**
+     * Replaces the stored list with a new snapshot and an empty journal
+     * @param sports The new list
+     * @throws IOException When the files cannot be written
+     */
+    public void replaceAll(List<Sport> sports) throws IOException {
+        mSports = new ArrayList<>(sports);
+        writeSnapshot(mGeneration + 1);
+    }
+
+    /**
+     * Deletes the stored list, load() returns null until the next replaceAll()
+     * @throws IOException When the journal cannot be closed
+     */
+    public void clear() throws IOException {
+        closeJournal();
+        mBatch = null;
+        mSports = null;
+        mJournalEntries = 0;
+        deleteFiles();
+    }
+
+    /**
+     * Writes the current list as a new snapshot and empties the journal
+     * @throws IOException When the files cannot be written
+     */
+    public void compact() throws IOException {
+        checkLoaded();
+        writeSnapshot(mGeneration + 1);
+    }
+
+    /**
+     * Journals the removal of an item
+     * @param position The position of the removed item
+     * @throws IOException When the journal cannot be written
+     */
+    public void recordRemove(int position) throws IOException {
+        checkLoaded();
+        mSports.remove(position);
+
+        ByteBuffer payload = ByteBuffer.allocate(1 + 4);
+        payload.put(OP_REMOVE).putInt(position);
+        append(payload);
+    }
+
+    /**
+     * Journals the insertion of an item, e.g. an undone removal
+     * @param position The position of the inserted item
+     * @param sport The inserted item
+     * @throws IOException When the journal cannot be written
+     */
+    public void recordInsert(int position, Sport sport) throws IOException {
+        checkLoaded();
+        mSports.add(position, sport);
+
+        byte[] title = bytesOf(sport.getTitle());
+        byte[] info = bytesOf(sport.getInfo());
+        ByteBuffer payload = ByteBuffer.allocate(1 + 4 + 8 + 4 + 4 + lengthOf(title) + 4 + lengthOf(info));
+        payload.put(OP_INSERT).putInt(position).putLong(sport.getId()).putInt(sport.getImageResource());
+        writeString(payload, title);
+        writeString(payload, info);
+        append(payload);
+    }
+
+    /**
+     * Journals moving an item from one position to another, shifting the items in between
+     * @param from The position the item is taken from
+     * @param to The position the item ends up at
+     * @throws IOException When the journal cannot be written
+     */
+    public void recordMove(int from, int to) throws IOException {
+        checkLoaded();
+        mSports.add(to, mSports.remove(from));
+
+        ByteBuffer payload = ByteBuffer.allocate(1 + 4 + 4);
+        payload.put(OP_MOVE).putInt(from).putInt(to);
+        append(payload);
+    }
+
+    /**
+     * Starts collecting edits in memory, they reach the journal with one write in endBatch()
+     */
+    public void beginBatch() {
+        checkLoaded();
+        if (mBatch == null) {
+            mBatch = new ByteArrayOutputStream();
+        }
+    }
+
+    /**
+     * Writes the edits recorded since beginBatch() to the journal
+     * @throws IOException When the journal cannot be written
+     */
+    public void endBatch() throws IOException {
+        ByteArrayOutputStream batch = mBatch;
+        mBatch = null;
+        if (batch == null || batch.size() == 0) return;
+
+        mJournal.write(batch.toByteArray());
+        if (mJournalEntries >= mCompactThreshold) {
+            compact();
+        }
+    }
+
+    /**
+     * Gets the number of edits in the journal since the last snapshot
+     * @return The journal entry count
+     */
+    public int getJournalEntryCount() {
+        return mJournalEntries;
+    }
+
+    /**
+     * Closes the journal file, the store can be loaded again afterwards
+     * @throws IOException When the journal cannot be closed
+     */
+    public void close() throws IOException {
+        endBatch();
+        closeJournal();
+    }
+
+    private void checkLoaded() {
+        if (mSports == null) throw new IllegalStateException("load() or replaceAll() must be called first");
+    }
+
+    //Snapshot
+
+    private boolean readSnapshot() throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(mSnapshotFile, "r");
+             FileChannel channel = file.getChannel()) {
+            long size = channel.size();
+            if (size < SNAPSHOT_HEADER_SIZE || size > Integer.MAX_VALUE) return false;
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != SNAPSHOT_MAGIC || buffer.getInt() != VERSION) return false;
+
+            long generation = buffer.getLong();
+            int count = buffer.getInt();
+            int heapSize = buffer.getInt();
+            long expectedSize = SNAPSHOT_HEADER_SIZE + count * (8L + 4L) + (count + 1L) * 4L * 2 + heapSize;
+            if (count < 0 || heapSize < 0 || expectedSize != size) return false;
+
+            //Columns, read in place from the mapping
+            int idsStart = SNAPSHOT_HEADER_SIZE;
+            int imagesStart = idsStart + count * 8;
+            int titleOffsetsStart = imagesStart + count * 4;
+            int infoOffsetsStart = titleOffsetsStart + (count + 1) * 4;
+            int heapStart = infoOffsetsStart + (count + 1) * 4;
+
+            //The strings are decoded from one bulk copy of the heap
+            byte[] heap = new byte[heapSize];
+            buffer.position(heapStart);
+            buffer.get(heap);
+
+            ArrayList<Sport> sports = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int titleStart = buffer.getInt(titleOffsetsStart + i * 4);
+                int titleEnd = offsetOf(buffer.getInt(titleOffsetsStart + (i + 1) * 4));
+                int infoStart = buffer.getInt(infoOffsetsStart + i * 4);
+                int infoEnd = offsetOf(buffer.getInt(infoOffsetsStart + (i + 1) * 4));
+                if (titleEnd < offsetOf(titleStart) || titleEnd > heapSize
+                        || infoEnd < offsetOf(infoStart) || infoEnd > heapSize) {
+                    return false;
+                }
+
+                sports.add(new Sport(
+                        buffer.getLong(idsStart + i * 8),
+                        stringOf(heap, titleStart, titleEnd),
+                        stringOf(heap, infoStart, infoEnd),
+                        buffer.getInt(imagesStart + i * 4)));
+            }
+
+            mGeneration = generation;
+            mSports = sports;
+            return true;
+        }
+    }
+
+    private void writeSnapshot(long generation) throws IOException {
+        //Batched records are already applied to mSports, the snapshot covers them
+        mBatch = null;
+        closeJournal();
+
+        int count = mSports.size();
+        byte[][] titles = new byte[count][];
+        byte[][] infos = new byte[count][];
+        int heapSize = 0;
+        for (int i = 0; i < count; i++) {
+            titles[i] = bytesOf(mSports.get(i).getTitle());
+            infos[i] = bytesOf(mSports.get(i).getInfo());
+            heapSize += lengthOf(titles[i]) + lengthOf(infos[i]);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(SNAPSHOT_HEADER_SIZE + count * (8 + 4) + (count + 1) * 4 * 2 + heapSize);
+        buffer.putInt(SNAPSHOT_MAGIC).putInt(VERSION).putLong(generation).putInt(count).putInt(heapSize);
+        for (Sport sport : mSports) {
+            buffer.putLong(sport.getId());
+        }
+        for (Sport sport : mSports) {
+            buffer.putInt(sport.getImageResource());
+        }
+        //Titles come first in the heap, then the infos
+        int offset = 0;
+        for (byte[] title : titles) {
+            buffer.putInt(title != null ? offset : ~offset);
+            offset += lengthOf(title);
+        }
+        buffer.putInt(offset);
+        for (byte[] info : infos) {
+            buffer.putInt(info != null ? offset : ~offset);
+            offset += lengthOf(info);
+        }
+        buffer.putInt(offset);
+        for (byte[] title : titles) {
+            if (title != null) buffer.put(title);
+        }
+        for (byte[] info : infos) {
+            if (info != null) buffer.put(info);
+        }
+
+        //Write next to the snapshot and swap it in atomically
+        File parent = mSnapshotFile.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        File temp = new File(mSnapshotFile.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(buffer.array());
+            out.getFD().sync();
+        }
+        if (!temp.renameTo(mSnapshotFile)) {
+            throw new IOException("Cannot replace " + mSnapshotFile);
+        }
+
+        mGeneration = generation;
+        startJournal();
+    }
+
+    //Journal
+
+    private void startJournal() throws IOException {
+        mJournal = new RandomAccessFile(mJournalFile, "rw");
+        mJournal.setLength(0);
+
+        ByteBuffer header = ByteBuffer.allocate(JOURNAL_HEADER_SIZE);
+        header.putInt(JOURNAL_MAGIC).putInt(VERSION).putLong(mGeneration);
+        mJournal.write(header.array());
+        mJournalEntries = 0;
+    }
+
+    private void replayJournal() throws IOException {
+        if (!mJournalFile.exists()) {
+            startJournal();
+            return;
+        }
+
+        long validLength = 0;
+        try (RandomAccessFile file = new RandomAccessFile(mJournalFile, "r");
+             FileChannel channel = file.getChannel()) {
+            long size = channel.size();
+            if (size >= JOURNAL_HEADER_SIZE && size <= Integer.MAX_VALUE) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                if (buffer.getInt() == JOURNAL_MAGIC && buffer.getInt() == VERSION && buffer.getLong() == mGeneration) {
+                    validLength = JOURNAL_HEADER_SIZE;
+                    while (applyNextRecord(buffer)) {
+                        validLength = buffer.position();
+                        mJournalEntries++;
+                    }
+                }
+            }
+        }
+
+        if (validLength == 0) {
+            //Missing header, or the journal of an older snapshot left by a crash during compaction
+            startJournal();
+            return;
+        }
+
+        //Cut off a record torn by a crash, new records are appended after the last good one
+        mJournal = new RandomAccessFile(mJournalFile, "rw");
+        mJournal.setLength(validLength);
+        mJournal.seek(validLength);
+    }
+
+    private boolean applyNextRecord(ByteBuffer buffer) {
+        if (buffer.remaining() < 4) return false;
+
+        int length = buffer.getInt();
+        if (length <= 0 || buffer.remaining() < length + 4) return false;
+
+        byte[] payload = new byte[length];
+        buffer.get(payload);
+        mCrc.reset();
+        mCrc.update(payload, 0, length);
+        if ((int) mCrc.getValue() != buffer.getInt()) return false;
+
+        try {
+            ByteBuffer record = ByteBuffer.wrap(payload);
+            byte op = record.get();
+            int size = mSports.size();
+            if (op == OP_REMOVE) {
+                int position = record.getInt();
+                if (position < 0 || position >= size) return false;
+                mSports.remove(position);
+            } else if (op == OP_INSERT) {
+                int position = record.getInt();
+                long id = record.getLong();
+                int imageResource = record.getInt();
+                String title = readString(record);
+                String info = readString(record);
+                if (position < 0 || position > size) return false;
+                mSports.add(position, new Sport(id, title, info, imageResource));
+            } else if (op == OP_MOVE) {
+                int from = record.getInt();
+                int to = record.getInt();
+                if (from < 0 || from >= size || to < 0 || to >= size) return false;
+                mSports.add(to, mSports.remove(from));
+            } else {
+                return false;
+            }
+            return true;
+        } catch (RuntimeException e) {
+            //A record that passed the checksum but does not parse is treated as torn
+            return false;
+        }
+    }
+
+    private void append(ByteBuffer payload) throws IOException {
+        byte[] bytes = payload.array();
+        mCrc.reset();
+        mCrc.update(bytes, 0, bytes.length);
+
+        ByteBuffer record = ByteBuffer.allocate(4 + bytes.length + 4);
+        record.putInt(bytes.length).put(bytes).putInt((int) mCrc.getValue());
+        mJournalEntries++;
+
+        if (mBatch != null) {
+            //Compaction waits for endBatch(), so the batch is never split across snapshots
+            mBatch.write(record.array(), 0, record.capacity());
+            return;
+        }
+
+        mJournal.write(record.array());
+        if (mJournalEntries >= mCompactThreshold) {
+            compact();
+        }
+    }
+
+    private void closeJournal() throws IOException {
+        if (mJournal != null) {
+            mJournal.close();
+            mJournal = null;
+        }
+    }
+
+    private void deleteFiles() {
+        //Best effort, a leftover file is detected again on the next load
+        mSnapshotFile.delete();
+        mJournalFile.delete();
+    }
+
+    private static String readString(ByteBuffer record) {
+        int length = record.getInt();
+        if (length < 0) return null;
+
+        byte[] bytes = new byte[length];
+        record.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static void writeString(ByteBuffer record, byte[] bytes) {
+        if (bytes == null) {
+            record.putInt(-1);
+        } else {
+            record.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    //The string of a start offset in the heap, complemented for null
+    private static String stringOf(byte[] heap, int start, int end) {
+        if (start < 0) return null;
+        return new String(heap, start, end - start, UTF_8);
+    }
+
+    private static int offsetOf(int start) {
+        return start < 0 ? ~start : start;
+    }
+
+    private static byte[] bytesOf(String value) {
+        return value != null ? value.getBytes(UTF_8) : null;
+    }
+
+    private static int lengthOf(byte[] bytes) {
+        return bytes != null ? bytes.length : 0;
+    }
+}
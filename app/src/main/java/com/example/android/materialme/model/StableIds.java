@@ -0,0 +1,38 @@
+package com.example.android.materialme.model;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Hands out the ids of the sports of one list that have none of their own.
+ *
+ * An id is derived from the title and image, so the same data gets the same ids on every
+ * reload. Entries with the same title and image are told apart by how many came before them,
+ * and an id the data gives another sport before is skipped the same way.
+ */
+final class StableIds {
+
+    private final Set<Long> mUsed = new HashSet<>();
+
+    /**
+     * Records an id the data gives a sport, later derived ids avoid it
+     * @param id The id
+     */
+    void reserve(long id) {
+        mUsed.add(id);
+    }
+
+    /**
+     * Derives the id of the next sport without an id of its own
+     * @param title The title of the sport
+     * @param imageResource The image of the sport
+     * @return An id no earlier sport of the list has
+     */
+    long next(String title, int imageResource) {
+        long id = Sport.stableIdOf(title, imageResource);
+        for (int occurrence = 1; !mUsed.add(id); occurrence++) {
+            id = Sport.stableIdOf(title + '\u0000' + occurrence, imageResource);
+        }
+        return id;
+    }
+}
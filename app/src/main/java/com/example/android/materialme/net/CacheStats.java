@@ -0,0 +1,151 @@
+package com.example.android.materialme.net;
+
+import com.example.android.materialme.metrics.LatencyHistogram;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts how the requests of a CachingFetcher were served, and how long each kind took until
+ * its body could be read. Any thread can record, without locking.
+ */
+public final class CacheStats {
+
+    //Served from the disk cache, fresh
+    public static final int HIT = 0;
+    //Served from the disk cache past its max-age, revalidated in the background or the network failed
+    public static final int STALE_HIT = 1;
+    //Served from the disk cache after the server answered a conditional request with 304
+    public static final int NOT_MODIFIED = 2;
+    //Served by waiting for the fetch of the same URL another request started
+    public static final int COALESCED = 3;
+    //Fetched from the network
+    public static final int MISS = 4;
+    static final int OUTCOME_COUNT = 5;
+
+    private static final String[] NAMES = {"hit", "stale hit", "not modified", "coalesced", "miss"};
+
+    private final LatencyHistogram[] mHistograms = new LatencyHistogram[OUTCOME_COUNT];
+    private final AtomicLong mErrors = new AtomicLong();
+    private final AtomicLong mRevalidations = new AtomicLong();
+
+    CacheStats() {
+        for (int i = 0; i < OUTCOME_COUNT; i++) {
+            mHistograms[i] = new LatencyHistogram();
+        }
+    }
+
+    void record(int outcome, long nanos) {
+        mHistograms[outcome].record(nanos);
+    }
+
+    void recordError() {
+        mErrors.incrementAndGet();
+    }
+
+    void recordRevalidation() {
+        mRevalidations.incrementAndGet();
+    }
+
+    /**
+     * Gets the latencies of an outcome
+     * @param outcome One of the outcome constants
+     * @return The snapshot of its histogram, its count is the number of requests served with it
+     */
+    public LatencyHistogram.Snapshot snapshot(int outcome) {
+        return mHistograms[outcome].snapshot();
+    }
+
+    /**
+     * Gets the number of requests served with an outcome so far
+     * @param outcome One of the outcome constants
+     * @return The count
+     */
+    public long getCount(int outcome) {
+        return snapshot(outcome).getCount();
+    }
+
+    /**
+     * Gets the number of requests that failed, with nothing cached to serve instead
+     * @return The count
+     */
+    public long getErrorCount() {
+        return mErrors.get();
+    }
+
+    /**
+     * Gets the number of background revalidations of stale responses started
+     * @return The count
+     */
+    public long getRevalidationCount() {
+        return mRevalidations.get();
+    }
+
+    /**
+     * Gets the share of requests served without downloading a body. Revalidated responses
+     * count, they cost a round trip but no body, coalesced requests too, they shared one
+     * @return The hit rate from 0 to 1, 0 before the first request
+     */
+    public double getHitRate() {
+        long served = 0;
+        long total = getErrorCount();
+        for (int outcome = 0; outcome < OUTCOME_COUNT; outcome++) {
+            long count = getCount(outcome);
+            if (outcome != MISS) served += count;
+            total += count;
+        }
+        return total > 0 ? (double) served / total : 0;
+    }
+
+    /**
+     * Clears all counts and latencies
+     */
+    public void reset() {
+        for (LatencyHistogram histogram : mHistograms) {
+            histogram.reset();
+        }
+        mErrors.set(0);
+        mRevalidations.set(0);
+    }
+
+    /**
+     * Formats all counts and latencies as a table
+     * @return The report
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.US, "HTTP cache, hit rate %.1f%%, %d errors, %d background revalidations%n",
+                getHitRate() * 100, getErrorCount(), getRevalidationCount()));
+        report.append(String.format(Locale.US, "%-12s %8s %9s %9s %9s %9s%n", "outcome", "count", "mean", "p50", "p90", "max"));
+        for (int outcome = 0; outcome < OUTCOME_COUNT; outcome++) {
+            LatencyHistogram.Snapshot snapshot = snapshot(outcome);
+            report.append(String.format(Locale.US, "%-12s %8d %9s %9s %9s %9s%n",
+                    NAMES[outcome], snapshot.getCount(), millis(snapshot.getMeanNanos()),
+                    millis(snapshot.getPercentileNanos(50)), millis(snapshot.getPercentileNanos(90)),
+                    millis(snapshot.getMaxNanos())));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Writes the report to a file
+     * @param file The file, overwritten
+     * @throws IOException When it could not be written
+     */
+    public void dump(File file) throws IOException {
+        String report = report();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(report);
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.US, "%.2fms", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,520 @@
+package com.example.android.materialme.net;
+
+import android.content.Context;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetches URLs through an HttpCache, following the Cache-Control of the responses.
+ *
+ * A fresh response, younger than its max-age, is served from disk. A stale one within its
+ * stale-while-revalidate window is served from disk at once and revalidated in the background,
+ * an older one is revalidated before it is served: the request carries If-None-Match and
+ * If-Modified-Since, and a 304 serves the cached body again. When the network fails, a cached
+ * response is served however old it is.
+ *
+ * A request for a URL that is being fetched waits for that fetch and is served its cached
+ * response, so concurrent loads of the same URL share one download. The body of a download is
+ * cached while the caller reads it, the caller does not wait for all of it. A request waits at
+ * most WAIT_TIMEOUT_MILLIS, e.g. for a fetch whose reader stalls, then fetches for itself.
+ * open() blocks, call it off the main thread.
+ */
+public class CachingFetcher {
+
+    /**
+     * The wall clock the age of the responses is measured with.
+     */
+    interface Clock {
+        long currentTimeMillis();
+    }
+
+    private static final String CACHE_DIRECTORY = "http";
+    private static final long CACHE_SIZE_BYTES = 20L * 1024 * 1024;
+    private static final int CONNECT_TIMEOUT_MILLIS = 10_000;
+    private static final int READ_TIMEOUT_MILLIS = 15_000;
+    //A fetch read this long is stalled by its reader rather than the network
+    static final long WAIT_TIMEOUT_MILLIS = CONNECT_TIMEOUT_MILLIS + READ_TIMEOUT_MILLIS;
+    //A body closed with this little left, e.g. by a parser done before trailing whitespace,
+    //is read to its end so it is still cached
+    private static final int DRAIN_LIMIT_BYTES = 64 * 1024;
+    private static final int BUFFER_SIZE = 8192;
+
+    private static CachingFetcher sInstance;
+
+    private final HttpCache mCache;
+    private final Executor mRevalidateExecutor;
+    private final Clock mClock;
+    private final long mWaitTimeoutMillis;
+    private final CacheStats mStats = new CacheStats();
+
+    //The network fetches in flight by URL, background revalidations included
+    private final Map<String, Fetch> mInFlight = new HashMap<>();
+
+    /**
+     * Gets the process wide fetcher, caching in the app's cache directory
+     * @param context Any context, only its application context is kept
+     * @return The shared fetcher
+     */
+    public static synchronized CachingFetcher getInstance(Context context) {
+        if (sInstance == null) {
+            Context appContext = context.getApplicationContext();
+            sInstance = new CachingFetcher(
+                    new HttpCache(new File(appContext.getCacheDir(), CACHE_DIRECTORY), CACHE_SIZE_BYTES),
+                    Executors.newSingleThreadExecutor());
+        }
+        return sInstance;
+    }
+
+    /**
+     * Create a fetcher
+     * @param cache The cache of the responses
+     * @param revalidateExecutor Runs the background revalidations
+     */
+    public CachingFetcher(HttpCache cache, Executor revalidateExecutor) {
+        this(cache, revalidateExecutor, System::currentTimeMillis);
+    }
+
+    CachingFetcher(HttpCache cache, Executor revalidateExecutor, Clock clock) {
+        this(cache, revalidateExecutor, clock, WAIT_TIMEOUT_MILLIS);
+    }
+
+    CachingFetcher(HttpCache cache, Executor revalidateExecutor, Clock clock, long waitTimeoutMillis) {
+        this.mCache = cache;
+        this.mRevalidateExecutor = revalidateExecutor;
+        this.mClock = clock;
+        this.mWaitTimeoutMillis = waitTimeoutMillis;
+    }
+
+    /**
+     * Gets the counts and latencies of the requests so far
+     * @return The live stats
+     */
+    public CacheStats getStats() {
+        return mStats;
+    }
+
+    /**
+     * Opens the body of a URL, from the cache or the network. URLs other than http and https,
+     * e.g. files, are opened directly and not counted
+     * @param url The URL
+     * @return The body, to be closed by the caller
+     * @throws IOException When it could not be fetched and nothing is cached
+     */
+    public InputStream open(URL url) throws IOException {
+        String protocol = url.getProtocol();
+        if (!"http".equals(protocol) && !"https".equals(protocol)) return url.openStream();
+
+        long start = System.nanoTime();
+        String key = url.toString();
+        while (true) {
+            HttpCache.Entry entry = mCache.get(key);
+            long now = mClock.currentTimeMillis();
+            if (entry != null && entry.isUsableWhileRevalidating(now)) {
+                InputStream body = openCached(entry);
+                if (body == null) continue;
+
+                if (entry.isFresh(now)) return served(CacheStats.HIT, body, start);
+                revalidateLater(url, entry);
+                return served(CacheStats.STALE_HIT, body, start);
+            }
+
+            Fetch fetch;
+            boolean owner;
+            synchronized (mInFlight) {
+                fetch = mInFlight.get(key);
+                owner = fetch == null;
+                if (owner) {
+                    fetch = new Fetch(key);
+                    mInFlight.put(key, fetch);
+                }
+            }
+            if (owner) return fetch(url, entry, fetch, start);
+
+            //Served the response another request is fetching, once it is cached
+            if (!fetch.await(mWaitTimeoutMillis)) {
+                //Not shared, the stalled fetch keeps its place for the requests after it
+                return fetch(url, entry, new Fetch(key), start);
+            }
+            if (fetch.mCached) {
+                HttpCache.Entry fetched = mCache.get(key);
+                InputStream body = fetched != null ? openCached(fetched) : null;
+                if (body != null) return served(CacheStats.COALESCED, body, start);
+            }
+            //That fetch failed or could not be cached, this request fetches for itself
+        }
+    }
+
+    /**
+     * Gets the number of requests waiting for the fetch of another, for tests
+     * @return The number of waiting requests
+     */
+    int getWaitingCount() {
+        int waiting = 0;
+        synchronized (mInFlight) {
+            for (Fetch fetch : mInFlight.values()) {
+                waiting += fetch.mWaiting.get();
+            }
+        }
+        return waiting;
+    }
+
+    //Fetches as the owner of the fetch, a failure serves the cached response if there is one
+    private InputStream fetch(URL url, HttpCache.Entry entry, Fetch fetch, long start) throws IOException {
+        InputStream body;
+        try {
+            body = request(url, entry, fetch);
+        } catch (RuntimeException e) {
+            //The requests waiting for it fetch for themselves
+            complete(fetch, false);
+            mStats.recordError();
+            throw e;
+        } catch (IOException e) {
+            complete(fetch, false);
+            InputStream stale = entry != null ? openCached(entry) : null;
+            if (stale == null) {
+                mStats.recordError();
+                throw e;
+            }
+            //Offline, an old response beats none
+            return served(CacheStats.STALE_HIT, stale, start);
+        }
+        return served(fetch.mNotModified ? CacheStats.NOT_MODIFIED : CacheStats.MISS, body, start);
+    }
+
+    //Revalidates a stale response that was served, unless the URL is already being fetched
+    private void revalidateLater(URL url, HttpCache.Entry entry) {
+        String key = url.toString();
+        Fetch fetch;
+        synchronized (mInFlight) {
+            if (mInFlight.containsKey(key)) return;
+            fetch = new Fetch(key);
+            mInFlight.put(key, fetch);
+        }
+
+        mStats.recordRevalidation();
+        mRevalidateExecutor.execute(() -> {
+            //Read to the end, which stores a changed response
+            try (InputStream body = request(url, entry, fetch)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                while (body.read(buffer) >= 0) {
+                    //Cached as it is read
+                }
+            } catch (IOException | RuntimeException e) {
+                //The stale response stays until the next request
+                complete(fetch, false);
+            }
+        });
+    }
+
+    //Requests the URL with the validators of the cached response. The fetch completes once the
+    //body is cached, or at once when there is nothing to read into the cache
+    private InputStream request(URL url, HttpCache.Entry entry, Fetch fetch) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+            connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+            //Cached here, not by a java.net.ResponseCache someone installed
+            connection.setUseCaches(false);
+            if (entry != null && entry.mEtag != null) {
+                connection.setRequestProperty("If-None-Match", entry.mEtag);
+            }
+            if (entry != null && entry.mLastModified != null) {
+                connection.setRequestProperty("If-Modified-Since", entry.mLastModified);
+            }
+
+            int code = connection.getResponseCode();
+            long now = mClock.currentTimeMillis();
+            CacheControl control = CacheControl.parse(connection.getHeaderField("Cache-Control"));
+            if (code == HttpURLConnection.HTTP_NOT_MODIFIED && entry != null) {
+                //Still current, served again with the freshness of the 304, or the old one
+                HttpCache.Entry updated = mCache.update(control.mPresent
+                        ? entry.revalidated(now, control.mMaxAgeMillis, control.mStaleWhileRevalidateMillis)
+                        : entry.revalidated(now, entry.mMaxAgeMillis, entry.mStaleWhileRevalidateMillis));
+                InputStream body = updated != null ? openCached(updated) : null;
+                if (body == null) throw new IOException("The cached response of " + url + " is gone");
+
+                connection.disconnect();
+                fetch.mNotModified = true;
+                complete(fetch, true);
+                return body;
+            }
+            if (code != HttpURLConnection.HTTP_OK) throw new IOException("HTTP " + code + " for " + url);
+
+            String etag = connection.getHeaderField("ETag");
+            String lastModified = connection.getHeaderField("Last-Modified");
+            if (control.mNoStore || (control.mMaxAgeMillis <= 0 && etag == null && lastModified == null)) {
+                //Nothing to serve it again with, and no way to revalidate it
+                mCache.remove(url.toString());
+                complete(fetch, false);
+                return new FilterInputStream(connection.getInputStream()) {
+                    @Override
+                    public void close() throws IOException {
+                        super.close();
+                        connection.disconnect();
+                    }
+                };
+            }
+
+            HttpCache.Entry fetched = new HttpCache.Entry(url.toString(), etag, lastModified, now,
+                    control.mMaxAgeMillis, control.mStaleWhileRevalidateMillis);
+            return new CachingInputStream(connection, fetched, fetch);
+        } catch (IOException | RuntimeException e) {
+            connection.disconnect();
+            throw e;
+        }
+    }
+
+    //The body of an entry, null when it was cleared from the cache directory meanwhile
+    private InputStream openCached(HttpCache.Entry entry) {
+        try {
+            return entry.open();
+        } catch (FileNotFoundException e) {
+            mCache.remove(entry.getUrl());
+            return null;
+        }
+    }
+
+    private InputStream served(int outcome, InputStream body, long startNanos) {
+        mStats.record(outcome, System.nanoTime() - startNanos);
+        return body;
+    }
+
+    private void complete(Fetch fetch, boolean cached) {
+        synchronized (mInFlight) {
+            if (fetch.mDone.getCount() == 0) return;
+            if (mInFlight.get(fetch.mKey) == fetch) mInFlight.remove(fetch.mKey);
+            fetch.mCached = cached;
+        }
+        fetch.mDone.countDown();
+    }
+
+    /**
+     * A network fetch of a URL that later requests of the URL wait for.
+     */
+    private static final class Fetch {
+
+        final String mKey;
+        final CountDownLatch mDone = new CountDownLatch(1);
+        final AtomicInteger mWaiting = new AtomicInteger();
+        //Set before mDone counts down, true when the response was stored
+        volatile boolean mCached;
+        //Only read by the owner
+        boolean mNotModified;
+
+        Fetch(String key) {
+            this.mKey = key;
+        }
+
+        //False when the fetch did not complete in time
+        boolean await(long timeoutMillis) throws InterruptedIOException {
+            mWaiting.incrementAndGet();
+            try {
+                return mDone.await(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for " + mKey);
+            } finally {
+                mWaiting.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * The directives of a Cache-Control header the cache follows.
+     */
+    static final class CacheControl {
+
+        final boolean mPresent;
+        final boolean mNoStore;
+        final long mMaxAgeMillis;
+        final long mStaleWhileRevalidateMillis;
+
+        private CacheControl(boolean present, boolean noStore, long maxAgeMillis, long staleWhileRevalidateMillis) {
+            this.mPresent = present;
+            this.mNoStore = noStore;
+            this.mMaxAgeMillis = maxAgeMillis;
+            this.mStaleWhileRevalidateMillis = staleWhileRevalidateMillis;
+        }
+
+        /**
+         * Parses a header, no-cache is a max-age of 0 and unknown directives are ignored
+         * @param header The value of the header, or null when there is none
+         * @return The directives
+         */
+        static CacheControl parse(String header) {
+            if (header == null) return new CacheControl(false, false, 0, 0);
+
+            boolean noStore = false;
+            boolean noCache = false;
+            long maxAge = 0;
+            long staleWhileRevalidate = 0;
+            for (String directive : header.toLowerCase(Locale.US).split(",")) {
+                directive = directive.trim();
+                if (directive.equals("no-store")) {
+                    noStore = true;
+                } else if (directive.equals("no-cache")) {
+                    noCache = true;
+                } else if (directive.startsWith("max-age=")) {
+                    maxAge = seconds(directive.substring("max-age=".length()));
+                } else if (directive.startsWith("stale-while-revalidate=")) {
+                    staleWhileRevalidate = seconds(directive.substring("stale-while-revalidate=".length()));
+                }
+            }
+            if (noCache) {
+                maxAge = 0;
+                staleWhileRevalidate = 0;
+            }
+            return new CacheControl(true, noStore, maxAge * 1000, staleWhileRevalidate * 1000);
+        }
+
+        private static long seconds(String value) {
+            try {
+                return Math.max(0, Long.parseLong(value.replace("\"", "").trim()));
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * The body of a response from the network, copied into the cache as it is read and stored
+     * once it was read to its end.
+     */
+    private class CachingInputStream extends FilterInputStream {
+
+        private final HttpURLConnection mConnection;
+        private final HttpCache.Entry mEntry;
+        private final Fetch mFetch;
+        private File mTemp;
+        //Null once the copy is stored or given up
+        private OutputStream mCopy;
+
+        CachingInputStream(HttpURLConnection connection, HttpCache.Entry entry, Fetch fetch) throws IOException {
+            super(connection.getInputStream());
+            this.mConnection = connection;
+            this.mEntry = entry;
+            this.mFetch = fetch;
+            try {
+                mTemp = mCache.newTempFile();
+                mCopy = new FileOutputStream(mTemp);
+            } catch (IOException e) {
+                //Served without caching
+                abandon();
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b < 0) {
+                store();
+            } else if (mCopy != null) {
+                try {
+                    mCopy.write(b);
+                } catch (IOException e) {
+                    abandon();
+                }
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = super.read(buffer, offset, length);
+            if (count < 0) {
+                store();
+            } else if (mCopy != null) {
+                try {
+                    mCopy.write(buffer, offset, count);
+                } catch (IOException e) {
+                    abandon();
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            //Skipped bytes are read, the cached body must be whole
+            byte[] buffer = new byte[(int) Math.min(Math.max(n, 1), BUFFER_SIZE)];
+            long skipped = 0;
+            while (skipped < n) {
+                int count = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (count < 0) break;
+                skipped += count;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (mCopy != null) {
+                    byte[] buffer = new byte[BUFFER_SIZE];
+                    long drained = 0;
+                    int count;
+                    while (mCopy != null && drained < DRAIN_LIMIT_BYTES && (count = read(buffer, 0, buffer.length)) >= 0) {
+                        drained += count;
+                    }
+                }
+            } catch (IOException e) {
+                //Not cached
+            } finally {
+                abandon();
+                super.close();
+                mConnection.disconnect();
+            }
+        }
+
+        //At the end of the body
+        private void store() {
+            if (mCopy == null) return;
+
+            boolean stored = false;
+            try {
+                mCopy.close();
+                stored = mCache.put(mEntry, mTemp) != null;
+            } catch (IOException e) {
+                mTemp.delete();
+            }
+            mCopy = null;
+            complete(mFetch, stored);
+        }
+
+        //Gives up caching, the body is still served
+        private void abandon() {
+            if (mCopy != null) {
+                try {
+                    mCopy.close();
+                } catch (IOException e) {
+                    //Deleted anyway
+                }
+                mCopy = null;
+            }
+            if (mTemp != null && mTemp.exists()) mTemp.delete();
+            complete(mFetch, false);
+        }
+    }
+}
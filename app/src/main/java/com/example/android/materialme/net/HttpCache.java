@@ -0,0 +1,383 @@
+package com.example.android.materialme.net;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A size-bounded disk cache of HTTP responses that evicts the least recently used ones.
+ *
+ * Each response is a body file plus a small metadata file with its validators (ETag,
+ * Last-Modified) and its freshness. A body is written to a temporary file and renamed into
+ * place once complete, so a crash never leaves a partial body behind, and a body being read
+ * keeps its contents when it is replaced or evicted meanwhile. The order of use is kept as the
+ * modification times of the metadata files, so it survives restarts.
+ *
+ * Thread safe.
+ */
+public class HttpCache {
+
+    /**
+     * A cached response: its validators, its freshness and its body.
+     */
+    public static final class Entry {
+
+        final String mUrl;
+        //The validators for a conditional request, null when the server sent none
+        final String mEtag;
+        final String mLastModified;
+        //Wall clock time the response was received or last revalidated
+        final long mFetchedAtMillis;
+        final long mMaxAgeMillis;
+        final long mStaleWhileRevalidateMillis;
+
+        //Null until the entry is stored
+        final File mBody;
+        final long mLength;
+
+        Entry(String url, String etag, String lastModified, long fetchedAtMillis,
+              long maxAgeMillis, long staleWhileRevalidateMillis) {
+            this(url, etag, lastModified, fetchedAtMillis, maxAgeMillis, staleWhileRevalidateMillis, null, 0);
+        }
+
+        private Entry(String url, String etag, String lastModified, long fetchedAtMillis,
+                      long maxAgeMillis, long staleWhileRevalidateMillis, File body, long length) {
+            this.mUrl = url;
+            this.mEtag = etag;
+            this.mLastModified = lastModified;
+            this.mFetchedAtMillis = fetchedAtMillis;
+            this.mMaxAgeMillis = maxAgeMillis;
+            this.mStaleWhileRevalidateMillis = staleWhileRevalidateMillis;
+            this.mBody = body;
+            this.mLength = length;
+        }
+
+        /**
+         * Checks whether the response may be served without asking the server
+         * @param nowMillis The wall clock time
+         * @return True while it is younger than its max-age
+         */
+        public boolean isFresh(long nowMillis) {
+            return nowMillis - mFetchedAtMillis < mMaxAgeMillis;
+        }
+
+        /**
+         * Checks whether the stale response may be served while it is revalidated
+         * @param nowMillis The wall clock time
+         * @return True while it is younger than its max-age plus its stale-while-revalidate
+         */
+        public boolean isUsableWhileRevalidating(long nowMillis) {
+            return nowMillis - mFetchedAtMillis < mMaxAgeMillis + mStaleWhileRevalidateMillis;
+        }
+
+        /**
+         * Gets the URL of the response
+         * @return The URL
+         */
+        public String getUrl() {
+            return mUrl;
+        }
+
+        /**
+         * Gets the size of the body
+         * @return The length in bytes
+         */
+        public long getLength() {
+            return mLength;
+        }
+
+        /**
+         * Opens the body
+         * @return The stream, to be closed by the caller
+         * @throws FileNotFoundException When the body is gone, e.g. the cache was cleared
+         */
+        public InputStream open() throws FileNotFoundException {
+            return new FileInputStream(mBody);
+        }
+
+        /**
+         * Copies the entry with the freshness of a revalidation that found it current
+         * @param nowMillis The wall clock time of the revalidation
+         * @param maxAgeMillis The new max-age
+         * @param staleWhileRevalidateMillis The new stale-while-revalidate
+         * @return The entry to update
+         */
+        Entry revalidated(long nowMillis, long maxAgeMillis, long staleWhileRevalidateMillis) {
+            return new Entry(mUrl, mEtag, mLastModified, nowMillis, maxAgeMillis, staleWhileRevalidateMillis, mBody, mLength);
+        }
+    }
+
+    private static final int MAGIC = 0x48544350; //"HTCP"
+    private static final int VERSION = 1;
+    private static final String BODY_SUFFIX = ".body";
+    private static final String META_SUFFIX = ".meta";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File mDirectory;
+    private final long mMaxSizeBytes;
+
+    //Sizes of the entries by key in the order of use, eldest first, null until first used
+    private LinkedHashMap<String, Long> mIndex;
+    private long mSize;
+
+    /**
+     * Create a cache in a directory, no file is touched until the cache is first used
+     * @param directory The directory holding the responses, used by no one else
+     * @param maxSizeBytes The most bytes of bodies and metadata to keep
+     */
+    public HttpCache(File directory, long maxSizeBytes) {
+        this.mDirectory = directory;
+        this.mMaxSizeBytes = maxSizeBytes;
+    }
+
+    /**
+     * Gets a cached response and marks it as used
+     * @param url The URL of the response
+     * @return The entry, or null when there is none
+     */
+    public synchronized Entry get(String url) {
+        String key = keyOf(url);
+        if (index().get(key) == null) return null;
+
+        Entry entry = readMeta(key);
+        if (entry == null || !entry.mUrl.equals(url)) {
+            //Unreadable, or an other URL of the same key
+            if (entry == null) removeKey(key);
+            return null;
+        }
+
+        metaFile(key).setLastModified(System.currentTimeMillis());
+        return entry;
+    }
+
+    /**
+     * Creates a file to write a body into before it is stored with put()
+     * @return The file, in the cache directory
+     * @throws IOException When the directory cannot be created
+     */
+    public synchronized File newTempFile() throws IOException {
+        index();
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+            throw new IOException("Could not create " + mDirectory);
+        }
+        return new File(mDirectory, UUID.randomUUID() + TEMP_SUFFIX);
+    }
+
+    /**
+     * Stores a response, replacing the one of its URL, and evicts the least recently used
+     * responses past the size bound. A body larger than the whole cache is not stored
+     * @param entry The metadata of the response
+     * @param body The complete body, from newTempFile(), moved into the cache or deleted
+     * @return The stored entry, or null when it was not stored
+     */
+    public synchronized Entry put(Entry entry, File body) {
+        String key = keyOf(entry.mUrl);
+        long length = body.length();
+        if (length > mMaxSizeBytes) {
+            body.delete();
+            return null;
+        }
+
+        removeKey(key);
+        File bodyFile = bodyFile(key);
+        Entry stored = new Entry(entry.mUrl, entry.mEtag, entry.mLastModified, entry.mFetchedAtMillis,
+                entry.mMaxAgeMillis, entry.mStaleWhileRevalidateMillis, bodyFile, length);
+        if (!body.renameTo(bodyFile) || !writeMeta(key, stored)) {
+            body.delete();
+            removeKey(key);
+            return null;
+        }
+
+        add(key, length + metaFile(key).length());
+        trimToSize();
+        return stored;
+    }
+
+    /**
+     * Rewrites the metadata of a stored response, e.g. after a revalidation found it current
+     * @param entry The new metadata, of an entry from get() or put()
+     * @return The entry, or null when it is not stored anymore
+     */
+    public synchronized Entry update(Entry entry) {
+        String key = keyOf(entry.mUrl);
+        if (index().get(key) == null || !writeMeta(key, entry)) return null;
+
+        add(key, entry.mLength + metaFile(key).length());
+        return entry;
+    }
+
+    /**
+     * Removes the response of a URL
+     * @param url The URL
+     */
+    public synchronized void remove(String url) {
+        removeKey(keyOf(url));
+    }
+
+    /**
+     * Gets the size of the cached responses
+     * @return The bytes of bodies and metadata
+     */
+    public synchronized long size() {
+        index();
+        return mSize;
+    }
+
+    /**
+     * Gets the URLs in the order of use, for tests
+     * @return The URLs, least recently used first
+     */
+    synchronized List<String> urls() {
+        List<String> urls = new ArrayList<>();
+        for (String key : index().keySet()) {
+            Entry entry = readMeta(key);
+            if (entry != null) urls.add(entry.mUrl);
+        }
+        return urls;
+    }
+
+    //Reads the directory on first use, in the order of use kept by the metadata files
+    private LinkedHashMap<String, Long> index() {
+        if (mIndex != null) return mIndex;
+
+        mIndex = new LinkedHashMap<>(16, 0.75f, true);
+        mSize = 0;
+        File[] files = mDirectory.listFiles();
+        if (files == null) return mIndex;
+
+        List<File> metas = new ArrayList<>();
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(META_SUFFIX)) {
+                metas.add(file);
+            } else if (name.endsWith(TEMP_SUFFIX)) {
+                //A body that was being written when the process died
+                file.delete();
+            }
+        }
+        Collections.sort(metas, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+
+        for (File meta : metas) {
+            String key = meta.getName().substring(0, meta.getName().length() - META_SUFFIX.length());
+            File body = bodyFile(key);
+            if (body.isFile()) {
+                add(key, body.length() + meta.length());
+            } else {
+                meta.delete();
+            }
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(BODY_SUFFIX)
+                    && !mIndex.containsKey(name.substring(0, name.length() - BODY_SUFFIX.length()))) {
+                file.delete();
+            }
+        }
+        trimToSize();
+        return mIndex;
+    }
+
+    private void add(String key, long size) {
+        Long previous = mIndex.put(key, size);
+        mSize += size - (previous != null ? previous : 0);
+    }
+
+    private void removeKey(String key) {
+        Long size = index().remove(key);
+        if (size != null) mSize -= size;
+        bodyFile(key).delete();
+        metaFile(key).delete();
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<String, Long>> eldest = mIndex.entrySet().iterator();
+        while (mSize > mMaxSizeBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            mSize -= entry.getValue();
+            eldest.remove();
+            bodyFile(entry.getKey()).delete();
+            metaFile(entry.getKey()).delete();
+        }
+    }
+
+    private Entry readMeta(String key) {
+        File meta = metaFile(key);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(meta)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+            String url = in.readUTF();
+            String etag = in.readBoolean() ? in.readUTF() : null;
+            String lastModified = in.readBoolean() ? in.readUTF() : null;
+            long fetchedAt = in.readLong();
+            long maxAge = in.readLong();
+            long staleWhileRevalidate = in.readLong();
+            long length = in.readLong();
+            return new Entry(url, etag, lastModified, fetchedAt, maxAge, staleWhileRevalidate, bodyFile(key), length);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    //Written to a temporary file and renamed, a torn write leaves the old metadata
+    private boolean writeMeta(String key, Entry entry) {
+        File temp = new File(mDirectory, key + META_SUFFIX + TEMP_SUFFIX);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(entry.mUrl);
+            writeNullable(out, entry.mEtag);
+            writeNullable(out, entry.mLastModified);
+            out.writeLong(entry.mFetchedAtMillis);
+            out.writeLong(entry.mMaxAgeMillis);
+            out.writeLong(entry.mStaleWhileRevalidateMillis);
+            out.writeLong(entry.mLength);
+        } catch (IOException e) {
+            temp.delete();
+            return false;
+        }
+        return temp.renameTo(metaFile(key));
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private File bodyFile(String key) {
+        return new File(mDirectory, key + BODY_SUFFIX);
+    }
+
+    private File metaFile(String key) {
+        return new File(mDirectory, key + META_SUFFIX);
+    }
+
+    //URLs are hashed into file names, the metadata keeps the URL to tell collisions apart
+    static String keyOf(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(url.getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                key.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.android.materialme;
+
+import android.os.Bundle;
+import android.os.Looper;
+
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ActivityScenario;
+
+import com.example.android.materialme.adapter.SportsAdapter;
+import com.example.android.materialme.metrics.ListMetrics;
+import com.example.android.materialme.model.SavedListState;
+import com.example.android.materialme.model.SportOrder;
+import com.example.android.materialme.model.SportRepository;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.fakes.RoboMenuItem;
+
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Recreating MainActivity keeps its list, and restores the saved state after process death.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class MainActivityRecreationTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * A condition awaited on the main thread.
+     */
+    private interface Condition {
+        boolean isMet();
+    }
+
+    private MainActivity mActivity;
+
+    @After
+    public void tearDown() {
+        ListMetrics.getInstance().setEnabled(false);
+        ListMetrics.getInstance().reset();
+    }
+
+    @Test
+    public void recreation_onlyBindsTheVisibleItems() {
+        try (ActivityScenario<MainActivity> scenario = ActivityScenario.launch(MainActivity.class)) {
+            scenario.onActivity(activity -> mActivity = activity);
+            awaitUntil(() -> getAdapter().getItemCount() > 0);
+
+            //Sorted by category, with a removal to undo
+            mActivity.onOptionsItemSelected(new RoboMenuItem(R.id.sort_by_category));
+            awaitUntil(() -> getAdapter().isHeader(0));
+            int sportCount = getAdapter().mSportList.size();
+            getAdapter().removeItem(1);
+            awaitUntil(() -> getRecyclerView().getChildCount() > 0);
+
+            MainActivity recreated = mActivity;
+            SportsAdapter recreatedAdapter = getAdapter();
+            SportOrder order = recreatedAdapter.getOrder();
+            int itemCount = recreatedAdapter.getItemCount();
+            int loadCount = SportRepository.getInstance(mActivity).getLoadCount();
+            ListMetrics.getInstance().reset();
+            ListMetrics.getInstance().setEnabled(true);
+
+            long start = System.nanoTime();
+            scenario.recreate();
+            scenario.onActivity(activity -> mActivity = activity);
+            awaitUntil(() -> getRecyclerView().getChildCount() > 0);
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            //Shown at once, without loading, parsing the categories or sorting again
+            assertNotSame(recreated, mActivity);
+            assertNotSame(recreatedAdapter, getAdapter());
+            assertEquals(loadCount, SportRepository.getInstance(mActivity).getLoadCount());
+            assertSame(order, getAdapter().getOrder());
+            assertEquals(itemCount, getAdapter().getItemCount());
+            assertTrue(getAdapter().isHeader(0));
+            assertTrue("recreation took " + elapsedMillis + " ms", elapsedMillis < 5_000);
+
+            //Each visible card is bound once, nothing else
+            long binds = ListMetrics.getInstance().snapshot(ListMetrics.BIND).getCount();
+            assertTrue(binds > 0);
+            assertTrue(binds <= getRecyclerView().getChildCount());
+
+            //The removal can still be undone
+            assertTrue(getAdapter().undo());
+            assertEquals(sportCount, getAdapter().mSportList.size());
+        }
+    }
+
+    @Test
+    public void processDeath_restoresTheSortAndTheQuery() {
+        Bundle savedState = new Bundle();
+        savedState.putByteArray(MainActivity.STATE_LIST,
+                new SavedListState(SavedListState.SORT_BY_TITLE, "tennis", null, 0, 0).encode());
+
+        ActivityController<MainActivity> controller = Robolectric.buildActivity(MainActivity.class).setup(savedState);
+        mActivity = controller.get();
+        try {
+            //Sorted by title, and only the matches of the query are shown
+            awaitUntil(() -> getAdapter().getItemCount() > 0 && getAdapter().getOrder() != null);
+            awaitUntil(() -> getAdapter().getItemCount() < SportRepository.getInstance(mActivity).getCachedSports().size());
+
+            assertTrue(getAdapter().isHeader(0));
+        } finally {
+            controller.pause().stop().destroy();
+        }
+    }
+
+    private RecyclerView getRecyclerView() {
+        return mActivity.findViewById(R.id.recycler_view);
+    }
+
+    private SportsAdapter getAdapter() {
+        return (SportsAdapter) getRecyclerView().getAdapter();
+    }
+
+    //Runs the main looper until the condition is met, the loads and sorts finish on other threads
+    private static void awaitUntil(Condition condition) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.isMet()) {
+            if (System.currentTimeMillis() > deadline) fail("Timed out");
+            shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(10));
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
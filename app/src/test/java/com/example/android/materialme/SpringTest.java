@@ -0,0 +1,87 @@
+package com.example.android.materialme;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * The closed form spring behind the swipe settle, against its start conditions, its own
+ * derivative, and the shape of each damping.
+ */
+public class SpringTest {
+
+    private static final long FRAME_NANOS = 16_666_667;
+
+    @Test
+    public void start_keepsPositionAndVelocity() {
+        Spring spring = new Spring();
+        for (float dampingRatio : new float[]{Spring.DAMPING_RATIO_LOW_BOUNCY, Spring.DAMPING_RATIO_NO_BOUNCY}) {
+            spring.start(-300, 2000, 0, Spring.STIFFNESS_MEDIUM, dampingRatio);
+
+            assertEquals(-300, spring.getPosition(0), 0.001f);
+            assertEquals(2000, spring.getVelocity(0), 0.01f);
+            assertFalse(spring.isAtRest(0));
+        }
+    }
+
+    @Test
+    public void velocity_isTheDerivativeOfThePosition() {
+        Spring spring = new Spring();
+        for (float dampingRatio : new float[]{0.5f, Spring.DAMPING_RATIO_LOW_BOUNCY, Spring.DAMPING_RATIO_NO_BOUNCY}) {
+            spring.start(-300, 2000, -240, Spring.STIFFNESS_MEDIUM, dampingRatio);
+
+            long step = 100_000;
+            for (long t = 0; t < 500_000_000; t += 7 * FRAME_NANOS) {
+                float slope = (spring.getPosition(t + step) - spring.getPosition(t)) / (step / 1e9f);
+                assertEquals("at " + t, slope, spring.getVelocity(t + step / 2), Math.abs(slope) * 0.01f + 1);
+            }
+        }
+    }
+
+    @Test
+    public void noBounce_neverPassesTheTargetWhenReleasedTowardsIt() {
+        Spring spring = new Spring();
+        spring.start(-300, 0, 0, Spring.STIFFNESS_MEDIUM, Spring.DAMPING_RATIO_NO_BOUNCY);
+
+        float previous = -300;
+        long t = 0;
+        while (!spring.isAtRest(t)) {
+            t += FRAME_NANOS;
+            float position = spring.getPosition(t);
+            assertTrue(position <= 0);
+            assertTrue(position >= previous);
+            previous = position;
+        }
+        //A stiff spring settles within a few hundred milliseconds
+        assertTrue(t < 500_000_000);
+    }
+
+    @Test
+    public void lowBounce_overshootsAndSettles() {
+        Spring spring = new Spring();
+        spring.start(0, 0, -240, Spring.STIFFNESS_MEDIUM, Spring.DAMPING_RATIO_LOW_BOUNCY);
+
+        float furthest = 0;
+        long t = 0;
+        while (!spring.isAtRest(t) && t < 2_000_000_000) {
+            t += FRAME_NANOS;
+            furthest = Math.min(furthest, spring.getPosition(t));
+        }
+
+        assertTrue(spring.isAtRest(t));
+        assertTrue(furthest < -240);
+        assertEquals(-240, spring.getPosition(t), Spring.REST_DISPLACEMENT);
+    }
+
+    @Test
+    public void largeDampingRatio_isCriticallyDamped() {
+        Spring critical = new Spring();
+        critical.start(100, -50, 0, Spring.STIFFNESS_LOW, Spring.DAMPING_RATIO_NO_BOUNCY);
+        Spring overdamped = new Spring();
+        overdamped.start(100, -50, 0, Spring.STIFFNESS_LOW, 3f);
+
+        for (long t = 0; t < 1_000_000_000; t += FRAME_NANOS) {
+            assertEquals(critical.getPosition(t), overdamped.getPosition(t), 0f);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.android.materialme;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * The thresholds of SwipeGesture and its states from drag to rest.
+ */
+public class SwipeGestureTest {
+
+    private static final int ITEM_WIDTH = 1000;
+    private static final float ACTION_WIDTH = 200;
+    private static final float MIN_FLING_VELOCITY = 100;
+    private static final float ESCAPE_VELOCITY = 1500;
+    private static final long FRAME_NANOS = 16_666_667;
+
+    private SwipeGesture mGesture;
+    private long mNow;
+
+    @Before
+    public void setUp() {
+        mGesture = new SwipeGesture(ACTION_WIDTH, MIN_FLING_VELOCITY, ESCAPE_VELOCITY);
+        //Two actions to the left, one to the right
+        mGesture.setActionCounts(2, 1);
+        mGesture.setItemWidth(ITEM_WIDTH);
+        mNow = 1_000_000_000L;
+    }
+
+    @Test
+    public void distances_neverOverlap() {
+        assertEquals(400, mGesture.getOpenWidth(-1), 0f);
+        assertEquals(200, mGesture.getOpenWidth(1), 0f);
+        //Half the width, but past the open width and half an action
+        assertEquals(500, mGesture.getEscapeDistance(-1), 0f);
+        assertEquals(500, mGesture.getEscapeDistance(1), 0f);
+
+        mGesture.setActionCounts(3, 1);
+        assertEquals(700, mGesture.getEscapeDistance(-1), 0f);
+    }
+
+    @Test
+    public void narrowItem_narrowsTheActions() {
+        //A grid cell, two full actions would cover 400 of 300
+        mGesture.setItemWidth(300);
+
+        assertEquals(225, mGesture.getOpenWidth(-1), 0f);
+        assertEquals(200, mGesture.getOpenWidth(1), 0f);
+        //Still reachable by dragging, past the open width and half a narrowed action
+        assertEquals(281.25f, mGesture.getEscapeDistance(-1), 0.001f);
+        assertEquals(300, mGesture.getEscapeDistance(1), 0f);
+
+        mGesture.startDrag();
+        mGesture.drag(-200);
+        //Each narrowed action takes half of the revealed width
+        assertEquals(0, mGesture.getActionAt(290));
+        assertEquals(1, mGesture.getActionAt(150));
+    }
+
+    @Test
+    public void drag_staysWithinTheItemAndTheDirectionsWithActions() {
+        mGesture.setActionCounts(2, 0);
+        mGesture.startDrag();
+
+        assertEquals(0, mGesture.drag(150), 0f);
+        assertEquals(-150, mGesture.drag(-150), 0f);
+        assertEquals(-ITEM_WIDTH, mGesture.drag(-5000), 0f);
+        assertEquals(SwipeGesture.STATE_DRAGGING, mGesture.getState());
+    }
+
+    @Test
+    public void release_followsTheThresholds() {
+        //Swiping left, open width 400, escape distance 500
+        assertRelease(SwipeGesture.STATE_IDLE, -150, 0);
+        assertRelease(SwipeGesture.STATE_OPEN, -250, 0);
+        assertRelease(SwipeGesture.STATE_OPEN, -150, -MIN_FLING_VELOCITY);
+        assertRelease(SwipeGesture.STATE_IDLE, -350, MIN_FLING_VELOCITY);
+        assertRelease(SwipeGesture.STATE_ESCAPED, -500, 0);
+        assertRelease(SwipeGesture.STATE_ESCAPED, -100, -ESCAPE_VELOCITY);
+        //Past the escape distance but flung back
+        assertRelease(SwipeGesture.STATE_IDLE, -600, MIN_FLING_VELOCITY);
+        assertRelease(SwipeGesture.STATE_ESCAPED, -600, MIN_FLING_VELOCITY - 1);
+
+        //Swiping right, open width 200
+        assertRelease(SwipeGesture.STATE_IDLE, 60, 0);
+        assertRelease(SwipeGesture.STATE_OPEN, 100, 0);
+        assertRelease(SwipeGesture.STATE_ESCAPED, 100, ESCAPE_VELOCITY);
+    }
+
+    @Test
+    public void open_settlesAtTheOpenWidth() {
+        drag(-250);
+        assertEquals(SwipeGesture.STATE_OPEN, mGesture.release(-300, mNow));
+        assertEquals(SwipeGesture.STATE_SETTLING, mGesture.getState());
+
+        settle();
+
+        assertEquals(SwipeGesture.STATE_OPEN, mGesture.getState());
+        assertEquals(-400, mGesture.getOffset(), 0f);
+        //Dragging an open item further starts from where it is
+        mGesture.startDrag();
+        assertEquals(-450, mGesture.drag(mGesture.getOffset() - 50), 0f);
+    }
+
+    @Test
+    public void escape_endsOffTheEdge() {
+        drag(-500);
+        mGesture.release(0, mNow);
+        int frames = settle();
+
+        assertEquals(SwipeGesture.STATE_ESCAPED, mGesture.getState());
+        assertEquals(-ITEM_WIDTH, mGesture.getOffset(), 0f);
+
+        //The fling is carried into the settle, a fast one leaves sooner
+        setUp();
+        drag(-500);
+        mGesture.release(-ESCAPE_VELOCITY * 4, mNow);
+        assertTrue(settle() < frames);
+        assertEquals(SwipeGesture.STATE_ESCAPED, mGesture.getState());
+        assertEquals(-ITEM_WIDTH, mGesture.getOffset(), 0f);
+    }
+
+    @Test
+    public void close_neverRevealsTheOtherDirection() {
+        drag(-350);
+        //Flung back hard, the spring alone would overshoot past closed
+        assertEquals(SwipeGesture.STATE_IDLE, mGesture.release(ESCAPE_VELOCITY * 3, mNow));
+
+        while (mGesture.getState() == SwipeGesture.STATE_SETTLING) {
+            mNow += FRAME_NANOS;
+            assertTrue(mGesture.step(mNow) <= 0);
+        }
+        assertEquals(SwipeGesture.STATE_IDLE, mGesture.getState());
+        assertEquals(0, mGesture.getOffset(), 0f);
+    }
+
+    @Test
+    public void close_fromOpen() {
+        drag(-250);
+        mGesture.release(0, mNow);
+        settle();
+
+        mGesture.close(mNow);
+        assertEquals(SwipeGesture.STATE_SETTLING, mGesture.getState());
+        settle();
+        assertEquals(SwipeGesture.STATE_IDLE, mGesture.getState());
+        assertEquals(0, mGesture.getOffset(), 0f);
+    }
+
+    @Test
+    public void startDrag_catchesASettlingItem() {
+        drag(-250);
+        mGesture.release(0, mNow);
+        mNow += FRAME_NANOS;
+        float offset = mGesture.step(mNow);
+
+        mGesture.startDrag();
+        mNow += FRAME_NANOS;
+        assertEquals(offset, mGesture.step(mNow), 0f);
+        assertEquals(SwipeGesture.STATE_DRAGGING, mGesture.getState());
+    }
+
+    @Test
+    public void actions_areOrderedFromTheOuterEdge() {
+        drag(-400);
+        //Primary at the right edge, the second next to it, then the card
+        assertEquals(0, mGesture.getActionAt(950));
+        assertEquals(1, mGesture.getActionAt(700));
+        assertEquals(SwipeGesture.NO_ACTION, mGesture.getActionAt(500));
+        assertFalse(mGesture.isPastEscapeDistance());
+
+        drag(-520);
+        assertTrue(mGesture.isPastEscapeDistance());
+
+        drag(200);
+        assertEquals(0, mGesture.getActionAt(50));
+        assertEquals(SwipeGesture.NO_ACTION, mGesture.getActionAt(300));
+
+        mGesture.reset();
+        assertEquals(SwipeGesture.NO_ACTION, mGesture.getActionAt(50));
+        assertEquals(SwipeGesture.STATE_IDLE, mGesture.getState());
+    }
+
+    private void assertRelease(int expected, float offset, float velocity) {
+        mGesture.reset();
+        drag(offset);
+        assertEquals("released at " + offset + " with " + velocity, expected, mGesture.release(velocity, mNow));
+    }
+
+    private void drag(float offset) {
+        mGesture.startDrag();
+        mGesture.drag(offset);
+    }
+
+    //Steps frames until the settle ends, returns how many it took
+    private int settle() {
+        int frames = 0;
+        while (mGesture.getState() == SwipeGesture.STATE_SETTLING) {
+            assertTrue("still settling after " + frames + " frames", frames < 200);
+            mNow += FRAME_NANOS;
+            mGesture.step(mNow);
+            frames++;
+        }
+        return frames;
+    }
+}
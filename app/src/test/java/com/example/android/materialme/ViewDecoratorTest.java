@@ -0,0 +1,324 @@
+package com.example.android.materialme;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
+import android.util.TypedValue;
+import android.view.View;
+
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.ItemTouchHelper;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.android.materialme.metrics.ListMetrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Counts the bytes allocated per decorate() call on the swipe rendering path, checks
+ * when the cached decoration is rendered again, and where the labels of each direction go.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ViewDecoratorTest {
+
+    private static final int WARM_UP_FRAMES = 1_000;
+    private static final int MEASURED_FRAMES = 10_000;
+
+    private RecyclerView mRecyclerView;
+    private View mItemView;
+    private RecyclerView.ViewHolder mViewHolder;
+    private Canvas mCanvas;
+    private long mFailures;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        context.setTheme(R.style.AppTheme);
+
+        mRecyclerView = new RecyclerView(context);
+
+        mItemView = new View(context);
+        mItemView.layout(0, 0, 1080, 400);
+        mViewHolder = new RecyclerView.ViewHolder(mItemView) {};
+
+        mCanvas = new NoOpCanvas();
+        mFailures = ListMetrics.getInstance().getFailureCount(ListMetrics.DECORATE);
+    }
+
+    @After
+    public void tearDown() {
+        //decorate() logs and counts its failures instead of throwing them
+        assertEquals(mFailures, ListMetrics.getInstance().getFailureCount(ListMetrics.DECORATE));
+    }
+
+    @Test
+    public void reusableDecorator_allocatesNothingPerFrame() {
+        ViewDecorator decorator = new ViewDecorator.Builder(mRecyclerView)
+                .addBackgroundColor(ContextCompat.getColor(mRecyclerView.getContext(), R.color.red))
+                .addActionIcon(R.drawable.ic_delete)
+                .create();
+
+        for (int i = 0; i < WARM_UP_FRAMES; i++) {
+            swipeFrame(decorator, i);
+        }
+
+        long before = allocatedBytes();
+        for (int i = 0; i < MEASURED_FRAMES; i++) {
+            swipeFrame(decorator, i);
+        }
+        long bytesPerFrame = (allocatedBytes() - before) / MEASURED_FRAMES;
+
+        assertEquals("decorate() allocated " + bytesPerFrame + " bytes per frame", 0, bytesPerFrame);
+    }
+
+    @Test
+    public void cachedDecorator_allocatesNothingPerFrame() {
+        ViewDecorator decorator = createDecorator(true);
+
+        for (int i = 0; i < WARM_UP_FRAMES; i++) {
+            swipeFrame(decorator, i);
+        }
+
+        long before = allocatedBytes();
+        for (int i = 0; i < MEASURED_FRAMES; i++) {
+            swipeFrame(decorator, i);
+        }
+        long bytesPerFrame = (allocatedBytes() - before) / MEASURED_FRAMES;
+
+        assertEquals("decorate() allocated " + bytesPerFrame + " bytes per frame", 0, bytesPerFrame);
+        //Once for each direction
+        assertEquals(2, decorator.getCacheRenderCount());
+    }
+
+    @Test
+    public void cachedDecoration_isRenderedOncePerSize() {
+        ViewDecorator decorator = createDecorator(true);
+
+        for (int dX = 10; dX < 1080; dX += 50) {
+            swipe(decorator, dX);
+        }
+        assertEquals(1, decorator.getCacheRenderCount());
+
+        //A taller card renders the direction again, once
+        mItemView.layout(0, 0, 1080, 500);
+        swipe(decorator, 200);
+        swipe(decorator, 250);
+        assertEquals(2, decorator.getCacheRenderCount());
+    }
+
+    @Test
+    public void changedSettings_evictTheCache() {
+        ViewDecorator decorator = createDecorator(true);
+        swipe(decorator, -100);
+
+        decorator.setSwipeLeftBackgroundColor(Color.BLUE);
+        swipe(decorator, -100);
+        assertEquals(2, decorator.getCacheRenderCount());
+
+        decorator.invalidate();
+        swipe(decorator, -100);
+        assertEquals(3, decorator.getCacheRenderCount());
+    }
+
+    @Test
+    public void configurationChange_evictsTheCache() {
+        ViewDecorator decorator = createDecorator(true);
+        swipe(decorator, 100);
+
+        RuntimeEnvironment.setQualifiers("+night");
+        swipe(decorator, 100);
+        swipe(decorator, 120);
+
+        assertEquals(2, decorator.getCacheRenderCount());
+    }
+
+    @Test
+    public void labeledDecorator_allocatesNothingPerFrame() {
+        ViewDecorator decorator = createLabeledDecorator();
+        LabelCanvas canvas = new LabelCanvas();
+
+        for (int i = 0; i < WARM_UP_FRAMES; i++) {
+            decorator.decorate(canvas, mViewHolder, dXForFrame(i), 0, ItemTouchHelper.ACTION_STATE_SWIPE, true);
+        }
+        Paint warmUpPaint = canvas.mPaint;
+
+        long before = allocatedBytes();
+        for (int i = 0; i < MEASURED_FRAMES; i++) {
+            decorator.decorate(canvas, mViewHolder, dXForFrame(i), 0, ItemTouchHelper.ACTION_STATE_SWIPE, true);
+        }
+        long bytesPerFrame = (allocatedBytes() - before) / MEASURED_FRAMES;
+
+        assertEquals("decorate() allocated " + bytesPerFrame + " bytes per frame", 0, bytesPerFrame);
+        //The paints were resolved once, not per frame
+        assertSame(warmUpPaint, canvas.mPaint);
+    }
+
+    @Test
+    public void swipeRight_drawsTheRightLabelAfterTheIcon() {
+        ViewDecorator decorator = createLabeledDecorator();
+        LabelCanvas canvas = new LabelCanvas();
+
+        decorator.decorate(canvas, mViewHolder, 1080, 0, ItemTouchHelper.ACTION_STATE_SWIPE, true);
+
+        Drawable icon = decorator.getActionIcon(true);
+        assertEquals("Archive", canvas.mText);
+        assertTrue(canvas.mX >= icon.getBounds().right);
+        assertEquals(Color.GREEN, canvas.mPaint.getColor());
+        assertSame(Typeface.MONOSPACE, canvas.mPaint.getTypeface());
+        assertEquals(toPixels(TypedValue.COMPLEX_UNIT_SP, 20), canvas.mPaint.getTextSize(), 0.01f);
+        assertNotNull(icon.getColorFilter());
+    }
+
+    @Test
+    public void swipeLeft_drawsTheLeftLabelBeforeTheIcon() {
+        ViewDecorator decorator = createLabeledDecorator();
+        LabelCanvas canvas = new LabelCanvas();
+
+        decorator.decorate(canvas, mViewHolder, -1080, 0, ItemTouchHelper.ACTION_STATE_SWIPE, true);
+
+        Drawable icon = decorator.getActionIcon(false);
+        assertEquals("Delete", canvas.mText);
+        assertTrue(canvas.mX + canvas.mPaint.measureText("Delete") <= icon.getBounds().left);
+        assertEquals(Color.WHITE, canvas.mPaint.getColor());
+        assertSame(Typeface.SERIF, canvas.mPaint.getTypeface());
+        assertEquals(toPixels(TypedValue.COMPLEX_UNIT_DIP, 18), canvas.mPaint.getTextSize(), 0.01f);
+        //Only the right icon is tinted, the left one keeps its own color
+        assertNull(icon.getColorFilter());
+        assertNotSame(icon, decorator.getActionIcon(true));
+    }
+
+    @Test
+    public void labelSetters_resolveAgain() {
+        ViewDecorator decorator = createLabeledDecorator();
+        LabelCanvas canvas = new LabelCanvas();
+        decorator.decorate(canvas, mViewHolder, -1080, 0, ItemTouchHelper.ACTION_STATE_SWIPE, true);
+
+        decorator.setSwipeLeftLabel("Remove");
+        decorator.setSwipeLeftLabelColor(Color.YELLOW);
+        decorator.decorate(canvas, mViewHolder, -1080, 0, ItemTouchHelper.ACTION_STATE_SWIPE, true);
+
+        assertEquals("Remove", canvas.mText);
+        assertEquals(Color.YELLOW, canvas.mPaint.getColor());
+    }
+
+    @Test
+    public void perFrameBuilder_allocatesEveryFrame() {
+        long before = allocatedBytes();
+        for (int i = 0; i < WARM_UP_FRAMES; i++) {
+            new ViewDecorator.Builder(mCanvas, mRecyclerView, mViewHolder, dXForFrame(i), 0, ItemTouchHelper.ACTION_STATE_SWIPE, true)
+                    .addBackgroundColor(ContextCompat.getColor(mRecyclerView.getContext(), R.color.red))
+                    .addActionIcon(R.drawable.ic_delete)
+                    .create()
+                    .decorate();
+        }
+        long bytesPerFrame = (allocatedBytes() - before) / WARM_UP_FRAMES;
+
+        //Sanity check that the allocation counter sees the old per-frame garbage
+        assertTrue(bytesPerFrame > 0);
+    }
+
+    private ViewDecorator createDecorator(boolean cached) {
+        return new ViewDecorator.Builder(mRecyclerView)
+                .addBackgroundColor(ContextCompat.getColor(mRecyclerView.getContext(), R.color.red))
+                .addActionIcon(R.drawable.ic_delete)
+                .setCachingEnabled(cached)
+                .create();
+    }
+
+    private ViewDecorator createLabeledDecorator() {
+        return new ViewDecorator.Builder(mRecyclerView)
+                .addBackgroundColor(ContextCompat.getColor(mRecyclerView.getContext(), R.color.red))
+                .addActionIcon(R.drawable.ic_delete)
+                .setSwipeRightActionIconTint(Color.BLACK)
+                .addSwipeRightLabel("Archive")
+                .setSwipeRightLabelColor(Color.GREEN)
+                .setSwipeRightLabelTextSize(TypedValue.COMPLEX_UNIT_SP, 20)
+                .setSwipeRightLabelTypeface(Typeface.MONOSPACE)
+                .addSwipeLeftLabel("Delete")
+                .setSwipeLeftLabelColor(Color.WHITE)
+                .setSwipeLeftLabelTextSize(TypedValue.COMPLEX_UNIT_DIP, 18)
+                .setSwipeLeftLabelTypeface(Typeface.SERIF)
+                .create();
+    }
+
+    private float toPixels(int unit, float size) {
+        return TypedValue.applyDimension(unit, size, mRecyclerView.getResources().getDisplayMetrics());
+    }
+
+    private void swipe(ViewDecorator decorator, float dX) {
+        decorator.decorate(mCanvas, mViewHolder, dX, 0, ItemTouchHelper.ACTION_STATE_SWIPE, true);
+    }
+
+    private void swipeFrame(ViewDecorator decorator, int frame) {
+        decorator.decorate(mCanvas, mViewHolder, dXForFrame(frame), 0, ItemTouchHelper.ACTION_STATE_SWIPE, true);
+    }
+
+    //Alternate between left and right swipes of growing distance
+    private static float dXForFrame(int frame) {
+        float distance = 1 + frame % 1000;
+        return frame % 2 == 0 ? distance : -distance;
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Canvas that drops every draw call, so only the decorator's own allocations are counted.
+     */
+    private static class NoOpCanvas extends Canvas {
+
+        NoOpCanvas() {
+            super(Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888));
+        }
+
+        @Override
+        public boolean clipRect(int left, int top, int right, int bottom) {
+            return true;
+        }
+
+        @Override
+        public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+        }
+
+        @Override
+        public void drawText(String text, float x, float y, Paint paint) {
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+        }
+    }
+
+    /**
+     * Canvas that keeps the last label drawn on it, without copying anything.
+     */
+    private static class LabelCanvas extends NoOpCanvas {
+
+        String mText;
+        float mX;
+        Paint mPaint;
+
+        @Override
+        public void drawText(String text, float x, float y, Paint paint) {
+            mText = text;
+            mX = x;
+            mPaint = paint;
+        }
+    }
+}
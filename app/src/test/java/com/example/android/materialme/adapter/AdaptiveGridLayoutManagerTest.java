@@ -0,0 +1,165 @@
+package com.example.android.materialme.adapter;
+
+import android.content.Context;
+import android.os.Looper;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * The column counts of AdaptiveGridLayoutManager across window widths, its cell widths, and
+ * the layout passes of a resize.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class AdaptiveGridLayoutManagerTest {
+
+    private static final int TARGET_CELL_WIDTH = 300;
+    private static final int HEIGHT = 2000;
+    private static final int ITEM_HEIGHT = 100;
+
+    private Context mContext;
+    private RecyclerView mRecyclerView;
+    private AdaptiveGridLayoutManager mLayoutManager;
+    private int mCellWidthChanges;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mRecyclerView = new RecyclerView(mContext);
+        mLayoutManager = new AdaptiveGridLayoutManager(mContext, TARGET_CELL_WIDTH, 1000);
+        mLayoutManager.setOnCellWidthsChangedListener(layoutManager -> mCellWidthChanges++);
+        mRecyclerView.setLayoutManager(mLayoutManager);
+        mRecyclerView.setAdapter(new ItemAdapter(60));
+    }
+
+    @Test
+    public void columnCount_followsTheWidthClass() {
+        //Compact: phones in portrait, and windows narrower than one cell
+        assertEquals(1, AdaptiveGridLayoutManager.columnCount(200, TARGET_CELL_WIDTH));
+        assertEquals(1, AdaptiveGridLayoutManager.columnCount(360, TARGET_CELL_WIDTH));
+        assertEquals(1, AdaptiveGridLayoutManager.columnCount(599, TARGET_CELL_WIDTH));
+        //Medium: large phones in landscape, small tablets, split screen
+        assertEquals(2, AdaptiveGridLayoutManager.columnCount(600, TARGET_CELL_WIDTH));
+        assertEquals(2, AdaptiveGridLayoutManager.columnCount(839, TARGET_CELL_WIDTH));
+        //Expanded: tablets and desktop windows
+        assertEquals(3, AdaptiveGridLayoutManager.columnCount(960, TARGET_CELL_WIDTH));
+        assertEquals(4, AdaptiveGridLayoutManager.columnCount(1280, TARGET_CELL_WIDTH));
+
+        assertEquals(1, AdaptiveGridLayoutManager.columnCount(0, TARGET_CELL_WIDTH));
+    }
+
+    @Test
+    public void cellBorders_spreadTheRemainder() {
+        for (int spanCount = 1; spanCount <= 7; spanCount++) {
+            for (int totalSpace = spanCount; totalSpace < 50; totalSpace++) {
+                int[] borders = AdaptiveGridLayoutManager.cellBorders(totalSpace, spanCount);
+
+                assertEquals(0, borders[0]);
+                assertEquals(totalSpace, borders[spanCount]);
+                for (int i = 0; i < spanCount; i++) {
+                    int width = borders[i + 1] - borders[i];
+                    assertTrue(width == totalSpace / spanCount || width == totalSpace / spanCount + 1);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void cellWidths_areThoseLaidOut() {
+        layout(1001);
+
+        assertEquals(3, mLayoutManager.getSpanCount());
+        assertCellWidthsMatchTheChildren();
+    }
+
+    @Test
+    public void resize_isOneLayoutPass() {
+        layout(1000);
+        int layouts = mLayoutManager.getLayoutCount();
+        int changes = mCellWidthChanges;
+
+        layout(1523);
+        shadowOf(Looper.getMainLooper()).idle();
+
+        //Laid out once at the new column count, nothing requested another pass
+        assertEquals(5, mLayoutManager.getSpanCount());
+        assertEquals(layouts + 1, mLayoutManager.getLayoutCount());
+        assertEquals(changes + 1, mCellWidthChanges);
+        assertFalse(mRecyclerView.isLayoutRequested());
+        assertCellWidthsMatchTheChildren();
+
+        //Narrower than one cell
+        layout(250);
+        assertEquals(1, mLayoutManager.getSpanCount());
+        assertEquals(layouts + 2, mLayoutManager.getLayoutCount());
+        assertCellWidthsMatchTheChildren();
+    }
+
+    @Test
+    public void sameWidth_keepsTheCells() {
+        layout(1000);
+        int changes = mCellWidthChanges;
+
+        mRecyclerView.requestLayout();
+        layout(1000);
+
+        assertEquals(changes, mCellWidthChanges);
+    }
+
+    private void layout(int width) {
+        mRecyclerView.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mRecyclerView.layout(0, 0, width, HEIGHT);
+    }
+
+    private void assertCellWidthsMatchTheChildren() {
+        assertTrue(mRecyclerView.getChildCount() > 0);
+        for (int i = 0; i < mRecyclerView.getChildCount(); i++) {
+            View child = mRecyclerView.getChildAt(i);
+            GridLayoutManager.LayoutParams params = (GridLayoutManager.LayoutParams) child.getLayoutParams();
+            assertEquals(mLayoutManager.getCellWidth(params.getSpanIndex(), params.getSpanSize()), child.getWidth());
+        }
+    }
+
+    /**
+     * Items of a fixed height filling their cell.
+     */
+    private static class ItemAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+        private final int mCount;
+
+        ItemAdapter(int count) {
+            mCount = count;
+        }
+
+        @NonNull
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            View view = new View(parent.getContext());
+            view.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ITEM_HEIGHT));
+            return new RecyclerView.ViewHolder(view) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        }
+
+        @Override
+        public int getItemCount() {
+            return mCount;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.android.materialme.adapter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that DragReorder merges the steps of a drag into the one move that has the same effect.
+ */
+public class DragReorderTest {
+
+    private static final int LIST_SIZE = 1_000;
+
+    private final List<int[]> mReorders = new ArrayList<>();
+    private DragReorder mDragReorder;
+
+    @Before
+    public void setUp() {
+        mDragReorder = new DragReorder((from, to) -> mReorders.add(new int[]{from, to}));
+    }
+
+    @Test
+    public void longDrag_isOneMove() {
+        List<Integer> stepped = numbers(LIST_SIZE);
+        for (int position = 10; position < 910; position++) {
+            step(stepped, position, position + 1);
+        }
+        mDragReorder.finish();
+
+        assertEquals(1, mReorders.size());
+        assertArrayEquals(new int[]{10, 910}, mReorders.get(0));
+        assertEquals(stepped, replay(numbers(LIST_SIZE)));
+    }
+
+    @Test
+    public void backAndForth_backToStart_movesNothing() {
+        List<Integer> stepped = numbers(LIST_SIZE);
+        int position = 500;
+        for (int i = 0; i < 200; i++) {
+            step(stepped, position, position - 1);
+            step(stepped, position - 1, position);
+        }
+        mDragReorder.finish();
+
+        assertTrue(mReorders.isEmpty());
+        assertEquals(numbers(LIST_SIZE), stepped);
+    }
+
+    @Test
+    public void randomDrags_matchStepByStep() {
+        Random random = new Random(42);
+        List<Integer> stepped = numbers(LIST_SIZE);
+
+        for (int drag = 0; drag < 50; drag++) {
+            int position = random.nextInt(LIST_SIZE);
+            int steps = random.nextInt(300);
+            for (int i = 0; i < steps; i++) {
+                //Rapid back-and-forth, with jumps of a whole grid row now and then
+                int delta = random.nextInt(5) - 2;
+                int target = Math.max(0, Math.min(LIST_SIZE - 1, position + delta));
+                if (target == position) continue;
+
+                step(stepped, position, target);
+                position = target;
+            }
+            mDragReorder.finish();
+        }
+
+        assertTrue(mReorders.size() <= 50);
+        assertEquals(stepped, replay(numbers(LIST_SIZE)));
+    }
+
+    @Test
+    public void unrelatedMove_endsCurrentDrag() {
+        mDragReorder.onMove(1, 2);
+        mDragReorder.onMove(5, 6);
+        mDragReorder.finish();
+
+        assertEquals(2, mReorders.size());
+        assertArrayEquals(new int[]{1, 2}, mReorders.get(0));
+        assertArrayEquals(new int[]{5, 6}, mReorders.get(1));
+    }
+
+    @Test
+    public void finishWithoutDrag_reportsNothing() {
+        mDragReorder.finish();
+
+        assertFalse(mDragReorder.isDragging());
+        assertTrue(mReorders.isEmpty());
+    }
+
+    private void step(List<Integer> list, int from, int to) {
+        list.add(to, list.remove(from));
+        mDragReorder.onMove(from, to);
+    }
+
+    private List<Integer> replay(List<Integer> list) {
+        for (int[] reorder : mReorders) {
+            list.add(reorder[1], list.remove(reorder[0]));
+        }
+        return list;
+    }
+
+    private static List<Integer> numbers(int count) {
+        List<Integer> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(i);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.android.materialme.adapter;
+
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+import com.example.android.materialme.model.Sport;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that FilterDiff turns one list into the other with range operations.
+ */
+public class FilterDiffTest {
+
+    @Test
+    public void narrowingAndWidening_replayToTheNewList() {
+        Random random = new Random(3);
+        List<Sport> all = sports(2_000);
+
+        for (int run = 0; run < 200; run++) {
+            List<Sport> filtered = new ArrayList<>();
+            for (Sport sport : all) {
+                if (random.nextInt(10) < run % 10) filtered.add(sport);
+            }
+
+            assertReplays(all, filtered);
+            assertReplays(filtered, all);
+        }
+    }
+
+    @Test
+    public void adjacentItems_areOneRange() {
+        List<Sport> all = sports(10);
+        List<String> operations = dispatch(all, Arrays.asList(all.get(0), all.get(1), all.get(8), all.get(9)));
+
+        assertEquals(Arrays.asList("remove 2,6"), operations);
+    }
+
+    @Test
+    public void changedItem_isChange() {
+        List<Sport> all = sports(3);
+        List<Sport> changed = new ArrayList<>(all);
+        changed.set(1, new Sport(1, "Sport 1", "Fresh news", 1));
+
+        assertEquals(Arrays.asList("change 1,1"), dispatch(all, changed));
+    }
+
+    @Test
+    public void reorderedList_isLeftToDiffUtil() {
+        List<Sport> all = sports(3);
+
+        assertNull(FilterDiff.calculate(all, Arrays.asList(all.get(2), all.get(0), all.get(1))));
+        assertNull(FilterDiff.calculate(all, Arrays.asList(all.get(1), new Sport(7, "Other", "News", 7))));
+    }
+
+    private static void assertReplays(List<Sport> oldList, List<Sport> newList) {
+        final List<Sport> replayed = new ArrayList<>(oldList);
+        FilterDiff diff = FilterDiff.calculate(oldList, newList);
+        diff.dispatchUpdatesTo(new ListUpdateCallback() {
+            @Override
+            public void onInserted(int position, int count) {
+                //The inserted items are the new list's, at the same positions
+                replayed.addAll(position, newList.subList(position, position + count));
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                replayed.subList(position, position + count).clear();
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                fail("filters never move items");
+            }
+
+            @Override
+            public void onChanged(int position, int count, Object payload) {
+                fail("nothing changed");
+            }
+        });
+        assertEquals(newList, replayed);
+    }
+
+    private static List<String> dispatch(List<Sport> oldList, List<Sport> newList) {
+        final List<String> operations = new ArrayList<>();
+        FilterDiff.calculate(oldList, newList).dispatchUpdatesTo(new ListUpdateCallback() {
+            @Override
+            public void onInserted(int position, int count) {
+                operations.add("insert " + position + "," + count);
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                operations.add("remove " + position + "," + count);
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                operations.add("move " + fromPosition + "," + toPosition);
+            }
+
+            @Override
+            public void onChanged(int position, int count, Object payload) {
+                operations.add("change " + position + "," + count);
+            }
+        });
+        return operations;
+    }
+
+    private static List<Sport> sports(int count) {
+        List<Sport> sports = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            sports.add(new Sport(i, "Sport " + i, "News " + i, i));
+        }
+        return sports;
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.android.materialme.adapter;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.android.materialme.metrics.ListMetrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Holding back, dropping and resuming card image loads with ImageLoadScheduler while a
+ * simulated grid scrolls and flings.
+ */
+public class ImageLoadSchedulerTest {
+
+    private static final int FAST_SCROLL_PIXELS = 100;
+    //A screen of cards, and the cards the layout binds ahead of it
+    private static final int VISIBLE_COUNT = 6;
+    private static final int PREFETCH_COUNT = 2;
+    private static final int IMAGE_COUNT = 11;
+
+    /**
+     * A card of the simulated grid, its loads are logged and finish when the test says so.
+     */
+    private class Card implements ImageLoadScheduler.ImageTarget {
+
+        final int mPosition;
+
+        Card(int position) {
+            this.mPosition = position;
+        }
+
+        @Override
+        public void startLoad() {
+            mEvents.add("start " + mPosition);
+        }
+
+        @Override
+        public void cancelLoad() {
+            mEvents.add("cancel " + mPosition);
+        }
+
+        @Override
+        public int getLayoutPosition() {
+            return mPosition;
+        }
+
+        @Override
+        public boolean isVisible() {
+            return mPosition >= mFirstVisible && mPosition < mFirstVisible + VISIBLE_COUNT;
+        }
+    }
+
+    private final ListMetrics mMetrics = ListMetrics.getInstance();
+    private final List<String> mEvents = new ArrayList<>();
+    private final Map<Integer, Card> mShown = new TreeMap<>();
+    private ImageLoadScheduler mScheduler;
+    private int mFirstVisible;
+
+    @Before
+    public void setUp() {
+        mMetrics.reset();
+        mScheduler = new ImageLoadScheduler(FAST_SCROLL_PIXELS, mMetrics);
+    }
+
+    @Test
+    public void idleList_loadsAtOnce() {
+        showFrom(0);
+
+        assertEquals(Arrays.asList("start 0", "start 1", "start 2", "start 3", "start 4", "start 5",
+                "start 6", "start 7"), mEvents);
+        assertFalse(mScheduler.isPaused());
+    }
+
+    @Test
+    public void fling_holdsLoadsBackAndResumesVisibleFirst() {
+        showFrom(0);
+        finishLoads();
+        mEvents.clear();
+
+        //Each frame lays out before the scroll is reported, the first one still loads
+        mScheduler.scrollStateChanged(RecyclerView.SCROLL_STATE_SETTLING);
+        int first = 0;
+        for (int frame = 0; frame < 20; frame++) {
+            first += 4;
+            showFrom(first);
+            mScheduler.scrolled(2 * FAST_SCROLL_PIXELS);
+        }
+
+        assertTrue(mScheduler.isPaused());
+        assertEquals(Arrays.asList("start 8", "start 9", "start 10", "start 11"), starts());
+
+        //Slowing down, the visible cards load first, then the ones bound ahead
+        mEvents.clear();
+        mScheduler.scrolled(FAST_SCROLL_PIXELS / 4);
+
+        assertFalse(mScheduler.isPaused());
+        assertEquals(Arrays.asList("start 80", "start 81", "start 82", "start 83", "start 84", "start 85",
+                "start 86", "start 87"), starts());
+
+        //88 cards were bound, 20 loads started
+        assertEquals(20, mMetrics.getLoadCount(ListMetrics.LOAD_STARTED));
+        assertEquals(76, mMetrics.getLoadCount(ListMetrics.LOAD_DEFERRED));
+        //Held back and recycled before they started
+        assertEquals(68, mMetrics.getLoadCount(ListMetrics.LOAD_SKIPPED));
+        //8 to 11, still loading when the fling recycled them
+        assertEquals(4, mMetrics.getLoadCount(ListMetrics.LOAD_CANCELLED));
+        assertEquals(72, mMetrics.getWastedDecodesAvoided());
+    }
+
+    @Test
+    public void flingEnd_resumesTheLoads() {
+        showFrom(0);
+        mScheduler.scrollStateChanged(RecyclerView.SCROLL_STATE_SETTLING);
+        mScheduler.scrolled(2 * FAST_SCROLL_PIXELS);
+        showFrom(40);
+        mEvents.clear();
+
+        mScheduler.scrollStateChanged(RecyclerView.SCROLL_STATE_IDLE);
+
+        assertEquals(8, starts().size());
+        assertEquals("start 40", starts().get(0));
+    }
+
+    @Test
+    public void dragging_neverHoldsLoadsBack() {
+        mScheduler.scrollStateChanged(RecyclerView.SCROLL_STATE_DRAGGING);
+        mScheduler.scrolled(10 * FAST_SCROLL_PIXELS);
+
+        showFrom(0);
+
+        assertFalse(mScheduler.isPaused());
+        assertEquals(8, starts().size());
+    }
+
+    @Test
+    public void slowFling_keepsLoading() {
+        mScheduler.scrollStateChanged(RecyclerView.SCROLL_STATE_SETTLING);
+        mScheduler.scrolled(FAST_SCROLL_PIXELS - 1);
+
+        showFrom(0);
+
+        assertEquals(8, starts().size());
+    }
+
+    @Test
+    public void sameImage_isNotLoadedTwice() {
+        Card card = new Card(0);
+        mScheduler.submit(card, 7);
+        //Rebound while loading, e.g. its title changed, and again once loaded
+        mScheduler.submit(card, 7);
+        mScheduler.onLoadFinished(card, true);
+        mScheduler.submit(card, 7);
+
+        //Another card with the same image while the first decodes joins that decode
+        Card other = new Card(1);
+        Card third = new Card(2);
+        mScheduler.submit(other, 9);
+        mScheduler.submit(third, 9);
+
+        assertEquals(Arrays.asList("start 0", "start 1", "start 2"), starts());
+        assertEquals(3, mMetrics.getLoadCount(ListMetrics.LOAD_DEDUPLICATED));
+    }
+
+    @Test
+    public void failedLoad_isLoadedAgainWhenRebound() {
+        Card card = new Card(0);
+        mScheduler.submit(card, 7);
+        mScheduler.onLoadFinished(card, false);
+
+        mScheduler.submit(card, 7);
+
+        assertEquals(Arrays.asList("start 0", "start 0"), starts());
+    }
+
+    @Test
+    public void recycledCard_isCleared() {
+        Card card = new Card(0);
+        mScheduler.submit(card, 7);
+        mScheduler.onLoadFinished(card, true);
+
+        mScheduler.cancel(card);
+
+        assertEquals(Arrays.asList("start 0", "cancel 0"), mEvents);
+        assertEquals(0, mMetrics.getWastedDecodesAvoided());
+    }
+
+    @Test
+    public void reboundWhilePaused_clearsTheOldImage() {
+        Card card = new Card(0);
+        mScheduler.submit(card, 7);
+        mScheduler.onLoadFinished(card, true);
+        mScheduler.scrollStateChanged(RecyclerView.SCROLL_STATE_SETTLING);
+        mScheduler.scrolled(2 * FAST_SCROLL_PIXELS);
+
+        mScheduler.submit(card, 8);
+        mScheduler.scrollStateChanged(RecyclerView.SCROLL_STATE_IDLE);
+
+        assertEquals(Arrays.asList("start 0", "cancel 0", "start 0"), mEvents);
+    }
+
+    //Lays the grid out from a position: recycles the cards that left, binds the ones that came in
+    private void showFrom(int first) {
+        mFirstVisible = first;
+        int end = first + VISIBLE_COUNT + PREFETCH_COUNT;
+        for (Iterator<Map.Entry<Integer, Card>> i = mShown.entrySet().iterator(); i.hasNext(); ) {
+            Map.Entry<Integer, Card> entry = i.next();
+            if (entry.getKey() < first || entry.getKey() >= end) {
+                mScheduler.cancel(entry.getValue());
+                i.remove();
+            }
+        }
+        for (int position = first; position < end; position++) {
+            if (mShown.containsKey(position)) continue;
+            Card card = new Card(position);
+            mShown.put(position, card);
+            mScheduler.submit(card, position % IMAGE_COUNT);
+        }
+    }
+
+    private void finishLoads() {
+        for (Card card : mShown.values()) {
+            mScheduler.onLoadFinished(card, true);
+        }
+    }
+
+    private List<String> starts() {
+        List<String> starts = new ArrayList<>();
+        for (String event : mEvents) {
+            if (event.startsWith("start")) starts.add(event);
+        }
+        return starts;
+    }
+}
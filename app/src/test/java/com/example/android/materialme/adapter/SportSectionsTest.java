@@ -0,0 +1,262 @@
+package com.example.android.materialme.adapter;
+
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+import com.example.android.materialme.model.Sport;
+import com.example.android.materialme.model.SportCategories;
+import com.example.android.materialme.model.SportOrder;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Sorting and grouping of SportSections, its in-place updates, also at scale.
+ */
+public class SportSectionsTest {
+
+    private static final int BALL_IMAGE = 11;
+    private static final int RACKET_IMAGE = 12;
+    private static final int OTHER_IMAGE = 13;
+
+    private static final Sport BASEBALL = new Sport(1, "Baseball", "Baseball news", BALL_IMAGE);
+    private static final Sport BADMINTON = new Sport(2, "Badminton", "Badminton news", RACKET_IMAGE);
+    private static final Sport CYCLING = new Sport(3, "Cycling", "Cycling news", OTHER_IMAGE);
+    private static final Sport TENNIS = new Sport(4, "Tennis", "Tennis news", RACKET_IMAGE);
+    private static final Sport TABLE_TENNIS = new Sport(5, "table tennis", "Table tennis news", RACKET_IMAGE);
+    private static final Sport STREETBALL = new Sport(6, "3x3 Basketball", "Street news", BALL_IMAGE);
+
+    private SportOrder mByCategory;
+    private List<String> mOperations;
+
+    @Before
+    public void setUp() {
+        Map<Integer, String> categories = new HashMap<>();
+        categories.put(BALL_IMAGE, "Ball games");
+        categories.put(RACKET_IMAGE, "Racket sports");
+        mByCategory = SportOrder.byCategory(new SportCategories(categories, "Other"));
+        mOperations = new ArrayList<>();
+    }
+
+    @Test
+    public void byTitle_groupsByInitialIgnoringCase() {
+        SportSections sections = SportSections.sort(
+                Arrays.asList(TENNIS, BASEBALL, CYCLING, STREETBALL, TABLE_TENNIS, BADMINTON), SportOrder.byTitle());
+
+        assertEquals(Arrays.asList("#", STREETBALL, "B", BADMINTON, BASEBALL, "C", CYCLING, "T", TABLE_TENNIS, TENNIS),
+                rows(sections));
+    }
+
+    @Test
+    public void byCategory_groupsByCategoryThenTitle() {
+        SportSections sections = SportSections.sort(
+                Arrays.asList(TENNIS, BASEBALL, CYCLING, STREETBALL, TABLE_TENNIS, BADMINTON), mByCategory);
+
+        assertEquals(Arrays.asList("Ball games", STREETBALL, BASEBALL, "Other", CYCLING,
+                "Racket sports", BADMINTON, TABLE_TENNIS, TENNIS), rows(sections));
+        assertTrue(sections.isHeader(0));
+        assertFalse(sections.isHeader(1));
+        assertTrue(sections.isHeader(3));
+        assertNull(sections.getSport(5));
+        assertEquals(BADMINTON, sections.getSport(6));
+    }
+
+    @Test
+    public void equalKeys_keepTheUserOrder() {
+        Sport first = new Sport(10, "Golf", "First", OTHER_IMAGE);
+        Sport second = new Sport(11, "golf", "Second", OTHER_IMAGE);
+        Sport third = new Sport(12, "GOLF", "Third", OTHER_IMAGE);
+
+        SportSections sections = SportSections.sort(Arrays.asList(second, third, first), SportOrder.byTitle());
+
+        assertEquals(Arrays.asList("G", second, third, first), rows(sections));
+    }
+
+    @Test
+    public void removals_moveTheHeadersAfterThem() {
+        List<Sport> source = new ArrayList<>(Arrays.asList(TENNIS, BASEBALL, CYCLING, TABLE_TENNIS, BADMINTON));
+        SportSections sections = SportSections.sort(source, mByCategory);
+
+        //The only sport of its section takes the header along
+        source.remove(BASEBALL);
+        sections.remove(BASEBALL, new Recorder());
+        assertEquals(Arrays.asList("Other", CYCLING, "Racket sports", BADMINTON, TABLE_TENNIS, TENNIS), rows(sections));
+        assertTrue(sections.isHeader(2));
+
+        source.remove(TABLE_TENNIS);
+        sections.remove(TABLE_TENNIS, new Recorder());
+        assertEquals(Arrays.asList("Other", CYCLING, "Racket sports", BADMINTON, TENNIS), rows(sections));
+
+        assertEquals(Arrays.asList("remove 0,2", "remove 4,1"), mOperations);
+        assertEquals(rows(SportSections.sort(source, mByCategory)), rows(sections));
+    }
+
+    @Test
+    public void insertions_goWhereTheSortPutsThem() {
+        List<Sport> source = new ArrayList<>(Arrays.asList(TENNIS, CYCLING));
+        SportSections sections = SportSections.sort(source, mByCategory);
+
+        source.add(0, BASEBALL);
+        sections.insert(BASEBALL, source, new Recorder());
+        source.add(BADMINTON);
+        sections.insert(BADMINTON, source, new Recorder());
+
+        assertEquals(Arrays.asList("Ball games", BASEBALL, "Other", CYCLING, "Racket sports", BADMINTON, TENNIS),
+                rows(sections));
+        assertEquals(Arrays.asList("insert 0,2", "insert 5,1"), mOperations);
+        assertEquals(5, sections.rowOf(BADMINTON));
+    }
+
+    @Test
+    public void randomEdits_matchAFullSort() {
+        Random random = new Random(15);
+        List<Sport> source = catalog(2_000);
+        SportSections sections = SportSections.sort(source, mByCategory);
+        List<Sport> removed = new ArrayList<>();
+        List<Object> mirror = new ArrayList<>(rows(sections));
+
+        for (int run = 0; run < 2_000; run++) {
+            if (removed.isEmpty() || (random.nextBoolean() && !source.isEmpty())) {
+                Sport sport = source.remove(random.nextInt(source.size()));
+                sections.remove(sport, new Mirror(mirror, sections));
+                removed.add(sport);
+            } else {
+                Sport sport = removed.remove(random.nextInt(removed.size()));
+                source.add(random.nextInt(source.size() + 1), sport);
+                sections.insert(sport, source, new Mirror(mirror, sections));
+            }
+        }
+
+        List<Object> sorted = rows(SportSections.sort(source, mByCategory));
+        assertEquals(sorted, rows(sections));
+        //The reported operations turn the old rows into the new ones
+        assertEquals(sorted, mirror);
+    }
+
+    @Test
+    public void sortAtScale_isStableAndEditsReportOnlyTheirRow() {
+        List<Sport> source = catalog(100_000);
+        SportSections sections = SportSections.sort(source, SportOrder.byTitle());
+
+        //Equal titles in the catalog keep the user's order
+        Sport previous = null;
+        for (int row = 0; row < sections.size(); row++) {
+            Sport sport = sections.getSport(row);
+            if (sport != null && previous != null && sport.getTitle().equalsIgnoreCase(previous.getTitle())) {
+                assertTrue(previous.getId() < sport.getId());
+            }
+            previous = sport;
+        }
+
+        //A swipe and its undo touch the row of the sport alone, the rest is not sorted again
+        Random random = new Random(100);
+        List<Object> before = rows(sections);
+        for (int i = 0; i < 100; i++) {
+            Sport sport = source.get(random.nextInt(source.size()));
+            int row = sections.rowOf(sport);
+            mOperations.clear();
+
+            sections.remove(sport, new Recorder());
+            sections.insert(sport, source, new Recorder());
+
+            assertEquals(Arrays.asList("remove " + row + ",1", "insert " + row + ",1"), mOperations);
+        }
+        assertEquals(before, rows(sections));
+    }
+
+    //Unique ids in user order, the titles repeat every 50 sports
+    private static List<Sport> catalog(int count) {
+        String[] titles = {"Baseball", "Badminton", "Cycling", "Tennis", "Table tennis"};
+        int[] images = {BALL_IMAGE, RACKET_IMAGE, OTHER_IMAGE, RACKET_IMAGE, RACKET_IMAGE};
+        List<Sport> sports = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int kind = i % titles.length;
+            sports.add(new Sport(i, titles[kind] + " " + (i / titles.length) % 10, "News " + i, images[kind]));
+        }
+        Collections.shuffle(sports, new Random(count));
+        //Renumber, so the ids follow the user order
+        for (int i = 0; i < count; i++) {
+            Sport sport = sports.get(i);
+            sports.set(i, new Sport(i, sport.getTitle(), sport.getInfo(), sport.getImageResource()));
+        }
+        return sports;
+    }
+
+    //Headers as their titles, to compare rows with plain lists
+    private static List<Object> rows(SportSections sections) {
+        List<Object> rows = new ArrayList<>();
+        for (Object row : sections.rows()) {
+            rows.add(row instanceof SportSections.Header ? ((SportSections.Header) row).mTitle : row);
+        }
+        return rows;
+    }
+
+    private class Recorder implements ListUpdateCallback {
+
+        @Override
+        public void onInserted(int position, int count) {
+            mOperations.add("insert " + position + "," + count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            mOperations.add("remove " + position + "," + count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            mOperations.add("move " + fromPosition + "," + toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            mOperations.add("change " + position + "," + count);
+        }
+    }
+
+    /**
+     * Applies the reported operations to a copy of the rows, like a RecyclerView would.
+     */
+    private static class Mirror implements ListUpdateCallback {
+
+        private final List<Object> mRows;
+        private final SportSections mSections;
+
+        Mirror(List<Object> rows, SportSections sections) {
+            this.mRows = rows;
+            this.mSections = sections;
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            for (int i = position; i < position + count; i++) {
+                Object row = mSections.rows().get(i);
+                mRows.add(i, row instanceof SportSections.Header ? ((SportSections.Header) row).mTitle : row);
+            }
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            mRows.subList(position, position + count).clear();
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            fail("sections never move rows");
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            fail("sections never change rows");
+        }
+    }
+}
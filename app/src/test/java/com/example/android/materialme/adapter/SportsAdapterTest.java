@@ -0,0 +1,364 @@
+package com.example.android.materialme.adapter;
+
+import android.content.Context;
+
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.android.materialme.model.Sport;
+import com.example.android.materialme.model.SportColumns;
+import com.example.android.materialme.model.SportOrder;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the update operations SportsAdapter emits when new snapshots are submitted.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SportsAdapterTest {
+
+    private static final Sport BASEBALL = new Sport(1, "Baseball", "Baseball news", 11);
+    private static final Sport BADMINTON = new Sport(2, "Badminton", "Badminton news", 12);
+    private static final Sport BASKETBALL = new Sport(3, "Basketball", "Basketball news", 13);
+    private static final Sport BOWLING = new Sport(4, "Bowling", "Bowling news", 14);
+    private static final Sport CYCLING = new Sport(5, "Cycling", "Cycling news", 15);
+
+    private final Executor mDirectExecutor = Runnable::run;
+
+    private Context mContext;
+    private List<String> mOperations;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mOperations = new ArrayList<>();
+    }
+
+    @Test
+    public void firstSnapshot_isSingleRangeInsert() {
+        SportsAdapter adapter = createAdapter(mDirectExecutor);
+
+        adapter.submitList(Arrays.asList(BASEBALL, BADMINTON, BASKETBALL));
+
+        assertEquals(Arrays.asList("insert 0,3"), mOperations);
+        assertEquals(3, adapter.getItemCount());
+    }
+
+    @Test
+    public void identicalSnapshot_emitsNothing() {
+        SportsAdapter adapter = createAdapter(mDirectExecutor);
+        adapter.submitList(Arrays.asList(BASEBALL, BADMINTON, BASKETBALL));
+        mOperations.clear();
+
+        adapter.submitList(Arrays.asList(
+                new Sport(1, "Baseball", "Baseball news", 11),
+                new Sport(2, "Badminton", "Badminton news", 12),
+                new Sport(3, "Basketball", "Basketball news", 13)));
+
+        assertTrue(mOperations.isEmpty());
+    }
+
+    @Test
+    public void changedContent_emitsSingleChange() {
+        SportsAdapter adapter = createAdapter(mDirectExecutor);
+        adapter.submitList(Arrays.asList(BASEBALL, BADMINTON, BASKETBALL));
+        mOperations.clear();
+
+        adapter.submitList(Arrays.asList(BASEBALL, new Sport(2, "Badminton", "New badminton news", 12), BASKETBALL));
+
+        assertEquals(Arrays.asList("change 1,1"), mOperations);
+    }
+
+    @Test
+    public void refreshAfterDelete_emitsSingleInsert() {
+        SportsAdapter adapter = createAdapter(mDirectExecutor);
+        adapter.submitList(Arrays.asList(BASEBALL, BADMINTON, BASKETBALL));
+        adapter.removeItem(1);
+        mOperations.clear();
+
+        adapter.submitList(Arrays.asList(BASEBALL, BADMINTON, BASKETBALL));
+
+        assertEquals(Arrays.asList("insert 1,1"), mOperations);
+    }
+
+    @Test
+    public void reorder_emitsMove() {
+        SportsAdapter adapter = createAdapter(mDirectExecutor);
+        adapter.submitList(Arrays.asList(BASEBALL, BADMINTON, BASKETBALL, BOWLING));
+        mOperations.clear();
+
+        adapter.submitList(Arrays.asList(BADMINTON, BASKETBALL, BOWLING, BASEBALL));
+
+        assertEquals(1, mOperations.size());
+        assertTrue(mOperations.get(0).startsWith("move"));
+        assertEquals(BASEBALL, adapter.mSportList.get(3));
+    }
+
+    @Test
+    public void localEdits_emitTargetedEvents() {
+        SportsAdapter adapter = createAdapter(mDirectExecutor);
+        adapter.submitList(Arrays.asList(BASEBALL, BADMINTON, BASKETBALL));
+        mOperations.clear();
+
+        Sport removed = adapter.removeItem(0);
+        adapter.restoreItem(removed, 0);
+        adapter.moveItem(0, 1);
+
+        assertEquals(Arrays.asList("remove 0,1", "insert 0,1", "move 0,1"), mOperations);
+    }
+
+    @Test
+    public void quickRemovals_areRestoredInTheirOwnPlace() {
+        SportsAdapter adapter = createAdapter(mDirectExecutor);
+        adapter.submitList(Arrays.asList(BASEBALL, BADMINTON, BASKETBALL, BOWLING));
+        mOperations.clear();
+
+        Sport first = adapter.removeItem(1);
+        adapter.removeItem(1);
+        adapter.restoreItem(first, 1);
+
+        assertEquals(Arrays.asList(BASEBALL, BADMINTON, BOWLING), adapter.mSportList);
+        assertEquals(Arrays.asList("remove 1,1", "remove 1,1", "insert 1,1"), mOperations);
+    }
+
+    @Test
+    public void undoAndRedo_emitTargetedEvents() {
+        SportsAdapter adapter = createAdapter(mDirectExecutor);
+        adapter.submitList(Arrays.asList(BASEBALL, BADMINTON, BASKETBALL));
+        adapter.moveItem(0, 1);
+        adapter.moveItem(1, 2);
+        adapter.finishMove();
+        mOperations.clear();
+
+        assertTrue(adapter.undo());
+        assertEquals(Arrays.asList(BASEBALL, BADMINTON, BASKETBALL), adapter.mSportList);
+        assertTrue(adapter.redo());
+        assertEquals(Arrays.asList(BADMINTON, BASKETBALL, BASEBALL), adapter.mSportList);
+        assertEquals(Arrays.asList("move 2,0", "move 0,2"), mOperations);
+    }
+
+    @Test
+    public void localEditDuringDiff_rediffsAgainstEditedData() {
+        QueueExecutor background = new QueueExecutor();
+        SportsAdapter adapter = createAdapter(background);
+        adapter.submitList(Arrays.asList(BASEBALL, BADMINTON, BASKETBALL));
+
+        adapter.submitList(Arrays.asList(BASEBALL, BADMINTON, BASKETBALL, BOWLING));
+        adapter.removeItem(0);
+        mOperations.clear();
+        background.runAll();
+
+        //The stale diff is dropped, the re-run adds back the removed item and the new one
+        assertEquals(Arrays.asList(BASEBALL, BADMINTON, BASKETBALL, BOWLING), adapter.mSportList);
+        assertEquals(2, mOperations.size());
+    }
+
+    @Test
+    public void itemIds_areStable() {
+        SportsAdapter adapter = createAdapter(mDirectExecutor);
+        adapter.submitList(Arrays.asList(BASEBALL, BADMINTON));
+
+        assertTrue(adapter.hasStableIds());
+        assertEquals(2, adapter.getItemId(1));
+    }
+
+    @Test
+    public void sortedList_headersSpanTheGrid() {
+        SportsAdapter adapter = createAdapter(mDirectExecutor);
+        adapter.submitList(Arrays.asList(CYCLING, BOWLING, BASEBALL));
+        adapter.setOrder(SportOrder.byTitle());
+
+        GridLayoutManager layoutManager = new GridLayoutManager(mContext, 3);
+        GridLayoutManager.SpanSizeLookup lookup = adapter.createSpanSizeLookup(layoutManager);
+
+        //B, Baseball, Bowling, C, Cycling
+        assertEquals(5, adapter.getItemCount());
+        assertEquals(3, lookup.getSpanSize(0));
+        assertEquals(1, lookup.getSpanSize(1));
+        assertEquals(1, lookup.getSpanSize(2));
+        assertEquals(3, lookup.getSpanSize(3));
+        assertEquals(SportsAdapter.VIEW_TYPE_HEADER, adapter.getItemViewType(3));
+        assertEquals(SportsAdapter.VIEW_TYPE_SPORT, adapter.getItemViewType(4));
+        assertEquals(CYCLING, adapter.getItem(4));
+        //Cycling starts a new row of the grid after its header
+        assertEquals(0, lookup.getSpanIndex(4, 3));
+    }
+
+    @Test
+    public void sortedList_swipeAndRestoreUpdateTheSections() {
+        SportsAdapter adapter = createAdapter(mDirectExecutor);
+        adapter.submitList(Arrays.asList(CYCLING, BOWLING, BASEBALL));
+        adapter.setOrder(SportOrder.byTitle());
+        mOperations.clear();
+
+        //The last sport of a section takes its header along, and brings it back
+        Sport removed = adapter.removeItem(4);
+        assertEquals(CYCLING, removed);
+        assertEquals(3, adapter.getItemCount());
+        assertEquals(4, adapter.restoreItem(removed, 4));
+
+        //Bowling is at row 2 of the grid, the history removes it from the user's order
+        adapter.removeItem(2);
+        assertEquals(Arrays.asList(CYCLING, BASEBALL), adapter.mSportList);
+
+        assertEquals(Arrays.asList("remove 3,2", "insert 3,2", "remove 2,1"), mOperations);
+        assertTrue(adapter.undo());
+        assertEquals(Arrays.asList(CYCLING, BOWLING, BASEBALL), adapter.mSportList);
+    }
+
+    @Test
+    public void backToUserOrder_dropsTheHeaders() {
+        SportsAdapter adapter = createAdapter(mDirectExecutor);
+        adapter.submitList(Arrays.asList(CYCLING, BOWLING, BASEBALL));
+        adapter.setOrder(SportOrder.byTitle());
+        adapter.setOrder(null);
+
+        assertEquals(3, adapter.getItemCount());
+        assertFalse(adapter.isHeader(0));
+        assertEquals(CYCLING, adapter.getItem(0));
+    }
+
+    @Test
+    public void columns_areShownReadOnly() {
+        SportsAdapter adapter = createAdapter(mDirectExecutor);
+        adapter.submitList(Arrays.asList(BASEBALL, BADMINTON));
+        adapter.submitColumns(SportColumns.of(Arrays.asList(CYCLING, BOWLING, BASKETBALL)));
+
+        assertEquals(3, adapter.getItemCount());
+        assertEquals(4, adapter.getItemId(1));
+        assertEquals(BASKETBALL, adapter.getItem(2));
+        assertFalse(adapter.isEditable());
+        try {
+            adapter.removeItem(0);
+            fail("columns cannot be edited");
+        } catch (IllegalStateException expected) {
+            assertEquals(3, adapter.getItemCount());
+        }
+
+        //A new list leaves columnar mode
+        adapter.submitList(Arrays.asList(BASEBALL));
+        assertTrue(adapter.isEditable());
+        assertEquals(1, adapter.getItemCount());
+        assertEquals(BASEBALL, adapter.getItem(0));
+    }
+
+    @Test
+    public void identicalSnapshot_keepsTheUndoHistory() {
+        SportsAdapter adapter = createAdapter(mDirectExecutor);
+        adapter.submitList(Arrays.asList(BASEBALL, BADMINTON, BASKETBALL));
+        adapter.removeItem(0);
+
+        adapter.submitList(Arrays.asList(BADMINTON, BASKETBALL));
+
+        assertTrue(adapter.undo());
+        assertEquals(Arrays.asList(BASEBALL, BADMINTON, BASKETBALL), adapter.mSportList);
+    }
+
+    @Test
+    public void nextAdapter_showsTheReleasedListAtOnce() {
+        SportsAdapter adapter = createAdapter(mDirectExecutor);
+        adapter.submitList(Arrays.asList(CYCLING, BOWLING, BASEBALL));
+        SportOrder order = SportOrder.byTitle();
+        adapter.setOrder(order);
+        adapter.removeItem(2);
+
+        SportsAdapter next = new SportsAdapter(mContext, adapter.release(), mDirectExecutor, mDirectExecutor);
+        next.registerAdapterDataObserver(new RecordingObserver());
+        mOperations.clear();
+
+        //B, Baseball, C, Cycling, without sorting again
+        assertSame(order, next.getOrder());
+        assertEquals(4, next.getItemCount());
+        assertTrue(next.isHeader(2));
+        assertEquals(CYCLING, next.getItem(3));
+
+        //The history came along, and its events go to the next adapter only
+        assertTrue(next.undo());
+        assertEquals(Arrays.asList(CYCLING, BOWLING, BASEBALL), next.mSportList);
+        assertEquals(Arrays.asList("insert 2,1"), mOperations);
+    }
+
+    @Test
+    public void diffRunningAtRelease_isRunByTheNextAdapter() {
+        QueueExecutor background = new QueueExecutor();
+        SportsAdapter adapter = createAdapter(background);
+        adapter.submitList(Arrays.asList(BASEBALL, BADMINTON));
+        adapter.submitList(Arrays.asList(BASEBALL, BADMINTON, BASKETBALL));
+
+        SportsAdapter.State state = adapter.release();
+        //Dropped by the released adapter
+        background.runAll();
+        assertEquals(Arrays.asList(BASEBALL, BADMINTON), adapter.mSportList);
+
+        SportsAdapter next = new SportsAdapter(mContext, state, background, mDirectExecutor);
+        background.runAll();
+
+        assertEquals(Arrays.asList(BASEBALL, BADMINTON, BASKETBALL), next.mSportList);
+        assertEquals(3, next.getItemCount());
+    }
+
+    private SportsAdapter createAdapter(Executor backgroundExecutor) {
+        SportsAdapter adapter = new SportsAdapter(mContext, new ArrayList<>(), backgroundExecutor, mDirectExecutor);
+        adapter.registerAdapterDataObserver(new RecordingObserver());
+        return adapter;
+    }
+
+    /**
+     * Holds background work until the test runs it.
+     */
+    private static class QueueExecutor implements Executor {
+
+        private final ArrayDeque<Runnable> mTasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            mTasks.add(command);
+        }
+
+        void runAll() {
+            while (!mTasks.isEmpty()) {
+                mTasks.poll().run();
+            }
+        }
+    }
+
+    private class RecordingObserver extends RecyclerView.AdapterDataObserver {
+
+        @Override
+        public void onChanged() {
+            mOperations.add("changed");
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            mOperations.add("change " + positionStart + "," + itemCount);
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            mOperations.add("insert " + positionStart + "," + itemCount);
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            mOperations.add("remove " + positionStart + "," + itemCount);
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            mOperations.add("move " + fromPosition + "," + toPosition);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.android.materialme.metrics;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+/**
+ * Bucketing and percentiles of LatencyHistogram, and recording from several threads at once.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void buckets_coverEveryDurationOnce() {
+        long previousUpper = 0;
+        for (int bucket = 0; bucket < LatencyHistogram.BUCKET_COUNT; bucket++) {
+            long lower = LatencyHistogram.lowerBoundOf(bucket);
+            long upper = LatencyHistogram.upperBoundOf(bucket);
+            assertEquals(previousUpper, lower);
+            assertEquals(bucket, LatencyHistogram.bucketOf(lower));
+            assertEquals(bucket, LatencyHistogram.bucketOf(upper - 1));
+            //Never wider than an eighth of the durations in it
+            assertTrue(upper - lower <= Math.max(1, lower / 8));
+            previousUpper = upper;
+        }
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE / 1000));
+    }
+
+    @Test
+    public void percentiles_areWithinABucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Long> durations = new ArrayList<>();
+        Random random = new Random(17);
+        for (int i = 0; i < 10_000; i++) {
+            //From 1 us to 50 ms
+            long nanos = 1000 + (long) (random.nextDouble() * random.nextDouble() * 50_000_000);
+            durations.add(nanos);
+            histogram.record(nanos);
+        }
+        Collections.sort(durations);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(10_000, snapshot.getCount());
+        assertEquals((long) durations.get(durations.size() - 1), snapshot.getMaxNanos());
+        for (double percentile : new double[]{50, 90, 99, 99.9}) {
+            long exact = durations.get((int) Math.ceil(durations.size() * percentile / 100) - 1);
+            long estimate = snapshot.getPercentileNanos(percentile);
+            assertTrue(percentile + ": " + estimate + " for " + exact, estimate >= exact);
+            assertTrue(percentile + ": " + estimate + " for " + exact, estimate <= exact + exact / 8 + 1000);
+        }
+    }
+
+    @Test
+    public void emptyAndReset_reportZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.snapshot().getPercentileNanos(99));
+
+        histogram.record(5_000_000);
+        histogram.record(-1);
+        assertEquals(2, histogram.snapshot().getCount());
+        assertEquals(2_500_000, histogram.snapshot().getMeanNanos());
+
+        histogram.reset();
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getMaxNanos());
+        assertEquals(0, snapshot.getMeanNanos());
+    }
+
+    @Test
+    public void concurrentRecording_losesNothing() throws InterruptedException {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final int threads = 4;
+        final int perThread = 100_000;
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int offset = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    histogram.record((i % 1000) * 1000L + offset);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(threads * perThread, snapshot.getCount());
+        assertEquals(999_000 + threads - 1, snapshot.getMaxNanos());
+        //The sum is exact too, the mean of 0..999 us plus the offsets
+        assertEquals(499_500 + 1, snapshot.getMeanNanos());
+    }
+}
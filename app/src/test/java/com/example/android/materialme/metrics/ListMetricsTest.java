@@ -0,0 +1,104 @@
+package com.example.android.materialme.metrics;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * The runtime switch of ListMetrics, jank counting, the report file, and what is recorded.
+ */
+public class ListMetricsTest {
+
+    @Test
+    public void switchedOff_recordsNothingButFailuresAndLoads() {
+        ListMetrics metrics = new ListMetrics();
+
+        long start = metrics.start();
+        metrics.end(ListMetrics.BIND, start);
+        metrics.recordFrame(50_000_000);
+        metrics.recordFailure(ListMetrics.DECORATE);
+        metrics.countLoad(ListMetrics.LOAD_SKIPPED);
+        metrics.countLoad(ListMetrics.LOAD_CANCELLED);
+        metrics.countLoad(ListMetrics.LOAD_STARTED);
+
+        assertEquals(0, start);
+        assertEquals(0, metrics.snapshot(ListMetrics.BIND).getCount());
+        assertEquals(0, metrics.snapshot(ListMetrics.FRAME).getCount());
+        assertEquals(0, metrics.getJankyFrameCount());
+        assertEquals(1, metrics.getFailureCount(ListMetrics.DECORATE));
+        assertEquals(1, metrics.getLoadCount(ListMetrics.LOAD_STARTED));
+        assertEquals(2, metrics.getWastedDecodesAvoided());
+    }
+
+    @Test
+    public void frames_overTheDeadlineAreJanky() {
+        ListMetrics metrics = new ListMetrics();
+        metrics.setEnabled(true);
+        //A 90 Hz display
+        metrics.setFrameDeadlineNanos(11_111_111);
+
+        metrics.recordFrame(8_000_000);
+        metrics.recordFrame(11_000_000);
+        metrics.recordFrame(12_000_000);
+        metrics.recordFrame(40_000_000);
+
+        assertEquals(4, metrics.snapshot(ListMetrics.FRAME).getCount());
+        assertEquals(2, metrics.getJankyFrameCount());
+        assertTrue(metrics.summary(), metrics.summary().startsWith("frames 4  janky 50.0%"));
+
+        metrics.reset();
+        assertEquals(0, metrics.getJankyFrameCount());
+        assertEquals(0, metrics.snapshot(ListMetrics.FRAME).getCount());
+    }
+
+    @Test
+    public void dump_writesEveryMetric() throws IOException {
+        ListMetrics metrics = new ListMetrics();
+        metrics.setEnabled(true);
+        metrics.end(ListMetrics.INFLATE, metrics.start());
+        metrics.record(ListMetrics.IMAGE_LOAD, 3_000_000);
+        metrics.recordFailure(ListMetrics.IMAGE_LOAD);
+
+        File file = File.createTempFile("list-metrics", ".txt");
+        try {
+            metrics.dump(file);
+            String report = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+
+            assertTrue(report, report.startsWith("List metrics, recording on"));
+            for (String name : new String[]{"frame", "bind", "inflate", "decorate", "image load"}) {
+                assertTrue(name, report.contains("\n" + name + " "));
+            }
+            assertTrue(report, report.matches("(?s).*\nimage load +1 +3\\.00ms .* 1\n.*"));
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void recording_countsEveryBindAndNothingWhenOff() {
+        ListMetrics metrics = new ListMetrics();
+        int runs = 1000;
+
+        for (int i = 0; i < 3; i++) {
+            metrics.setEnabled(false);
+            startAndEnd(metrics, runs);
+            assertEquals(i * runs, metrics.snapshot(ListMetrics.BIND).getCount());
+
+            metrics.setEnabled(true);
+            startAndEnd(metrics, runs);
+        }
+
+        assertEquals(3L * runs, metrics.snapshot(ListMetrics.BIND).getCount());
+    }
+
+    private static void startAndEnd(ListMetrics metrics, int runs) {
+        for (int i = 0; i < runs; i++) {
+            metrics.end(ListMetrics.BIND, metrics.start());
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package com.example.android.materialme.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Property tests of EditHistory against a naive model that keeps a full copy of the list for
+ * every undo step, plus the rebasing of undone removals.
+ */
+public class EditHistoryTest {
+
+    private static final int MAX_LEVELS = 8;
+
+    private EditHistory mHistory;
+    private List<Sport> mMirror;
+    private int mNextId;
+
+    @Before
+    public void setUp() {
+        createHistory(MAX_LEVELS);
+    }
+
+    private void createHistory(int maxLevels) {
+        mHistory = new EditHistory(maxLevels);
+        mMirror = new ArrayList<>();
+        //Replays the reported changes, they must describe the list exactly
+        mHistory.setListener(new EditHistory.Listener() {
+            @Override
+            public void onInserted(int position, Sport sport) {
+                mMirror.add(position, sport);
+            }
+
+            @Override
+            public void onRemoved(int position, Sport sport) {
+                assertEquals(sport, mMirror.remove(position));
+            }
+
+            @Override
+            public void onMoved(int from, int to) {
+                mMirror.add(to, mMirror.remove(from));
+            }
+        });
+    }
+
+    @Test
+    public void randomEdits_matchNaiveModel() {
+        for (long seed = 0; seed < 200; seed++) {
+            Random random = new Random(seed);
+            List<Sport> initial = sports(random.nextInt(40));
+            setUp();
+            start(initial);
+            NaiveHistory model = new NaiveHistory(initial);
+
+            for (int op = 0; op < 500; op++) {
+                String step = applyRandom(random, model);
+                String where = "seed " + seed + ", op " + op + " (" + step + ")";
+
+                assertEquals(where, model.mList, new ArrayList<>(mHistory.getList()));
+                assertEquals(where, model.mList, mMirror);
+                if (!model.mList.isEmpty()) {
+                    Sport sport = model.mList.get(random.nextInt(model.mList.size()));
+                    assertEquals(where, model.mList.indexOf(sport), mHistory.getList().indexOf(sport));
+                }
+                assertEquals(where, !model.mUndo.isEmpty() || model.mBatchCount > 0, mHistory.canUndo());
+                assertEquals(where, !model.mRedo.isEmpty(), mHistory.canRedo());
+            }
+        }
+    }
+
+    @Test
+    public void undoneRemovals_comeBackBetweenTheirNeighbours() {
+        for (long seed = 0; seed < 100; seed++) {
+            Random random = new Random(seed);
+            List<Sport> original = sports(50);
+            //Every removal stays undoable
+            createHistory(1000);
+            start(original);
+            List<Sport> removed = new ArrayList<>();
+
+            for (int op = 0; op < 300; op++) {
+                List<Sport> list = mHistory.getList();
+                if (!removed.isEmpty() && (list.isEmpty() || random.nextBoolean())) {
+                    //Undo any of the pending removals, not only the latest one
+                    Sport sport = removed.remove(random.nextInt(removed.size()));
+                    int position = mHistory.undoRemoval(sport);
+                    assertEquals(sport, list.get(position));
+                } else {
+                    removed.add(mHistory.remove(random.nextInt(list.size())));
+                }
+
+                List<Sport> expected = new ArrayList<>(original);
+                expected.removeAll(removed);
+                assertEquals("seed " + seed + ", op " + op, expected, new ArrayList<>(mHistory.getList()));
+                assertEquals(expected, mMirror);
+            }
+        }
+    }
+
+    @Test
+    public void quickRemovals_restoreInTheirOwnPlace() {
+        List<Sport> sports = sports(5);
+        start(sports);
+
+        //Both removed from position 1, the raw indexes would restore them swapped
+        Sport first = mHistory.remove(1);
+        Sport second = mHistory.remove(1);
+
+        assertEquals(1, mHistory.undoRemoval(first));
+        assertEquals(2, mHistory.undoRemoval(second));
+        assertEquals(sports, new ArrayList<>(mHistory.getList()));
+        assertEquals(-1, mHistory.undoRemoval(first));
+    }
+
+    @Test
+    public void batch_isUndoneAndRedoneAsOneStep() {
+        List<Sport> sports = sports(10);
+        start(sports);
+        mHistory.remove(0);
+
+        mHistory.beginBatch();
+        mHistory.remove(3);
+        mHistory.move(0, 5);
+        mHistory.remove(1);
+        mHistory.endBatch();
+        List<Sport> edited = new ArrayList<>(mHistory.getList());
+
+        assertTrue(mHistory.undo());
+        assertEquals(sports.subList(1, 10), new ArrayList<>(mHistory.getList()));
+        assertTrue(mHistory.redo());
+        assertEquals(edited, new ArrayList<>(mHistory.getList()));
+    }
+
+    @Test
+    public void dragSteps_areOneUndoStep() {
+        List<Sport> sports = sports(100);
+        start(sports);
+
+        for (int position = 0; position < 80; position++) {
+            mHistory.move(position, position + 1);
+        }
+        mHistory.finishMove();
+
+        assertTrue(mHistory.undo());
+        assertFalse(mHistory.canUndo());
+        assertEquals(sports, new ArrayList<>(mHistory.getList()));
+    }
+
+    @Test
+    public void dragBackToStart_recordsNothing() {
+        start(sports(10));
+
+        mHistory.move(4, 5);
+        mHistory.move(5, 6);
+        mHistory.move(6, 5);
+        mHistory.move(5, 4);
+
+        assertFalse(mHistory.canUndo());
+    }
+
+    @Test
+    public void oldestSteps_areForgotten() {
+        start(sports(20));
+
+        for (int i = 0; i < MAX_LEVELS + 3; i++) {
+            mHistory.remove(0);
+        }
+
+        int undone = 0;
+        while (mHistory.undo()) undone++;
+        assertEquals(MAX_LEVELS, undone);
+        assertEquals(20 - 3, mHistory.getList().size());
+    }
+
+    @Test
+    public void indexOf_findsTheFirstOfEqualSports() {
+        Sport a = sport(1);
+        Sport b = sport(2);
+        start(Arrays.asList(a, b, a));
+
+        assertEquals(0, mHistory.getList().indexOf(a));
+        mHistory.remove(0);
+        assertEquals(1, mHistory.getList().indexOf(a));
+        mHistory.remove(1);
+        assertEquals(-1, mHistory.getList().indexOf(a));
+        assertTrue(mHistory.undo());
+        assertEquals(1, mHistory.getList().indexOf(a));
+        mHistory.move(0, 1);
+        assertEquals(0, mHistory.getList().indexOf(a));
+        assertEquals(1, mHistory.getList().indexOf(b));
+        assertEquals(-1, mHistory.getList().indexOf(sport(3)));
+    }
+
+    @Test
+    public void largeList_editsStayCheapAndTombstonesAreDropped() {
+        start(sports(100_000));
+        mHistory.setListener(null);
+        Random random = new Random(7);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 20_000; i++) {
+            int size = mHistory.getList().size();
+            mHistory.remove(random.nextInt(size));
+            mHistory.move(random.nextInt(size - 1), random.nextInt(size - 1));
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        //Only the nodes of the last MAX_LEVELS steps have to be kept for undo
+        SportSequence sequence = (SportSequence) mHistory.getList();
+        assertEquals(80_000, sequence.size());
+        assertTrue("hidden nodes: " + sequence.getHiddenCount(), sequence.getHiddenCount() <= 2 * sequence.size());
+        assertTrue("edits took " + elapsedMillis + " ms", elapsedMillis < 5_000);
+    }
+
+    private void start(List<Sport> sports) {
+        mHistory.replaceAll(sports);
+        mMirror.addAll(sports);
+    }
+
+    private String applyRandom(Random random, NaiveHistory model) {
+        int size = model.mList.size();
+        int choice = random.nextInt(100);
+
+        if (choice < 25 && size > 0) {
+            int position = random.nextInt(size);
+            model.remove(position);
+            mHistory.remove(position);
+            return "remove " + position;
+        } else if (choice < 40) {
+            int position = random.nextInt(size + 1);
+            Sport sport = sport(mNextId++);
+            model.insert(position, sport);
+            mHistory.insert(position, sport);
+            return "insert " + position;
+        } else if (choice < 65 && size > 0) {
+            //Mostly continue the current drag one step back or forth, as ItemTouchHelper does
+            int from = model.mDragOpen && random.nextInt(4) > 0 ? model.mDragTo : random.nextInt(size);
+            int to = Math.max(0, Math.min(size - 1, from + random.nextInt(5) - 2));
+            model.move(from, to);
+            mHistory.move(from, to);
+            return "move " + from + "," + to;
+        } else if (choice < 70) {
+            model.finishMove();
+            mHistory.finishMove();
+            return "finishMove";
+        } else if (choice < 75) {
+            model.beginBatch();
+            mHistory.beginBatch();
+            return "beginBatch";
+        } else if (choice < 80) {
+            model.endBatch();
+            mHistory.endBatch();
+            return "endBatch";
+        } else if (choice < 92) {
+            assertEquals(model.undo(), mHistory.undo());
+            return "undo";
+        } else {
+            assertEquals(model.redo(), mHistory.redo());
+            return "redo";
+        }
+    }
+
+    private List<Sport> sports(int count) {
+        List<Sport> sports = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            sports.add(sport(mNextId++));
+        }
+        return sports;
+    }
+
+    private static Sport sport(int id) {
+        return new Sport(id, "Sport " + id, "News " + id, id);
+    }
+
+    /**
+     * The obvious implementation: a copy of the whole list per undo step.
+     */
+    private static class NaiveHistory {
+
+        List<Sport> mList;
+        final ArrayDeque<List<Sport>> mUndo = new ArrayDeque<>();
+        final ArrayDeque<List<Sport>> mRedo = new ArrayDeque<>();
+
+        boolean mInBatch;
+        List<Sport> mBatchStart;
+        int mBatchCount;
+
+        boolean mDragOpen;
+        int mDragTo;
+        List<Sport> mDragStart;
+
+        NaiveHistory(List<Sport> list) {
+            mList = new ArrayList<>(list);
+        }
+
+        void remove(int position) {
+            finishMove();
+            record();
+            mList.remove(position);
+        }
+
+        void insert(int position, Sport sport) {
+            finishMove();
+            record();
+            mList.add(position, sport);
+        }
+
+        void move(int from, int to) {
+            if (from == to) return;
+
+            if (mDragOpen && from == mDragTo) {
+                mList.add(to, mList.remove(from));
+                mDragTo = to;
+                if (mList.equals(mDragStart)) {
+                    //The drag changed nothing, its step is dropped
+                    if (mInBatch) {
+                        mBatchCount--;
+                    } else {
+                        mUndo.pollLast();
+                    }
+                    finishMove();
+                }
+                return;
+            }
+
+            finishMove();
+            mDragStart = new ArrayList<>(mList);
+            record();
+            mList.add(to, mList.remove(from));
+            mDragOpen = true;
+            mDragTo = to;
+        }
+
+        void finishMove() {
+            mDragOpen = false;
+        }
+
+        void beginBatch() {
+            finishMove();
+            if (!mInBatch) {
+                mInBatch = true;
+                mBatchStart = new ArrayList<>(mList);
+                mBatchCount = 0;
+            }
+        }
+
+        void endBatch() {
+            finishMove();
+            if (mInBatch) {
+                mInBatch = false;
+                if (mBatchCount > 0) push(mBatchStart);
+                mBatchCount = 0;
+            }
+        }
+
+        boolean undo() {
+            endBatch();
+            if (mUndo.isEmpty()) return false;
+            mRedo.addLast(mList);
+            mList = mUndo.pollLast();
+            return true;
+        }
+
+        boolean redo() {
+            endBatch();
+            if (mRedo.isEmpty()) return false;
+            mUndo.addLast(mList);
+            mList = mRedo.pollLast();
+            return true;
+        }
+
+        private void record() {
+            mRedo.clear();
+            if (mInBatch) {
+                mBatchCount++;
+            } else {
+                push(new ArrayList<>(mList));
+            }
+        }
+
+        private void push(List<Sport> snapshot) {
+            mUndo.addLast(snapshot);
+            while (mUndo.size() > MAX_LEVELS) {
+                mUndo.pollFirst();
+            }
+        }
+    }
+}
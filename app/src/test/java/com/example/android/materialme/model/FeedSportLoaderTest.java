@@ -0,0 +1,143 @@
+package com.example.android.materialme.model;
+
+import com.example.android.materialme.net.CacheStats;
+import com.example.android.materialme.net.CachingFetcher;
+import com.example.android.materialme.net.HttpCache;
+import com.example.android.materialme.net.StandInServer;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Loading feeds with FeedSportLoader from a stand-in server and from a file.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class FeedSportLoaderTest {
+
+    private static final List<Sport> FALLBACK = Collections.singletonList(new Sport(1, "Bundled", "", 0));
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private final SportFeedParser mParser = new SportFeedParser(name -> 0);
+    private StandInServer mServer;
+
+    @After
+    public void tearDown() throws IOException {
+        if (mServer != null) mServer.close();
+    }
+
+    @Test
+    public void firstBatch_arrivesBeforeTheFeedEnds() throws Exception {
+        String feed = SportFeedParserTest.feed(1000);
+        int half = feed.indexOf("{\"id\": 500,");
+        CountDownLatch firstBatch = new CountDownLatch(1);
+        //The second half is only sent once the loader handed out its first batch
+        mServer = new StandInServer((request, response) -> {
+            response.setHeader("Content-Type", "application/json");
+            response.write(feed.substring(0, half));
+            if (!firstBatch.await(10, TimeUnit.SECONDS)) return;
+            response.write(feed.substring(half));
+        });
+        FeedSportLoader loader = new FeedSportLoader(mServer.url("/sports.json"), mParser, () -> FALLBACK);
+
+        List<List<Sport>> batches = new ArrayList<>();
+        List<Sport> sports = loader.load(batch -> {
+            batches.add(batch);
+            firstBatch.countDown();
+        });
+
+        assertEquals(1000, sports.size());
+        assertEquals(SportFeedParser.FIRST_BATCH_SIZE, batches.get(0).size());
+        assertEquals(sports.subList(0, SportFeedParser.FIRST_BATCH_SIZE), batches.get(0));
+    }
+
+    @Test
+    public void unreachableFeed_loadsTheFallback() throws Exception {
+        mServer = new StandInServer((request, response) -> { });
+        URL url = mServer.url("/sports.json");
+        mServer.close();
+
+        FeedSportLoader loader = new FeedSportLoader(url, mParser, () -> FALLBACK);
+
+        assertEquals(FALLBACK, loader.load());
+        assertTrue(loader.isLastLoadComplete());
+    }
+
+    @Test
+    public void errorResponse_loadsTheFallback() throws Exception {
+        mServer = new StandInServer((request, response) -> {
+            response.setCode(503);
+            response.write("[{\"title\": \"Not the feed\"}]");
+        });
+
+        assertEquals(FALLBACK, new FeedSportLoader(mServer.url("/sports.json"), mParser, () -> FALLBACK).load());
+    }
+
+    @Test
+    public void brokenOffFeed_keepsWhatWasRead() throws Exception {
+        String feed = SportFeedParserTest.feed(100);
+        mServer = new StandInServer((request, response) -> response.write(feed.substring(0, feed.indexOf("Sport 60"))));
+
+        FeedSportLoader loader = new FeedSportLoader(mServer.url("/sports.json"), mParser, () -> FALLBACK);
+
+        assertEquals(60, loader.load().size());
+        assertFalse(loader.isLastLoadComplete());
+    }
+
+    @Test
+    public void unchangedFeed_isParsedFromTheCache() throws Exception {
+        String feed = SportFeedParserTest.feed(50);
+        mServer = new StandInServer((request, response) -> {
+            if ("\"v1\"".equals(request.headers.get("if-none-match"))) {
+                response.setCode(304);
+                return;
+            }
+            response.setHeader("ETag", "\"v1\"");
+            response.setHeader("Cache-Control", "no-cache");
+            response.write(feed);
+        });
+        CachingFetcher fetcher = new CachingFetcher(new HttpCache(mFolder.newFolder("http"), 1024 * 1024), Runnable::run);
+        FeedSportLoader loader = new FeedSportLoader(mServer.url("/sports.json"), mParser, () -> FALLBACK, fetcher);
+
+        List<Sport> first = loader.load();
+        List<Sport> second = loader.load();
+
+        assertEquals(50, second.size());
+        assertEquals(first, second);
+        assertEquals(1, fetcher.getStats().getCount(CacheStats.MISS));
+        assertEquals(1, fetcher.getStats().getCount(CacheStats.NOT_MODIFIED));
+    }
+
+    @Test
+    public void localFile_isAFeed() throws Exception {
+        File file = mFolder.newFile("sports.json");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(SportFeedParserTest.feed(30));
+        }
+
+        List<Sport> sports = new FeedSportLoader(file.toURI().toURL(), mParser, () -> FALLBACK).load();
+
+        assertEquals(30, sports.size());
+        assertEquals("Sport 29", sports.get(29).getTitle());
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.android.materialme.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round trips and size bounds of the state saved for process death.
+ */
+public class SavedListStateTest {
+
+    @Test
+    public void roundTrip_withoutUndo() {
+        SavedListState state = SavedListState.decode(
+                new SavedListState(SavedListState.SORT_BY_TITLE, "ball", null, 0, 0).encode());
+
+        assertEquals(SavedListState.SORT_BY_TITLE, state.getSort());
+        assertEquals("ball", state.getQuery());
+        assertNull(state.getUndoSport());
+    }
+
+    @Test
+    public void roundTrip_withUndo() {
+        Sport sport = new Sport(42, "Curling", null, 17);
+        SavedListState state = SavedListState.decode(
+                new SavedListState(SavedListState.SORT_BY_CATEGORY, "", sport, 3, 2500).encode());
+
+        assertEquals(SavedListState.SORT_BY_CATEGORY, state.getSort());
+        assertEquals("", state.getQuery());
+        assertEquals(sport, state.getUndoSport());
+        assertEquals(42, state.getUndoSport().getId());
+        assertEquals(3, state.getUndoPosition());
+        assertEquals(2500, state.getUndoRemainingMillis());
+    }
+
+    @Test
+    public void encoding_isCompact() {
+        Sport sport = new Sport(42, "Curling", "Curling news", 17);
+
+        assertEquals(1 + 1 + 2 + 4 + 1, new SavedListState(SavedListState.SORT_CUSTOM, "ball", null, 0, 0).encode().length);
+        assertTrue(new SavedListState(SavedListState.SORT_CUSTOM, "ball", sport, 3, 2500).encode().length < 80);
+    }
+
+    @Test
+    public void longQuery_isCut() {
+        char[] query = new char[SavedListState.MAX_QUERY_LENGTH * 3];
+        Arrays.fill(query, 'q');
+
+        SavedListState state = SavedListState.decode(
+                new SavedListState(SavedListState.SORT_CUSTOM, new String(query), null, 0, 0).encode());
+
+        assertEquals(SavedListState.MAX_QUERY_LENGTH, state.getQuery().length());
+    }
+
+    @Test
+    public void undoTooLargeToSave_isDropped() {
+        char[] info = new char[SavedListState.MAX_SIZE];
+        Arrays.fill(info, 'i');
+        Sport sport = new Sport(42, "Curling", new String(info), 17);
+
+        byte[] encoded = new SavedListState(SavedListState.SORT_BY_TITLE, "ball", sport, 3, 2500).encode();
+        SavedListState state = SavedListState.decode(encoded);
+
+        assertTrue(encoded.length <= SavedListState.MAX_SIZE);
+        assertEquals(SavedListState.SORT_BY_TITLE, state.getSort());
+        assertEquals("ball", state.getQuery());
+        assertNull(state.getUndoSport());
+    }
+
+    @Test
+    public void unreadableData_decodesToNull() {
+        byte[] encoded = new SavedListState(SavedListState.SORT_BY_TITLE, "ball", new Sport(42, "Curling", "", 17), 3, 2500).encode();
+
+        assertNull(SavedListState.decode(null));
+        assertNull(SavedListState.decode(new byte[0]));
+        assertNull(SavedListState.decode(Arrays.copyOf(encoded, encoded.length - 1)));
+
+        byte[] otherVersion = encoded.clone();
+        otherVersion[0]++;
+        assertNull(SavedListState.decode(otherVersion));
+    }
+}
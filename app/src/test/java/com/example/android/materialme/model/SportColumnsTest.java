@@ -0,0 +1,109 @@
+package com.example.android.materialme.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round trips through SportColumns, and its retained heap against an ArrayList at 100k items.
+ */
+public class SportColumnsTest {
+
+    private static final int FEED_SIZE = 100_000;
+    private static final String[] TITLES = {"Baseball", "Badminton", "Basketball", "Bowling", "Cycling",
+            "Golf", "Running", "Football", "Swimming", "Table Tennis", "Tennis"};
+
+    @Test
+    public void get_returnsEqualSports() {
+        List<Sport> sports = Arrays.asList(
+                new Sport(1, "Tennis", "Grand slam news", 11),
+                new Sport(2, "T\u00e9nnis de table", "Coupe du monde \u26bd", 12),
+                new Sport(3, null, "", 13),
+                new Sport(4, "Tennis", "Grand slam news", 11));
+
+        SportColumns columns = SportColumns.of(sports);
+
+        assertEquals(4, columns.size());
+        for (int i = 0; i < sports.size(); i++) {
+            assertEquals(sports.get(i), columns.get(i));
+            assertEquals(sports.get(i).getId(), columns.getId(i));
+        }
+        assertNull(columns.getTitle(2));
+        assertEquals("", columns.getInfo(2));
+        assertEquals(12, columns.getImageResource(1));
+    }
+
+    @Test
+    public void repeatedStrings_areStoredOnce() {
+        SportColumns.Builder builder = new SportColumns.Builder(0);
+        for (int i = 0; i < 1_000; i++) {
+            //New string objects, as a parser would create them
+            builder.add(i, new String(TITLES[i % TITLES.length]), "News about " + TITLES[i % 3], i % TITLES.length);
+        }
+        SportColumns columns = builder.build();
+
+        assertEquals(1_000, columns.size());
+        assertEquals(TITLES.length + 3, columns.getStringCount());
+        assertEquals("News about Baseball", columns.getInfo(999));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void get_checksThePosition() {
+        SportColumns.of(new ArrayList<Sport>()).get(0);
+    }
+
+    @Test
+    public void retainedHeap_isLessThanHalfOfArrayList() {
+        long baseline = usedHeap();
+        List<Sport> list = new ArrayList<>();
+        for (int i = 0; i < FEED_SIZE; i++) {
+            list.add(new Sport(i, title(i), info(i), i % TITLES.length));
+        }
+        long listBytes = usedHeap() - baseline;
+        assertEquals(FEED_SIZE, list.size());
+        list = null;
+
+        baseline = usedHeap();
+        SportColumns.Builder builder = new SportColumns.Builder(FEED_SIZE);
+        for (int i = 0; i < FEED_SIZE; i++) {
+            builder.add(i, title(i), info(i), i % TITLES.length);
+        }
+        SportColumns columns = builder.build();
+        builder = null;
+        long columnBytes = usedHeap() - baseline;
+        assertEquals(FEED_SIZE, columns.size());
+
+        assertTrue("SportColumns retained " + columnBytes / FEED_SIZE + " B per sport, ArrayList<Sport> "
+                + listBytes / FEED_SIZE + " B", columnBytes * 2 < listBytes);
+    }
+
+    //Like a parsed feed, every item has its own copies of the strings
+    private static String title(int i) {
+        return new String(TITLES[i % TITLES.length]);
+    }
+
+    //A few news texts per sport, as a feed repeats its teasers
+    private static String info(int i) {
+        return "Here is some " + TITLES[i % TITLES.length] + " news, part " + (i % 7) + "!";
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        //Collect until the garbage of the previous step is gone
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
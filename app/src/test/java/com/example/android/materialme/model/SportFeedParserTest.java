@@ -0,0 +1,123 @@
+package com.example.android.materialme.model;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Parsing feeds with SportFeedParser, and the batches it hands out.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SportFeedParserTest {
+
+    private static final int BASEBALL_IMAGE = 7;
+
+    private final SportFeedParser mParser = new SportFeedParser(name -> "img_baseball".equals(name) ? BASEBALL_IMAGE : 0);
+
+    @Test
+    public void entries_becomeSports() throws IOException {
+        List<Sport> sports = parse("{\"version\": 2, \"sports\": ["
+                + "{\"id\": 41, \"title\": \"Baseball\", \"info\": \"Spring training\", \"image\": \"img_baseball\"},"
+                + "{\"title\": \"Curling\", \"info\": \"Stones\", \"image\": \"img_curling\"}"
+                + "], \"next\": null}");
+
+        assertEquals(2, sports.size());
+        assertEquals(new Sport(41, "Baseball", "Spring training", BASEBALL_IMAGE), sports.get(0));
+        //No id, the stable id of the bundled catalog, and no bundled image of that name
+        assertEquals(new Sport("Curling", "Stones", 0), sports.get(1));
+        assertEquals(new Sport("Curling", "Stones", 0).getId(), sports.get(1).getId());
+    }
+
+    @Test
+    public void duplicateEntries_getDistinctStableIds() throws IOException {
+        String feed = "[{\"title\": \"Curling\", \"info\": \"Stones\"},"
+                + "{\"title\": \"Curling\", \"info\": \"More stones\"},"
+                + "{\"title\": \"Curling\", \"info\": \"Brooms\"}]";
+        List<Sport> sports = parse(feed);
+
+        //The first keeps the id of the bundled catalog
+        assertEquals(new Sport("Curling", "Stones", 0).getId(), sports.get(0).getId());
+        assertEquals(3, new HashSet<>(Arrays.asList(sports.get(0).getId(), sports.get(1).getId(), sports.get(2).getId())).size());
+        //Reloading the same feed gives the same ids
+        assertEquals(sports, parse(feed));
+    }
+
+    @Test
+    public void unknownAndMalformedFields_areSkipped() throws IOException {
+        List<Sport> sports = parse("[\"not an entry\", {\"info\": \"no title\"},"
+                + "{\"title\": \"Golf\", \"tags\": [\"a\", {\"b\": [1, 2]}], \"live\": true, \"id\": \"g-1\", \"info\": null},"
+                + "{\"title\": 7, \"id\": 3}]");
+
+        assertEquals(2, sports.size());
+        assertEquals(new Sport("Golf", null, 0), sports.get(0));
+        assertEquals(new Sport(3, "7", null, 0), sports.get(1));
+    }
+
+    @Test
+    public void batches_doubleInSize() throws IOException {
+        List<Sport> sports = new ArrayList<>();
+        List<List<Sport>> batches = new ArrayList<>();
+        mParser.parse(new StringReader(feed(100)), sports, batches::add);
+
+        //12, 24, 48, the last 16 are only in the list
+        assertEquals(3, batches.size());
+        assertEquals(SportFeedParser.FIRST_BATCH_SIZE, batches.get(0).size());
+        assertEquals(24, batches.get(1).size());
+        assertEquals(48, batches.get(2).size());
+        assertEquals(100, sports.size());
+
+        List<Sport> batched = new ArrayList<>();
+        for (List<Sport> batch : batches) {
+            batched.addAll(batch);
+        }
+        assertEquals(sports.subList(0, 84), batched);
+    }
+
+    @Test
+    public void brokenFeed_keepsTheSportsBeforeTheBreak() {
+        String feed = feed(20);
+        List<Sport> sports = new ArrayList<>();
+        try {
+            mParser.parse(new StringReader(feed.substring(0, feed.indexOf("Sport 15"))), sports, null);
+            fail("Parsed a truncated feed");
+        } catch (IOException expected) {
+        }
+
+        assertEquals(15, sports.size());
+    }
+
+    @Test(expected = IOException.class)
+    public void notAFeed_throwsIOException() throws IOException {
+        parse("{\"sports\": {\"title\": \"Baseball\"}}");
+    }
+
+    private List<Sport> parse(String feed) throws IOException {
+        List<Sport> sports = new ArrayList<>();
+        mParser.parse(new StringReader(feed), sports, null);
+        return sports;
+    }
+
+    /**
+     * Writes a feed of distinct sports.
+     */
+    static String feed(int size) {
+        StringBuilder feed = new StringBuilder("{\"sports\": [");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) feed.append(',');
+            feed.append("{\"id\": ").append(i)
+                    .append(", \"title\": \"Sport ").append(i)
+                    .append("\", \"info\": \"Here is some news about sport ").append(i)
+                    .append("\", \"image\": \"img_baseball\"}");
+        }
+        return feed.append("]}").toString();
+    }
+}
@@ -0,0 +1,391 @@
+package com.example.android.materialme.model;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares cold and warm loads of the sports catalog through SportRepository.
+ */
+public class SportRepositoryTest {
+
+    private static final int CATALOG_SIZE = 50_000;
+
+    private final Executor mDirectExecutor = Runnable::run;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void warmLoad_reusesCachedCatalog() {
+        CountingLoader loader = new CountingLoader(CATALOG_SIZE);
+        SportRepository repository = new SportRepository(loader, mDirectExecutor, mDirectExecutor);
+
+        List<List<Sport>> results = new ArrayList<>();
+
+        long coldStart = System.nanoTime();
+        repository.getSports(results::add);
+        long coldNanos = System.nanoTime() - coldStart;
+
+        long warmStart = System.nanoTime();
+        repository.getSports(results::add);
+        long warmNanos = System.nanoTime() - warmStart;
+
+        assertEquals(1, loader.mLoadCount);
+        assertEquals(2, results.size());
+        assertSame(results.get(0), results.get(1));
+        assertEquals(CATALOG_SIZE, results.get(1).size());
+        assertTrue("warm load (" + warmNanos + " ns) should be faster than cold load (" + coldNanos + " ns)", warmNanos < coldNanos);
+    }
+
+    @Test
+    public void requestsDuringLoad_shareOneLoad() {
+        CountingLoader loader = new CountingLoader(10);
+        ArrayDeque<Runnable> background = new ArrayDeque<>();
+        SportRepository repository = new SportRepository(loader, background::add, mDirectExecutor);
+
+        List<List<Sport>> results = new ArrayList<>();
+        repository.getSports(results::add);
+        repository.getSports(results::add);
+
+        assertTrue(results.isEmpty());
+        assertEquals(1, background.size());
+
+        background.poll().run();
+
+        assertEquals(1, loader.mLoadCount);
+        assertEquals(2, results.size());
+    }
+
+    @Test
+    public void removedCallback_isNotNotified() {
+        ArrayDeque<Runnable> background = new ArrayDeque<>();
+        SportRepository repository = new SportRepository(new CountingLoader(10), background::add, mDirectExecutor);
+
+        List<List<Sport>> results = new ArrayList<>();
+        SportRepository.Callback callback = results::add;
+        repository.getSports(callback);
+        repository.removeCallback(callback);
+        background.poll().run();
+
+        assertTrue(results.isEmpty());
+        assertNotNull(repository.getCachedSports());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void snapshot_isImmutable() {
+        SportRepository repository = new SportRepository(new CountingLoader(10), mDirectExecutor, mDirectExecutor);
+        List<List<Sport>> results = new ArrayList<>();
+        repository.getSports(results::add);
+
+        results.get(0).remove(0);
+    }
+
+    @Test
+    public void edits_surviveRestartWithoutParsingCatalog() throws IOException {
+        File dir = mFolder.newFolder();
+        CountingLoader loader = new CountingLoader(10);
+        SportRepository repository = new SportRepository(loader, new SportStore(dir), mDirectExecutor, mDirectExecutor);
+        List<List<Sport>> results = new ArrayList<>();
+        repository.getSports(results::add);
+        Sport removed = results.get(0).get(3);
+
+        repository.removeSport(3);
+        repository.moveSport(0, 5);
+        repository.insertSport(1, removed);
+        List<Sport> expected = repository.getCachedSports();
+
+        CountingLoader restartedLoader = new CountingLoader(10);
+        SportRepository restarted = new SportRepository(restartedLoader, new SportStore(dir), mDirectExecutor, mDirectExecutor);
+        results.clear();
+        restarted.getSports(results::add);
+
+        assertEquals(0, restartedLoader.mLoadCount);
+        assertEquals(expected, results.get(0));
+    }
+
+    @Test
+    public void editsDuringPendingFlush_shareOneWrite() throws IOException {
+        File dir = mFolder.newFolder();
+        ArrayDeque<Runnable> background = new ArrayDeque<>();
+        SportRepository repository = new SportRepository(new CountingLoader(100), new SportStore(dir), background::add, mDirectExecutor);
+        repository.getSports(sports -> { });
+        background.poll().run();
+
+        for (int i = 0; i < 50; i++) {
+            repository.moveSport(i, 99 - i);
+        }
+        repository.removeSport(0);
+        assertEquals(1, background.size());
+
+        background.poll().run();
+
+        assertEquals(1, repository.getFlushCount());
+        assertEquals(repository.getCachedSports(), new SportStore(dir).load());
+    }
+
+    @Test
+    public void reset_restoresCatalogAndStore() throws IOException {
+        File dir = mFolder.newFolder();
+        SportRepository repository = new SportRepository(new CountingLoader(10), new SportStore(dir), mDirectExecutor, mDirectExecutor);
+        List<List<Sport>> results = new ArrayList<>();
+        repository.getSports(results::add);
+        repository.removeSport(0);
+        repository.removeSport(0);
+
+        repository.resetSports(results::add);
+
+        assertEquals(10, results.get(1).size());
+        assertEquals(10, new SportStore(dir).load().size());
+    }
+
+    @Test
+    public void streamingLoad_showsEachBatchBeforeTheWholeCatalog() throws IOException {
+        File dir = mFolder.newFolder();
+        ArrayDeque<Runnable> background = new ArrayDeque<>();
+        ArrayDeque<Runnable> main = new ArrayDeque<>();
+        StreamingCountingLoader loader = new StreamingCountingLoader(100, 30);
+        SportRepository repository = new SportRepository(loader, new SportStore(dir), background::add, main::add);
+        RecordingCallback callback = new RecordingCallback();
+        repository.getSports(callback);
+
+        background.poll().run();
+        //Three batches, then the whole catalog
+        assertEquals(4, main.size());
+
+        main.poll().run();
+        assertEquals(30, callback.mPartial.get(0).size());
+        assertFalse(repository.isLoaded());
+        assertNull(repository.getCachedSports());
+
+        //Joining halfway, the part read so far is shown at once
+        RecordingCallback late = new RecordingCallback();
+        repository.getSports(late);
+        assertEquals(30, late.mPartial.get(0).size());
+
+        main.poll().run();
+        main.poll().run();
+        assertEquals(90, callback.mPartial.get(2).size());
+        assertEquals(callback.mPartial.get(2).subList(0, 60), callback.mPartial.get(1));
+        assertTrue(callback.mLoaded.isEmpty());
+
+        main.poll().run();
+        assertTrue(repository.isLoaded());
+        assertEquals(100, callback.mLoaded.get(0).size());
+        assertEquals(callback.mPartial.get(2), callback.mLoaded.get(0).subList(0, 90));
+        assertSame(callback.mLoaded.get(0), late.mLoaded.get(0));
+        assertEquals(100, new SportStore(dir).load().size());
+
+        //A plain callback only gets the whole catalog, a later load is from the store
+        List<List<Sport>> results = new ArrayList<>();
+        repository.getSports(results::add);
+        assertEquals(1, results.size());
+        assertEquals(1, loader.mLoadCount);
+    }
+
+    @Test
+    public void streamingReset_readsTheFeedAgainWithoutPartialLists() {
+        StreamingCountingLoader loader = new StreamingCountingLoader(50, 10);
+        SportRepository repository = new SportRepository(loader, mDirectExecutor, mDirectExecutor);
+        RecordingCallback callback = new RecordingCallback();
+        repository.getSports(callback);
+        assertEquals(5, callback.mPartial.size());
+
+        RecordingCallback reset = new RecordingCallback();
+        repository.resetSports(reset);
+
+        //The shown list stays until the new feed is read whole
+        assertEquals(2, loader.mLoadCount);
+        assertTrue(reset.mPartial.isEmpty());
+        assertEquals(50, reset.mLoaded.get(0).size());
+    }
+
+    @Test
+    public void failingLoader_endsTheLoadWithAnEmptyList() throws IOException {
+        File dir = mFolder.newFolder();
+        StreamingCountingLoader loader = new StreamingCountingLoader(10, 5);
+        loader.mFailing = true;
+        SportRepository repository = new SportRepository(loader, new SportStore(dir), mDirectExecutor, mDirectExecutor);
+        List<List<Sport>> results = new ArrayList<>();
+
+        repository.getSports(results::add);
+
+        assertTrue(results.get(0).isEmpty());
+        assertTrue(repository.isLoaded());
+        assertNull(new SportStore(dir).load());
+
+        //A reset that fails keeps the list
+        loader.mFailing = false;
+        repository.resetSports(results::add);
+        repository.removeSport(0);
+        loader.mFailing = true;
+        repository.resetSports(results::add);
+
+        assertEquals(9, results.get(2).size());
+        assertTrue(repository.isLoaded());
+        assertEquals(9, new SportStore(dir).load().size());
+    }
+
+    @Test
+    public void editsDuringReset_areDropped() throws IOException {
+        File dir = mFolder.newFolder();
+        ArrayDeque<Runnable> background = new ArrayDeque<>();
+        SportRepository repository = new SportRepository(new CountingLoader(10), new SportStore(dir), background::add, mDirectExecutor);
+        List<List<Sport>> results = new ArrayList<>();
+        SportRepository.Callback callback = results::add;
+        repository.getSports(callback);
+        background.poll().run();
+        repository.removeSport(0);
+        background.poll().run();
+
+        repository.resetSports(callback);
+        assertFalse(repository.isLoaded());
+        //E.g. an undo while the catalog is read again, the reset replaces the list anyway
+        repository.removeSport(8);
+        repository.insertSport(0, results.get(0).get(0));
+        background.poll().run();
+
+        assertTrue(repository.isLoaded());
+        assertTrue(background.isEmpty());
+        assertEquals(10, results.get(1).size());
+        assertEquals(repository.getCachedSports(), new SportStore(dir).load());
+    }
+
+    @Test
+    public void removedCallback_isNotNotifiedOfTheReset() {
+        ArrayDeque<Runnable> background = new ArrayDeque<>();
+        SportRepository repository = new SportRepository(new CountingLoader(10), background::add, mDirectExecutor);
+        repository.getSports(sports -> { });
+        background.poll().run();
+
+        List<List<Sport>> results = new ArrayList<>();
+        SportRepository.Callback callback = results::add;
+        repository.resetSports(callback);
+        repository.removeCallback(callback);
+        background.poll().run();
+
+        assertTrue(results.isEmpty());
+        assertEquals(10, repository.getCachedSports().size());
+    }
+
+    @Test
+    public void brokenOffCatalog_isShownButNotStored() throws IOException {
+        File dir = mFolder.newFolder();
+        StreamingCountingLoader loader = new StreamingCountingLoader(100, 30);
+        loader.mBreakOffAt = 60;
+        SportRepository repository = new SportRepository(loader, new SportStore(dir), mDirectExecutor, mDirectExecutor);
+        RecordingCallback callback = new RecordingCallback();
+        repository.getSports(callback);
+        repository.removeSport(0);
+
+        assertEquals(60, callback.mLoaded.get(0).size());
+        assertNull(new SportStore(dir).load());
+
+        //The next launch reads the whole catalog
+        loader.mBreakOffAt = -1;
+        List<List<Sport>> results = new ArrayList<>();
+        new SportRepository(loader, new SportStore(dir), mDirectExecutor, mDirectExecutor).getSports(results::add);
+        assertEquals(100, results.get(0).size());
+        assertEquals(100, new SportStore(dir).load().size());
+    }
+
+    @Test
+    public void brokenOffReset_clearsTheStore() throws IOException {
+        File dir = mFolder.newFolder();
+        StreamingCountingLoader loader = new StreamingCountingLoader(100, 30);
+        SportRepository repository = new SportRepository(loader, new SportStore(dir), mDirectExecutor, mDirectExecutor);
+        repository.getSports(sports -> { });
+        repository.removeSport(0);
+
+        loader.mBreakOffAt = 60;
+        List<List<Sport>> results = new ArrayList<>();
+        repository.resetSports(results::add);
+        repository.removeSport(0);
+
+        assertEquals(60, results.get(0).size());
+        assertNull(new SportStore(dir).load());
+    }
+
+    /**
+     * Records the partial and whole lists a load delivers.
+     */
+    private static class RecordingCallback implements SportRepository.ProgressCallback {
+
+        final List<List<Sport>> mPartial = new ArrayList<>();
+        final List<List<Sport>> mLoaded = new ArrayList<>();
+
+        @Override
+        public void onSportsPartiallyLoaded(List<Sport> sports) {
+            mPartial.add(sports);
+        }
+
+        @Override
+        public void onSportsLoaded(List<Sport> sports) {
+            mLoaded.add(sports);
+        }
+    }
+
+    /**
+     * Hands out the catalog in batches of a fixed size, the remainder only with the whole catalog.
+     * It breaks off at a position when told to, like a feed whose connection drops.
+     */
+    private static class StreamingCountingLoader extends CountingLoader implements SportRepository.StreamingLoader {
+
+        private final int mBatchSize;
+        int mBreakOffAt = -1;
+
+        StreamingCountingLoader(int size, int batchSize) {
+            super(size);
+            this.mBatchSize = batchSize;
+        }
+
+        @Override
+        public List<Sport> load(SportRepository.BatchListener listener) {
+            List<Sport> sports = load();
+            if (mBreakOffAt >= 0) sports = new ArrayList<>(sports.subList(0, mBreakOffAt));
+            for (int end = mBatchSize; listener != null && end <= sports.size(); end += mBatchSize) {
+                listener.onBatch(new ArrayList<>(sports.subList(end - mBatchSize, end)));
+            }
+            return sports;
+        }
+
+        @Override
+        public boolean isLastLoadComplete() {
+            return mBreakOffAt < 0;
+        }
+    }
+
+    /**
+     * Builds a catalog of distinct sports and counts how often it is asked to.
+     */
+    private static class CountingLoader implements SportRepository.Loader {
+
+        private final int mSize;
+        int mLoadCount;
+        boolean mFailing;
+
+        CountingLoader(int size) {
+            this.mSize = size;
+        }
+
+        @Override
+        public List<Sport> load() {
+            mLoadCount++;
+            if (mFailing) throw new IllegalStateException("No catalog");
+            List<Sport> sports = new ArrayList<>(mSize);
+            for (int i = 0; i < mSize; i++) {
+                sports.add(new Sport(i, "Sport " + i, "Here is some news about sport " + i, i));
+            }
+            return sports;
+        }
+    }
+}
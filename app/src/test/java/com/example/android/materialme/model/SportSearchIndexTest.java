@@ -0,0 +1,145 @@
+package com.example.android.materialme.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Matching rules of SportSearchIndex, and query latency on a 50k item catalog.
+ */
+public class SportSearchIndexTest {
+
+    private static final String[] TITLES = {"Baseball", "Badminton", "Basketball", "Bowling", "Cycling",
+            "Golf", "Running", "Football", "Swimming", "Table Tennis", "Tennis"};
+    private static final String[] NEWS = {"Here is some news about %s, the season starts next week.",
+            "The %s championship final is sold out.", "Young players take over the %s league."};
+
+    //A 60 Hz frame, queries must fit in it so typing never drops a frame behind the search
+    private static final long FRAME_BUDGET_NANOS = 16_000_000;
+
+    private static final Sport TENNIS = new Sport(1, "Tennis", "Grand slam news", 1);
+    private static final Sport TABLE_TENNIS = new Sport(2, "Table Tennis", "Ping pong world cup", 2);
+    private static final Sport BASKETBALL = new Sport(3, "Basketball", "Playoffs start tonight", 3);
+    private static final Sport BASEBALL = new Sport(4, "Baseball", "World series tonight", 4);
+
+    private SportSearchIndex mIndex;
+    private List<Sport> mSports;
+
+    @Before
+    public void setUp() {
+        mIndex = new SportSearchIndex();
+        mSports = Arrays.asList(TENNIS, TABLE_TENNIS, BASKETBALL, BASEBALL);
+        mIndex.addAll(mSports);
+    }
+
+    @Test
+    public void prefix_matchesWhileTyping() {
+        assertEquals(Arrays.asList(BASKETBALL, BASEBALL), search("ba"));
+        assertEquals(Arrays.asList(BASKETBALL), search("bask"));
+        assertEquals(Arrays.asList(TENNIS, TABLE_TENNIS), search("TEN"));
+    }
+
+    @Test
+    public void wordsOfTitleAndNews_mustAllMatch() {
+        assertEquals(Arrays.asList(BASKETBALL, BASEBALL), search("tonight"));
+        assertEquals(Arrays.asList(BASEBALL), search("world tonight"));
+        assertEquals(Collections.emptyList(), search("tennis tonight"));
+    }
+
+    @Test
+    public void oneTypo_matchesLongWords() {
+        //Missing, extra and replaced letters
+        assertEquals(Arrays.asList(TENNIS, TABLE_TENNIS), search("tenis"));
+        assertEquals(Arrays.asList(TENNIS, TABLE_TENNIS), search("tennnis"));
+        assertEquals(Arrays.asList(BASKETBALL), search("baskelball"));
+        //Two typos, and typos in short words, do not match
+        assertEquals(Collections.emptyList(), search("tanis"));
+        assertEquals(Collections.emptyList(), search("pog"));
+    }
+
+    @Test
+    public void queryWithoutWords_isNoFilter() {
+        assertNull(mIndex.match("  ,. "));
+    }
+
+    @Test
+    public void results_followSourceOrder() {
+        List<Sport> reordered = Arrays.asList(BASEBALL, TABLE_TENNIS, BASKETBALL, TENNIS);
+
+        assertEquals(Arrays.asList(BASEBALL, BASKETBALL), mIndex.filter(reordered, mIndex.match("ba")));
+    }
+
+    @Test
+    public void addingAgain_doesNotDuplicate() {
+        mIndex.addAll(mSports);
+        mIndex.add(new Sport(5, "Golf", "Masters", 5));
+
+        assertEquals(5, mIndex.size());
+        assertEquals(2, mIndex.match("tennis").cardinality());
+    }
+
+    @Test
+    public void isOneEditAway() {
+        assertTrue(SportSearchIndex.isOneEditAway("tennis", "tenis"));
+        assertTrue(SportSearchIndex.isOneEditAway("tennis", "tennix"));
+        assertTrue(SportSearchIndex.isOneEditAway("golf", "golfs"));
+        assertFalse(SportSearchIndex.isOneEditAway("abcd", "bacd"));
+        assertFalse(SportSearchIndex.isOneEditAway("tennis", "tanis"));
+    }
+
+    @Test
+    public void largeCatalog_queriesFitInAFrame() {
+        List<Sport> catalog = catalog(50_000);
+        SportSearchIndex index = new SportSearchIndex();
+        long buildStart = System.nanoTime();
+        index.addAll(catalog);
+        long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+        assertTrue("building took " + buildMillis + " ms", buildMillis < 5_000);
+
+        String[] queries = {"b", "bask", "tennis", "tenis", "season week", "championship 4711", "young play", "xyz"};
+        //Warm up the JIT like a search session would before measuring
+        for (int i = 0; i < 20; i++) {
+            for (String query : queries) {
+                query(index, catalog, query);
+            }
+        }
+
+        for (String query : queries) {
+            long[] samples = new long[15];
+            for (int i = 0; i < samples.length; i++) {
+                long start = System.nanoTime();
+                query(index, catalog, query);
+                samples[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(samples);
+            long median = samples[samples.length / 2];
+            assertTrue("'" + query + "' took " + median + " ns", median < FRAME_BUDGET_NANOS);
+        }
+    }
+
+    private List<Sport> search(String query) {
+        return mIndex.filter(mSports, mIndex.match(query));
+    }
+
+    private static List<Sport> query(SportSearchIndex index, List<Sport> catalog, String query) {
+        BitSet matches = index.match(query);
+        return index.filter(catalog, matches);
+    }
+
+    static List<Sport> catalog(int count) {
+        List<Sport> sports = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String title = TITLES[i % TITLES.length];
+            String news = String.format(NEWS[i % NEWS.length], title.toLowerCase()) + " Match " + i;
+            sports.add(new Sport(i, title + " " + i, news, i));
+        }
+        return sports;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.android.materialme.model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Debouncing, cancellation and background indexing of SportSearch.
+ */
+public class SportSearchTest {
+
+    private static final long DEBOUNCE_MILLIS = 50;
+
+    private ScheduledExecutorService mSearchExecutor;
+    private List<String> mDelivered;
+    private SportSearch mSearch;
+
+    @Before
+    public void setUp() {
+        mSearchExecutor = Executors.newSingleThreadScheduledExecutor();
+        mDelivered = Collections.synchronizedList(new ArrayList<>());
+        Executor mainExecutor = Runnable::run;
+        mSearch = new SportSearch(mSearchExecutor, mainExecutor, DEBOUNCE_MILLIS);
+    }
+
+    @After
+    public void tearDown() {
+        mSearch.shutdown();
+    }
+
+    @Test
+    public void rapidTyping_runsOnlyTheLastQuery() throws InterruptedException {
+        List<Sport> catalog = SportSearchIndexTest.catalog(1_000);
+        mSearch.index(catalog);
+
+        for (String query : new String[]{"t", "te", "ten", "tenn", "tennis"}) {
+            mSearch.search(query, catalog, (q, results) -> mDelivered.add(q + ":" + results.size()));
+        }
+        drain();
+
+        //One in eleven sports is tennis, and table tennis is as many again
+        assertEquals(1, mDelivered.size());
+        assertTrue(mDelivered.get(0), mDelivered.get(0).startsWith("tennis:"));
+    }
+
+    @Test
+    public void cancel_dropsPendingSearch() throws InterruptedException {
+        List<Sport> catalog = SportSearchIndexTest.catalog(100);
+
+        mSearch.search("golf", catalog, (q, results) -> mDelivered.add(q));
+        mSearch.cancel();
+        drain();
+
+        assertTrue(mDelivered.isEmpty());
+    }
+
+    @Test
+    public void searchDuringIndexing_seesWholeList() throws InterruptedException {
+        List<Sport> catalog = SportSearchIndexTest.catalog(20 * SportSearch.INDEX_CHUNK_SIZE);
+        mSearch.index(catalog);
+
+        List<List<Sport>> results = new ArrayList<>();
+        mSearch.search("bowling", catalog, (q, found) -> results.add(found));
+        drain();
+
+        int bowling = 0;
+        for (Sport sport : catalog) {
+            if (sport.getTitle().startsWith("Bowling")) bowling++;
+        }
+        assertEquals(1, results.size());
+        assertEquals(bowling, results.get(0).size());
+    }
+
+    @Test
+    public void emptyQuery_deliversNoFilter() throws InterruptedException {
+        List<List<Sport>> results = new ArrayList<>();
+        mSearch.search("  ", SportSearchIndexTest.catalog(10), (q, found) -> results.add(found));
+        drain();
+
+        assertEquals(1, results.size());
+        assertNull(results.get(0));
+    }
+
+    //Waits until the debounce delay passed and the search thread is idle
+    private void drain() throws InterruptedException {
+        Thread.sleep(DEBOUNCE_MILLIS * 3);
+        CountDownLatch idle = new CountDownLatch(1);
+        mSearchExecutor.execute(idle::countDown);
+        assertTrue(idle.await(5, TimeUnit.SECONDS));
+    }
+}
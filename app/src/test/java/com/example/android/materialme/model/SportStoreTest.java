@@ -0,0 +1,264 @@
+package com.example.android.materialme.model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round trips, journal replay, crash recovery and compaction of SportStore.
+ */
+public class SportStoreTest {
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private File mDirectory;
+    private SportStore mStore;
+
+    @Before
+    public void setUp() throws IOException {
+        mDirectory = mFolder.newFolder("sports");
+        mStore = new SportStore(mDirectory);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mStore.close();
+    }
+
+    @Test
+    public void emptyDirectory_loadsNothing() throws IOException {
+        assertNull(mStore.load());
+    }
+
+    @Test
+    public void snapshot_roundTrips() throws IOException {
+        List<Sport> sports = sports(100);
+        sports.add(new Sport(1000, "Tischtennis \u00fcber alles", "\u26bd news", 7));
+        mStore.replaceAll(sports);
+
+        assertEquals(sports, reopen());
+    }
+
+    @Test
+    public void nullInfo_staysNull() throws IOException {
+        List<Sport> sports = sports(3);
+        sports.add(1, new Sport(100, "No news", null, 1));
+        sports.add(new Sport(101, "Empty news", "", 2));
+        mStore.replaceAll(sports);
+        Sport restored = new Sport(102, "Restored", null, 3);
+        mStore.recordInsert(0, restored);
+        sports.add(0, restored);
+
+        List<Sport> replayed = reopen();
+        assertEquals(sports, replayed);
+        assertNull(replayed.get(0).getInfo());
+        assertNull(replayed.get(2).getInfo());
+        assertEquals("", replayed.get(5).getInfo());
+
+        //Compacted into a snapshot
+        mStore.compact();
+        assertEquals(sports, reopen());
+    }
+
+    @Test
+    public void journaledEdits_areReplayed() throws IOException {
+        List<Sport> expected = sports(10);
+        mStore.replaceAll(expected);
+
+        mStore.recordRemove(3);
+        expected.remove(3);
+        Sport restored = new Sport(42, "Restored", "Restored news", 4);
+        mStore.recordInsert(0, restored);
+        expected.add(0, restored);
+        mStore.recordMove(0, 9);
+        expected.add(9, expected.remove(0));
+        mStore.recordMove(5, 1);
+        expected.add(1, expected.remove(5));
+
+        assertEquals(expected, reopen());
+    }
+
+    @Test
+    public void tornRecord_isDroppedAndJournalStaysUsable() throws IOException {
+        List<Sport> expected = sports(10);
+        mStore.replaceAll(expected);
+        mStore.recordRemove(0);
+        expected.remove(0);
+        mStore.recordMove(0, 5);
+        expected.add(5, expected.remove(0));
+        long goodLength = journal().length();
+        mStore.recordRemove(2);
+        mStore.close();
+
+        //Simulate a crash in the middle of writing the last record
+        try (RandomAccessFile journal = new RandomAccessFile(journal(), "rw")) {
+            journal.setLength(journal.length() - 3);
+        }
+
+        SportStore recovered = new SportStore(mDirectory);
+        assertEquals(expected, recovered.load());
+        assertEquals(goodLength, journal().length());
+
+        //Records appended after recovery follow the last good one
+        recovered.recordRemove(0);
+        expected.remove(0);
+        recovered.close();
+        assertEquals(expected, new SportStore(mDirectory).load());
+    }
+
+    @Test
+    public void corruptedRecord_stopsReplay() throws IOException {
+        List<Sport> expected = sports(10);
+        mStore.replaceAll(expected);
+        mStore.recordRemove(0);
+        expected.remove(0);
+        long secondRecord = journal().length();
+        mStore.recordRemove(0);
+        mStore.recordRemove(0);
+        mStore.close();
+
+        //Flip a byte inside the second record's payload
+        try (RandomAccessFile journal = new RandomAccessFile(journal(), "rw")) {
+            journal.seek(secondRecord + 5);
+            int value = journal.read();
+            journal.seek(secondRecord + 5);
+            journal.write(value ^ 0xff);
+        }
+
+        assertEquals(expected, new SportStore(mDirectory).load());
+    }
+
+    @Test
+    public void journal_isCompactedAtThreshold() throws IOException {
+        SportStore store = new SportStore(mDirectory, 10);
+        List<Sport> expected = sports(50);
+        store.replaceAll(expected);
+
+        for (int i = 0; i < 25; i++) {
+            store.recordMove(i, 49 - i);
+            expected.add(49 - i, expected.remove(i));
+        }
+
+        assertEquals(5, store.getJournalEntryCount());
+        store.close();
+        assertEquals(expected, new SportStore(mDirectory, 10).load());
+    }
+
+    @Test
+    public void batch_isWrittenOnEndBatch() throws IOException {
+        List<Sport> expected = sports(10);
+        mStore.replaceAll(expected);
+        long emptyLength = journal().length();
+
+        mStore.beginBatch();
+        mStore.recordMove(0, 9);
+        expected.add(9, expected.remove(0));
+        mStore.recordRemove(2);
+        expected.remove(2);
+
+        assertEquals(emptyLength, journal().length());
+        mStore.endBatch();
+        assertTrue(journal().length() > emptyLength);
+        assertEquals(expected, reopen());
+    }
+
+    @Test
+    public void batchCrossingThreshold_isCompactedOnEndBatch() throws IOException {
+        SportStore store = new SportStore(mDirectory, 10);
+        List<Sport> expected = sports(50);
+        store.replaceAll(expected);
+
+        store.beginBatch();
+        for (int i = 0; i < 15; i++) {
+            store.recordMove(i, 49 - i);
+            expected.add(49 - i, expected.remove(i));
+        }
+        assertEquals(15, store.getJournalEntryCount());
+        store.endBatch();
+
+        assertEquals(0, store.getJournalEntryCount());
+        store.close();
+        assertEquals(expected, new SportStore(mDirectory, 10).load());
+    }
+
+    @Test
+    public void journalOfOlderSnapshot_isIgnored() throws IOException {
+        List<Sport> expected = sports(10);
+        mStore.replaceAll(expected);
+        mStore.recordRemove(0);
+        expected.remove(0);
+        mStore.close();
+        File staleJournal = new File(mFolder.getRoot(), "stale.journal");
+        Files.copy(journal().toPath(), staleJournal.toPath());
+
+        //Crash after the compacted snapshot was renamed, before the journal was reset
+        mStore.load();
+        mStore.compact();
+        mStore.close();
+        Files.copy(staleJournal.toPath(), journal().toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        assertEquals(expected, new SportStore(mDirectory).load());
+    }
+
+    @Test
+    public void damagedSnapshot_loadsNothing() throws IOException {
+        mStore.replaceAll(sports(10));
+        mStore.close();
+        try (RandomAccessFile snapshot = new RandomAccessFile(new File(mDirectory, SportStore.SNAPSHOT_FILE), "rw")) {
+            snapshot.setLength(snapshot.length() - 1);
+        }
+
+        assertNull(new SportStore(mDirectory).load());
+    }
+
+    @Test
+    public void largeList_restoresQuickly() throws IOException {
+        List<Sport> expected = sports(10_000);
+        mStore.replaceAll(expected);
+        for (int i = 0; i < 100; i++) {
+            mStore.recordMove(i, 9_999 - i);
+            expected.add(9_999 - i, expected.remove(i));
+        }
+        mStore.close();
+
+        //Warm up the code paths, then time a restore
+        new SportStore(mDirectory).load();
+        long start = System.nanoTime();
+        List<Sport> restored = new SportStore(mDirectory).load();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(expected, restored);
+        assertTrue("restore took " + elapsedMillis + " ms", elapsedMillis < 500);
+    }
+
+    private List<Sport> reopen() throws IOException {
+        mStore.close();
+        mStore = new SportStore(mDirectory);
+        return mStore.load();
+    }
+
+    private File journal() {
+        return new File(mDirectory, SportStore.JOURNAL_FILE);
+    }
+
+    private static List<Sport> sports(int count) {
+        List<Sport> sports = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            sports.add(new Sport(i, "Sport " + i, "Here is some news about sport " + i, 1000 + i));
+        }
+        return sports;
+    }
+}
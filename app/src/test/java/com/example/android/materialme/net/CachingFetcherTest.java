@@ -0,0 +1,332 @@
+package com.example.android.materialme.net;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.example.android.materialme.net.HttpCacheTest.read;
+import static org.junit.Assert.*;
+
+/**
+ * Serving, revalidating and coalescing requests with CachingFetcher against a stand-in server.
+ */
+public class CachingFetcherTest {
+
+    private static final long MINUTE_MILLIS = 60_000;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private final List<Runnable> mRevalidations = new ArrayList<>();
+    private long mNow = 1_000_000;
+    private HttpCache mCache;
+    private CachingFetcher mFetcher;
+    private StandInServer mServer;
+
+    @Before
+    public void setUp() throws IOException {
+        mCache = new HttpCache(mFolder.newFolder(), 1024 * 1024);
+        //Revalidations wait until the test runs them
+        mFetcher = new CachingFetcher(mCache, mRevalidations::add, () -> mNow);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (mServer != null) mServer.close();
+    }
+
+    @Test
+    public void freshResponse_isServedWithoutARequest() throws Exception {
+        mServer = new StandInServer((request, response) -> {
+            response.setHeader("Cache-Control", "max-age=60");
+            response.write("image");
+        });
+        URL url = mServer.url("/a.jpg");
+
+        assertEquals("image", read(mFetcher.open(url)));
+        mNow += MINUTE_MILLIS - 1;
+        assertEquals("image", read(mFetcher.open(url)));
+
+        assertEquals(1, mServer.getRequestCount());
+        assertEquals(1, mFetcher.getStats().getCount(CacheStats.MISS));
+        assertEquals(1, mFetcher.getStats().getCount(CacheStats.HIT));
+        assertEquals(0.5, mFetcher.getStats().getHitRate(), 0);
+    }
+
+    @Test
+    public void staleResponse_isRevalidatedWithItsEtag() throws Exception {
+        AtomicReference<String> ifNoneMatch = new AtomicReference<>();
+        mServer = new StandInServer((request, response) -> {
+            ifNoneMatch.set(request.headers.get("if-none-match"));
+            if ("\"v1\"".equals(ifNoneMatch.get())) {
+                response.setCode(304);
+                response.setHeader("Cache-Control", "max-age=120");
+                return;
+            }
+            response.setHeader("ETag", "\"v1\"");
+            response.setHeader("Cache-Control", "max-age=60");
+            response.write("image v1");
+        });
+        URL url = mServer.url("/a.jpg");
+        read(mFetcher.open(url));
+
+        mNow += MINUTE_MILLIS;
+        assertEquals("image v1", read(mFetcher.open(url)));
+
+        assertEquals("\"v1\"", ifNoneMatch.get());
+        assertEquals(1, mFetcher.getStats().getCount(CacheStats.NOT_MODIFIED));
+        //Fresh again, for the max-age of the 304
+        mNow += 2 * MINUTE_MILLIS - 1;
+        assertEquals("image v1", read(mFetcher.open(url)));
+        assertEquals(2, mServer.getRequestCount());
+        assertEquals(1, mFetcher.getStats().getCount(CacheStats.HIT));
+    }
+
+    @Test
+    public void staleResponse_isRevalidatedWithItsLastModified() throws Exception {
+        String lastModified = "Mon, 05 Oct 2026 10:00:00 GMT";
+        AtomicInteger version = new AtomicInteger(1);
+        mServer = new StandInServer((request, response) -> {
+            if (version.get() == 1 && lastModified.equals(request.headers.get("if-modified-since"))) {
+                response.setCode(304);
+                return;
+            }
+            response.setHeader("Last-Modified", lastModified);
+            response.write("image v" + version.get());
+        });
+        URL url = mServer.url("/a.jpg");
+        read(mFetcher.open(url));
+
+        //No max-age, every request is revalidated
+        assertEquals("image v1", read(mFetcher.open(url)));
+        version.set(2);
+        assertEquals("image v2", read(mFetcher.open(url)));
+        assertEquals("image v2", read(mCache.get(url.toString())));
+
+        assertEquals(3, mServer.getRequestCount());
+        assertEquals(2, mFetcher.getStats().getCount(CacheStats.MISS));
+        assertEquals(1, mFetcher.getStats().getCount(CacheStats.NOT_MODIFIED));
+    }
+
+    @Test
+    public void staleWhileRevalidate_servesTheStaleResponseAndRefreshesIt() throws Exception {
+        AtomicInteger version = new AtomicInteger(1);
+        mServer = new StandInServer((request, response) -> {
+            response.setHeader("Cache-Control", "max-age=60, stale-while-revalidate=600");
+            response.write("feed v" + version.get());
+        });
+        URL url = mServer.url("/sports.json");
+        read(mFetcher.open(url));
+        version.set(2);
+
+        mNow += 2 * MINUTE_MILLIS;
+        assertEquals("feed v1", read(mFetcher.open(url)));
+        //Only one revalidation while one is pending
+        assertEquals("feed v1", read(mFetcher.open(url)));
+
+        assertEquals(1, mRevalidations.size());
+        assertEquals(1, mServer.getRequestCount());
+        mRevalidations.remove(0).run();
+
+        assertEquals(2, mServer.getRequestCount());
+        assertEquals("feed v2", read(mFetcher.open(url)));
+        assertEquals(2, mFetcher.getStats().getCount(CacheStats.STALE_HIT));
+        assertEquals(1, mFetcher.getStats().getCount(CacheStats.HIT));
+        assertEquals(1, mFetcher.getStats().getRevalidationCount());
+    }
+
+    @Test
+    public void pastStaleWhileRevalidate_waitsForTheServer() throws Exception {
+        AtomicInteger version = new AtomicInteger(1);
+        mServer = new StandInServer((request, response) -> {
+            response.setHeader("Cache-Control", "max-age=60, stale-while-revalidate=60");
+            response.write("feed v" + version.get());
+        });
+        URL url = mServer.url("/sports.json");
+        read(mFetcher.open(url));
+        version.set(2);
+
+        mNow += 2 * MINUTE_MILLIS;
+
+        assertEquals("feed v2", read(mFetcher.open(url)));
+        assertTrue(mRevalidations.isEmpty());
+    }
+
+    @Test
+    public void concurrentRequests_shareOneFetch() throws Exception {
+        int requests = 4;
+        CountDownLatch waiting = new CountDownLatch(1);
+        mServer = new StandInServer((request, response) -> {
+            response.setHeader("Cache-Control", "max-age=60");
+            //The body is sent once the other requests wait for this one
+            if (!waiting.await(10, TimeUnit.SECONDS)) return;
+            response.write("image");
+        });
+        URL url = mServer.url("/a.jpg");
+
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        try {
+            List<Future<String>> bodies = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                bodies.add(executor.submit(() -> read(mFetcher.open(url))));
+            }
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (mFetcher.getWaitingCount() < requests - 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            waiting.countDown();
+
+            for (Future<String> body : bodies) {
+                assertEquals("image", body.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, mServer.getRequestCount());
+        assertEquals(1, mFetcher.getStats().getCount(CacheStats.MISS));
+        assertEquals(requests - 1, mFetcher.getStats().getCount(CacheStats.COALESCED));
+    }
+
+    @Test
+    public void stalledFetch_isWaitedForOnlyUntilTheTimeout() throws Exception {
+        mServer = new StandInServer((request, response) -> {
+            response.setHeader("Cache-Control", "max-age=60");
+            response.write("image");
+        });
+        URL url = mServer.url("/a.jpg");
+        CachingFetcher fetcher = new CachingFetcher(mCache, mRevalidations::add, () -> mNow, 50);
+
+        //E.g. a decoder that opened the body and was rescheduled before reading it
+        try (InputStream stalled = fetcher.open(url)) {
+            assertEquals("image", read(fetcher.open(url)));
+            assertEquals(2, mServer.getRequestCount());
+            assertEquals(0, fetcher.getWaitingCount());
+        }
+    }
+
+    @Test
+    public void noStore_isNotCached() throws Exception {
+        mServer = new StandInServer((request, response) -> {
+            response.setHeader("Cache-Control", "no-store");
+            response.setHeader("ETag", "\"v1\"");
+            response.write("private");
+        });
+        URL url = mServer.url("/a.jpg");
+
+        assertEquals("private", read(mFetcher.open(url)));
+        assertEquals("private", read(mFetcher.open(url)));
+
+        assertEquals(2, mServer.getRequestCount());
+        assertNull(mCache.get(url.toString()));
+        assertEquals(0, mFetcher.getStats().getHitRate(), 0);
+    }
+
+    @Test
+    public void bodyClosedEarly_isStillCached() throws Exception {
+        mServer = new StandInServer((request, response) -> {
+            response.setHeader("Cache-Control", "max-age=60");
+            response.write("{\"sports\": []}\n\n");
+        });
+        URL url = mServer.url("/sports.json");
+
+        try (InputStream body = mFetcher.open(url)) {
+            //A parser stops at the end of the document, before the trailing whitespace
+            assertEquals('{', body.read());
+        }
+
+        assertEquals("{\"sports\": []}\n\n", read(mCache.get(url.toString())));
+    }
+
+    @Test
+    public void serverError_servesTheStaleResponse() throws Exception {
+        AtomicInteger code = new AtomicInteger(200);
+        mServer = new StandInServer((request, response) -> {
+            response.setCode(code.get());
+            response.setHeader("Cache-Control", "max-age=60");
+            response.write(code.get() == 200 ? "image" : "error");
+        });
+        URL url = mServer.url("/a.jpg");
+        read(mFetcher.open(url));
+        code.set(503);
+
+        mNow += 10 * MINUTE_MILLIS;
+
+        assertEquals("image", read(mFetcher.open(url)));
+        assertEquals(1, mFetcher.getStats().getCount(CacheStats.STALE_HIT));
+        assertEquals(0, mFetcher.getStats().getErrorCount());
+    }
+
+    @Test
+    public void unreachableServer_withNothingCached_fails() throws Exception {
+        mServer = new StandInServer((request, response) -> { });
+        URL url = mServer.url("/a.jpg");
+        mServer.close();
+
+        try {
+            mFetcher.open(url);
+            fail("Served " + url);
+        } catch (IOException expected) {
+        }
+        assertEquals(1, mFetcher.getStats().getErrorCount());
+        assertEquals(0, mFetcher.getWaitingCount());
+    }
+
+    @Test
+    public void failingRequest_isNotWaitedFor() throws Exception {
+        mServer = new StandInServer((request, response) -> response.write("image"));
+        URL url = mServer.url("/a.jpg");
+        //A stale response whose validator cannot be sent, the request throws before it is made
+        File body = mCache.newTempFile();
+        new FileOutputStream(body).close();
+        mCache.put(new HttpCache.Entry(url.toString(), "\"v1\"\r\nX-Injected: 1", null, 0, 0, 0), body);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            for (int i = 0; i < 2; i++) {
+                Future<InputStream> open = executor.submit(() -> mFetcher.open(url));
+                try {
+                    open.get(10, TimeUnit.SECONDS);
+                    fail("Served " + url);
+                } catch (ExecutionException expected) {
+                    assertTrue(expected.getCause() instanceof IllegalArgumentException);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, mServer.getRequestCount());
+        assertEquals(2, mFetcher.getStats().getErrorCount());
+    }
+
+    @Test
+    public void cacheControl_parsesTheDirectives() {
+        CachingFetcher.CacheControl control = CachingFetcher.CacheControl.parse("public, Max-Age=300, stale-while-revalidate=\"30\"");
+        assertEquals(300_000, control.mMaxAgeMillis);
+        assertEquals(30_000, control.mStaleWhileRevalidateMillis);
+        assertFalse(control.mNoStore);
+
+        assertEquals(0, CachingFetcher.CacheControl.parse("max-age=300, no-cache").mMaxAgeMillis);
+        assertTrue(CachingFetcher.CacheControl.parse("no-store").mNoStore);
+        assertEquals(0, CachingFetcher.CacheControl.parse("max-age=soon").mMaxAgeMillis);
+        assertFalse(CachingFetcher.CacheControl.parse(null).mPresent);
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.android.materialme.net;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Storing, bounding and evicting the responses of HttpCache, and finding them again after a restart.
+ */
+public class HttpCacheTest {
+
+    private static final int BODY_SIZE = 1000;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void put_isReadBackWithItsValidators() throws IOException {
+        HttpCache cache = new HttpCache(mFolder.newFolder(), 100_000);
+
+        put(cache, "http://host/a", "body of a", "\"a1\"", "Mon, 05 Oct 2026 10:00:00 GMT");
+        HttpCache.Entry entry = cache.get("http://host/a");
+
+        assertEquals("body of a", read(entry));
+        assertEquals("\"a1\"", entry.mEtag);
+        assertEquals("Mon, 05 Oct 2026 10:00:00 GMT", entry.mLastModified);
+        assertEquals(1000, entry.mFetchedAtMillis);
+        assertEquals(60_000, entry.mMaxAgeMillis);
+        assertNull(cache.get("http://host/b"));
+    }
+
+    @Test
+    public void freshness_followsMaxAgeAndStaleWhileRevalidate() {
+        HttpCache.Entry entry = new HttpCache.Entry("http://host/a", null, null, 1000, 60_000, 30_000);
+
+        assertTrue(entry.isFresh(60_999));
+        assertFalse(entry.isFresh(61_000));
+        assertTrue(entry.isUsableWhileRevalidating(90_999));
+        assertFalse(entry.isUsableWhileRevalidating(91_000));
+    }
+
+    @Test
+    public void put_evictsTheLeastRecentlyUsed() throws IOException {
+        //Room for three bodies and their metadata, not four
+        HttpCache cache = new HttpCache(mFolder.newFolder(), 3 * BODY_SIZE + 600);
+        put(cache, "http://host/a", body('a'), null, null);
+        put(cache, "http://host/b", body('b'), null, null);
+        put(cache, "http://host/c", body('c'), null, null);
+
+        //a is used again, so b is the eldest
+        assertNotNull(cache.get("http://host/a"));
+        put(cache, "http://host/d", body('d'), null, null);
+
+        assertNull(cache.get("http://host/b"));
+        assertEquals(Arrays.asList("http://host/c", "http://host/a", "http://host/d"), cache.urls());
+        assertTrue(cache.size() <= 3 * BODY_SIZE + 600);
+    }
+
+    @Test
+    public void put_replacesTheResponseOfItsUrl() throws IOException {
+        HttpCache cache = new HttpCache(mFolder.newFolder(), 100_000);
+        put(cache, "http://host/a", "old", null, null);
+        long size = cache.size();
+
+        put(cache, "http://host/a", "new", null, null);
+
+        assertEquals("new", read(cache.get("http://host/a")));
+        assertEquals(size, cache.size());
+    }
+
+    @Test
+    public void oversizeBody_isNotStored() throws IOException {
+        File directory = mFolder.newFolder();
+        HttpCache cache = new HttpCache(directory, BODY_SIZE / 2);
+
+        assertNull(put(cache, "http://host/a", body('a'), null, null));
+        assertNull(cache.get("http://host/a"));
+        assertEquals(0, cache.size());
+        assertEquals(0, directory.list().length);
+    }
+
+    @Test
+    public void update_keepsTheBody() throws IOException {
+        HttpCache cache = new HttpCache(mFolder.newFolder(), 100_000);
+        put(cache, "http://host/a", "body of a", "\"a1\"", null);
+
+        cache.update(cache.get("http://host/a").revalidated(5000, 120_000, 0));
+        HttpCache.Entry entry = cache.get("http://host/a");
+
+        assertEquals("body of a", read(entry));
+        assertEquals(5000, entry.mFetchedAtMillis);
+        assertEquals(120_000, entry.mMaxAgeMillis);
+        assertEquals("\"a1\"", entry.mEtag);
+    }
+
+    @Test
+    public void reopenedCache_findsTheResponses() throws IOException {
+        File directory = mFolder.newFolder();
+        HttpCache cache = new HttpCache(directory, 100_000);
+        put(cache, "http://host/a", "body of a", "\"a1\"", null);
+        put(cache, "http://host/b", "body of b", null, null);
+        long size = cache.size();
+        //A body that was never stored, e.g. the process died while it downloaded
+        try (OutputStream out = new FileOutputStream(cache.newTempFile())) {
+            out.write(1);
+        }
+
+        HttpCache reopened = new HttpCache(directory, 100_000);
+
+        assertEquals("body of a", read(reopened.get("http://host/a")));
+        assertEquals("\"a1\"", reopened.get("http://host/a").mEtag);
+        assertEquals("body of b", read(reopened.get("http://host/b")));
+        assertEquals(size, reopened.size());
+        assertEquals(4, directory.list().length);
+    }
+
+    @Test
+    public void remove_deletesTheFiles() throws IOException {
+        File directory = mFolder.newFolder();
+        HttpCache cache = new HttpCache(directory, 100_000);
+        put(cache, "http://host/a", "body of a", null, null);
+
+        cache.remove("http://host/a");
+
+        assertNull(cache.get("http://host/a"));
+        assertEquals(Collections.emptyList(), cache.urls());
+        assertEquals(0, cache.size());
+        assertEquals(0, directory.list().length);
+    }
+
+    private static HttpCache.Entry put(HttpCache cache, String url, String body, String etag, String lastModified)
+            throws IOException {
+        File temp = cache.newTempFile();
+        try (OutputStream out = new FileOutputStream(temp)) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return cache.put(new HttpCache.Entry(url, etag, lastModified, 1000, 60_000, 0), temp);
+    }
+
+    private static String body(char c) {
+        char[] body = new char[BODY_SIZE];
+        Arrays.fill(body, c);
+        return new String(body);
+    }
+
+    static String read(HttpCache.Entry entry) throws IOException {
+        return read(entry.open());
+    }
+
+    static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream body = in) {
+            byte[] buffer = new byte[4096];
+            int count;
+            while ((count = body.read(buffer)) >= 0) {
+                out.write(buffer, 0, count);
+            }
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
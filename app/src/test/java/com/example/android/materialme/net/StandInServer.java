@@ -0,0 +1,201 @@
+package com.example.android.materialme.net;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.MalformedURLException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A minimal HTTP/1.1 server on the loopback interface, standing in for the feed and image servers in tests.
+ * Each connection serves one request on its own thread, the handler writes the response body
+ * as slowly as it likes and the connection is closed after it.
+ */
+public class StandInServer implements Closeable {
+
+    /**
+     * Answers a request.
+     */
+    public interface Handler {
+        /**
+         * @param request The request line and headers
+         * @param response The response to fill in, its head is sent when the body is first written
+         */
+        void handle(Request request, Response response) throws IOException, InterruptedException;
+    }
+
+    /**
+     * The request line and the headers of a request, header names in lower case.
+     */
+    public static final class Request {
+        public final String method;
+        public final String path;
+        public final Map<String, String> headers;
+
+        Request(String method, String path, Map<String, String> headers) {
+            this.method = method;
+            this.path = path;
+            this.headers = Collections.unmodifiableMap(headers);
+        }
+    }
+
+    /**
+     * A response, ended by closing the connection.
+     */
+    public static final class Response {
+        private final OutputStream mOut;
+        private int mCode = 200;
+        private final Map<String, String> mHeaders = new HashMap<>();
+        private boolean mHeadSent;
+
+        Response(OutputStream out) {
+            this.mOut = out;
+        }
+
+        public void setCode(int code) {
+            mCode = code;
+        }
+
+        public void setHeader(String name, String value) {
+            mHeaders.put(name, value);
+        }
+
+        /**
+         * Sends part of the body right away
+         * @param body The part
+         */
+        public void write(String body) throws IOException {
+            sendHead();
+            mOut.write(body.getBytes(StandardCharsets.UTF_8));
+            mOut.flush();
+        }
+
+        void finish() throws IOException {
+            sendHead();
+            mOut.flush();
+        }
+
+        private void sendHead() throws IOException {
+            if (mHeadSent) return;
+            mHeadSent = true;
+
+            StringBuilder head = new StringBuilder("HTTP/1.1 ").append(mCode).append(" Status\r\n");
+            for (Map.Entry<String, String> header : mHeaders.entrySet()) {
+                head.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+            }
+            head.append("Connection: close\r\n\r\n");
+            mOut.write(head.toString().getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    private final ServerSocket mServerSocket;
+    private final Handler mHandler;
+    private final AtomicInteger mRequestCount = new AtomicInteger();
+    private final Thread mAcceptor;
+
+    /**
+     * Starts a server on a free port
+     * @param handler Answers every request, on the thread of its connection
+     */
+    public StandInServer(Handler handler) throws IOException {
+        this.mHandler = handler;
+        this.mServerSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+
+        mAcceptor = new Thread(this::accept, "StandInServer");
+        mAcceptor.setDaemon(true);
+        mAcceptor.start();
+    }
+
+    /**
+     * Gets the URL of a path on this server
+     * @param path The path, starting with a slash
+     * @return The URL
+     */
+    public URL url(String path) throws MalformedURLException {
+        return new URL("http", mServerSocket.getInetAddress().getHostAddress(), mServerSocket.getLocalPort(), path);
+    }
+
+    /**
+     * Gets the number of requests received so far
+     * @return The count
+     */
+    public int getRequestCount() {
+        return mRequestCount.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        mServerSocket.close();
+        //The socket may only be released once a pending accept() returned, so a test connecting
+        //after close() is refused
+        try {
+            mAcceptor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void accept() {
+        while (!mServerSocket.isClosed()) {
+            try {
+                Socket socket = mServerSocket.accept();
+                Thread connection = new Thread(() -> serve(socket), "StandInServer connection");
+                connection.setDaemon(true);
+                connection.start();
+            } catch (IOException e) {
+                //Closed
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket connection = socket) {
+            Request request = readRequest(connection.getInputStream());
+            if (request == null) return;
+            mRequestCount.incrementAndGet();
+
+            Response response = new Response(connection.getOutputStream());
+            mHandler.handle(request, response);
+            response.finish();
+        } catch (IOException | InterruptedException e) {
+            //The client went away, or the test ended
+        }
+    }
+
+    //Reads the request line and the headers, requests have no body
+    private static Request readRequest(InputStream in) throws IOException {
+        String requestLine = readLine(in);
+        if (requestLine == null) return null;
+
+        Map<String, String> headers = new HashMap<>();
+        String line;
+        while ((line = readLine(in)) != null && !line.isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(), line.substring(colon + 1).trim());
+            }
+        }
+
+        String[] parts = requestLine.split(" ");
+        return new Request(parts[0], parts.length > 1 ? parts[1] : "/", headers);
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int c;
+        while ((c = in.read()) != -1 && c != '\n') {
+            if (c != '\r') line.write(c);
+        }
+        return c == -1 && line.size() == 0 ? null : new String(line.toByteArray(), StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.android.materialme.benchmark;
+
+import android.annotation.TargetApi;
+import android.app.Activity;
+import android.os.Build;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+/**
+ * Records frame durations with FrameMetrics (API 24+) and the bytes allocated by the app
+ * (API 23+) between start() and stop(). Older devices report no frames and unknown allocations.
+ */
+final class FrameRecorder {
+
+    private static final int MAX_FRAMES = 10_000;
+
+    private final Activity mActivity;
+    private final long[] mFrameNanos = new long[MAX_FRAMES];
+    private volatile int mFrameCount;
+
+    private HandlerThread mThread;
+    private Object mListener;
+    private long mStartNanos;
+    private long mStartAllocated;
+    private long mDurationNanos;
+    private long mAllocatedBytes;
+
+    FrameRecorder(Activity activity) {
+        this.mActivity = activity;
+    }
+
+    /**
+     * Starts recording, must be called on the main thread
+     */
+    void start() {
+        mFrameCount = 0;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            startFrameMetrics();
+        }
+        mStartAllocated = allocatedBytes();
+        mStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Stops recording, must be called on the main thread
+     */
+    void stop() {
+        mDurationNanos = System.nanoTime() - mStartNanos;
+        long allocated = allocatedBytes();
+        mAllocatedBytes = allocated >= 0 && mStartAllocated >= 0 ? allocated - mStartAllocated : -1;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            stopFrameMetrics();
+        }
+    }
+
+    long getDurationNanos() {
+        return mDurationNanos;
+    }
+
+    long getAllocatedBytes() {
+        return mAllocatedBytes;
+    }
+
+    long[] getFrameNanos() {
+        long[] frames = new long[Math.min(mFrameCount, MAX_FRAMES)];
+        System.arraycopy(mFrameNanos, 0, frames, 0, frames.length);
+        return frames;
+    }
+
+    @TargetApi(Build.VERSION_CODES.N)
+    private void startFrameMetrics() {
+        mThread = new HandlerThread("FrameRecorder");
+        mThread.start();
+
+        Window.OnFrameMetricsAvailableListener listener = (window, frameMetrics, dropCount) -> {
+            int index = mFrameCount;
+            if (index < MAX_FRAMES) {
+                mFrameNanos[index] = frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION);
+                mFrameCount = index + 1;
+            }
+        };
+        mActivity.getWindow().addOnFrameMetricsAvailableListener(listener, new Handler(mThread.getLooper()));
+        mListener = listener;
+    }
+
+    @TargetApi(Build.VERSION_CODES.N)
+    private void stopFrameMetrics() {
+        mActivity.getWindow().removeOnFrameMetricsAvailableListener((Window.OnFrameMetricsAvailableListener) mListener);
+        mThread.quitSafely();
+    }
+
+    private static long allocatedBytes() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) return -1;
+
+        String stat = Debug.getRuntimeStat("art.gc.bytes-allocated");
+        try {
+            return stat != null ? Long.parseLong(stat) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
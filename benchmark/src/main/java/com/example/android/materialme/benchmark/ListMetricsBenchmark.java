@@ -0,0 +1,63 @@
+package com.example.android.materialme.benchmark;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.android.materialme.metrics.ListMetrics;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Microbenchmarks of the cost ListMetrics adds to every timed operation, recording and switched off.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ListMetricsBenchmark {
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private final ListMetrics mMetrics = ListMetrics.getInstance();
+
+    @After
+    public void tearDown() {
+        mMetrics.setEnabled(false);
+        mMetrics.reset();
+    }
+
+    @Test
+    public void startAndEnd_recording() {
+        mMetrics.setEnabled(true);
+
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            mMetrics.end(ListMetrics.BIND, mMetrics.start());
+        }
+    }
+
+    @Test
+    public void startAndEnd_switchedOff() {
+        mMetrics.setEnabled(false);
+
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            mMetrics.end(ListMetrics.BIND, mMetrics.start());
+        }
+    }
+
+    @Test
+    public void recordFrame_recording() {
+        mMetrics.setEnabled(true);
+
+        BenchmarkState state = mBenchmarkRule.getState();
+        long nanos = 0;
+        while (state.keepRunning()) {
+            //Spread over the buckets like real frames
+            nanos = (nanos + 1_234_567) % 40_000_000;
+            mMetrics.recordFrame(nanos);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.android.materialme.benchmark;
+
+import android.app.Activity;
+import android.app.Instrumentation;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.android.materialme.MainActivity;
+import com.example.android.materialme.R;
+import com.example.android.materialme.metrics.ListMetrics;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Scripted scenarios on MainActivity, reporting wall time, frame timing and allocations
+ * to {@link ScenarioReport#FILE_NAME}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ListScenarioBenchmark {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+    private static final int FLING_VELOCITY = 8_000;
+    private static final int SWIPE_STEPS = 20;
+    private static final long SWIPE_STEP_MILLIS = 16;
+
+    private final Instrumentation mInstrumentation = InstrumentationRegistry.getInstrumentation();
+
+    @Test
+    public void startup() {
+        long start = System.nanoTime();
+        try (ActivityScenario<MainActivity> scenario = ActivityScenario.launch(MainActivity.class)) {
+            RecyclerView recyclerView = awaitFirstCard(scenario);
+            long firstCardNanos = System.nanoTime() - start;
+
+            //The process is already running, so this is the in-process part of a cold start
+            ScenarioReport.record(recyclerView.getContext(), "startup_to_first_card", firstCardNanos, new long[0], -1);
+        }
+    }
+
+    @Test
+    public void gridFling() {
+        try (ActivityScenario<MainActivity> scenario = ActivityScenario.launch(MainActivity.class)) {
+            RecyclerView recyclerView = awaitFirstCard(scenario);
+            ListMetrics metrics = ListMetrics.getInstance();
+            mInstrumentation.runOnMainSync(metrics::reset);
+            FrameRecorder recorder = startRecording(recyclerView);
+
+            mInstrumentation.runOnMainSync(() -> recyclerView.fling(0, FLING_VELOCITY));
+            awaitScrollIdle(recyclerView);
+            mInstrumentation.runOnMainSync(() -> recyclerView.fling(0, -FLING_VELOCITY));
+            awaitScrollIdle(recyclerView);
+
+            stopRecording(recorder, recyclerView, "grid_fling");
+            //The loads the scheduler held back during the flings, and the decodes that saved
+            ScenarioReport.recordImageLoads(recyclerView.getContext(), "grid_fling_image_loads", metrics);
+        }
+    }
+
+    @Test
+    public void swipeToDelete() {
+        try (ActivityScenario<MainActivity> scenario = ActivityScenario.launch(MainActivity.class)) {
+            RecyclerView recyclerView = awaitFirstCard(scenario);
+            int itemCount = recyclerView.getAdapter().getItemCount();
+            FrameRecorder recorder = startRecording(recyclerView);
+
+            swipeLeft(recyclerView.getChildAt(0));
+            awaitItemCount(recyclerView, itemCount - 1);
+
+            stopRecording(recorder, recyclerView, "swipe_to_delete");
+        }
+    }
+
+    private RecyclerView awaitFirstCard(ActivityScenario<MainActivity> scenario) {
+        AtomicReference<RecyclerView> recyclerView = new AtomicReference<>();
+        scenario.onActivity(activity -> recyclerView.set(activity.findViewById(R.id.recycler_view)));
+
+        long deadline = SystemClock.uptimeMillis() + TIMEOUT_MILLIS;
+        while (SystemClock.uptimeMillis() < deadline) {
+            mInstrumentation.waitForIdleSync();
+            if (recyclerView.get().getChildCount() > 0) return recyclerView.get();
+            SystemClock.sleep(5);
+        }
+        fail("No card was shown within " + TIMEOUT_MILLIS + " ms");
+        return null;
+    }
+
+    private void awaitScrollIdle(RecyclerView recyclerView) {
+        long deadline = SystemClock.uptimeMillis() + TIMEOUT_MILLIS;
+        do {
+            SystemClock.sleep(50);
+            mInstrumentation.waitForIdleSync();
+        } while (recyclerView.getScrollState() != RecyclerView.SCROLL_STATE_IDLE && SystemClock.uptimeMillis() < deadline);
+    }
+
+    private void awaitItemCount(RecyclerView recyclerView, int count) {
+        long deadline = SystemClock.uptimeMillis() + TIMEOUT_MILLIS;
+        while (recyclerView.getAdapter().getItemCount() != count && SystemClock.uptimeMillis() < deadline) {
+            SystemClock.sleep(10);
+            mInstrumentation.waitForIdleSync();
+        }
+        //Let the remove animation finish
+        awaitScrollIdle(recyclerView);
+        assertEquals(count, recyclerView.getAdapter().getItemCount());
+    }
+
+    private FrameRecorder startRecording(RecyclerView recyclerView) {
+        FrameRecorder recorder = new FrameRecorder((Activity) recyclerView.getContext());
+        mInstrumentation.runOnMainSync(recorder::start);
+        return recorder;
+    }
+
+    private void stopRecording(FrameRecorder recorder, RecyclerView recyclerView, String scenario) {
+        mInstrumentation.runOnMainSync(recorder::stop);
+        ScenarioReport.record(recyclerView.getContext(), scenario, recorder.getDurationNanos(), recorder.getFrameNanos(), recorder.getAllocatedBytes());
+    }
+
+    //Drags the view across the full width of the screen, one frame per step
+    private void swipeLeft(View view) {
+        int[] location = new int[2];
+        view.getLocationOnScreen(location);
+        float y = location[1] + view.getHeight() / 2f;
+        float startX = location[0] + view.getWidth() * 0.9f;
+        float endX = location[0] + view.getWidth() * 0.05f;
+
+        long downTime = SystemClock.uptimeMillis();
+        sendMotion(downTime, downTime, MotionEvent.ACTION_DOWN, startX, y);
+        for (int step = 1; step <= SWIPE_STEPS; step++) {
+            float x = startX + (endX - startX) * step / SWIPE_STEPS;
+            sendMotion(downTime, downTime + step * SWIPE_STEP_MILLIS, MotionEvent.ACTION_MOVE, x, y);
+        }
+        sendMotion(downTime, downTime + (SWIPE_STEPS + 1) * SWIPE_STEP_MILLIS, MotionEvent.ACTION_UP, endX, y);
+    }
+
+    private void sendMotion(long downTime, long eventTime, int action, float x, float y) {
+        MotionEvent event = MotionEvent.obtain(downTime, eventTime, action, x, y, 0);
+        mInstrumentation.sendPointerSync(event);
+        event.recycle();
+    }
+}
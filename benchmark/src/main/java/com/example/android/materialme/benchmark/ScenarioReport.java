@@ -0,0 +1,151 @@
+package com.example.android.materialme.benchmark;
+
+import android.content.Context;
+import android.os.Build;
+import android.util.Log;
+
+import com.example.android.materialme.metrics.ListMetrics;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Collects the results of the scenario benchmarks and writes them to a JSON file
+ * in the app's external files directory, next to the microbenchmark output.
+ */
+final class ScenarioReport {
+
+    static final String FILE_NAME = "materialme-scenarios.json";
+
+    private static final String TAG = "ScenarioReport";
+    private static final long FRAME_BUDGET_NANOS = 16_666_667L;
+
+    //All scenarios of the run, in the order they finished
+    private static final Map<String, JSONObject> sResults = new LinkedHashMap<>();
+
+    private ScenarioReport() {
+    }
+
+    /**
+     * Records one scenario and rewrites the report
+     * @param context The context of the app under test
+     * @param scenario The name of the scenario
+     * @param durationNanos The wall time of the scenario
+     * @param frameNanos The duration of every frame drawn during the scenario, may be empty
+     * @param allocatedBytes The bytes allocated by the app during the scenario, or -1 when unknown
+     */
+    static synchronized void record(Context context, String scenario, long durationNanos, long[] frameNanos, long allocatedBytes) {
+        try {
+            JSONObject result = new JSONObject();
+            result.put("durationMs", durationNanos / 1e6);
+            result.put("allocatedBytes", allocatedBytes);
+
+            long[] sorted = frameNanos.clone();
+            Arrays.sort(sorted);
+            int janky = 0;
+            for (long frame : sorted) {
+                if (frame > FRAME_BUDGET_NANOS) janky++;
+            }
+
+            JSONObject frames = new JSONObject();
+            frames.put("count", sorted.length);
+            frames.put("jankyCount", janky);
+            frames.put("p50Ms", percentile(sorted, 50) / 1e6);
+            frames.put("p90Ms", percentile(sorted, 90) / 1e6);
+            frames.put("p99Ms", percentile(sorted, 99) / 1e6);
+            result.put("frames", frames);
+
+            sResults.put(scenario, result);
+            Log.i(TAG, scenario + ": " + result);
+
+            write(context);
+        } catch (JSONException | IOException e) {
+            Log.e(TAG, "Could not write the scenario report", e);
+        }
+    }
+
+    /**
+     * Records a load of the catalog and rewrites the report
+     * @param context The context of the app under test
+     * @param scenario The name of the scenario
+     * @param firstItemNanos The wall time until the first items were handed out
+     * @param durationNanos The wall time of the whole load
+     * @param peakHeapBytes The most heap in use during the load above the heap in use before it
+     */
+    static synchronized void recordLoad(Context context, String scenario, long firstItemNanos, long durationNanos, long peakHeapBytes) {
+        try {
+            JSONObject result = new JSONObject();
+            result.put("firstItemMs", firstItemNanos / 1e6);
+            result.put("durationMs", durationNanos / 1e6);
+            result.put("peakHeapBytes", peakHeapBytes);
+
+            sResults.put(scenario, result);
+            Log.i(TAG, scenario + ": " + result);
+
+            write(context);
+        } catch (JSONException | IOException e) {
+            Log.e(TAG, "Could not write the scenario report", e);
+        }
+    }
+
+    /**
+     * Records the card image loads of a scenario and rewrites the report
+     * @param context The context of the app under test
+     * @param scenario The name of the scenario
+     * @param metrics The metrics the loads were counted in, reset when the scenario started
+     */
+    static synchronized void recordImageLoads(Context context, String scenario, ListMetrics metrics) {
+        try {
+            JSONObject result = new JSONObject();
+            result.put("started", metrics.getLoadCount(ListMetrics.LOAD_STARTED));
+            result.put("deferred", metrics.getLoadCount(ListMetrics.LOAD_DEFERRED));
+            result.put("skipped", metrics.getLoadCount(ListMetrics.LOAD_SKIPPED));
+            result.put("cancelled", metrics.getLoadCount(ListMetrics.LOAD_CANCELLED));
+            result.put("deduplicated", metrics.getLoadCount(ListMetrics.LOAD_DEDUPLICATED));
+            result.put("wastedDecodesAvoided", metrics.getWastedDecodesAvoided());
+
+            sResults.put(scenario, result);
+            Log.i(TAG, scenario + ": " + result);
+
+            write(context);
+        } catch (JSONException | IOException e) {
+            Log.e(TAG, "Could not write the scenario report", e);
+        }
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static void write(Context context) throws JSONException, IOException {
+        JSONObject report = new JSONObject();
+        report.put("device", Build.MANUFACTURER + " " + Build.MODEL);
+        report.put("sdkInt", Build.VERSION.SDK_INT);
+
+        JSONArray scenarios = new JSONArray();
+        for (Map.Entry<String, JSONObject> entry : sResults.entrySet()) {
+            JSONObject scenario = new JSONObject(entry.getValue().toString());
+            scenario.put("name", entry.getKey());
+            scenarios.put(scenario);
+        }
+        report.put("scenarios", scenarios);
+
+        File file = new File(context.getExternalFilesDir(null), FILE_NAME);
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(report.toString(2));
+        }
+    }
+}
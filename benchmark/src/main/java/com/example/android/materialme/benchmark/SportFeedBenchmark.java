@@ -0,0 +1,214 @@
+package com.example.android.materialme.benchmark;
+
+import android.content.Context;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.android.materialme.model.FeedSportLoader;
+import com.example.android.materialme.model.ResourceSportLoader;
+import com.example.android.materialme.model.Sport;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Loading multi-megabyte feeds with FeedSportLoader: the time until the first batch of cards
+ * can be shown, the whole load, and the peak heap compared with parsing the feed into a tree.
+ *
+ * The microbenchmarks report time only, peakHeap_* record the first batch, the duration and
+ * the peak heap of a single load of each kind to {@link ScenarioReport#FILE_NAME}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SportFeedBenchmark {
+
+    //About 9 MB of feed, the length of a news summary per entry
+    private static final int FEED_SIZE = 20_000;
+    private static final int INFO_LENGTH = 400;
+    private static final String[] IMAGES = {"img_baseball", "img_badminton", "img_basketball", "img_bowling",
+            "img_cycling", "img_golf", "img_running", "img_soccer", "img_swimming", "img_tabletennis", "img_tennis"};
+    private static final long HEAP_SAMPLE_MILLIS = 1;
+
+    /**
+     * Ends a load at its first batch.
+     */
+    private static class FirstBatchException extends RuntimeException {
+    }
+
+    /**
+     * A load measured by {@link #peakHeap(String, Load)}.
+     */
+    private interface Load {
+        List<Sport> run(long[] firstItemNanos) throws Exception;
+    }
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private Context mContext;
+    private File mFeed;
+    private FeedSportLoader mLoader;
+
+    @Before
+    public void setUp() throws IOException {
+        mContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mFeed = new File(mContext.getCacheDir(), "benchmark-feed.json");
+        writeFeed(mFeed);
+        mLoader = new FeedSportLoader(mContext, mFeed.toURI().toURL(), new ResourceSportLoader(mContext));
+    }
+
+    @After
+    public void tearDown() {
+        mFeed.delete();
+    }
+
+    @Test
+    public void firstBatch_20k() {
+        //What the first cards wait for, the rest of the feed is not read
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            try {
+                mLoader.load(batch -> {
+                    throw new FirstBatchException();
+                });
+                fail("No batch");
+            } catch (FirstBatchException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void wholeFeed_20k_streamed() {
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            mLoader.load(batch -> { });
+        }
+    }
+
+    @Test
+    public void wholeFeed_20k_tree() throws Exception {
+        //The whole document in memory, then a tree of it, then the sports
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            parseTree(mFeed);
+        }
+    }
+
+    @Test
+    public void peakHeap_20k() throws Exception {
+        peakHeap("feed_streamed_20k", firstItemNanos -> {
+            long start = System.nanoTime();
+            return mLoader.load(batch -> {
+                if (firstItemNanos[0] == 0) firstItemNanos[0] = System.nanoTime() - start;
+            });
+        });
+        peakHeap("feed_tree_20k", firstItemNanos -> {
+            long start = System.nanoTime();
+            List<Sport> sports = parseTree(mFeed);
+            //Nothing can be shown before the whole feed is parsed
+            firstItemNanos[0] = System.nanoTime() - start;
+            return sports;
+        });
+    }
+
+    //Runs the load once while sampling the heap in use, and records it
+    private void peakHeap(String scenario, Load load) throws Exception {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        System.runFinalization();
+        System.gc();
+        long baseline = runtime.totalMemory() - runtime.freeMemory();
+
+        long[] peak = {baseline};
+        boolean[] done = {false};
+        Thread sampler = new Thread(() -> {
+            while (true) {
+                synchronized (done) {
+                    if (done[0]) return;
+                }
+                peak[0] = Math.max(peak[0], runtime.totalMemory() - runtime.freeMemory());
+                try {
+                    Thread.sleep(HEAP_SAMPLE_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "HeapSampler");
+        sampler.start();
+
+        long[] firstItemNanos = new long[1];
+        long start = System.nanoTime();
+        List<Sport> sports = load.run(firstItemNanos);
+        long durationNanos = System.nanoTime() - start;
+
+        synchronized (done) {
+            done[0] = true;
+        }
+        sampler.join();
+        //The result is part of the peak, sampled while it is still referenced
+        peak[0] = Math.max(peak[0], runtime.totalMemory() - runtime.freeMemory());
+
+        assertEquals(FEED_SIZE, sports.size());
+        ScenarioReport.recordLoad(mContext, scenario, firstItemNanos[0], durationNanos, peak[0] - baseline);
+    }
+
+    private static List<Sport> parseTree(File file) throws IOException, JSONException {
+        byte[] bytes = new byte[(int) file.length()];
+        try (InputStream in = new FileInputStream(file)) {
+            int read = 0;
+            while (read < bytes.length) {
+                int count = in.read(bytes, read, bytes.length - read);
+                if (count < 0) break;
+                read += count;
+            }
+        }
+
+        JSONArray entries = new JSONObject(new String(bytes, StandardCharsets.UTF_8)).getJSONArray("sports");
+        List<Sport> sports = new ArrayList<>(entries.length());
+        for (int i = 0; i < entries.length(); i++) {
+            JSONObject entry = entries.getJSONObject(i);
+            //Images are not resolved, which only favors the tree
+            sports.add(new Sport(entry.getLong("id"), entry.getString("title"), entry.optString("info"), 0));
+        }
+        return sports;
+    }
+
+    private static void writeFeed(File file) throws IOException {
+        StringBuilder info = new StringBuilder();
+        while (info.length() < INFO_LENGTH) {
+            info.append("Here is some news about the match, the scores and the players. ");
+        }
+        info.setLength(INFO_LENGTH);
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write("{\"sports\": [");
+            for (int i = 0; i < FEED_SIZE; i++) {
+                if (i > 0) writer.write(',');
+                writer.write("{\"id\": " + i + ", \"title\": \"Sport " + i + "\", \"info\": \"" + info
+                        + "\", \"image\": \"" + IMAGES[i % IMAGES.length] + "\"}");
+            }
+            writer.write("]}");
+        }
+    }
+}
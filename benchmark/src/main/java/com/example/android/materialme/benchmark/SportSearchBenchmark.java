@@ -0,0 +1,77 @@
+package com.example.android.materialme.benchmark;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.android.materialme.model.Sport;
+import com.example.android.materialme.model.SportSearchIndex;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Microbenchmarks of search queries on a 50k item catalog, each must stay well under a 16 ms frame.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SportSearchBenchmark {
+
+    private static final int CATALOG_SIZE = 50_000;
+    private static final String[] TITLES = {"Baseball", "Badminton", "Basketball", "Bowling", "Cycling",
+            "Golf", "Running", "Football", "Swimming", "Table Tennis", "Tennis"};
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private List<Sport> mCatalog;
+    private SportSearchIndex mIndex;
+
+    @Before
+    public void setUp() {
+        mCatalog = new ArrayList<>(CATALOG_SIZE);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            String title = TITLES[i % TITLES.length];
+            mCatalog.add(new Sport(i, title + " " + i,
+                    "Here is some news about " + title.toLowerCase() + ", match " + i, i));
+        }
+        mIndex = new SportSearchIndex();
+        mIndex.addAll(mCatalog);
+    }
+
+    @Test
+    public void prefixQuery() {
+        query("bas");
+    }
+
+    @Test
+    public void typoQuery() {
+        query("tenis");
+    }
+
+    @Test
+    public void multiWordQuery() {
+        query("news golf");
+    }
+
+    @Test
+    public void buildIndex() {
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            new SportSearchIndex().addAll(mCatalog);
+        }
+    }
+
+    private void query(String query) {
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            BitSet matches = mIndex.match(query);
+            mIndex.filter(mCatalog, matches);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.android.materialme.benchmark;
+
+import android.content.Context;
+import android.view.ContextThemeWrapper;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.android.materialme.R;
+import com.example.android.materialme.adapter.SportsAdapter;
+import com.example.android.materialme.metrics.ListMetrics;
+import com.example.android.materialme.model.ResourceSportLoader;
+import com.example.android.materialme.model.Sport;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Microbenchmarks of binding list items and of loading the catalog from resources.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SportsAdapterBenchmark {
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = new ContextThemeWrapper(InstrumentationRegistry.getInstrumentation().getTargetContext(), R.style.AppTheme);
+    }
+
+    @Test
+    @UiThreadTest
+    public void onBindViewHolder() {
+        bindAll();
+    }
+
+    @Test
+    @UiThreadTest
+    public void onBindViewHolder_recordingMetrics() {
+        //The difference to onBindViewHolder() is the overhead of the instrumentation
+        ListMetrics metrics = ListMetrics.getInstance();
+        metrics.setEnabled(true);
+        try {
+            bindAll();
+        } finally {
+            metrics.setEnabled(false);
+            metrics.reset();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void bindAll() {
+        List<Sport> sports = new ResourceSportLoader(mContext).load();
+
+        RecyclerView parent = new RecyclerView(mContext);
+        parent.setLayoutManager(new GridLayoutManager(mContext, 1));
+
+        SportsAdapter sportsAdapter = new SportsAdapter(mContext, new ArrayList<>());
+        sportsAdapter.submitList(sports);
+
+        //Only the public adapter API is used, the holder class is internal to the app
+        RecyclerView.Adapter<RecyclerView.ViewHolder> adapter = (RecyclerView.Adapter) sportsAdapter;
+        RecyclerView.ViewHolder holder = adapter.createViewHolder(parent, 0);
+
+        BenchmarkState state = mBenchmarkRule.getState();
+        int position = 0;
+        while (state.keepRunning()) {
+            adapter.bindViewHolder(holder, position);
+            position = (position + 1) % sports.size();
+        }
+    }
+
+    @Test
+    public void initializeData() {
+        //The resource parsing that MainActivity.initializeData() used to run on the UI thread
+        ResourceSportLoader loader = new ResourceSportLoader(mContext);
+
+        BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            loader.load();
+        }
+    }
+}
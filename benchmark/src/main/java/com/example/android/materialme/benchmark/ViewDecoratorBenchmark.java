@@ -0,0 +1,167 @@
+package com.example.android.materialme.benchmark;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.RecordingCanvas;
+import android.graphics.RenderNode;
+import android.os.Build;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.ItemTouchHelper;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.android.materialme.R;
+import com.example.android.materialme.ViewDecorator;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Microbenchmarks of the swipe decoration drawn on every frame of a swipe. The RenderNode
+ * variants record into a display list like hardware rendering does on the main thread, the
+ * others draw into a software canvas.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ViewDecoratorBenchmark {
+
+    private static final int ITEM_WIDTH = 1080;
+    private static final int ITEM_HEIGHT = 720;
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private Context mContext;
+    private RecyclerView mRecyclerView;
+    private RecyclerView.ViewHolder mViewHolder;
+    private Canvas mCanvas;
+
+    @Before
+    public void setUp() {
+        mContext = new ContextThemeWrapper(InstrumentationRegistry.getInstrumentation().getTargetContext(), R.style.AppTheme);
+        mRecyclerView = new RecyclerView(mContext);
+
+        View itemView = new View(mContext);
+        itemView.layout(0, 0, ITEM_WIDTH, ITEM_HEIGHT);
+        mViewHolder = new RecyclerView.ViewHolder(itemView) {};
+
+        mCanvas = new Canvas(Bitmap.createBitmap(ITEM_WIDTH, ITEM_HEIGHT, Bitmap.Config.ARGB_8888));
+    }
+
+    @Test
+    public void decorate_reusableDecorator() {
+        ViewDecorator decorator = new ViewDecorator.Builder(mRecyclerView)
+                .addBackgroundColor(ContextCompat.getColor(mContext, R.color.red))
+                .addActionIcon(R.drawable.ic_delete)
+                .create();
+
+        BenchmarkState state = mBenchmarkRule.getState();
+        int frame = 0;
+        while (state.keepRunning()) {
+            int count = mCanvas.save();
+            decorator.decorate(mCanvas, mViewHolder, dXForFrame(frame++), 0, ItemTouchHelper.ACTION_STATE_SWIPE, true);
+            mCanvas.restoreToCount(count);
+        }
+    }
+
+    @Test
+    public void decorate_cached() {
+        ViewDecorator decorator = createDecorator(true);
+
+        BenchmarkState state = mBenchmarkRule.getState();
+        int frame = 0;
+        while (state.keepRunning()) {
+            int count = mCanvas.save();
+            decorator.decorate(mCanvas, mViewHolder, dXForFrame(frame++), 0, ItemTouchHelper.ACTION_STATE_SWIPE, true);
+            mCanvas.restoreToCount(count);
+        }
+    }
+
+    @Test
+    public void decorate_labeled() {
+        ViewDecorator decorator = new ViewDecorator.Builder(mRecyclerView)
+                .addBackgroundColor(ContextCompat.getColor(mContext, R.color.red))
+                .addActionIcon(R.drawable.ic_delete)
+                .setActionIconTint(Color.WHITE)
+                .addSwipeLeftLabel("Delete")
+                .setSwipeLeftLabelColor(Color.WHITE)
+                .addSwipeRightLabel("Archive")
+                .setSwipeRightLabelColor(Color.WHITE)
+                .create();
+
+        BenchmarkState state = mBenchmarkRule.getState();
+        int frame = 0;
+        while (state.keepRunning()) {
+            int count = mCanvas.save();
+            decorator.decorate(mCanvas, mViewHolder, dXForFrame(frame++), 0, ItemTouchHelper.ACTION_STATE_SWIPE, true);
+            mCanvas.restoreToCount(count);
+        }
+    }
+
+    @Test
+    public void decorate_renderNode() {
+        assumeTrue(Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q);
+        recordFrames(createDecorator(false));
+    }
+
+    @Test
+    public void decorate_cachedRenderNode() {
+        assumeTrue(Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q);
+        recordFrames(createDecorator(true));
+    }
+
+    private void recordFrames(ViewDecorator decorator) {
+        RenderNode node = new RenderNode("frame");
+        node.setPosition(0, 0, ITEM_WIDTH, ITEM_HEIGHT);
+
+        BenchmarkState state = mBenchmarkRule.getState();
+        int frame = 0;
+        while (state.keepRunning()) {
+            RecordingCanvas canvas = node.beginRecording();
+            decorator.decorate(canvas, mViewHolder, dXForFrame(frame++), 0, ItemTouchHelper.ACTION_STATE_SWIPE, true);
+            node.endRecording();
+        }
+    }
+
+    private ViewDecorator createDecorator(boolean cached) {
+        return new ViewDecorator.Builder(mRecyclerView)
+                .addBackgroundColor(ContextCompat.getColor(mContext, R.color.red))
+                .addActionIcon(R.drawable.ic_delete)
+                .setCachingEnabled(cached)
+                .create();
+    }
+
+    @Test
+    public void decorate_perFrameBuilder() {
+        int red = ContextCompat.getColor(mContext, R.color.red);
+
+        BenchmarkState state = mBenchmarkRule.getState();
+        int frame = 0;
+        while (state.keepRunning()) {
+            int count = mCanvas.save();
+            new ViewDecorator.Builder(mCanvas, mRecyclerView, mViewHolder, dXForFrame(frame++), 0, ItemTouchHelper.ACTION_STATE_SWIPE, true)
+                    .addBackgroundColor(red)
+                    .addActionIcon(R.drawable.ic_delete)
+                    .create()
+                    .decorate();
+            mCanvas.restoreToCount(count);
+        }
+    }
+
+    //Alternate between left and right swipes of growing distance
+    static float dXForFrame(int frame) {
+        float distance = 1 + (frame * 7) % ITEM_WIDTH;
+        return frame % 2 == 0 ? distance : -distance;
+    }
+}
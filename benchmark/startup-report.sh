@@ -0,0 +1,82 @@
+#!/bin/sh
+#
+# Compares the cold start time of two builds of the app on a connected device.
+#
+#   benchmark/startup-report.sh before.apk after.apk [runs]
+#
+# Each APK is installed, compiled with its packaged profile the way a fresh install from
+# the store would be, started from a killed process with 'am start -W' the given number
+# of times (10 by default), and the median TotalTime and the median time to
+# reportFullyDrawn() are printed. The report is also written to startup-report.json.
+
+set -e
+
+if [ $# -lt 2 ]; then
+    echo "usage: $0 before.apk after.apk [runs]" >&2
+    exit 1
+fi
+
+BEFORE_APK=$1
+AFTER_APK=$2
+RUNS=${3:-10}
+PACKAGE=com.ngamolsky.android.materialme
+ACTIVITY=com.example.android.materialme.MainActivity
+REPORT=startup-report.json
+
+# Installs an APK and compiles it the same way for both builds, using its baseline profile
+# when it packages one
+install_build() {
+    adb install -r "$1" > /dev/null
+    adb shell cmd package compile -f -m speed-profile $PACKAGE > /dev/null || true
+}
+
+median() {
+    sort -n | awk '{ values[NR] = $1 } END { if (NR == 0) print 0; else print values[int((NR + 1) / 2)] }'
+}
+
+# Prints "<median TotalTime> <median fully drawn>" for the installed build
+measure() {
+    total_times=""
+    drawn_times=""
+    run=0
+    while [ $run -lt "$RUNS" ]; do
+        adb shell am force-stop $PACKAGE
+        # Let the device settle so runs do not overlap
+        sleep 1
+        adb logcat -c
+        total=$(adb shell am start -W -n $PACKAGE/$ACTIVITY | tr -d '\r' | awk -F': ' '/TotalTime/ { print $2 }')
+        sleep 2
+        drawn=$(adb logcat -d -s ActivityTaskManager:I ActivityManager:I | tr -d '\r' \
+            | sed -n "s/.*Fully drawn $PACKAGE\/[^:]*: +\([0-9s]*\)ms.*/\1/p" | tail -n 1 \
+            | awk -F's' '{ if (NF > 1) print $1 * 1000 + $2; else print $1 }')
+        total_times="$total_times$total
+"
+        drawn_times="$drawn_times${drawn:-0}
+"
+        run=$((run + 1))
+    done
+    echo "$(printf '%s' "$total_times" | median) $(printf '%s' "$drawn_times" | median)"
+}
+
+install_build "$BEFORE_APK"
+set -- $(measure)
+BEFORE_TOTAL=$1
+BEFORE_DRAWN=$2
+
+install_build "$AFTER_APK"
+set -- $(measure)
+AFTER_TOTAL=$1
+AFTER_DRAWN=$2
+
+printf '%-24s %10s %10s\n' "median of $RUNS runs" "before" "after"
+printf '%-24s %8sms %8sms\n' "TotalTime" "$BEFORE_TOTAL" "$AFTER_TOTAL"
+printf '%-24s %8sms %8sms\n' "Fully drawn" "$BEFORE_DRAWN" "$AFTER_DRAWN"
+
+cat > $REPORT <<JSON
+{
+  "runs": $RUNS,
+  "before": { "apk": "$BEFORE_APK", "totalTimeMs": $BEFORE_TOTAL, "fullyDrawnMs": $BEFORE_DRAWN },
+  "after": { "apk": "$AFTER_APK", "totalTimeMs": $AFTER_TOTAL, "fullyDrawnMs": $AFTER_DRAWN }
+}
+JSON
+echo "Report written to $REPORT"